@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.dynamisengine.vectrix.geometry.AabbBvh;
+import org.dynamisengine.vectrix.geometry.LinearBvhBuilder;
+import org.dynamisengine.vectrix.soa.AABBSoA;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BvhBuildBenchmark extends ThroughputBenchmark {
+    @Param({"4096", "16384", "65536"})
+    public int count;
+
+    @Param({"1", "4"})
+    public int workers;
+
+    private AABBSoA aabbs;
+    private AabbBvh sah;
+    private AabbBvh lbvh;
+    private LinearBvhBuilder builder;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        SplittableRandom rnd = new SplittableRandom(1212L);
+        aabbs = new AABBSoA(count);
+        for (int i = 0; i < count; i++) {
+            float cx = (float) rnd.nextDouble(-500.0, 500.0);
+            float cy = (float) rnd.nextDouble(-50.0, 50.0);
+            float cz = (float) rnd.nextDouble(-500.0, 500.0);
+            float ex = (float) rnd.nextDouble(0.2, 3.0);
+            float ey = (float) rnd.nextDouble(0.2, 3.0);
+            float ez = (float) rnd.nextDouble(0.2, 3.0);
+            aabbs.set(i, cx - ex, cy - ey, cz - ez, cx + ex, cy + ey, cz + ez);
+        }
+        sah = new AabbBvh();
+        lbvh = new AabbBvh();
+        builder = new LinearBvhBuilder();
+        pool = new ForkJoinPool(workers);
+        builder.build(lbvh, aabbs, count, AabbBvh.DEFAULT_MAX_LEAF_SIZE, pool);
+    }
+
+    @TearDown
+    public void teardown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int sahBuild() {
+        return sah.build(aabbs, count).nodeCount();
+    }
+
+    @Benchmark
+    public int linearBuild() {
+        return builder.build(lbvh, aabbs, count, AabbBvh.DEFAULT_MAX_LEAF_SIZE, null).nodeCount();
+    }
+
+    @Benchmark
+    public int linearBuildParallel() {
+        return builder.build(lbvh, aabbs, count, AabbBvh.DEFAULT_MAX_LEAF_SIZE, pool).nodeCount();
+    }
+
+    @Benchmark
+    public float refit() {
+        lbvh.refit();
+        return lbvh.nodeMaxX()[0];
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.dynamisengine.vectrix.core.Matrix4f;
+import org.dynamisengine.vectrix.geometry.AabbBvh;
+import org.dynamisengine.vectrix.geometry.BvhFrustumCuller;
+import org.dynamisengine.vectrix.geometry.CullingKernels;
+import org.dynamisengine.vectrix.geometry.FrustumIntersection;
+import org.dynamisengine.vectrix.geometry.FrustumPlanes;
+import org.dynamisengine.vectrix.geometry.Intersectionf;
+import org.dynamisengine.vectrix.soa.AABBSoA;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BvhQueryBenchmark extends ThroughputBenchmark {
+    private static final int QUERIES = 256;
+
+    @Param({"65536", "1048576"})
+    public int count;
+
+    private AABBSoA aabbs;
+    private AabbBvh bvh;
+    private BvhFrustumCuller culler;
+    private FrustumPlanes planes;
+    private float[] ray;
+    private float[] box;
+    private int[] out;
+    private int[] outResults;
+    private int query;
+
+    @Setup
+    public void setup() {
+        SplittableRandom rnd = new SplittableRandom(1111L);
+        aabbs = new AABBSoA(count);
+        for (int i = 0; i < count; i++) {
+            float cx = (float) rnd.nextDouble(-1000.0, 1000.0);
+            float cy = (float) rnd.nextDouble(-1000.0, 1000.0);
+            float cz = (float) rnd.nextDouble(-1000.0, 1000.0);
+            float ex = (float) rnd.nextDouble(0.1, 4.0);
+            float ey = (float) rnd.nextDouble(0.1, 4.0);
+            float ez = (float) rnd.nextDouble(0.1, 4.0);
+            aabbs.set(i, cx - ex, cy - ey, cz - ez, cx + ex, cy + ey, cz + ez);
+        }
+        bvh = new AabbBvh().build(aabbs, count);
+        culler = new BvhFrustumCuller(bvh);
+        planes = new FrustumPlanes().set(new Matrix4f()
+                .perspective((float) java.lang.Math.toRadians(60.0), 16.0f / 9.0f, 0.1f, 300.0f)
+                .lookAt(0.0f, 0.0f, 0.0f, 0.0f, 0.0f, -1.0f, 0.0f, 1.0f, 0.0f), true);
+        ray = new float[QUERIES * 6];
+        box = new float[QUERIES * 3];
+        for (int q = 0; q < QUERIES; q++) {
+            ray[q * 6] = (float) rnd.nextDouble(-1000.0, 1000.0);
+            ray[q * 6 + 1] = (float) rnd.nextDouble(-1000.0, 1000.0);
+            ray[q * 6 + 2] = -1200.0f;
+            ray[q * 6 + 3] = (float) rnd.nextDouble(-0.5, 0.5);
+            ray[q * 6 + 4] = (float) rnd.nextDouble(-0.5, 0.5);
+            ray[q * 6 + 5] = 1.0f;
+            box[q * 3] = (float) rnd.nextDouble(-1000.0, 1000.0);
+            box[q * 3 + 1] = (float) rnd.nextDouble(-1000.0, 1000.0);
+            box[q * 3 + 2] = (float) rnd.nextDouble(-1000.0, 1000.0);
+        }
+        out = new int[count];
+        outResults = new int[count];
+    }
+
+    @Benchmark
+    public int rayLinearScan() {
+        int o = next() * 6;
+        float ox = ray[o], oy = ray[o + 1], oz = ray[o + 2], dx = ray[o + 3], dy = ray[o + 4], dz = ray[o + 5];
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            if (Intersectionf.testRayAab(ox, oy, oz, dx, dy, dz,
+                    aabbs.minX[i], aabbs.minY[i], aabbs.minZ[i], aabbs.maxX[i], aabbs.maxY[i], aabbs.maxZ[i])) {
+                out[hits++] = i;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int rayBvh() {
+        int o = next() * 6;
+        return bvh.queryRay(ray[o], ray[o + 1], ray[o + 2], ray[o + 3], ray[o + 4], ray[o + 5], out);
+    }
+
+    @Benchmark
+    public int aabbLinearScan() {
+        int o = next() * 3;
+        float x = box[o], y = box[o + 1], z = box[o + 2];
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            if (Intersectionf.testAabAab(aabbs.minX[i], aabbs.minY[i], aabbs.minZ[i], aabbs.maxX[i], aabbs.maxY[i], aabbs.maxZ[i],
+                    x - 10.0f, y - 10.0f, z - 10.0f, x + 10.0f, y + 10.0f, z + 10.0f)) {
+                out[hits++] = i;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int aabbBvh() {
+        int o = next() * 3;
+        float x = box[o], y = box[o + 1], z = box[o + 2];
+        return bvh.queryAabb(x - 10.0f, y - 10.0f, z - 10.0f, x + 10.0f, y + 10.0f, z + 10.0f, out);
+    }
+
+    @Benchmark
+    public int frustumLinearScan() {
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            if (CullingKernels.classifyAabb(planes, aabbs.minX[i], aabbs.minY[i], aabbs.minZ[i], aabbs.maxX[i], aabbs.maxY[i], aabbs.maxZ[i])
+                    != FrustumIntersection.OUTSIDE) {
+                out[hits++] = i;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int frustumBvh() {
+        return bvh.queryFrustum(planes, out);
+    }
+
+    @Benchmark
+    public int frustumBvhMaskedCoherent() {
+        return culler.cull(planes, out, outResults);
+    }
+
+    private int next() {
+        int q = query;
+        query = (q + 1) & (QUERIES - 1);
+        return q;
+    }
+}
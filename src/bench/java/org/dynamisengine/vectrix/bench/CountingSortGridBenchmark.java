@@ -0,0 +1,147 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.dynamisengine.vectrix.hash.CountingSortGrid;
+import org.dynamisengine.vectrix.hash.SpatialHashGrid;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CountingSortGridBenchmark extends ThroughputBenchmark {
+    private static final float SMOOTHING_RADIUS = 1.0f;
+
+    @Param({"65536", "262144"})
+    public int count;
+
+    @Param({"1", "4"})
+    public int workers;
+
+    private float[] x;
+    private float[] y;
+    private float[] z;
+    private float[] density;
+    private float[] sortedDensity;
+    private int[] out;
+    private CountingSortGrid grid;
+    private SpatialHashGrid incremental;
+    private ForkJoinPool pool;
+    private int frame;
+
+    @Setup
+    public void setup() {
+        SplittableRandom rnd = new SplittableRandom(103L);
+        // About eight particles per smoothing-radius cell, a typical SPH density.
+        float extent = (float) java.lang.Math.cbrt(count / 8.0);
+        x = new float[count];
+        y = new float[count];
+        z = new float[count];
+        density = new float[count];
+        sortedDensity = new float[count];
+        out = new int[1024];
+        incremental = new SpatialHashGrid(SMOOTHING_RADIUS, count);
+        for (int i = 0; i < count; i++) {
+            x[i] = (float) rnd.nextDouble(0.0, extent);
+            y[i] = (float) rnd.nextDouble(0.0, extent);
+            z[i] = (float) rnd.nextDouble(0.0, extent);
+            incremental.insert(i, x[i], y[i], z[i]);
+        }
+        grid = new CountingSortGrid(SMOOTHING_RADIUS);
+        pool = new ForkJoinPool(workers);
+    }
+
+    @TearDown
+    public void teardown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int rebuild() {
+        step();
+        return grid.build(x, y, z, count, pool).bucketCount();
+    }
+
+    /**
+     * One SPH-style frame: rebuild, accumulate a density kernel over all neighbor pairs in sorted order and
+     * scatter the result back to particle order.
+     */
+    @Benchmark
+    public float rebuildAndDensityPass() {
+        step();
+        grid.build(x, y, z, count, pool);
+        final float[] d = sortedDensity;
+        java.util.Arrays.fill(d, 0.0f);
+        grid.forEachNeighborPair(SMOOTHING_RADIUS, (i, j, d2) -> d[i] += 1.0f - d2, pool);
+        grid.scatter(d, density, pool);
+        return density[0];
+    }
+
+    /**
+     * Baseline: keep an incrementally maintained {@link SpatialHashGrid} and run the same density pass through
+     * per-particle radius queries.
+     */
+    @Benchmark
+    public float incrementalMoveAndDensityPass() {
+        step();
+        for (int i = 0; i < count; i++) {
+            incremental.move(i, x[i], y[i], z[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            int found = java.lang.Math.min(incremental.queryRadius(x[i], y[i], z[i], SMOOTHING_RADIUS, out), out.length);
+            float sum = 0.0f;
+            for (int k = 0; k < found; k++) {
+                int j = out[k];
+                if (j != i) {
+                    float dx = x[j] - x[i], dy = y[j] - y[i], dz = z[j] - z[i];
+                    sum += 1.0f - (dx * dx + dy * dy + dz * dz);
+                }
+            }
+            density[i] = sum;
+        }
+        return density[0];
+    }
+
+    /**
+     * Jitter every particle, alternating direction between frames so the cloud stays in place.
+     */
+    private void step() {
+        float delta = (frame++ & 1) == 0 ? 0.05f : -0.05f;
+        for (int i = 0; i < count; i++) {
+            x[i] += (i & 1) == 0 ? delta : -delta;
+            y[i] += (i & 2) == 0 ? delta : -delta;
+        }
+    }
+}
@@ -39,6 +39,7 @@ import org.dynamisengine.vectrix.geometry.CullingKernels;
 import org.dynamisengine.vectrix.geometry.FrustumIntersection;
 import org.dynamisengine.vectrix.geometry.FrustumPlanes;
 import org.dynamisengine.vectrix.soa.AABBSoA;
+import org.dynamisengine.vectrix.soa.SphereSoA;
 
 @State(Scope.Benchmark)
 @OutputTimeUnit(TimeUnit.NANOSECONDS)
@@ -47,9 +48,20 @@ public class FrustumCullingBenchmark extends ThroughputBenchmark {
     public int count;
 
     private AABBSoA aabbs;
+    private SphereSoA spheres;
     private int[] out;
+    private int[] outIntersect;
+    private final int[] outCounts = new int[2];
     private FrustumPlanes planes;
+    private FrustumPlanes normalizedPlanes;
+    private FrustumPlanes[] views;
+    private int[] viewMasks;
+    private int[][] viewLists;
+    private int[] viewCounts;
     private FrustumIntersection frustum;
+    private Matrix4f viewProj;
+    private final float[] lodThresholds = {0.4f, 0.15f, 0.05f, 0.02f};
+    private int[] lodState;
 
     @Setup
     public void setup() {
@@ -57,9 +69,31 @@ public class FrustumCullingBenchmark extends ThroughputBenchmark {
                 .perspective((float) java.lang.Math.toRadians(75.0), 16.0f / 9.0f, 0.1f, 500.0f)
                 .lookAt(2.0f, 3.0f, 14.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f);
         planes = new FrustumPlanes().set(vp, false);
+        normalizedPlanes = new FrustumPlanes().set(vp, true);
+        // Main camera, 4 shadow cascades and 2 reflection views.
+        views = new FrustumPlanes[7];
+        views[0] = planes;
+        for (int c = 0; c < 4; c++) {
+            float extent = 40.0f * (c + 1);
+            views[1 + c] = new FrustumPlanes().set(new Matrix4f()
+                    .ortho(-extent, extent, -extent, extent, -400.0f, 400.0f)
+                    .lookAt(0.0f, 0.0f, 0.0f, -0.4f, -1.0f, -0.3f, 0.0f, 0.0f, 1.0f), false);
+        }
+        for (int r = 0; r < 2; r++) {
+            views[5 + r] = new FrustumPlanes().set(new Matrix4f()
+                    .perspective((float) java.lang.Math.toRadians(75.0), 16.0f / 9.0f, 0.1f, 500.0f)
+                    .lookAt(2.0f, -3.0f - r, 14.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f), false);
+        }
+        viewMasks = new int[count];
+        viewLists = new int[views.length][count];
+        viewCounts = new int[views.length];
         frustum = new FrustumIntersection(vp);
+        viewProj = vp;
+        lodState = new int[count];
         aabbs = new AABBSoA(count);
+        spheres = new SphereSoA(count);
         out = new int[count];
+        outIntersect = new int[count];
         SplittableRandom rnd = new SplittableRandom(77L);
         for (int i = 0; i < count; i++) {
             float cx = (float) rnd.nextDouble(-200.0, 200.0);
@@ -69,6 +103,7 @@ public class FrustumCullingBenchmark extends ThroughputBenchmark {
             float ey = (float) rnd.nextDouble(0.05, 8.0);
             float ez = (float) rnd.nextDouble(0.05, 8.0);
             aabbs.set(i, cx - ex, cy - ey, cz - ez, cx + ex, cy + ey, cz + ez);
+            spheres.set(i, cx, cy, cz, (float) java.lang.Math.sqrt(ex * ex + ey * ey + ez * ez));
         }
     }
 
@@ -92,6 +127,117 @@ public class FrustumCullingBenchmark extends ThroughputBenchmark {
         return out;
     }
 
+    @Benchmark
+    public int batchKernelThenCompactPass() {
+        CullingKernels.frustumCullAabbBatch(planes, aabbs, out, count);
+        int visible = 0;
+        for (int i = 0; i < count; i++) {
+            if (out[i] != FrustumIntersection.OUTSIDE) {
+                outIntersect[visible++] = i;
+            }
+        }
+        return visible;
+    }
+
+    @Benchmark
+    public int compactKernelScalarForced() {
+        return CullingKernels.frustumCullAabbBatchCompactScalar(planes, aabbs, count, out);
+    }
+
+    @Benchmark
+    public int compactKernelSimdForced() {
+        return CullingKernels.frustumCullAabbBatchCompactSimd(planes, aabbs, count, out);
+    }
+
+    @Benchmark
+    public int compactSplitKernelSimdForced() {
+        return CullingKernels.frustumCullAabbBatchCompactSimd(planes, aabbs, count, out, outIntersect, outCounts);
+    }
+
+    @Benchmark
+    public int[] sevenViewsSeparatePasses() {
+        for (FrustumPlanes view : views) {
+            CullingKernels.frustumCullAabbBatch(view, aabbs, out, count);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public int[] sevenViewsSinglePassScalarForced() {
+        CullingKernels.frustumCullAabbMultiViewScalar(views, views.length, aabbs, viewMasks, count);
+        return viewMasks;
+    }
+
+    @Benchmark
+    public int[] sevenViewsSinglePassSimdForced() {
+        CullingKernels.frustumCullAabbMultiViewSimd(views, views.length, aabbs, viewMasks, count);
+        return viewMasks;
+    }
+
+    @Benchmark
+    public int[] sevenViewsSinglePassLists() {
+        CullingKernels.frustumCullAabbMultiView(views, views.length, aabbs, count, viewLists, viewCounts);
+        return viewCounts;
+    }
+
+    @Benchmark
+    public int[] cullThenLodSeparatePasses() {
+        CullingKernels.frustumCullAabbBatchScalar(planes, aabbs, out, count);
+        float scale = (float) java.lang.Math.sqrt(viewProj.m01() * viewProj.m01() + viewProj.m11() * viewProj.m11()
+                + viewProj.m21() * viewProj.m21());
+        for (int i = 0; i < count; i++) {
+            if (out[i] == FrustumIntersection.OUTSIDE) {
+                out[i] = CullingKernels.LOD_CULLED;
+                continue;
+            }
+            float ex = aabbs.maxX[i] - aabbs.minX[i];
+            float ey = aabbs.maxY[i] - aabbs.minY[i];
+            float ez = aabbs.maxZ[i] - aabbs.minZ[i];
+            float radius = (float) java.lang.Math.sqrt(ex * ex + ey * ey + ez * ez) * 0.5f;
+            float w = (aabbs.minX[i] + aabbs.maxX[i]) * 0.5f * viewProj.m03() + (aabbs.minY[i] + aabbs.maxY[i]) * 0.5f * viewProj.m13()
+                    + (aabbs.minZ[i] + aabbs.maxZ[i]) * 0.5f * viewProj.m23() + viewProj.m33();
+            float size = w > 0.0f ? radius * scale / w : Float.POSITIVE_INFINITY;
+            int lod = 0;
+            for (float t : lodThresholds) {
+                lod += size < t ? 1 : 0;
+            }
+            out[i] = lod;
+        }
+        return out;
+    }
+
+    @Benchmark
+    public int[] fusedCullLodScalarForced() {
+        CullingKernels.frustumCullLodAabbBatchScalar(viewProj, aabbs, lodThresholds, 0.1f, lodState, out, count);
+        return out;
+    }
+
+    @Benchmark
+    public int[] fusedCullLodSimdForced() {
+        CullingKernels.frustumCullLodAabbBatchSimd(viewProj, aabbs, lodThresholds, 0.1f, lodState, out, count);
+        return out;
+    }
+
+    @Benchmark
+    public int[] sphereBatchKernelAuto() {
+        KernelConfig.setMathMode(MathMode.FAST);
+        KernelConfig.setSimdEnabled(true);
+        CullingKernels.frustumCullSphereBatch(normalizedPlanes, spheres, out, count);
+        return out;
+    }
+
+    @Benchmark
+    public int[] sphereBatchKernelScalarForced() {
+        CullingKernels.frustumCullSphereBatchScalar(normalizedPlanes, spheres, out, count);
+        return out;
+    }
+
+    @Benchmark
+    public int[] sphereBatchKernelSimdForced() {
+        CullingKernels.frustumCullSphereBatchSimd(normalizedPlanes, spheres, out, count);
+        return out;
+    }
+
     @Benchmark
     public int[] frustumIntersectionLoop() {
         for (int i = 0; i < count; i++) {
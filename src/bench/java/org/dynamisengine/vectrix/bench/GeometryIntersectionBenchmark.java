@@ -15,6 +15,7 @@ import org.dynamisengine.vectrix.geometry.Intersectiond;
 import org.dynamisengine.vectrix.geometry.Intersectionf;
 import org.dynamisengine.vectrix.geometry.PolygonsIntersection;
 import org.dynamisengine.vectrix.geometry.RayAabIntersection;
+import org.dynamisengine.vectrix.geometry.RayPacket;
 
 import java.util.SplittableRandom;
 import java.util.concurrent.TimeUnit;
@@ -68,6 +69,8 @@ public class GeometryIntersectionBenchmark extends ThroughputBenchmark {
     private float[] t2z;
 
     private RayAabIntersection[] slopeIntersectors;
+    private RayPacket[] packets4;
+    private RayPacket[] packets8;
     private int[] order;
 
     private float[] polygonVerts;
@@ -168,6 +171,8 @@ public class GeometryIntersectionBenchmark extends ThroughputBenchmark {
         if ("random".equals(accessPattern)) {
             shuffle(order, rnd.split());
         }
+        packets4 = packets(4);
+        packets8 = packets(8);
 
         polygonVerts = new float[verts * 2];
         for (int i = 0; i < verts; i++) {
@@ -255,6 +260,50 @@ public class GeometryIntersectionBenchmark extends ThroughputBenchmark {
         return hits;
     }
 
+    /**
+     * Single-ray reference for the packet benchmarks: the 8 consecutive rays around {@code idx} against box {@code idx}.
+     */
+    @Benchmark
+    public int rayAabGroupOf8SingleBatch() {
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            int idx = order[i];
+            for (int r = idx & ~7, end = r + 8; r < end; r++) {
+                boolean hit = Intersectionf.testRayAabInvDir(
+                        ox[r], oy[r], oz[r],
+                        invDx[r], invDy[r], invDz[r],
+                        minX[idx], minY[idx], minZ[idx], maxX[idx], maxY[idx], maxZ[idx]);
+                hits += hit ? 1 : 0;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int rayAabPacket4Batch() {
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            int idx = order[i];
+            int group = (idx & ~7) >> 2;
+            RayPacket low = packets4[group];
+            RayPacket high = packets4[group + 1];
+            hits += Integer.bitCount(low.testAab(minX[idx], minY[idx], minZ[idx], maxX[idx], maxY[idx], maxZ[idx], low.activeMask()));
+            hits += Integer.bitCount(high.testAab(minX[idx], minY[idx], minZ[idx], maxX[idx], maxY[idx], maxZ[idx], high.activeMask()));
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int rayAabPacket8Batch() {
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            int idx = order[i];
+            RayPacket packet = packets8[idx >> 3];
+            hits += Integer.bitCount(packet.testAab(minX[idx], minY[idx], minZ[idx], maxX[idx], maxY[idx], maxZ[idx], packet.activeMask()));
+        }
+        return hits;
+    }
+
     @Benchmark
     public int polygonPointBatch() {
         int inside = 0;
@@ -265,6 +314,17 @@ public class GeometryIntersectionBenchmark extends ThroughputBenchmark {
         return inside;
     }
 
+    private RayPacket[] packets(int width) {
+        RayPacket[] result = new RayPacket[count / width];
+        for (int p = 0; p < result.length; p++) {
+            RayPacket packet = result[p] = new RayPacket(width);
+            for (int r = p * width, end = r + width; r < end; r++) {
+                packet.add(ox[r], oy[r], oz[r], dx[r], dy[r], dz[r], Float.POSITIVE_INFINITY);
+            }
+        }
+        return result;
+    }
+
     private static void shuffle(int[] a, SplittableRandom rnd) {
         for (int i = a.length - 1; i > 0; i--) {
             int j = rnd.nextInt(i + 1);
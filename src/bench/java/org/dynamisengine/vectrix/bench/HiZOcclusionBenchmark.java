@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.dynamisengine.vectrix.core.Matrix4f;
+import org.dynamisengine.vectrix.geometry.HiZOcclusionBuffer;
+import org.dynamisengine.vectrix.soa.AABBSoA;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HiZOcclusionBenchmark extends ThroughputBenchmark {
+    private static final int OCCLUDER_TRIANGLES = 256;
+
+    @Param({"16384", "100000"})
+    public int count;
+
+    @Param({"1", "4"})
+    public int workers;
+
+    private Matrix4f viewProj;
+    private float[] positions;
+    private int[] indices;
+    private AABBSoA aabbs;
+    private boolean[] visible;
+    private HiZOcclusionBuffer buffer;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        viewProj = new Matrix4f()
+                .perspective((float) java.lang.Math.toRadians(75.0), 16.0f / 9.0f, 0.1f, 500.0f)
+                .lookAt(2.0f, 3.0f, 14.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f);
+        SplittableRandom rnd = new SplittableRandom(91L);
+        positions = new float[OCCLUDER_TRIANGLES * 9];
+        indices = new int[OCCLUDER_TRIANGLES * 3];
+        for (int t = 0; t < OCCLUDER_TRIANGLES; t++) {
+            float cx = (float) rnd.nextDouble(-60.0, 60.0);
+            float cy = (float) rnd.nextDouble(-20.0, 20.0);
+            float cz = (float) rnd.nextDouble(-60.0, 0.0);
+            for (int v = 0; v < 3; v++) {
+                positions[t * 9 + v * 3] = cx + (float) rnd.nextDouble(-12.0, 12.0);
+                positions[t * 9 + v * 3 + 1] = cy + (float) rnd.nextDouble(-12.0, 12.0);
+                positions[t * 9 + v * 3 + 2] = cz + (float) rnd.nextDouble(-2.0, 2.0);
+                indices[t * 3 + v] = t * 3 + v;
+            }
+        }
+        aabbs = new AABBSoA(count);
+        for (int i = 0; i < count; i++) {
+            float cx = (float) rnd.nextDouble(-200.0, 200.0);
+            float cy = (float) rnd.nextDouble(-120.0, 120.0);
+            float cz = (float) rnd.nextDouble(-300.0, 0.0);
+            float e = (float) rnd.nextDouble(0.1, 4.0);
+            aabbs.set(i, cx - e, cy - e, cz - e, cx + e, cy + e, cz + e);
+        }
+        visible = new boolean[count];
+        pool = new ForkJoinPool(workers);
+        buffer = new HiZOcclusionBuffer(256, 128).begin(viewProj).rasterize(positions, indices, OCCLUDER_TRIANGLES);
+    }
+
+    @TearDown
+    public void teardown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public float rasterizeScalarForced() {
+        return buffer.begin(viewProj).rasterizeScalar(positions, indices, OCCLUDER_TRIANGLES, pool).depth(0, 128, 64);
+    }
+
+    @Benchmark
+    public float rasterizeSimdForced() {
+        return buffer.begin(viewProj).rasterizeSimd(positions, indices, OCCLUDER_TRIANGLES, pool).depth(0, 128, 64);
+    }
+
+    @Benchmark
+    public boolean[] testBoxesScalarForced() {
+        buffer.testAabbBatchScalar(aabbs, visible, count, pool);
+        return visible;
+    }
+
+    @Benchmark
+    public boolean[] testBoxesSimdForced() {
+        buffer.testAabbBatchSimd(aabbs, visible, count, pool);
+        return visible;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.dynamisengine.vectrix.affine.PackedAffineArray;
+import org.dynamisengine.vectrix.affine.PackedAffineKernels;
+import org.dynamisengine.vectrix.affine.Transformf;
+import org.dynamisengine.vectrix.geometry.InstanceBvh;
+import org.dynamisengine.vectrix.geometry.RayHit;
+import org.dynamisengine.vectrix.geometry.TriangleBvh;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InstancedRayBenchmark extends ThroughputBenchmark {
+    private static final int GRID = 32;
+    private static final int RAYS = 1024;
+
+    @Param({"16", "256", "2048"})
+    public int instances;
+
+    private InstanceBvh scene;
+    private TriangleBvh flattened;
+    private float[] rays;
+    private final RayHit hit = new RayHit();
+    private int next;
+
+    @Setup
+    public void setup() {
+        // One bumpy GRID x GRID patch, instanced with random rigid transforms and uniform scale.
+        SplittableRandom rnd = new SplittableRandom(1313L);
+        float[] positions = new float[(GRID + 1) * (GRID + 1) * 3];
+        int[] indices = new int[GRID * GRID * 6];
+        for (int y = 0; y <= GRID; y++) {
+            for (int x = 0; x <= GRID; x++) {
+                int v = (y * (GRID + 1) + x) * 3;
+                positions[v] = x / (float) GRID - 0.5f;
+                positions[v + 1] = y / (float) GRID - 0.5f;
+                positions[v + 2] = (float) (0.05 * java.lang.Math.sin(x * 0.7) * java.lang.Math.cos(y * 0.5));
+            }
+        }
+        int k = 0;
+        for (int y = 0; y < GRID; y++) {
+            for (int x = 0; x < GRID; x++) {
+                int a = y * (GRID + 1) + x;
+                indices[k++] = a;
+                indices[k++] = a + 1;
+                indices[k++] = a + GRID + 2;
+                indices[k++] = a;
+                indices[k++] = a + GRID + 2;
+                indices[k++] = a + GRID + 1;
+            }
+        }
+        TriangleBvh mesh = new TriangleBvh(positions, indices, GRID * GRID * 2);
+
+        float extent = (float) java.lang.Math.cbrt(instances) * 4.0f;
+        Transformf[] trs = new Transformf[instances];
+        int[] instanceMesh = new int[instances];
+        for (int i = 0; i < instances; i++) {
+            Transformf t = new Transformf();
+            t.translation.set((float) rnd.nextDouble(-extent, extent), (float) rnd.nextDouble(-extent, extent), (float) rnd.nextDouble(-extent, extent));
+            t.rotation.identity().rotateXYZ((float) rnd.nextDouble(-3.0, 3.0), (float) rnd.nextDouble(-3.0, 3.0), (float) rnd.nextDouble(-3.0, 3.0));
+            float s = (float) rnd.nextDouble(1.0, 3.0);
+            t.scale.set(s, s, s);
+            trs[i] = t;
+        }
+        PackedAffineArray transforms = new PackedAffineArray(instances);
+        PackedAffineKernels.trsToPackedAffineBatch(trs, transforms, instances);
+        scene = new InstanceBvh().build(new TriangleBvh[] {mesh}, instanceMesh, transforms, instances);
+
+        int vertices = positions.length / 3;
+        float[] world = new float[positions.length * instances];
+        int[] worldIndices = new int[indices.length * instances];
+        float[] m = transforms.raw();
+        for (int i = 0; i < instances; i++) {
+            int o = transforms.offsetOf(i);
+            for (int v = 0; v < vertices; v++) {
+                float x = positions[v * 3], y = positions[v * 3 + 1], z = positions[v * 3 + 2];
+                int w = (i * vertices + v) * 3;
+                world[w] = m[o] * x + m[o + 4] * y + m[o + 8] * z + m[o + 3];
+                world[w + 1] = m[o + 1] * x + m[o + 5] * y + m[o + 9] * z + m[o + 7];
+                world[w + 2] = m[o + 2] * x + m[o + 6] * y + m[o + 10] * z + m[o + 11];
+            }
+            for (int j = 0; j < indices.length; j++) {
+                worldIndices[i * indices.length + j] = indices[j] + i * vertices;
+            }
+        }
+        flattened = new TriangleBvh(world, worldIndices, GRID * GRID * 2 * instances);
+
+        rays = new float[RAYS * 6];
+        for (int r = 0; r < RAYS; r++) {
+            float ox = (float) rnd.nextDouble(-2.0 * extent, 2.0 * extent);
+            float oy = (float) rnd.nextDouble(-2.0 * extent, 2.0 * extent);
+            float oz = -2.0f * extent;
+            rays[r * 6] = ox;
+            rays[r * 6 + 1] = oy;
+            rays[r * 6 + 2] = oz;
+            rays[r * 6 + 3] = (float) rnd.nextDouble(-extent, extent) - ox;
+            rays[r * 6 + 4] = (float) rnd.nextDouble(-extent, extent) - oy;
+            rays[r * 6 + 5] = -oz;
+        }
+    }
+
+    @Benchmark
+    public float instancedClosestHit() {
+        int o = nextRay();
+        scene.intersectRay(rays[o], rays[o + 1], rays[o + 2], rays[o + 3], rays[o + 4], rays[o + 5], hit.reset(Float.POSITIVE_INFINITY));
+        return hit.t;
+    }
+
+    @Benchmark
+    public float flattenedClosestHit() {
+        int o = nextRay();
+        flattened.intersectRay(rays[o], rays[o + 1], rays[o + 2], rays[o + 3], rays[o + 4], rays[o + 5], hit.reset(Float.POSITIVE_INFINITY));
+        return hit.t;
+    }
+
+    @Benchmark
+    public boolean instancedAnyHit() {
+        int o = nextRay();
+        return scene.testRay(rays[o], rays[o + 1], rays[o + 2], rays[o + 3], rays[o + 4], rays[o + 5], 1.0f);
+    }
+
+    private int nextRay() {
+        int r = next;
+        next = (r + 1) & (RAYS - 1);
+        return r * 6;
+    }
+}
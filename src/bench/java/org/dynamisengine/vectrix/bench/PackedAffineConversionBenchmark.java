@@ -15,6 +15,7 @@ import org.dynamisengine.vectrix.affine.PackedAffineArray;
 import org.dynamisengine.vectrix.affine.PackedAffineKernels;
 import org.dynamisengine.vectrix.affine.Transformf;
 import org.dynamisengine.vectrix.core.Matrix4f;
+import org.dynamisengine.vectrix.core.Matrix4x3f;
 import org.dynamisengine.vectrix.core.Quaternionf;
 
 import java.util.SplittableRandom;
@@ -33,6 +34,11 @@ public class PackedAffineConversionBenchmark extends ThroughputBenchmark {
     private Transformf[] transforms;
     private Matrix4f[] matrices;
     private PackedAffineArray out;
+    private PackedAffineArray packed;
+    private PackedAffineArray inverse;
+    private float[] normal;
+    private Matrix4x3f[] objects;
+    private Matrix4x3f[] objectInverse;
 
     @Setup
     public void setup() {
@@ -70,6 +76,16 @@ public class PackedAffineConversionBenchmark extends ThroughputBenchmark {
 
             matrices[i] = new Matrix4f().translationRotateScale(px, py, pz, q.x, q.y, q.z, q.w, sx, sy, sz);
         }
+        packed = new PackedAffineArray(size);
+        inverse = new PackedAffineArray(size);
+        normal = new float[size * PackedAffineKernels.NORMAL_MATRIX_STRIDE_FLOATS];
+        PackedAffineKernels.trsToPackedAffineBatch(transforms, packed, size);
+        objects = new Matrix4x3f[size];
+        objectInverse = new Matrix4x3f[size];
+        for (int i = 0; i < size; i++) {
+            objects[i] = new Matrix4x3f().set(matrices[i]);
+            objectInverse[i] = new Matrix4x3f();
+        }
     }
 
     @Benchmark
@@ -89,4 +105,24 @@ public class PackedAffineConversionBenchmark extends ThroughputBenchmark {
         PackedAffineKernels.matrix4fToPackedAffineBatch(matrices, out, size);
         return out.raw();
     }
+
+    @Benchmark
+    public Matrix4x3f[] invertObjectLoop() {
+        for (int i = 0; i < size; i++) {
+            objects[i].invert(objectInverse[i]);
+        }
+        return objectInverse;
+    }
+
+    @Benchmark
+    public float[] invertPackedAffineBatch() {
+        PackedAffineKernels.invertPackedAffineBatch(packed, inverse, normal, size);
+        return inverse.raw();
+    }
+
+    @Benchmark
+    public float[] invertRigidPackedAffineBatch() {
+        PackedAffineKernels.invertRigidPackedAffineBatch(packed, inverse, normal, size);
+        return inverse.raw();
+    }
 }
@@ -13,6 +13,7 @@ import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.dynamisengine.vectrix.affine.PackedAffineArray;
+import org.dynamisengine.vectrix.affine.PackedAffineKernels;
 import org.dynamisengine.vectrix.affine.Transformf;
 import org.dynamisengine.vectrix.core.Matrix4f;
 import org.dynamisengine.vectrix.core.Vector3f;
@@ -31,7 +32,7 @@ public class ParallelTransformBenchmark extends ThroughputBenchmark {
     @Param({"256", "1024"})
     public int chunkSize;
 
-    @Param({"2", "4", "8"})
+    @Param({"1", "2", "4", "8"})
     public int workers;
 
     @Param({"matrix", "packedAffine"})
@@ -52,6 +53,8 @@ public class ParallelTransformBenchmark extends ThroughputBenchmark {
     private float[] outMaxX;
     private float[] outMaxY;
     private float[] outMaxZ;
+    private int[] order;
+    private float[] upload;
 
     private ForkJoinPool pool;
 
@@ -73,6 +76,8 @@ public class ParallelTransformBenchmark extends ThroughputBenchmark {
         outMaxX = new float[count];
         outMaxY = new float[count];
         outMaxZ = new float[count];
+        order = new int[count];
+        upload = new float[count * PackedAffineArray.STRIDE_FLOATS];
 
         SplittableRandom rnd = new SplittableRandom(5151L);
         for (int i = 0; i < count; i++) {
@@ -81,6 +86,7 @@ public class ParallelTransformBenchmark extends ThroughputBenchmark {
             t.rotation.identity().rotateXYZ((float) rnd.nextDouble(-2.0, 2.0), (float) rnd.nextDouble(-2.0, 2.0), (float) rnd.nextDouble(-2.0, 2.0));
             t.scale.set((float) rnd.nextDouble(0.7, 2.0), (float) rnd.nextDouble(0.7, 2.0), (float) rnd.nextDouble(0.7, 2.0));
             transforms[i] = t;
+            order[i] = i;
             matrices[i] = new Matrix4f().translationRotateScale(t.translation, t.rotation, t.scale);
 
             float cx = (float) rnd.nextDouble(-10.0, 10.0);
@@ -175,4 +181,17 @@ public class ParallelTransformBenchmark extends ThroughputBenchmark {
 
         return outMaxX[count - 1] + outMaxY[count - 1] + outMaxZ[count - 1];
     }
+
+    @Benchmark
+    public float packedAffineAabbBatchChunksParallel() {
+        PackedAffineKernels.transformAabbPackedAffineChunked(packed, order, minX, minY, minZ, maxX, maxY, maxZ,
+                outMinX, outMinY, outMinZ, outMaxX, outMaxY, outMaxZ, count, chunkSize, pool);
+        return outMaxX[count - 1] + outMaxY[count - 1] + outMaxZ[count - 1];
+    }
+
+    @Benchmark
+    public float packedAffineUploadBatchChunksParallel() {
+        PackedAffineKernels.uploadPackedAffineChunked(packed, order, upload, count, chunkSize, pool);
+        return upload[upload.length - 1];
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.bench;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.dynamisengine.vectrix.geometry.PolygonsIntersection;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PolygonsIntersectionBenchmark extends ThroughputBenchmark {
+    private static final int RING_VERTICES = 64;
+    private static final int POINT_COUNT = 65536;
+
+    @Param({"256", "4096"})
+    public int polygonCount;
+
+    @Param({"1", "4"})
+    public int workers;
+
+    private float[] verticesXY;
+    private int[] polygons;
+    private int vertexCount;
+    private float[] xy;
+    private long[] insideBits;
+    private int[] hitPolygon;
+    private BitSet inPolys;
+    private PolygonsIntersection isect;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        SplittableRandom rnd = new SplittableRandom(107L);
+        // Non-overlapping rings on a jittered grid, like a map of regions.
+        int side = (int) java.lang.Math.ceil(java.lang.Math.sqrt(polygonCount));
+        vertexCount = polygonCount * RING_VERTICES;
+        verticesXY = new float[vertexCount * 2];
+        polygons = new int[polygonCount - 1];
+        int v = 0;
+        for (int p = 0; p < polygonCount; p++) {
+            if (p > 0) {
+                polygons[p - 1] = v;
+            }
+            float cx = (p % side) * 4.0f + (float) rnd.nextDouble(-0.5, 0.5);
+            float cy = (p / side) * 4.0f + (float) rnd.nextDouble(-0.5, 0.5);
+            for (int i = 0; i < RING_VERTICES; i++, v++) {
+                double angle = 2.0 * java.lang.Math.PI * i / RING_VERTICES;
+                float radius = (float) rnd.nextDouble(1.0, 1.8);
+                verticesXY[2 * v] = cx + radius * (float) java.lang.Math.cos(angle);
+                verticesXY[2 * v + 1] = cy + radius * (float) java.lang.Math.sin(angle);
+            }
+        }
+        xy = new float[POINT_COUNT * 2];
+        float extent = side * 4.0f;
+        for (int i = 0; i < POINT_COUNT; i++) {
+            xy[2 * i] = (float) rnd.nextDouble(-2.0, extent);
+            xy[2 * i + 1] = (float) rnd.nextDouble(-2.0, extent);
+        }
+        insideBits = new long[(POINT_COUNT + 63) >>> 6];
+        hitPolygon = new int[POINT_COUNT];
+        inPolys = new BitSet(polygonCount);
+        pool = new ForkJoinPool(workers);
+        isect = new PolygonsIntersection(verticesXY, polygons, vertexCount, pool);
+    }
+
+    @TearDown
+    public void teardown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public PolygonsIntersection build() {
+        return new PolygonsIntersection(verticesXY, polygons, vertexCount, pool);
+    }
+
+    /**
+     * Baseline: one {@link PolygonsIntersection#testPoint(float, float, BitSet)} call per point.
+     */
+    @Benchmark
+    public int testPointLoop() {
+        int inside = 0;
+        for (int i = 0; i < POINT_COUNT; i++) {
+            if (isect.testPoint(xy[2 * i], xy[2 * i + 1], inPolys)) {
+                inside++;
+            }
+        }
+        return inside;
+    }
+
+    @Benchmark
+    public int testPointsBitset() {
+        return isect.testPoints(xy, POINT_COUNT, insideBits, pool);
+    }
+
+    @Benchmark
+    public int testPointsPolygonIndex() {
+        isect.testPoints(xy, POINT_COUNT, hitPolygon, pool);
+        return hitPolygon[POINT_COUNT - 1];
+    }
+}
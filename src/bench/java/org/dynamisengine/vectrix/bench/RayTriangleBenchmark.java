@@ -0,0 +1,144 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.dynamisengine.vectrix.geometry.RayHit;
+import org.dynamisengine.vectrix.geometry.RayPacket;
+import org.dynamisengine.vectrix.geometry.RayTriangleKernels;
+import org.dynamisengine.vectrix.soa.TriangleSoA;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RayTriangleBenchmark extends ThroughputBenchmark {
+    private static final int RAYS = 256;
+    private static final float EPSILON = 1.0e-6f;
+
+    @Param({"64", "1024"})
+    public int triangleCount;
+
+    private TriangleSoA triangles;
+    private float[] rays;
+    private RayPacket[] packets;
+    private RayHit hit;
+    private RayHit[] packetHits;
+
+    @Setup
+    public void setup() {
+        SplittableRandom rnd = new SplittableRandom(67L);
+        float[] positions = new float[triangleCount * 9];
+        int[] indices = new int[triangleCount * 3];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = (float) rnd.nextDouble(-5.0, 5.0);
+        }
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        triangles = TriangleSoA.fromMesh(positions, indices, triangleCount);
+        rays = new float[RAYS * 6];
+        packets = new RayPacket[RAYS / 8];
+        for (int r = 0; r < RAYS; r++) {
+            for (int k = 0; k < 6; k++) {
+                rays[r * 6 + k] = (float) rnd.nextDouble(-10.0, 10.0);
+            }
+            if (r % 8 == 0) {
+                packets[r / 8] = new RayPacket(8);
+            }
+            packets[r / 8].add(rays[r * 6], rays[r * 6 + 1], rays[r * 6 + 2], rays[r * 6 + 3], rays[r * 6 + 4], rays[r * 6 + 5],
+                    Float.POSITIVE_INFINITY);
+        }
+        hit = new RayHit();
+        packetHits = new RayHit[8];
+        for (int i = 0; i < packetHits.length; i++) {
+            packetHits[i] = new RayHit();
+        }
+    }
+
+    @Benchmark
+    public int rayVsTrianglesScalarForced() {
+        int hits = 0;
+        for (int r = 0; r < RAYS; r++) {
+            int o = r * 6;
+            hit.reset(Float.POSITIVE_INFINITY);
+            if (RayTriangleKernels.intersectRayTrianglesScalar(rays[o], rays[o + 1], rays[o + 2], rays[o + 3], rays[o + 4], rays[o + 5],
+                    triangles, triangleCount, EPSILON, hit)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int rayVsTrianglesSimdForced() {
+        int hits = 0;
+        for (int r = 0; r < RAYS; r++) {
+            int o = r * 6;
+            hit.reset(Float.POSITIVE_INFINITY);
+            if (RayTriangleKernels.intersectRayTrianglesSimd(rays[o], rays[o + 1], rays[o + 2], rays[o + 3], rays[o + 4], rays[o + 5],
+                    triangles, triangleCount, EPSILON, hit)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int packetVsTrianglesScalarForced() {
+        int updated = 0;
+        for (RayPacket packet : packets) {
+            resetPacket(packet);
+            for (int i = 0; i < triangleCount; i++) {
+                updated |= RayTriangleKernels.intersectPacketTriangleScalar(packet, packet.activeMask(), triangles, i, EPSILON, packetHits);
+            }
+        }
+        return updated;
+    }
+
+    @Benchmark
+    public int packetVsTrianglesSimdForced() {
+        int updated = 0;
+        for (RayPacket packet : packets) {
+            resetPacket(packet);
+            for (int i = 0; i < triangleCount; i++) {
+                updated |= RayTriangleKernels.intersectPacketTriangleSimd(packet, packet.activeMask(), triangles, i, EPSILON, packetHits);
+            }
+        }
+        return updated;
+    }
+
+    private void resetPacket(RayPacket packet) {
+        for (int lane = 0; lane < packet.size(); lane++) {
+            packet.tMax(lane, Float.POSITIVE_INFINITY);
+            packetHits[lane].reset(Float.POSITIVE_INFINITY);
+        }
+    }
+}
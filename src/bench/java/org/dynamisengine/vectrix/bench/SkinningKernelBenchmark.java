@@ -8,7 +8,9 @@ package org.dynamisengine.vectrix.bench;
 import java.util.SplittableRandom;
 import java.util.concurrent.TimeUnit;
 
+import org.openjdk.jmh.annotations.AuxCounters;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
@@ -43,6 +45,9 @@ public class SkinningKernelBenchmark extends ThroughputBenchmark {
     private float[] inX, inY, inZ;
     private float[] outX, outY, outZ;
     private float[] matrixPalette12;
+    private byte[] jointIndices8;
+    private short[] jointIndices16;
+    private int[] packedWeights;
 
     @Setup
     public void setup() {
@@ -164,6 +169,12 @@ public class SkinningKernelBenchmark extends ThroughputBenchmark {
             this.w2[i] = jointWeights[base + 2];
             this.w3[i] = jointWeights[base + 3];
         }
+        jointIndices8 = new byte[vertices * 4];
+        jointIndices16 = new short[vertices * 4];
+        packedWeights = new int[vertices];
+        SkinningKernels.packJointIndices8(jointIndices, jointIndices8, vertices);
+        SkinningKernels.packJointIndices16(jointIndices, jointIndices16, vertices);
+        SkinningKernels.packWeightsUnorm8x4(jointWeights, packedWeights, vertices);
     }
 
     @Benchmark
@@ -202,9 +213,80 @@ public class SkinningKernelBenchmark extends ThroughputBenchmark {
         return outX;
     }
 
+    @Benchmark
+    public float[] skinDualQuat4Vector() {
+        SkinningKernels.skinDualQuat4Vector(jointDualQuat, jointIndices, jointWeights, inX, inY, inZ, outX, outY, outZ, vertices);
+        return outX;
+    }
+
+    @Benchmark
+    public float[] skinDualQuat4SoAAuto() {
+        SkinningKernels.skinDualQuat4SoA(jointDualQuat, j0, j1, j2, j3, w0, w1, w2, w3, inX, inY, inZ, outX, outY, outZ, vertices);
+        return outX;
+    }
+
+    @Benchmark
+    public float[] skinDualQuat4SoAScalarForced() {
+        SkinningKernels.skinDualQuat4SoAScalar(jointDualQuat, j0, j1, j2, j3, w0, w1, w2, w3, inX, inY, inZ, outX, outY, outZ, vertices);
+        return outX;
+    }
+
+    @Benchmark
+    public float[] skinDualQuat4SoASimdForced() {
+        SkinningKernels.skinDualQuat4SoASimd(jointDualQuat, j0, j1, j2, j3, w0, w1, w2, w3, inX, inY, inZ, outX, outY, outZ, vertices);
+        return outX;
+    }
+
     @Benchmark
     public float[] skinLbs4MatrixPaletteTight() {
         SkinningKernels.skinLbs4MatrixPalette(matrixPalette12, jointIndices, jointWeights, inX, inY, inZ, outX, outY, outZ, vertices);
         return outX;
     }
+
+    @Benchmark
+    public float[] skinLbs4MatrixPaletteFloat32(InfluenceBytes bytes) {
+        SkinningKernels.skinLbs4MatrixPalette(matrixPalette12, jointIndices, jointWeights, inX, inY, inZ, outX, outY, outZ, vertices);
+        bytes.influenceBytes += (long) vertices * InfluenceBytes.FLOAT32_BYTES_PER_VERTEX;
+        return outX;
+    }
+
+    @Benchmark
+    public float[] skinLbs4MatrixPaletteIndex16Unorm8(InfluenceBytes bytes) {
+        SkinningKernels.skinLbs4MatrixPalette(matrixPalette12, jointIndices16, packedWeights, inX, inY, inZ, outX, outY, outZ, vertices);
+        bytes.influenceBytes += (long) vertices * InfluenceBytes.INDEX16_UNORM8_BYTES_PER_VERTEX;
+        return outX;
+    }
+
+    @Benchmark
+    public float[] skinLbs4MatrixPaletteIndex8Unorm8(InfluenceBytes bytes) {
+        SkinningKernels.skinLbs4MatrixPalette(matrixPalette12, jointIndices8, packedWeights, inX, inY, inZ, outX, outY, outZ, vertices);
+        bytes.influenceBytes += (long) vertices * InfluenceBytes.INDEX8_UNORM8_BYTES_PER_VERTEX;
+        return outX;
+    }
+
+    @Benchmark
+    public float[] skinLbs4MatrixPaletteIndex8Unorm8Vector(InfluenceBytes bytes) {
+        SkinningKernels.skinLbs4MatrixPaletteVector(matrixPalette12, jointIndices8, packedWeights, inX, inY, inZ, outX, outY, outZ, vertices);
+        bytes.influenceBytes += (long) vertices * InfluenceBytes.INDEX8_UNORM8_BYTES_PER_VERTEX;
+        return outX;
+    }
+
+    /**
+     * Reports influence-stream bytes read per second next to the vertex throughput.
+     * Per vertex: float32 = 4 x int + 4 x float, index16 = 4 x short + unorm8x4, index8 = 4 x byte + unorm8x4.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class InfluenceBytes {
+        static final int FLOAT32_BYTES_PER_VERTEX = 32;
+        static final int INDEX16_UNORM8_BYTES_PER_VERTEX = 12;
+        static final int INDEX8_UNORM8_BYTES_PER_VERTEX = 8;
+
+        public long influenceBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            influenceBytes = 0L;
+        }
+    }
 }
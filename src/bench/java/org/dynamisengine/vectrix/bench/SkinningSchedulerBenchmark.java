@@ -0,0 +1,158 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 JOML
+ */
+package org.dynamisengine.vectrix.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.dynamisengine.vectrix.core.Quaternionf;
+import org.dynamisengine.vectrix.soa.SkinningJobScheduler;
+import org.dynamisengine.vectrix.soa.SkinningKernels;
+import org.dynamisengine.vectrix.soa.TransformSoA;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SkinningSchedulerBenchmark extends ThroughputBenchmark {
+    private static final int JOINTS = 64;
+
+    @Param({"16", "128", "512"})
+    public int characters;
+
+    @Param({"1", "2", "4", "8"})
+    public int workers;
+
+    /**
+     * {@code uniform}: every character has 2048 vertices. {@code mixed}: mostly small props and crowd meshes
+     * with one hero mesh per 16 characters, which is where per-mesh task splitting loses balance.
+     */
+    @Param({"uniform", "mixed"})
+    public String meshMix;
+
+    private float[][] palettes;
+    private int[][] jointIndices;
+    private float[][] jointWeights;
+    private float[][] inX;
+    private float[][] inY;
+    private float[][] inZ;
+    private float[][] outX;
+    private float[][] outY;
+    private float[][] outZ;
+    private int[] vertices;
+
+    private SkinningJobScheduler scheduler;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        SplittableRandom rnd = new SplittableRandom(1010L);
+        palettes = new float[characters][];
+        jointIndices = new int[characters][];
+        jointWeights = new float[characters][];
+        inX = new float[characters][];
+        inY = new float[characters][];
+        inZ = new float[characters][];
+        outX = new float[characters][];
+        outY = new float[characters][];
+        outZ = new float[characters][];
+        vertices = new int[characters];
+        scheduler = new SkinningJobScheduler(characters);
+
+        TransformSoA joints = new TransformSoA(JOINTS);
+        Quaternionf q = new Quaternionf();
+        for (int c = 0; c < characters; c++) {
+            for (int j = 0; j < JOINTS; j++) {
+                q.identity().rotateXYZ((float) rnd.nextDouble(-1.0, 1.0), (float) rnd.nextDouble(-1.0, 1.0), (float) rnd.nextDouble(-1.0, 1.0));
+                joints.tx[j] = (float) rnd.nextDouble(-2.0, 2.0);
+                joints.ty[j] = (float) rnd.nextDouble(-2.0, 2.0);
+                joints.tz[j] = (float) rnd.nextDouble(-2.0, 2.0);
+                joints.qx[j] = q.x;
+                joints.qy[j] = q.y;
+                joints.qz[j] = q.z;
+                joints.qw[j] = q.w;
+            }
+            palettes[c] = new float[JOINTS * 12];
+            SkinningKernels.buildRigidMatrixPalette12(joints, palettes[c], JOINTS);
+
+            int n;
+            if ("uniform".equals(meshMix)) {
+                n = 2048;
+            } else if ((c & 15) == 0) {
+                n = 16384;
+            } else {
+                n = 64 + rnd.nextInt(960);
+            }
+            vertices[c] = n;
+            jointIndices[c] = new int[n * 4];
+            jointWeights[c] = new float[n * 4];
+            inX[c] = new float[n];
+            inY[c] = new float[n];
+            inZ[c] = new float[n];
+            outX[c] = new float[n];
+            outY[c] = new float[n];
+            outZ[c] = new float[n];
+            for (int i = 0; i < n; i++) {
+                inX[c][i] = (float) rnd.nextDouble(-1.0, 1.0);
+                inY[c][i] = (float) rnd.nextDouble(-1.0, 1.0);
+                inZ[c][i] = (float) rnd.nextDouble(-1.0, 1.0);
+                float sum = 0.0f;
+                for (int k = 0; k < 4; k++) {
+                    jointIndices[c][i * 4 + k] = rnd.nextInt(JOINTS);
+                    float w = rnd.nextFloat() + 1.0e-3f;
+                    jointWeights[c][i * 4 + k] = w;
+                    sum += w;
+                }
+                for (int k = 0; k < 4; k++) {
+                    jointWeights[c][i * 4 + k] /= sum;
+                }
+            }
+            scheduler.add(palettes[c], jointIndices[c], jointWeights[c], inX[c], inY[c], inZ[c],
+                    outX[c], outY[c], outZ[c], 0, n);
+        }
+
+        pool = new ForkJoinPool(workers);
+    }
+
+    @TearDown
+    public void teardown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public float perMeshSerial() {
+        for (int c = 0; c < characters; c++) {
+            skinMesh(c);
+        }
+        return outX[characters - 1][0];
+    }
+
+    @Benchmark
+    public float perMeshTasks() {
+        pool.submit(() -> IntStream.range(0, characters).parallel().forEach(this::skinMesh)).join();
+        return outX[characters - 1][0];
+    }
+
+    @Benchmark
+    public float scheduledChunks() {
+        scheduler.run(pool);
+        return outX[characters - 1][0];
+    }
+
+    private void skinMesh(int c) {
+        SkinningKernels.skinLbs4MatrixPalette(palettes[c], jointIndices[c], jointWeights[c], inX[c], inY[c], inZ[c],
+                outX[c], outY[c], outZ[c], vertices[c]);
+    }
+}
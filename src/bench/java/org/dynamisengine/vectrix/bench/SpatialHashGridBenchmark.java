@@ -0,0 +1,139 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.dynamisengine.vectrix.hash.SpatialHashGrid;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpatialHashGridBenchmark extends ThroughputBenchmark {
+    private static final float CELL_SIZE = 4.0f;
+    private static final float QUERY_RADIUS = 6.0f;
+    private static final int QUERIES = 1024;
+
+    @Param({"4096", "65536"})
+    public int count;
+
+    private float[] x;
+    private float[] y;
+    private float[] z;
+    private float[] velocity;
+    private SpatialHashGrid grid;
+    private int[] out;
+    private int frame;
+
+    @Setup
+    public void setup() {
+        SplittableRandom rnd = new SplittableRandom(89L);
+        float extent = (float) java.lang.Math.cbrt(count) * 3.0f;
+        x = new float[count];
+        y = new float[count];
+        z = new float[count];
+        velocity = new float[count];
+        grid = new SpatialHashGrid(CELL_SIZE, count);
+        for (int i = 0; i < count; i++) {
+            x[i] = (float) rnd.nextDouble(0.0, extent);
+            y[i] = (float) rnd.nextDouble(0.0, extent);
+            z[i] = (float) rnd.nextDouble(0.0, extent);
+            velocity[i] = (float) rnd.nextDouble(-0.3, 0.3);
+            grid.insert(i, x[i], y[i], z[i]);
+        }
+        out = new int[count];
+    }
+
+    @Benchmark
+    public int gridMoveAll() {
+        float sign = (frame++ & 32) == 0 ? 1.0f : -1.0f;
+        for (int i = 0; i < count; i++) {
+            x[i] += velocity[i] * sign;
+            grid.move(i, x[i], y[i], z[i]);
+        }
+        return grid.cellCount();
+    }
+
+    @Benchmark
+    public int gridQueryRadius() {
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            int i = q * (count / QUERIES);
+            found += grid.queryRadius(x[i], y[i], z[i], QUERY_RADIUS, out);
+        }
+        return found;
+    }
+
+    /**
+     * Baseline: rebuild a boxed {@code HashMap<Long, List<Integer>>} of cells, then run the same queries.
+     */
+    @Benchmark
+    public int hashMapRebuildAndQueryRadius() {
+        Map<Long, List<Integer>> cells = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            cells.computeIfAbsent(cellKey(cell(x[i]), cell(y[i]), cell(z[i])), k -> new ArrayList<>()).add(i);
+        }
+        int found = 0;
+        float r2 = QUERY_RADIUS * QUERY_RADIUS;
+        for (int q = 0; q < QUERIES; q++) {
+            int i = q * (count / QUERIES);
+            float qx = x[i], qy = y[i], qz = z[i];
+            for (int cz = cell(qz - QUERY_RADIUS); cz <= cell(qz + QUERY_RADIUS); cz++) {
+                for (int cy = cell(qy - QUERY_RADIUS); cy <= cell(qy + QUERY_RADIUS); cy++) {
+                    for (int cx = cell(qx - QUERY_RADIUS); cx <= cell(qx + QUERY_RADIUS); cx++) {
+                        List<Integer> ids = cells.get(cellKey(cx, cy, cz));
+                        if (ids == null) {
+                            continue;
+                        }
+                        for (Integer id : ids) {
+                            float dx = x[id] - qx, dy = y[id] - qy, dz = z[id] - qz;
+                            if (dx * dx + dy * dy + dz * dz <= r2) {
+                                found++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private static int cell(float v) {
+        return (int) java.lang.Math.floor(v / CELL_SIZE);
+    }
+
+    private static long cellKey(int cx, int cy, int cz) {
+        return ((long) cx & 0x1FFFFF) << 42 | ((long) cy & 0x1FFFFF) << 21 | ((long) cz & 0x1FFFFF);
+    }
+}
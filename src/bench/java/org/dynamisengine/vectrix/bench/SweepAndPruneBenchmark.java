@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.dynamisengine.vectrix.geometry.Intersectionf;
+import org.dynamisengine.vectrix.geometry.SweepAndPrune;
+import org.dynamisengine.vectrix.soa.AABBSoA;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SweepAndPruneBenchmark extends ThroughputBenchmark {
+    private static final float WORLD_SIZE = 400.0f;
+
+    @Param({"1024", "16384"})
+    public int count;
+
+    private AABBSoA boxes;
+    private float[] velocity;
+    private SweepAndPrune sap;
+    private SweepAndPrune parallelSap;
+    private SweepAndPrune rebuildSap;
+    private ForkJoinPool pool;
+    private int frame;
+
+    @Setup
+    public void setup() {
+        SplittableRandom rnd = new SplittableRandom(79L);
+        boxes = new AABBSoA(count);
+        velocity = new float[count * 3];
+        for (int i = 0; i < count; i++) {
+            float x = (float) rnd.nextDouble(0.0, WORLD_SIZE);
+            float y = (float) rnd.nextDouble(0.0, WORLD_SIZE);
+            float z = (float) rnd.nextDouble(0.0, WORLD_SIZE);
+            float extent = (float) rnd.nextDouble(0.5, 3.0);
+            boxes.set(i, x, y, z, x + extent, y + extent, z + extent);
+            for (int k = 0; k < 3; k++) {
+                velocity[i * 3 + k] = (float) rnd.nextDouble(-0.05, 0.05);
+            }
+        }
+        pool = new ForkJoinPool(3);
+        sap = new SweepAndPrune().update(boxes, count);
+        parallelSap = new SweepAndPrune().update(boxes, count, pool);
+        rebuildSap = new SweepAndPrune();
+    }
+
+    @TearDown
+    public void teardown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int incrementalUpdate() {
+        step();
+        return sap.update(boxes, count).addedPairCount();
+    }
+
+    @Benchmark
+    public int incrementalUpdateParallelAxes() {
+        step();
+        return parallelSap.update(boxes, count, pool).addedPairCount();
+    }
+
+    @Benchmark
+    public int fullRebuild() {
+        step();
+        return rebuildSap.rebuild(boxes, count, null).pairCount();
+    }
+
+    @Benchmark
+    public int bruteForceTestAabAab() {
+        step();
+        AABBSoA b = boxes;
+        int pairs = 0;
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                if (Intersectionf.testAabAab(b.minX[i], b.minY[i], b.minZ[i], b.maxX[i], b.maxY[i], b.maxZ[i],
+                        b.minX[j], b.minY[j], b.minZ[j], b.maxX[j], b.maxY[j], b.maxZ[j])) {
+                    pairs++;
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Move every box by its velocity, reversing direction every 64 frames so the scene stays in place.
+     */
+    private void step() {
+        float sign = (frame++ & 64) == 0 ? 1.0f : -1.0f;
+        AABBSoA b = boxes;
+        for (int i = 0; i < count; i++) {
+            float dx = velocity[i * 3] * sign, dy = velocity[i * 3 + 1] * sign, dz = velocity[i * 3 + 2] * sign;
+            b.minX[i] += dx;
+            b.maxX[i] += dx;
+            b.minY[i] += dy;
+            b.maxY[i] += dy;
+            b.minZ[i] += dz;
+            b.maxZ[i] += dz;
+        }
+    }
+}
@@ -15,9 +15,11 @@ import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.dynamisengine.vectrix.affine.Affine4f;
+import org.dynamisengine.vectrix.affine.PackedAffineArray;
 import org.dynamisengine.vectrix.affine.TransformKernels;
 import org.dynamisengine.vectrix.affine.Transformf;
 import org.dynamisengine.vectrix.core.Matrix4f;
+import org.dynamisengine.vectrix.soa.TransformHierarchy;
 import org.dynamisengine.vectrix.soa.TransformSoA;
 
 @State(Scope.Benchmark)
@@ -38,6 +40,8 @@ public class TransformComposeBenchmark extends ThroughputBenchmark {
     private TransformSoA parentsSoA;
     private TransformSoA localsSoA;
     private TransformSoA outSoA;
+    private TransformHierarchy hierarchy;
+    private PackedAffineArray outPacked;
 
     @Setup
     public void setup() {
@@ -53,6 +57,7 @@ public class TransformComposeBenchmark extends ThroughputBenchmark {
         parentsSoA = new TransformSoA(size);
         localsSoA = new TransformSoA(size);
         outSoA = new TransformSoA(size);
+        outPacked = new PackedAffineArray(size);
         SplittableRandom rnd = new SplittableRandom(42L);
         for (int i = 0; i < size; i++) {
             Transformf p = randomTransform(rnd);
@@ -69,6 +74,11 @@ public class TransformComposeBenchmark extends ThroughputBenchmark {
             parentsSoA.set(i, p);
             localsSoA.set(i, l);
         }
+        int[] hierarchyParents = new int[size];
+        for (int i = 0; i < size; i++) {
+            hierarchyParents[i] = i == 0 ? -1 : rnd.nextInt(i);
+        }
+        hierarchy = new TransformHierarchy(hierarchyParents);
     }
 
     @Benchmark
@@ -85,6 +95,56 @@ public class TransformComposeBenchmark extends ThroughputBenchmark {
         return outSoA;
     }
 
+    @Benchmark
+    public TransformSoA composeSoABatchScalar() {
+        TransformKernels.composeBatchScalarFast(parentsSoA, localsSoA, outSoA, size);
+        return outSoA;
+    }
+
+    @Benchmark
+    public TransformSoA composeSoABatchVector() {
+        TransformKernels.composeBatchVectorFast(parentsSoA, localsSoA, outSoA, size);
+        return outSoA;
+    }
+
+    @Benchmark
+    public TransformSoA composeHierarchySoA() {
+        TransformKernels.composeHierarchy(hierarchy, localsSoA, outSoA);
+        return outSoA;
+    }
+
+    @Benchmark
+    public Transformf[] interpolateObjectBatch() {
+        for (int i = 0; i < size; i++) {
+            parentsObj[i].interpolateFast(localsObj[i], 0.4f, outObj[i]);
+        }
+        return outObj;
+    }
+
+    @Benchmark
+    public TransformSoA interpolateSoABatch() {
+        TransformKernels.interpolateBatch(parentsSoA, localsSoA, 0.4f, outSoA, size);
+        return outSoA;
+    }
+
+    @Benchmark
+    public TransformSoA interpolateSoABatchScalar() {
+        TransformKernels.interpolateBatchScalarFast(parentsSoA, localsSoA, 0.4f, outSoA, size);
+        return outSoA;
+    }
+
+    @Benchmark
+    public TransformSoA interpolateSoABatchVector() {
+        TransformKernels.interpolateBatchVectorFast(parentsSoA, localsSoA, 0.4f, outSoA, size);
+        return outSoA;
+    }
+
+    @Benchmark
+    public PackedAffineArray interpolateToPackedAffine() {
+        TransformKernels.interpolateToPackedAffine(parentsSoA, localsSoA, 0.4f, outPacked, size);
+        return outPacked;
+    }
+
     @Benchmark
     public Matrix4f[] composeMatrixBatch() {
         for (int i = 0; i < size; i++) {
@@ -23,10 +23,28 @@
  */
 package org.dynamisengine.vectrix.affine;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dynamisengine.vectrix.core.MathMode;
+import org.dynamisengine.vectrix.experimental.KernelConfig;
+
 /**
  * Helpers for locality-friendly fixed-size chunk traversal.
  */
 public final class BatchChunks {
+    /**
+     * Parallel chunk sizes are rounded up to a multiple of this many elements, which reduces false sharing between
+     * neighbouring chunks of 4-byte element arrays to at most the 64-byte cache lines at their edges.
+     */
+    public static final int CACHE_LINE_ELEMENTS = 16;
+    /**
+     * Smallest chunk handed to a worker; batches no larger than this run on the calling thread.
+     */
+    public static final int MIN_PARALLEL_GRAIN = 256;
+
     @FunctionalInterface
     public interface ChunkConsumer {
         void accept(int startInclusive, int endExclusive);
@@ -45,4 +63,131 @@ public final class BatchChunks {
             consumer.accept(i, end);
         }
     }
+
+    /**
+     * Run {@code consumer} over {@code [0, count)} in chunks distributed across {@code executor}.
+     * <p>
+     * The calling thread takes part in the work and returns once every chunk has completed. Chunks are at least
+     * {@link #MIN_PARALLEL_GRAIN} elements and a multiple of {@link #CACHE_LINE_ELEMENTS}. A non-positive
+     * {@code chunkSize} picks a size from the executor parallelism, except in {@link MathMode#STRICT} where
+     * chunk boundaries depend only on {@code count} and {@code chunkSize}, never on the worker count.
+     * The first exception thrown by {@code consumer} is rethrown after all started chunks have finished.
+     */
+    public static void forEachChunkParallel(int count, int chunkSize, Executor executor, ChunkConsumer consumer) {
+        if (count <= 0) {
+            return;
+        }
+        int parallelism = parallelism(executor);
+        int size = parallelChunkSize(count, chunkSize, parallelism);
+        int chunks = count / size + (count % size != 0 ? 1 : 0);
+        if (chunks <= 1 || parallelism <= 1) {
+            forEachChunk(count, size, consumer);
+            return;
+        }
+        ParallelChunkJob job = new ParallelChunkJob(count, size, chunks, consumer);
+        int helpers = java.lang.Math.min(chunks, parallelism) - 1;
+        try {
+            for (int h = 0; h < helpers; h++) {
+                executor.execute(job);
+            }
+        } catch (RejectedExecutionException e) {
+            // Remaining chunks are drained by the calling thread.
+        }
+        job.run();
+        job.awaitCompletion();
+    }
+
+    /**
+     * Worker count assumed for {@code executor}: the pool parallelism of a {@link ForkJoinPool}, otherwise the
+     * number of available processors.
+     */
+    public static int parallelism(Executor executor) {
+        return executor instanceof ForkJoinPool
+                ? ((ForkJoinPool) executor).getParallelism()
+                : java.lang.Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Chunk size used by {@link #forEachChunkParallel(int, int, Executor, ChunkConsumer)}.
+     */
+    public static int parallelChunkSize(int count, int chunkSize, int parallelism) {
+        int size = chunkSize;
+        if (size <= 0) {
+            size = KernelConfig.mathMode() == MathMode.STRICT
+                    ? MIN_PARALLEL_GRAIN
+                    : count / (java.lang.Math.max(parallelism, 1) * 4);
+        }
+        // Clamp before rounding up so that sizes near Integer.MAX_VALUE cannot overflow.
+        size = java.lang.Math.min(java.lang.Math.max(size, MIN_PARALLEL_GRAIN), Integer.MAX_VALUE & -CACHE_LINE_ELEMENTS);
+        return (size + CACHE_LINE_ELEMENTS - 1) & -CACHE_LINE_ELEMENTS;
+    }
+
+    private static final class ParallelChunkJob implements Runnable {
+        private final int count;
+        private final int chunkSize;
+        private final int chunks;
+        private final ChunkConsumer consumer;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private volatile Throwable failure;
+
+        ParallelChunkJob(int count, int chunkSize, int chunks, ChunkConsumer consumer) {
+            this.count = count;
+            this.chunkSize = chunkSize;
+            this.chunks = chunks;
+            this.consumer = consumer;
+            this.remaining = new AtomicInteger(chunks);
+        }
+
+        @Override
+        public void run() {
+            int chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                try {
+                    if (failure == null) {
+                        int start = chunk * chunkSize;
+                        consumer.accept(start, count - start <= chunkSize ? count : start + chunkSize);
+                    }
+                } catch (Throwable t) {
+                    synchronized (this) {
+                        if (failure == null) {
+                            failure = t;
+                        }
+                    }
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        synchronized (this) {
+                            notifyAll();
+                        }
+                    }
+                }
+            }
+        }
+
+        void awaitCompletion() {
+            boolean interrupted = false;
+            synchronized (this) {
+                while (remaining.get() != 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            Throwable t = failure;
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            if (t != null) {
+                throw new IllegalStateException(t);
+            }
+        }
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.affine;
+
+import org.dynamisengine.vectrix.soa.NativeFloatColumns;
+
+/**
+ * Off-heap counterpart of {@link PackedAffineArray} using the same 12-float record layout:
+ * [m00 m01 m02 tx  m10 m11 m12 ty  m20 m21 m22 tz]
+ */
+public final class NativePackedAffineArray extends NativeFloatColumns {
+    public static final int STRIDE_FLOATS = PackedAffineArray.STRIDE_FLOATS;
+
+    public NativePackedAffineArray(int count) {
+        super(1, count * STRIDE_FLOATS);
+    }
+
+    public int size() {
+        return columnLength() / STRIDE_FLOATS;
+    }
+
+    public int offsetOf(int index) {
+        return index * STRIDE_FLOATS;
+    }
+
+    public void set(int index,
+                    float m00, float m01, float m02, float tx,
+                    float m10, float m11, float m12, float ty,
+                    float m20, float m21, float m22, float tz) {
+        int o = offsetOf(index);
+        set(0, o, m00);
+        set(0, o + 1, m01);
+        set(0, o + 2, m02);
+        set(0, o + 3, tx);
+        set(0, o + 4, m10);
+        set(0, o + 5, m11);
+        set(0, o + 6, m12);
+        set(0, o + 7, ty);
+        set(0, o + 8, m20);
+        set(0, o + 9, m21);
+        set(0, o + 10, m22);
+        set(0, o + 11, tz);
+    }
+
+    /**
+     * Bulk-copy records {@code [start, start + count)} from heap storage.
+     */
+    public void copyFrom(PackedAffineArray src, int start, int count) {
+        copyColumnFrom(0, src.raw(), start * STRIDE_FLOATS, count * STRIDE_FLOATS);
+    }
+
+    /**
+     * Bulk-copy records {@code [start, start + count)} into heap storage.
+     */
+    public void copyTo(PackedAffineArray dst, int start, int count) {
+        copyColumnTo(0, dst.raw(), start * STRIDE_FLOATS, count * STRIDE_FLOATS);
+    }
+}
@@ -23,6 +23,10 @@
  */
 package org.dynamisengine.vectrix.affine;
 
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.util.concurrent.Executor;
+
 import org.dynamisengine.vectrix.core.Matrix4f;
 import org.dynamisengine.vectrix.core.Quaternionf;
 import org.dynamisengine.vectrix.core.Vector3fc;
@@ -31,6 +35,11 @@ import org.dynamisengine.vectrix.core.Vector3fc;
  * Batch kernels for packed affine transforms.
  */
 public final class PackedAffineKernels {
+    /**
+     * Floats per 3x3 normal matrix written by the inverse-transpose kernels: {@code [m00 m01 m02 m10 m11 m12 m20 m21 m22]}.
+     */
+    public static final int NORMAL_MATRIX_STRIDE_FLOATS = 9;
+
     private PackedAffineKernels() {
     }
 
@@ -120,6 +129,33 @@ public final class PackedAffineKernels {
                         outMinX, outMinY, outMinZ, outMaxX, outMaxY, outMaxZ, start, end));
     }
 
+    /**
+     * Parallel variant of {@link #transformAabbPackedAffineChunked} that distributes chunks across
+     * {@code executor}; see {@link BatchChunks#forEachChunkParallel(int, int, Executor, BatchChunks.ChunkConsumer)}.
+     */
+    public static void transformAabbPackedAffineChunked(
+            PackedAffineArray transforms,
+            int[] order,
+            float[] minX,
+            float[] minY,
+            float[] minZ,
+            float[] maxX,
+            float[] maxY,
+            float[] maxZ,
+            float[] outMinX,
+            float[] outMinY,
+            float[] outMinZ,
+            float[] outMaxX,
+            float[] outMaxY,
+            float[] outMaxZ,
+            int count,
+            int chunkSize,
+            Executor executor) {
+        BatchChunks.forEachChunkParallel(count, chunkSize, executor,
+                (start, end) -> transformAabbPackedAffineRange(transforms, order, minX, minY, minZ, maxX, maxY, maxZ,
+                        outMinX, outMinY, outMinZ, outMaxX, outMaxY, outMaxZ, start, end));
+    }
+
     public static void uploadPackedAffine(
             PackedAffineArray transforms,
             int[] order,
@@ -128,6 +164,23 @@ public final class PackedAffineKernels {
         uploadPackedAffineRange(transforms, order, outUpload, 0, count);
     }
 
+    /**
+     * Upload packed transforms in {@code order} straight into off-heap storage, e.g. memory shared with a
+     * native renderer.
+     */
+    public static void uploadPackedAffine(
+            PackedAffineArray transforms,
+            int[] order,
+            NativePackedAffineArray outUpload,
+            int count) {
+        float[] src = transforms.raw();
+        FloatBuffer dst = outUpload.column(0).duplicate();
+        for (int i = 0; i < count; i++) {
+            ((Buffer) dst).position(i * PackedAffineArray.STRIDE_FLOATS);
+            dst.put(src, transforms.offsetOf(order[i]), PackedAffineArray.STRIDE_FLOATS);
+        }
+    }
+
     public static void uploadPackedAffineChunked(
             PackedAffineArray transforms,
             int[] order,
@@ -138,6 +191,100 @@ public final class PackedAffineKernels {
                 (start, end) -> uploadPackedAffineRange(transforms, order, outUpload, start, end));
     }
 
+    /**
+     * Parallel variant of {@link #uploadPackedAffineChunked} that distributes chunks across {@code executor};
+     * see {@link BatchChunks#forEachChunkParallel(int, int, Executor, BatchChunks.ChunkConsumer)}.
+     */
+    public static void uploadPackedAffineChunked(
+            PackedAffineArray transforms,
+            int[] order,
+            float[] outUpload,
+            int count,
+            int chunkSize,
+            Executor executor) {
+        BatchChunks.forEachChunkParallel(count, chunkSize, executor,
+                (start, end) -> uploadPackedAffineRange(transforms, order, outUpload, start, end));
+    }
+
+    /**
+     * Invert {@code count} general affine records of {@code transforms} into {@code out}.
+     * <p>
+     * Singular records produce non-finite output, as with {@code Matrix4x3f.invert}. {@code out} may alias
+     * {@code transforms}.
+     */
+    public static void invertPackedAffineBatch(PackedAffineArray transforms, PackedAffineArray out, int count) {
+        invertPackedAffineBatch(transforms, out, null, count);
+    }
+
+    /**
+     * Invert {@code count} general affine records and, in the same pass, write the 3x3 inverse-transpose (normal
+     * matrix) of each record into {@code outNormal} with {@link #NORMAL_MATRIX_STRIDE_FLOATS} floats per record.
+     * <p>
+     * Either destination may be {@code null} to skip it.
+     */
+    public static void invertPackedAffineBatch(PackedAffineArray transforms, PackedAffineArray out, float[] outNormal, int count) {
+        invertRange(transforms, out, outNormal, 0, count);
+    }
+
+    /**
+     * Write the 3x3 inverse-transpose (normal matrix) of {@code count} affine records into {@code outNormal}.
+     */
+    public static void normalMatrixPackedAffineBatch(PackedAffineArray transforms, float[] outNormal, int count) {
+        invertPackedAffineBatch(transforms, null, outNormal, count);
+    }
+
+    /**
+     * Fast inverse for rigid records (orthonormal basis + translation), mirroring {@link Affine4f#invertRigid}.
+     * <p>
+     * When {@code outNormal} is non-null it receives the rotation block itself, which is its own inverse-transpose.
+     * {@code out} may alias {@code transforms}.
+     */
+    public static void invertRigidPackedAffineBatch(PackedAffineArray transforms, PackedAffineArray out, float[] outNormal, int count) {
+        float[] t = transforms.raw();
+        float[] dst = out != null ? out.raw() : null;
+        for (int i = 0; i < count; i++) {
+            int o = transforms.offsetOf(i);
+            float m00 = t[o];
+            float m01 = t[o + 1];
+            float m02 = t[o + 2];
+            float tx = t[o + 3];
+            float m10 = t[o + 4];
+            float m11 = t[o + 5];
+            float m12 = t[o + 6];
+            float ty = t[o + 7];
+            float m20 = t[o + 8];
+            float m21 = t[o + 9];
+            float m22 = t[o + 10];
+            float tz = t[o + 11];
+            if (dst != null) {
+                dst[o] = m00;
+                dst[o + 1] = m10;
+                dst[o + 2] = m20;
+                dst[o + 3] = -(m00 * tx + m01 * ty + m02 * tz);
+                dst[o + 4] = m01;
+                dst[o + 5] = m11;
+                dst[o + 6] = m21;
+                dst[o + 7] = -(m10 * tx + m11 * ty + m12 * tz);
+                dst[o + 8] = m02;
+                dst[o + 9] = m12;
+                dst[o + 10] = m22;
+                dst[o + 11] = -(m20 * tx + m21 * ty + m22 * tz);
+            }
+            if (outNormal != null) {
+                int n = i * NORMAL_MATRIX_STRIDE_FLOATS;
+                outNormal[n] = m00;
+                outNormal[n + 1] = m01;
+                outNormal[n + 2] = m02;
+                outNormal[n + 3] = m10;
+                outNormal[n + 4] = m11;
+                outNormal[n + 5] = m12;
+                outNormal[n + 6] = m20;
+                outNormal[n + 7] = m21;
+                outNormal[n + 8] = m22;
+            }
+        }
+    }
+
     private static void transformAabbPackedAffineRange(
             PackedAffineArray transforms,
             int[] order,
@@ -222,7 +369,68 @@ public final class PackedAffineKernels {
         }
     }
 
-    private static void setTrs(
+    private static void invertRange(PackedAffineArray transforms, PackedAffineArray out, float[] outNormal, int start, int end) {
+        float[] t = transforms.raw();
+        float[] dst = out != null ? out.raw() : null;
+        for (int i = start; i < end; i++) {
+            int o = transforms.offsetOf(i);
+            float m00 = t[o];
+            float m01 = t[o + 1];
+            float m02 = t[o + 2];
+            float tx = t[o + 3];
+            float m10 = t[o + 4];
+            float m11 = t[o + 5];
+            float m12 = t[o + 6];
+            float ty = t[o + 7];
+            float m20 = t[o + 8];
+            float m21 = t[o + 9];
+            float m22 = t[o + 10];
+            float tz = t[o + 11];
+
+            float c00 = m11 * m22 - m12 * m21;
+            float c01 = m21 * m02 - m22 * m01;
+            float c02 = m01 * m12 - m02 * m11;
+            float s = 1.0f / (m00 * c00 + m10 * c01 + m20 * c02);
+            float nm00 = c00 * s;
+            float nm01 = c01 * s;
+            float nm02 = c02 * s;
+            float nm10 = (m12 * m20 - m10 * m22) * s;
+            float nm11 = (m22 * m00 - m20 * m02) * s;
+            float nm12 = (m10 * m02 - m12 * m00) * s;
+            float nm20 = (m10 * m21 - m11 * m20) * s;
+            float nm21 = (m20 * m01 - m21 * m00) * s;
+            float nm22 = (m11 * m00 - m10 * m01) * s;
+
+            if (dst != null) {
+                dst[o] = nm00;
+                dst[o + 1] = nm01;
+                dst[o + 2] = nm02;
+                dst[o + 3] = -(nm00 * tx + nm10 * ty + nm20 * tz);
+                dst[o + 4] = nm10;
+                dst[o + 5] = nm11;
+                dst[o + 6] = nm12;
+                dst[o + 7] = -(nm01 * tx + nm11 * ty + nm21 * tz);
+                dst[o + 8] = nm20;
+                dst[o + 9] = nm21;
+                dst[o + 10] = nm22;
+                dst[o + 11] = -(nm02 * tx + nm12 * ty + nm22 * tz);
+            }
+            if (outNormal != null) {
+                int n = i * NORMAL_MATRIX_STRIDE_FLOATS;
+                outNormal[n] = nm00;
+                outNormal[n + 1] = nm10;
+                outNormal[n + 2] = nm20;
+                outNormal[n + 3] = nm01;
+                outNormal[n + 4] = nm11;
+                outNormal[n + 5] = nm21;
+                outNormal[n + 6] = nm02;
+                outNormal[n + 7] = nm12;
+                outNormal[n + 8] = nm22;
+            }
+        }
+    }
+
+    static void setTrs(
             float[] dst,
             int offset,
             float tx,
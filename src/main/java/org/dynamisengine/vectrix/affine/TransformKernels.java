@@ -26,13 +26,26 @@ package org.dynamisengine.vectrix.affine;
 import org.dynamisengine.vectrix.experimental.KernelConfig;
 import org.dynamisengine.vectrix.core.MathMode;
 import org.dynamisengine.vectrix.simd.SimdSupport;
+import org.dynamisengine.vectrix.soa.NativeFloatColumns;
+import org.dynamisengine.vectrix.soa.NativeTransformSoA;
+import org.dynamisengine.vectrix.soa.TransformHierarchy;
 import org.dynamisengine.vectrix.soa.TransformSoA;
+//#ifdef __HAS_VECTOR_API__
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+//#endif
 
 /**
  * Batch kernels for transform processing.
  */
 public final class TransformKernels {
     private static final int SIMD_BATCH_THRESHOLD = 32;
+//#ifdef __HAS_VECTOR_API__
+    private static final VectorSpecies<Float> COMPOSE_SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int[] PACKED_AFFINE_LANE_OFFSETS = packedAffineLaneOffsets(COMPOSE_SPECIES.length());
+//#endif
 
     private TransformKernels() {
     }
@@ -55,14 +68,132 @@ public final class TransformKernels {
         composeBatchScalarFast(parents, locals, out, count);
     }
 
-    private static void composeBatchVectorFast(TransformSoA parents, TransformSoA locals, TransformSoA out, int count) {
-        // Vector path currently falls back to scalar math while keeping dispatch separation.
-        // This keeps the API stable as true Vector API kernels are iterated on.
-        composeBatchScalarFast(parents, locals, out, count);
+    /**
+     * Compute local-to-world transforms for every node of {@code hierarchy}, one depth level at a time.
+     * <p>
+     * {@code locals} and {@code worlds} are indexed by hierarchy slot (see {@link TransformHierarchy#order()}).
+     * Roots copy their local transform; every other slot is {@code worlds[parent] * locals[slot]}.
+     */
+    public static void composeHierarchy(TransformHierarchy hierarchy, TransformSoA locals, TransformSoA worlds) {
+        if (hierarchy.size() == 0) {
+            return;
+        }
+        for (int level = 0, levels = hierarchy.levelCount(); level < levels; level++) {
+            composeHierarchyRange(hierarchy, locals, worlds, hierarchy.levelStart(level), hierarchy.levelEnd(level));
+        }
     }
 
-    private static void composeBatchScalarFast(TransformSoA parents, TransformSoA locals, TransformSoA out, int count) {
-        for (int i = 0; i < count; i++) {
+    /**
+     * Recompute the world transforms of hierarchy slots {@code [start, end)}, which must lie within a single
+     * depth level whose parent level is already up to date.
+     */
+    public static void composeHierarchyRange(TransformHierarchy hierarchy, TransformSoA locals, TransformSoA worlds, int start, int end) {
+        if (end <= start) {
+            return;
+        }
+        int[] parents = hierarchy.parents();
+        if (parents[start] < 0) {
+            copyRange(locals, worlds, start, end);
+            return;
+        }
+        composeFromParents(worlds, parents, locals, start, end);
+    }
+
+    /**
+     * Compute {@code worlds[i] = worlds[parents[i]] * locals[i]} for {@code i} in {@code [start, end)}.
+     * <p>
+     * Every referenced parent must be a valid index outside {@code [start, end)} whose world transform is
+     * already up to date, e.g. a slot of a shallower {@link TransformHierarchy} level.
+     */
+    public static void composeFromParents(TransformSoA worlds, int[] parents, TransformSoA locals, int start, int end) {
+        if (end <= start) {
+            return;
+        }
+        if (KernelConfig.mathMode() == MathMode.STRICT) {
+            composeFromParentsScalar(worlds, parents, locals, start, end, true);
+            return;
+        }
+        if (SimdSupport.backend() == SimdSupport.Backend.VECTOR_API && end - start >= SIMD_BATCH_THRESHOLD) {
+            composeFromParentsVectorFast(worlds, parents, locals, start, end);
+            return;
+        }
+        composeFromParentsScalar(worlds, parents, locals, start, end, false);
+    }
+
+    /**
+     * Force the lane-parallel implementation regardless of runtime backend.
+     * <p>
+     * Each lane performs exactly the same sequence of float operations as {@link #composeBatchScalarFast},
+     * so results are bit-identical to the scalar path. Builds without the Vector API fall back to scalar.
+     */
+    public static void composeBatchVectorFast(TransformSoA parents, TransformSoA locals, TransformSoA out, int count) {
+//#ifdef __HAS_VECTOR_API__
+        int lanes = COMPOSE_SPECIES.length();
+        if (lanes <= 1) {
+            composeRangeScalarFast(parents, locals, out, 0, count);
+            return;
+        }
+        FloatVector two = FloatVector.broadcast(COMPOSE_SPECIES, 2.0f);
+        int i = 0;
+        int limit = count - (count % lanes);
+        for (; i < limit; i += lanes) {
+            FloatVector psx = FloatVector.fromArray(COMPOSE_SPECIES, parents.sx, i);
+            FloatVector psy = FloatVector.fromArray(COMPOSE_SPECIES, parents.sy, i);
+            FloatVector psz = FloatVector.fromArray(COMPOSE_SPECIES, parents.sz, i);
+            FloatVector pqx = FloatVector.fromArray(COMPOSE_SPECIES, parents.qx, i);
+            FloatVector pqy = FloatVector.fromArray(COMPOSE_SPECIES, parents.qy, i);
+            FloatVector pqz = FloatVector.fromArray(COMPOSE_SPECIES, parents.qz, i);
+            FloatVector pqw = FloatVector.fromArray(COMPOSE_SPECIES, parents.qw, i);
+            FloatVector ptx = FloatVector.fromArray(COMPOSE_SPECIES, parents.tx, i);
+            FloatVector pty = FloatVector.fromArray(COMPOSE_SPECIES, parents.ty, i);
+            FloatVector ptz = FloatVector.fromArray(COMPOSE_SPECIES, parents.tz, i);
+            FloatVector lqx = FloatVector.fromArray(COMPOSE_SPECIES, locals.qx, i);
+            FloatVector lqy = FloatVector.fromArray(COMPOSE_SPECIES, locals.qy, i);
+            FloatVector lqz = FloatVector.fromArray(COMPOSE_SPECIES, locals.qz, i);
+            FloatVector lqw = FloatVector.fromArray(COMPOSE_SPECIES, locals.qw, i);
+            FloatVector lsx = FloatVector.fromArray(COMPOSE_SPECIES, locals.sx, i);
+            FloatVector lsy = FloatVector.fromArray(COMPOSE_SPECIES, locals.sy, i);
+            FloatVector lsz = FloatVector.fromArray(COMPOSE_SPECIES, locals.sz, i);
+
+            FloatVector ltx = FloatVector.fromArray(COMPOSE_SPECIES, locals.tx, i).mul(psx);
+            FloatVector lty = FloatVector.fromArray(COMPOSE_SPECIES, locals.ty, i).mul(psy);
+            FloatVector ltz = FloatVector.fromArray(COMPOSE_SPECIES, locals.tz, i).mul(psz);
+
+            FloatVector tx2 = two.mul(pqy.mul(ltz).sub(pqz.mul(lty)));
+            FloatVector ty2 = two.mul(pqz.mul(ltx).sub(pqx.mul(ltz)));
+            FloatVector tz2 = two.mul(pqx.mul(lty).sub(pqy.mul(ltx)));
+            FloatVector rx = ltx.add(pqw.mul(tx2)).add(pqy.mul(tz2).sub(pqz.mul(ty2)));
+            FloatVector ry = lty.add(pqw.mul(ty2)).add(pqz.mul(tx2).sub(pqx.mul(tz2)));
+            FloatVector rz = ltz.add(pqw.mul(tz2)).add(pqx.mul(ty2).sub(pqy.mul(tx2)));
+
+            ptx.add(rx).intoArray(out.tx, i);
+            pty.add(ry).intoArray(out.ty, i);
+            ptz.add(rz).intoArray(out.tz, i);
+
+            pqw.mul(lqx).add(pqx.mul(lqw)).add(pqy.mul(lqz)).sub(pqz.mul(lqy)).intoArray(out.qx, i);
+            pqw.mul(lqy).sub(pqx.mul(lqz)).add(pqy.mul(lqw)).add(pqz.mul(lqx)).intoArray(out.qy, i);
+            pqw.mul(lqz).add(pqx.mul(lqy)).sub(pqy.mul(lqx)).add(pqz.mul(lqw)).intoArray(out.qz, i);
+            pqw.mul(lqw).sub(pqx.mul(lqx)).sub(pqy.mul(lqy)).sub(pqz.mul(lqz)).intoArray(out.qw, i);
+
+            psx.mul(lsx).intoArray(out.sx, i);
+            psy.mul(lsy).intoArray(out.sy, i);
+            psz.mul(lsz).intoArray(out.sz, i);
+        }
+        composeRangeScalarFast(parents, locals, out, i, count);
+//#else
+        composeRangeScalarFast(parents, locals, out, 0, count);
+//#endif
+    }
+
+    /**
+     * Force scalar FAST-mode implementation regardless of runtime backend.
+     */
+    public static void composeBatchScalarFast(TransformSoA parents, TransformSoA locals, TransformSoA out, int count) {
+        composeRangeScalarFast(parents, locals, out, 0, count);
+    }
+
+    private static void composeRangeScalarFast(TransformSoA parents, TransformSoA locals, TransformSoA out, int start, int end) {
+        for (int i = start; i < end; i++) {
             float psx = parents.sx[i];
             float psy = parents.sy[i];
             float psz = parents.sz[i];
@@ -103,6 +234,773 @@ public final class TransformKernels {
         }
     }
 
+    private static void composeFromParentsVectorFast(TransformSoA worlds, int[] parents, TransformSoA locals, int start, int end) {
+//#ifdef __HAS_VECTOR_API__
+        int lanes = COMPOSE_SPECIES.length();
+        if (lanes <= 1) {
+            composeFromParentsScalar(worlds, parents, locals, start, end, false);
+            return;
+        }
+        FloatVector two = FloatVector.broadcast(COMPOSE_SPECIES, 2.0f);
+        int i = start;
+        int limit = end - ((end - start) % lanes);
+        for (; i < limit; i += lanes) {
+            FloatVector psx = FloatVector.fromArray(COMPOSE_SPECIES, worlds.sx, 0, parents, i);
+            FloatVector psy = FloatVector.fromArray(COMPOSE_SPECIES, worlds.sy, 0, parents, i);
+            FloatVector psz = FloatVector.fromArray(COMPOSE_SPECIES, worlds.sz, 0, parents, i);
+            FloatVector pqx = FloatVector.fromArray(COMPOSE_SPECIES, worlds.qx, 0, parents, i);
+            FloatVector pqy = FloatVector.fromArray(COMPOSE_SPECIES, worlds.qy, 0, parents, i);
+            FloatVector pqz = FloatVector.fromArray(COMPOSE_SPECIES, worlds.qz, 0, parents, i);
+            FloatVector pqw = FloatVector.fromArray(COMPOSE_SPECIES, worlds.qw, 0, parents, i);
+            FloatVector ptx = FloatVector.fromArray(COMPOSE_SPECIES, worlds.tx, 0, parents, i);
+            FloatVector pty = FloatVector.fromArray(COMPOSE_SPECIES, worlds.ty, 0, parents, i);
+            FloatVector ptz = FloatVector.fromArray(COMPOSE_SPECIES, worlds.tz, 0, parents, i);
+            FloatVector lqx = FloatVector.fromArray(COMPOSE_SPECIES, locals.qx, i);
+            FloatVector lqy = FloatVector.fromArray(COMPOSE_SPECIES, locals.qy, i);
+            FloatVector lqz = FloatVector.fromArray(COMPOSE_SPECIES, locals.qz, i);
+            FloatVector lqw = FloatVector.fromArray(COMPOSE_SPECIES, locals.qw, i);
+
+            FloatVector ltx = FloatVector.fromArray(COMPOSE_SPECIES, locals.tx, i).mul(psx);
+            FloatVector lty = FloatVector.fromArray(COMPOSE_SPECIES, locals.ty, i).mul(psy);
+            FloatVector ltz = FloatVector.fromArray(COMPOSE_SPECIES, locals.tz, i).mul(psz);
+
+            FloatVector tx2 = two.mul(pqy.mul(ltz).sub(pqz.mul(lty)));
+            FloatVector ty2 = two.mul(pqz.mul(ltx).sub(pqx.mul(ltz)));
+            FloatVector tz2 = two.mul(pqx.mul(lty).sub(pqy.mul(ltx)));
+            FloatVector rx = ltx.add(pqw.mul(tx2)).add(pqy.mul(tz2).sub(pqz.mul(ty2)));
+            FloatVector ry = lty.add(pqw.mul(ty2)).add(pqz.mul(tx2).sub(pqx.mul(tz2)));
+            FloatVector rz = ltz.add(pqw.mul(tz2)).add(pqx.mul(ty2).sub(pqy.mul(tx2)));
+
+            ptx.add(rx).intoArray(worlds.tx, i);
+            pty.add(ry).intoArray(worlds.ty, i);
+            ptz.add(rz).intoArray(worlds.tz, i);
+
+            pqw.mul(lqx).add(pqx.mul(lqw)).add(pqy.mul(lqz)).sub(pqz.mul(lqy)).intoArray(worlds.qx, i);
+            pqw.mul(lqy).sub(pqx.mul(lqz)).add(pqy.mul(lqw)).add(pqz.mul(lqx)).intoArray(worlds.qy, i);
+            pqw.mul(lqz).add(pqx.mul(lqy)).sub(pqy.mul(lqx)).add(pqz.mul(lqw)).intoArray(worlds.qz, i);
+            pqw.mul(lqw).sub(pqx.mul(lqx)).sub(pqy.mul(lqy)).sub(pqz.mul(lqz)).intoArray(worlds.qw, i);
+
+            psx.mul(FloatVector.fromArray(COMPOSE_SPECIES, locals.sx, i)).intoArray(worlds.sx, i);
+            psy.mul(FloatVector.fromArray(COMPOSE_SPECIES, locals.sy, i)).intoArray(worlds.sy, i);
+            psz.mul(FloatVector.fromArray(COMPOSE_SPECIES, locals.sz, i)).intoArray(worlds.sz, i);
+        }
+        composeFromParentsScalar(worlds, parents, locals, i, end, false);
+//#else
+        composeFromParentsScalar(worlds, parents, locals, start, end, false);
+//#endif
+    }
+
+    private static void composeFromParentsScalar(TransformSoA worlds, int[] parents, TransformSoA locals, int start, int end,
+            boolean normalize) {
+        for (int i = start; i < end; i++) {
+            int p = parents[i];
+            float psx = worlds.sx[p];
+            float psy = worlds.sy[p];
+            float psz = worlds.sz[p];
+
+            float ltx = locals.tx[i] * psx;
+            float lty = locals.ty[i] * psy;
+            float ltz = locals.tz[i] * psz;
+
+            float pqx = worlds.qx[p];
+            float pqy = worlds.qy[p];
+            float pqz = worlds.qz[p];
+            float pqw = worlds.qw[p];
+
+            float tx2 = 2.0f * (pqy * ltz - pqz * lty);
+            float ty2 = 2.0f * (pqz * ltx - pqx * ltz);
+            float tz2 = 2.0f * (pqx * lty - pqy * ltx);
+            float rx = ltx + pqw * tx2 + (pqy * tz2 - pqz * ty2);
+            float ry = lty + pqw * ty2 + (pqz * tx2 - pqx * tz2);
+            float rz = ltz + pqw * tz2 + (pqx * ty2 - pqy * tx2);
+
+            worlds.tx[i] = worlds.tx[p] + rx;
+            worlds.ty[i] = worlds.ty[p] + ry;
+            worlds.tz[i] = worlds.tz[p] + rz;
+
+            float lqx = locals.qx[i];
+            float lqy = locals.qy[i];
+            float lqz = locals.qz[i];
+            float lqw = locals.qw[i];
+
+            float oqx = pqw * lqx + pqx * lqw + pqy * lqz - pqz * lqy;
+            float oqy = pqw * lqy - pqx * lqz + pqy * lqw + pqz * lqx;
+            float oqz = pqw * lqz + pqx * lqy - pqy * lqx + pqz * lqw;
+            float oqw = pqw * lqw - pqx * lqx - pqy * lqy - pqz * lqz;
+            if (normalize) {
+                float norm = (float) java.lang.Math.sqrt(oqx * oqx + oqy * oqy + oqz * oqz + oqw * oqw);
+                if (norm > 0.0f) {
+                    float invNorm = 1.0f / norm;
+                    oqx *= invNorm;
+                    oqy *= invNorm;
+                    oqz *= invNorm;
+                    oqw *= invNorm;
+                } else {
+                    oqx = 0.0f;
+                    oqy = 0.0f;
+                    oqz = 0.0f;
+                    oqw = 1.0f;
+                }
+            }
+            worlds.qx[i] = oqx;
+            worlds.qy[i] = oqy;
+            worlds.qz[i] = oqz;
+            worlds.qw[i] = oqw;
+
+            worlds.sx[i] = psx * locals.sx[i];
+            worlds.sy[i] = psy * locals.sy[i];
+            worlds.sz[i] = psz * locals.sz[i];
+        }
+    }
+
+    /**
+     * Interpolate render state between two simulation snapshots:
+     * {@code out[i] = lerp(previous[i], current[i], alpha)} for translation and scale, and a normalized
+     * short-path {@code nlerp} for rotation.
+     * <p>
+     * {@code alpha} is usually the fixed-step accumulator remainder in {@code [0, 1]}. {@code out} may alias
+     * either snapshot.
+     */
+    public static void interpolateBatch(TransformSoA previous, TransformSoA current, float alpha, TransformSoA out, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (KernelConfig.mathMode() == MathMode.STRICT) {
+            interpolateRangeScalar(previous, current, alpha, out, 0, count, true);
+            return;
+        }
+        if (SimdSupport.backend() == SimdSupport.Backend.VECTOR_API && count >= SIMD_BATCH_THRESHOLD) {
+            interpolateBatchVectorFast(previous, current, alpha, out, count);
+            return;
+        }
+        interpolateRangeScalar(previous, current, alpha, out, 0, count, false);
+    }
+
+    /**
+     * Interpolate like {@link #interpolateBatch(TransformSoA, TransformSoA, float, TransformSoA, int)} and write
+     * the blended transforms straight into packed 3x4 affine records, skipping the intermediate SoA pass.
+     */
+    public static void interpolateToPackedAffine(TransformSoA previous, TransformSoA current, float alpha, PackedAffineArray out, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (KernelConfig.mathMode() == MathMode.STRICT) {
+            interpolateToPackedAffineRangeScalar(previous, current, alpha, out, 0, count, true);
+            return;
+        }
+        if (SimdSupport.backend() == SimdSupport.Backend.VECTOR_API && count >= SIMD_BATCH_THRESHOLD) {
+            interpolateToPackedAffineVectorFast(previous, current, alpha, out, count);
+            return;
+        }
+        interpolateToPackedAffineRangeScalar(previous, current, alpha, out, 0, count, false);
+    }
+
+    /**
+     * Force the lane-parallel interpolation regardless of runtime backend.
+     * <p>
+     * Results are bit-identical to {@link #interpolateBatchScalarFast}. Builds without the Vector API fall back
+     * to scalar.
+     */
+    public static void interpolateBatchVectorFast(TransformSoA previous, TransformSoA current, float alpha, TransformSoA out, int count) {
+//#ifdef __HAS_VECTOR_API__
+        int lanes = COMPOSE_SPECIES.length();
+        if (lanes <= 1) {
+            interpolateRangeScalar(previous, current, alpha, out, 0, count, false);
+            return;
+        }
+        FloatVector a = FloatVector.broadcast(COMPOSE_SPECIES, alpha);
+        FloatVector s0 = FloatVector.broadcast(COMPOSE_SPECIES, 1.0f - alpha);
+        FloatVector s1 = a;
+        FloatVector s1Neg = FloatVector.broadcast(COMPOSE_SPECIES, -alpha);
+        FloatVector one = FloatVector.broadcast(COMPOSE_SPECIES, 1.0f);
+        int i = 0;
+        int limit = count - (count % lanes);
+        for (; i < limit; i += lanes) {
+            FloatVector ptx = FloatVector.fromArray(COMPOSE_SPECIES, previous.tx, i);
+            FloatVector pty = FloatVector.fromArray(COMPOSE_SPECIES, previous.ty, i);
+            FloatVector ptz = FloatVector.fromArray(COMPOSE_SPECIES, previous.tz, i);
+            FloatVector pqx = FloatVector.fromArray(COMPOSE_SPECIES, previous.qx, i);
+            FloatVector pqy = FloatVector.fromArray(COMPOSE_SPECIES, previous.qy, i);
+            FloatVector pqz = FloatVector.fromArray(COMPOSE_SPECIES, previous.qz, i);
+            FloatVector pqw = FloatVector.fromArray(COMPOSE_SPECIES, previous.qw, i);
+            FloatVector psx = FloatVector.fromArray(COMPOSE_SPECIES, previous.sx, i);
+            FloatVector psy = FloatVector.fromArray(COMPOSE_SPECIES, previous.sy, i);
+            FloatVector psz = FloatVector.fromArray(COMPOSE_SPECIES, previous.sz, i);
+            FloatVector ctx = FloatVector.fromArray(COMPOSE_SPECIES, current.tx, i);
+            FloatVector cty = FloatVector.fromArray(COMPOSE_SPECIES, current.ty, i);
+            FloatVector ctz = FloatVector.fromArray(COMPOSE_SPECIES, current.tz, i);
+            FloatVector cqx = FloatVector.fromArray(COMPOSE_SPECIES, current.qx, i);
+            FloatVector cqy = FloatVector.fromArray(COMPOSE_SPECIES, current.qy, i);
+            FloatVector cqz = FloatVector.fromArray(COMPOSE_SPECIES, current.qz, i);
+            FloatVector cqw = FloatVector.fromArray(COMPOSE_SPECIES, current.qw, i);
+            FloatVector csx = FloatVector.fromArray(COMPOSE_SPECIES, current.sx, i);
+            FloatVector csy = FloatVector.fromArray(COMPOSE_SPECIES, current.sy, i);
+            FloatVector csz = FloatVector.fromArray(COMPOSE_SPECIES, current.sz, i);
+
+            FloatVector dot = pqx.mul(cqx).add(pqy.mul(cqy)).add(pqz.mul(cqz)).add(pqw.mul(cqw));
+            VectorMask<Float> flip = dot.compare(VectorOperators.LT, 0.0f);
+            FloatVector w1 = s1.blend(s1Neg, flip);
+            FloatVector qx = s0.mul(pqx).add(w1.mul(cqx));
+            FloatVector qy = s0.mul(pqy).add(w1.mul(cqy));
+            FloatVector qz = s0.mul(pqz).add(w1.mul(cqz));
+            FloatVector qw = s0.mul(pqw).add(w1.mul(cqw));
+            FloatVector invNorm = one.div(qx.mul(qx).add(qy.mul(qy)).add(qz.mul(qz)).add(qw.mul(qw)).sqrt());
+
+            ptx.add(ctx.sub(ptx).mul(a)).intoArray(out.tx, i);
+            pty.add(cty.sub(pty).mul(a)).intoArray(out.ty, i);
+            ptz.add(ctz.sub(ptz).mul(a)).intoArray(out.tz, i);
+            qx.mul(invNorm).intoArray(out.qx, i);
+            qy.mul(invNorm).intoArray(out.qy, i);
+            qz.mul(invNorm).intoArray(out.qz, i);
+            qw.mul(invNorm).intoArray(out.qw, i);
+            psx.add(csx.sub(psx).mul(a)).intoArray(out.sx, i);
+            psy.add(csy.sub(psy).mul(a)).intoArray(out.sy, i);
+            psz.add(csz.sub(psz).mul(a)).intoArray(out.sz, i);
+        }
+        interpolateRangeScalar(previous, current, alpha, out, i, count, false);
+//#else
+        interpolateRangeScalar(previous, current, alpha, out, 0, count, false);
+//#endif
+    }
+
+    /**
+     * Force scalar FAST-mode interpolation regardless of runtime backend.
+     */
+    public static void interpolateBatchScalarFast(TransformSoA previous, TransformSoA current, float alpha, TransformSoA out, int count) {
+        interpolateRangeScalar(previous, current, alpha, out, 0, count, false);
+    }
+
+    /**
+     * Force the lane-parallel packed-affine interpolation regardless of runtime backend.
+     * <p>
+     * Results are bit-identical to {@link #interpolateToPackedAffineScalarFast}. Builds without the Vector API
+     * fall back to scalar.
+     */
+    public static void interpolateToPackedAffineVectorFast(TransformSoA previous, TransformSoA current, float alpha,
+                                                           PackedAffineArray out, int count) {
+//#ifdef __HAS_VECTOR_API__
+        int lanes = COMPOSE_SPECIES.length();
+        if (lanes <= 1) {
+            interpolateToPackedAffineRangeScalar(previous, current, alpha, out, 0, count, false);
+            return;
+        }
+        float[] dst = out.raw();
+        int[] laneOffsets = PACKED_AFFINE_LANE_OFFSETS;
+        FloatVector a = FloatVector.broadcast(COMPOSE_SPECIES, alpha);
+        FloatVector s0 = FloatVector.broadcast(COMPOSE_SPECIES, 1.0f - alpha);
+        FloatVector s1 = a;
+        FloatVector s1Neg = FloatVector.broadcast(COMPOSE_SPECIES, -alpha);
+        FloatVector one = FloatVector.broadcast(COMPOSE_SPECIES, 1.0f);
+        int i = 0;
+        int limit = count - (count % lanes);
+        for (; i < limit; i += lanes) {
+            FloatVector pqx = FloatVector.fromArray(COMPOSE_SPECIES, previous.qx, i);
+            FloatVector pqy = FloatVector.fromArray(COMPOSE_SPECIES, previous.qy, i);
+            FloatVector pqz = FloatVector.fromArray(COMPOSE_SPECIES, previous.qz, i);
+            FloatVector pqw = FloatVector.fromArray(COMPOSE_SPECIES, previous.qw, i);
+            FloatVector cqx = FloatVector.fromArray(COMPOSE_SPECIES, current.qx, i);
+            FloatVector cqy = FloatVector.fromArray(COMPOSE_SPECIES, current.qy, i);
+            FloatVector cqz = FloatVector.fromArray(COMPOSE_SPECIES, current.qz, i);
+            FloatVector cqw = FloatVector.fromArray(COMPOSE_SPECIES, current.qw, i);
+
+            FloatVector dot = pqx.mul(cqx).add(pqy.mul(cqy)).add(pqz.mul(cqz)).add(pqw.mul(cqw));
+            VectorMask<Float> flip = dot.compare(VectorOperators.LT, 0.0f);
+            FloatVector w1 = s1.blend(s1Neg, flip);
+            FloatVector qx = s0.mul(pqx).add(w1.mul(cqx));
+            FloatVector qy = s0.mul(pqy).add(w1.mul(cqy));
+            FloatVector qz = s0.mul(pqz).add(w1.mul(cqz));
+            FloatVector qw = s0.mul(pqw).add(w1.mul(cqw));
+            FloatVector invNorm = one.div(qx.mul(qx).add(qy.mul(qy)).add(qz.mul(qz)).add(qw.mul(qw)).sqrt());
+            qx = qx.mul(invNorm);
+            qy = qy.mul(invNorm);
+            qz = qz.mul(invNorm);
+            qw = qw.mul(invNorm);
+
+            FloatVector ptx = FloatVector.fromArray(COMPOSE_SPECIES, previous.tx, i);
+            FloatVector pty = FloatVector.fromArray(COMPOSE_SPECIES, previous.ty, i);
+            FloatVector ptz = FloatVector.fromArray(COMPOSE_SPECIES, previous.tz, i);
+            FloatVector psx = FloatVector.fromArray(COMPOSE_SPECIES, previous.sx, i);
+            FloatVector psy = FloatVector.fromArray(COMPOSE_SPECIES, previous.sy, i);
+            FloatVector psz = FloatVector.fromArray(COMPOSE_SPECIES, previous.sz, i);
+            FloatVector tx = ptx.add(FloatVector.fromArray(COMPOSE_SPECIES, current.tx, i).sub(ptx).mul(a));
+            FloatVector ty = pty.add(FloatVector.fromArray(COMPOSE_SPECIES, current.ty, i).sub(pty).mul(a));
+            FloatVector tz = ptz.add(FloatVector.fromArray(COMPOSE_SPECIES, current.tz, i).sub(ptz).mul(a));
+            FloatVector sx = psx.add(FloatVector.fromArray(COMPOSE_SPECIES, current.sx, i).sub(psx).mul(a));
+            FloatVector sy = psy.add(FloatVector.fromArray(COMPOSE_SPECIES, current.sy, i).sub(psy).mul(a));
+            FloatVector sz = psz.add(FloatVector.fromArray(COMPOSE_SPECIES, current.sz, i).sub(psz).mul(a));
+
+            FloatVector dqx = qx.add(qx);
+            FloatVector dqy = qy.add(qy);
+            FloatVector dqz = qz.add(qz);
+            FloatVector q00 = dqx.mul(qx);
+            FloatVector q11 = dqy.mul(qy);
+            FloatVector q22 = dqz.mul(qz);
+            FloatVector q01 = dqx.mul(qy);
+            FloatVector q02 = dqx.mul(qz);
+            FloatVector q03 = dqx.mul(qw);
+            FloatVector q12 = dqy.mul(qz);
+            FloatVector q13 = dqy.mul(qw);
+            FloatVector q23 = dqz.mul(qw);
+
+            int base = i * PackedAffineArray.STRIDE_FLOATS;
+            sx.sub(q11.add(q22).mul(sx)).intoArray(dst, base, laneOffsets, 0);
+            q01.add(q23).mul(sx).intoArray(dst, base + 1, laneOffsets, 0);
+            q02.sub(q13).mul(sx).intoArray(dst, base + 2, laneOffsets, 0);
+            tx.intoArray(dst, base + 3, laneOffsets, 0);
+            q01.sub(q23).mul(sy).intoArray(dst, base + 4, laneOffsets, 0);
+            sy.sub(q22.add(q00).mul(sy)).intoArray(dst, base + 5, laneOffsets, 0);
+            q12.add(q03).mul(sy).intoArray(dst, base + 6, laneOffsets, 0);
+            ty.intoArray(dst, base + 7, laneOffsets, 0);
+            q02.add(q13).mul(sz).intoArray(dst, base + 8, laneOffsets, 0);
+            q12.sub(q03).mul(sz).intoArray(dst, base + 9, laneOffsets, 0);
+            sz.sub(q11.add(q00).mul(sz)).intoArray(dst, base + 10, laneOffsets, 0);
+            tz.intoArray(dst, base + 11, laneOffsets, 0);
+        }
+        interpolateToPackedAffineRangeScalar(previous, current, alpha, out, i, count, false);
+//#else
+        interpolateToPackedAffineRangeScalar(previous, current, alpha, out, 0, count, false);
+//#endif
+    }
+
+    /**
+     * Force scalar FAST-mode packed-affine interpolation regardless of runtime backend.
+     */
+    public static void interpolateToPackedAffineScalarFast(TransformSoA previous, TransformSoA current, float alpha,
+                                                           PackedAffineArray out, int count) {
+        interpolateToPackedAffineRangeScalar(previous, current, alpha, out, 0, count, false);
+    }
+
+    /**
+     * Compute {@code out[i] = parents[i] * locals[i]} for {@code count} off-heap transforms, reading and writing the
+     * native columns in place. Dispatch and results match
+     * {@link #composeBatch(TransformSoA, TransformSoA, TransformSoA, int)}.
+     */
+    public static void composeBatch(NativeTransformSoA parents, NativeTransformSoA locals, NativeTransformSoA out, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (KernelConfig.mathMode() == MathMode.STRICT) {
+            composeRangeScalar(parents, locals, out, 0, count, true);
+            return;
+        }
+        if (SimdSupport.backend() == SimdSupport.Backend.VECTOR_API && NativeFloatColumns.hasVectorAccess()
+                && count >= SIMD_BATCH_THRESHOLD) {
+            composeBatchVectorFast(parents, locals, out, count);
+            return;
+        }
+        composeRangeScalar(parents, locals, out, 0, count, false);
+    }
+
+    /**
+     * Force the lane-parallel implementation for off-heap transforms regardless of runtime backend.
+     * <p>
+     * Results are bit-identical to {@link #composeBatchScalarFast(NativeTransformSoA, NativeTransformSoA, NativeTransformSoA, int)}.
+     * Builds without the Vector API fall back to scalar.
+     */
+    public static void composeBatchVectorFast(NativeTransformSoA parents, NativeTransformSoA locals, NativeTransformSoA out, int count) {
+//#ifdef __HAS_VECTOR_API__
+        int lanes = COMPOSE_SPECIES.length();
+        if (lanes <= 1) {
+            composeRangeScalar(parents, locals, out, 0, count, false);
+            return;
+        }
+        FloatVector two = FloatVector.broadcast(COMPOSE_SPECIES, 2.0f);
+        int i = 0;
+        int limit = count - (count % lanes);
+        for (; i < limit; i += lanes) {
+            FloatVector psx = parents.loadVector(COMPOSE_SPECIES, NativeTransformSoA.SX, i);
+            FloatVector psy = parents.loadVector(COMPOSE_SPECIES, NativeTransformSoA.SY, i);
+            FloatVector psz = parents.loadVector(COMPOSE_SPECIES, NativeTransformSoA.SZ, i);
+            FloatVector pqx = parents.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QX, i);
+            FloatVector pqy = parents.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QY, i);
+            FloatVector pqz = parents.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QZ, i);
+            FloatVector pqw = parents.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QW, i);
+            FloatVector ptx = parents.loadVector(COMPOSE_SPECIES, NativeTransformSoA.TX, i);
+            FloatVector pty = parents.loadVector(COMPOSE_SPECIES, NativeTransformSoA.TY, i);
+            FloatVector ptz = parents.loadVector(COMPOSE_SPECIES, NativeTransformSoA.TZ, i);
+            FloatVector lqx = locals.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QX, i);
+            FloatVector lqy = locals.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QY, i);
+            FloatVector lqz = locals.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QZ, i);
+            FloatVector lqw = locals.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QW, i);
+            FloatVector lsx = locals.loadVector(COMPOSE_SPECIES, NativeTransformSoA.SX, i);
+            FloatVector lsy = locals.loadVector(COMPOSE_SPECIES, NativeTransformSoA.SY, i);
+            FloatVector lsz = locals.loadVector(COMPOSE_SPECIES, NativeTransformSoA.SZ, i);
+
+            FloatVector ltx = locals.loadVector(COMPOSE_SPECIES, NativeTransformSoA.TX, i).mul(psx);
+            FloatVector lty = locals.loadVector(COMPOSE_SPECIES, NativeTransformSoA.TY, i).mul(psy);
+            FloatVector ltz = locals.loadVector(COMPOSE_SPECIES, NativeTransformSoA.TZ, i).mul(psz);
+
+            FloatVector tx2 = two.mul(pqy.mul(ltz).sub(pqz.mul(lty)));
+            FloatVector ty2 = two.mul(pqz.mul(ltx).sub(pqx.mul(ltz)));
+            FloatVector tz2 = two.mul(pqx.mul(lty).sub(pqy.mul(ltx)));
+            FloatVector rx = ltx.add(pqw.mul(tx2)).add(pqy.mul(tz2).sub(pqz.mul(ty2)));
+            FloatVector ry = lty.add(pqw.mul(ty2)).add(pqz.mul(tx2).sub(pqx.mul(tz2)));
+            FloatVector rz = ltz.add(pqw.mul(tz2)).add(pqx.mul(ty2).sub(pqy.mul(tx2)));
+
+            out.storeVector(ptx.add(rx), NativeTransformSoA.TX, i);
+            out.storeVector(pty.add(ry), NativeTransformSoA.TY, i);
+            out.storeVector(ptz.add(rz), NativeTransformSoA.TZ, i);
+
+            out.storeVector(pqw.mul(lqx).add(pqx.mul(lqw)).add(pqy.mul(lqz)).sub(pqz.mul(lqy)), NativeTransformSoA.QX, i);
+            out.storeVector(pqw.mul(lqy).sub(pqx.mul(lqz)).add(pqy.mul(lqw)).add(pqz.mul(lqx)), NativeTransformSoA.QY, i);
+            out.storeVector(pqw.mul(lqz).add(pqx.mul(lqy)).sub(pqy.mul(lqx)).add(pqz.mul(lqw)), NativeTransformSoA.QZ, i);
+            out.storeVector(pqw.mul(lqw).sub(pqx.mul(lqx)).sub(pqy.mul(lqy)).sub(pqz.mul(lqz)), NativeTransformSoA.QW, i);
+
+            out.storeVector(psx.mul(lsx), NativeTransformSoA.SX, i);
+            out.storeVector(psy.mul(lsy), NativeTransformSoA.SY, i);
+            out.storeVector(psz.mul(lsz), NativeTransformSoA.SZ, i);
+        }
+        composeRangeScalar(parents, locals, out, i, count, false);
+//#else
+        composeRangeScalar(parents, locals, out, 0, count, false);
+//#endif
+    }
+
+    /**
+     * Force scalar FAST-mode implementation for off-heap transforms regardless of runtime backend.
+     */
+    public static void composeBatchScalarFast(NativeTransformSoA parents, NativeTransformSoA locals, NativeTransformSoA out, int count) {
+        composeRangeScalar(parents, locals, out, 0, count, false);
+    }
+
+    /**
+     * Interpolate off-heap render state in place, like
+     * {@link #interpolateBatch(TransformSoA, TransformSoA, float, TransformSoA, int)}. {@code out} may alias
+     * either snapshot.
+     */
+    public static void interpolateBatch(NativeTransformSoA previous, NativeTransformSoA current, float alpha, NativeTransformSoA out, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (KernelConfig.mathMode() == MathMode.STRICT) {
+            interpolateRangeScalar(previous, current, alpha, out, 0, count, true);
+            return;
+        }
+        if (SimdSupport.backend() == SimdSupport.Backend.VECTOR_API && NativeFloatColumns.hasVectorAccess()
+                && count >= SIMD_BATCH_THRESHOLD) {
+            interpolateBatchVectorFast(previous, current, alpha, out, count);
+            return;
+        }
+        interpolateRangeScalar(previous, current, alpha, out, 0, count, false);
+    }
+
+    /**
+     * Force the lane-parallel interpolation for off-heap transforms regardless of runtime backend.
+     * <p>
+     * Results are bit-identical to
+     * {@link #interpolateBatchScalarFast(NativeTransformSoA, NativeTransformSoA, float, NativeTransformSoA, int)}.
+     * Builds without the Vector API fall back to scalar.
+     */
+    public static void interpolateBatchVectorFast(NativeTransformSoA previous, NativeTransformSoA current, float alpha,
+                                                  NativeTransformSoA out, int count) {
+//#ifdef __HAS_VECTOR_API__
+        int lanes = COMPOSE_SPECIES.length();
+        if (lanes <= 1) {
+            interpolateRangeScalar(previous, current, alpha, out, 0, count, false);
+            return;
+        }
+        FloatVector a = FloatVector.broadcast(COMPOSE_SPECIES, alpha);
+        FloatVector s0 = FloatVector.broadcast(COMPOSE_SPECIES, 1.0f - alpha);
+        FloatVector s1 = a;
+        FloatVector s1Neg = FloatVector.broadcast(COMPOSE_SPECIES, -alpha);
+        FloatVector one = FloatVector.broadcast(COMPOSE_SPECIES, 1.0f);
+        int i = 0;
+        int limit = count - (count % lanes);
+        for (; i < limit; i += lanes) {
+            FloatVector ptx = previous.loadVector(COMPOSE_SPECIES, NativeTransformSoA.TX, i);
+            FloatVector pty = previous.loadVector(COMPOSE_SPECIES, NativeTransformSoA.TY, i);
+            FloatVector ptz = previous.loadVector(COMPOSE_SPECIES, NativeTransformSoA.TZ, i);
+            FloatVector pqx = previous.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QX, i);
+            FloatVector pqy = previous.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QY, i);
+            FloatVector pqz = previous.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QZ, i);
+            FloatVector pqw = previous.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QW, i);
+            FloatVector psx = previous.loadVector(COMPOSE_SPECIES, NativeTransformSoA.SX, i);
+            FloatVector psy = previous.loadVector(COMPOSE_SPECIES, NativeTransformSoA.SY, i);
+            FloatVector psz = previous.loadVector(COMPOSE_SPECIES, NativeTransformSoA.SZ, i);
+            FloatVector ctx = current.loadVector(COMPOSE_SPECIES, NativeTransformSoA.TX, i);
+            FloatVector cty = current.loadVector(COMPOSE_SPECIES, NativeTransformSoA.TY, i);
+            FloatVector ctz = current.loadVector(COMPOSE_SPECIES, NativeTransformSoA.TZ, i);
+            FloatVector cqx = current.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QX, i);
+            FloatVector cqy = current.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QY, i);
+            FloatVector cqz = current.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QZ, i);
+            FloatVector cqw = current.loadVector(COMPOSE_SPECIES, NativeTransformSoA.QW, i);
+            FloatVector csx = current.loadVector(COMPOSE_SPECIES, NativeTransformSoA.SX, i);
+            FloatVector csy = current.loadVector(COMPOSE_SPECIES, NativeTransformSoA.SY, i);
+            FloatVector csz = current.loadVector(COMPOSE_SPECIES, NativeTransformSoA.SZ, i);
+
+            FloatVector dot = pqx.mul(cqx).add(pqy.mul(cqy)).add(pqz.mul(cqz)).add(pqw.mul(cqw));
+            VectorMask<Float> flip = dot.compare(VectorOperators.LT, 0.0f);
+            FloatVector w1 = s1.blend(s1Neg, flip);
+            FloatVector qx = s0.mul(pqx).add(w1.mul(cqx));
+            FloatVector qy = s0.mul(pqy).add(w1.mul(cqy));
+            FloatVector qz = s0.mul(pqz).add(w1.mul(cqz));
+            FloatVector qw = s0.mul(pqw).add(w1.mul(cqw));
+            FloatVector invNorm = one.div(qx.mul(qx).add(qy.mul(qy)).add(qz.mul(qz)).add(qw.mul(qw)).sqrt());
+
+            out.storeVector(ptx.add(ctx.sub(ptx).mul(a)), NativeTransformSoA.TX, i);
+            out.storeVector(pty.add(cty.sub(pty).mul(a)), NativeTransformSoA.TY, i);
+            out.storeVector(ptz.add(ctz.sub(ptz).mul(a)), NativeTransformSoA.TZ, i);
+            out.storeVector(qx.mul(invNorm), NativeTransformSoA.QX, i);
+            out.storeVector(qy.mul(invNorm), NativeTransformSoA.QY, i);
+            out.storeVector(qz.mul(invNorm), NativeTransformSoA.QZ, i);
+            out.storeVector(qw.mul(invNorm), NativeTransformSoA.QW, i);
+            out.storeVector(psx.add(csx.sub(psx).mul(a)), NativeTransformSoA.SX, i);
+            out.storeVector(psy.add(csy.sub(psy).mul(a)), NativeTransformSoA.SY, i);
+            out.storeVector(psz.add(csz.sub(psz).mul(a)), NativeTransformSoA.SZ, i);
+        }
+        interpolateRangeScalar(previous, current, alpha, out, i, count, false);
+//#else
+        interpolateRangeScalar(previous, current, alpha, out, 0, count, false);
+//#endif
+    }
+
+    /**
+     * Force scalar FAST-mode interpolation for off-heap transforms regardless of runtime backend.
+     */
+    public static void interpolateBatchScalarFast(NativeTransformSoA previous, NativeTransformSoA current, float alpha,
+                                                  NativeTransformSoA out, int count) {
+        interpolateRangeScalar(previous, current, alpha, out, 0, count, false);
+    }
+
+    private static void interpolateRangeScalar(TransformSoA previous, TransformSoA current, float alpha, TransformSoA out,
+                                               int start, int end, boolean strict) {
+        float s0 = 1.0f - alpha;
+        for (int i = start; i < end; i++) {
+            float pqx = previous.qx[i];
+            float pqy = previous.qy[i];
+            float pqz = previous.qz[i];
+            float pqw = previous.qw[i];
+            float cqx = current.qx[i];
+            float cqy = current.qy[i];
+            float cqz = current.qz[i];
+            float cqw = current.qw[i];
+
+            float dot = pqx * cqx + pqy * cqy + pqz * cqz + pqw * cqw;
+            float s1 = dot < 0.0f ? -alpha : alpha;
+            float qx = s0 * pqx + s1 * cqx;
+            float qy = s0 * pqy + s1 * cqy;
+            float qz = s0 * pqz + s1 * cqz;
+            float qw = s0 * pqw + s1 * cqw;
+            float norm = (float) java.lang.Math.sqrt(qx * qx + qy * qy + qz * qz + qw * qw);
+            if (strict && !(norm > 0.0f)) {
+                qx = 0.0f;
+                qy = 0.0f;
+                qz = 0.0f;
+                qw = 1.0f;
+            } else {
+                float invNorm = 1.0f / norm;
+                qx *= invNorm;
+                qy *= invNorm;
+                qz *= invNorm;
+                qw *= invNorm;
+            }
+
+            float ptx = previous.tx[i];
+            float pty = previous.ty[i];
+            float ptz = previous.tz[i];
+            float psx = previous.sx[i];
+            float psy = previous.sy[i];
+            float psz = previous.sz[i];
+            out.tx[i] = ptx + (current.tx[i] - ptx) * alpha;
+            out.ty[i] = pty + (current.ty[i] - pty) * alpha;
+            out.tz[i] = ptz + (current.tz[i] - ptz) * alpha;
+            out.qx[i] = qx;
+            out.qy[i] = qy;
+            out.qz[i] = qz;
+            out.qw[i] = qw;
+            out.sx[i] = psx + (current.sx[i] - psx) * alpha;
+            out.sy[i] = psy + (current.sy[i] - psy) * alpha;
+            out.sz[i] = psz + (current.sz[i] - psz) * alpha;
+        }
+    }
+
+    private static void interpolateToPackedAffineRangeScalar(TransformSoA previous, TransformSoA current, float alpha,
+                                                             PackedAffineArray out, int start, int end, boolean strict) {
+        float[] dst = out.raw();
+        float s0 = 1.0f - alpha;
+        for (int i = start; i < end; i++) {
+            float pqx = previous.qx[i];
+            float pqy = previous.qy[i];
+            float pqz = previous.qz[i];
+            float pqw = previous.qw[i];
+            float cqx = current.qx[i];
+            float cqy = current.qy[i];
+            float cqz = current.qz[i];
+            float cqw = current.qw[i];
+
+            float dot = pqx * cqx + pqy * cqy + pqz * cqz + pqw * cqw;
+            float s1 = dot < 0.0f ? -alpha : alpha;
+            float qx = s0 * pqx + s1 * cqx;
+            float qy = s0 * pqy + s1 * cqy;
+            float qz = s0 * pqz + s1 * cqz;
+            float qw = s0 * pqw + s1 * cqw;
+            float norm = (float) java.lang.Math.sqrt(qx * qx + qy * qy + qz * qz + qw * qw);
+            if (strict && !(norm > 0.0f)) {
+                qx = 0.0f;
+                qy = 0.0f;
+                qz = 0.0f;
+                qw = 1.0f;
+            } else {
+                float invNorm = 1.0f / norm;
+                qx *= invNorm;
+                qy *= invNorm;
+                qz *= invNorm;
+                qw *= invNorm;
+            }
+
+            float ptx = previous.tx[i];
+            float pty = previous.ty[i];
+            float ptz = previous.tz[i];
+            float psx = previous.sx[i];
+            float psy = previous.sy[i];
+            float psz = previous.sz[i];
+            PackedAffineKernels.setTrs(dst, out.offsetOf(i),
+                    ptx + (current.tx[i] - ptx) * alpha,
+                    pty + (current.ty[i] - pty) * alpha,
+                    ptz + (current.tz[i] - ptz) * alpha,
+                    qx, qy, qz, qw,
+                    psx + (current.sx[i] - psx) * alpha,
+                    psy + (current.sy[i] - psy) * alpha,
+                    psz + (current.sz[i] - psz) * alpha);
+        }
+    }
+
+    private static void composeRangeScalar(NativeTransformSoA parents, NativeTransformSoA locals, NativeTransformSoA out,
+                                           int start, int end, boolean strict) {
+        for (int i = start; i < end; i++) {
+            float psx = parents.get(NativeTransformSoA.SX, i);
+            float psy = parents.get(NativeTransformSoA.SY, i);
+            float psz = parents.get(NativeTransformSoA.SZ, i);
+
+            float ltx = locals.get(NativeTransformSoA.TX, i) * psx;
+            float lty = locals.get(NativeTransformSoA.TY, i) * psy;
+            float ltz = locals.get(NativeTransformSoA.TZ, i) * psz;
+
+            float pqx = parents.get(NativeTransformSoA.QX, i);
+            float pqy = parents.get(NativeTransformSoA.QY, i);
+            float pqz = parents.get(NativeTransformSoA.QZ, i);
+            float pqw = parents.get(NativeTransformSoA.QW, i);
+
+            float tx2 = 2.0f * (pqy * ltz - pqz * lty);
+            float ty2 = 2.0f * (pqz * ltx - pqx * ltz);
+            float tz2 = 2.0f * (pqx * lty - pqy * ltx);
+            float rx = ltx + pqw * tx2 + (pqy * tz2 - pqz * ty2);
+            float ry = lty + pqw * ty2 + (pqz * tx2 - pqx * tz2);
+            float rz = ltz + pqw * tz2 + (pqx * ty2 - pqy * tx2);
+
+            float lqx = locals.get(NativeTransformSoA.QX, i);
+            float lqy = locals.get(NativeTransformSoA.QY, i);
+            float lqz = locals.get(NativeTransformSoA.QZ, i);
+            float lqw = locals.get(NativeTransformSoA.QW, i);
+            float lsx = locals.get(NativeTransformSoA.SX, i);
+            float lsy = locals.get(NativeTransformSoA.SY, i);
+            float lsz = locals.get(NativeTransformSoA.SZ, i);
+
+            float oqx = pqw * lqx + pqx * lqw + pqy * lqz - pqz * lqy;
+            float oqy = pqw * lqy - pqx * lqz + pqy * lqw + pqz * lqx;
+            float oqz = pqw * lqz + pqx * lqy - pqy * lqx + pqz * lqw;
+            float oqw = pqw * lqw - pqx * lqx - pqy * lqy - pqz * lqz;
+            if (strict) {
+                float norm = (float) java.lang.Math.sqrt(oqx * oqx + oqy * oqy + oqz * oqz + oqw * oqw);
+                if (norm > 0.0f) {
+                    float invNorm = 1.0f / norm;
+                    oqx *= invNorm;
+                    oqy *= invNorm;
+                    oqz *= invNorm;
+                    oqw *= invNorm;
+                } else {
+                    oqx = 0.0f;
+                    oqy = 0.0f;
+                    oqz = 0.0f;
+                    oqw = 1.0f;
+                }
+            }
+
+            out.set(NativeTransformSoA.TX, i, parents.get(NativeTransformSoA.TX, i) + rx);
+            out.set(NativeTransformSoA.TY, i, parents.get(NativeTransformSoA.TY, i) + ry);
+            out.set(NativeTransformSoA.TZ, i, parents.get(NativeTransformSoA.TZ, i) + rz);
+            out.set(NativeTransformSoA.QX, i, oqx);
+            out.set(NativeTransformSoA.QY, i, oqy);
+            out.set(NativeTransformSoA.QZ, i, oqz);
+            out.set(NativeTransformSoA.QW, i, oqw);
+            out.set(NativeTransformSoA.SX, i, psx * lsx);
+            out.set(NativeTransformSoA.SY, i, psy * lsy);
+            out.set(NativeTransformSoA.SZ, i, psz * lsz);
+        }
+    }
+
+    private static void interpolateRangeScalar(NativeTransformSoA previous, NativeTransformSoA current, float alpha,
+                                               NativeTransformSoA out, int start, int end, boolean strict) {
+        float s0 = 1.0f - alpha;
+        for (int i = start; i < end; i++) {
+            float pqx = previous.get(NativeTransformSoA.QX, i);
+            float pqy = previous.get(NativeTransformSoA.QY, i);
+            float pqz = previous.get(NativeTransformSoA.QZ, i);
+            float pqw = previous.get(NativeTransformSoA.QW, i);
+            float cqx = current.get(NativeTransformSoA.QX, i);
+            float cqy = current.get(NativeTransformSoA.QY, i);
+            float cqz = current.get(NativeTransformSoA.QZ, i);
+            float cqw = current.get(NativeTransformSoA.QW, i);
+
+            float dot = pqx * cqx + pqy * cqy + pqz * cqz + pqw * cqw;
+            float s1 = dot < 0.0f ? -alpha : alpha;
+            float qx = s0 * pqx + s1 * cqx;
+            float qy = s0 * pqy + s1 * cqy;
+            float qz = s0 * pqz + s1 * cqz;
+            float qw = s0 * pqw + s1 * cqw;
+            float norm = (float) java.lang.Math.sqrt(qx * qx + qy * qy + qz * qz + qw * qw);
+            if (strict && !(norm > 0.0f)) {
+                qx = 0.0f;
+                qy = 0.0f;
+                qz = 0.0f;
+                qw = 1.0f;
+            } else {
+                float invNorm = 1.0f / norm;
+                qx *= invNorm;
+                qy *= invNorm;
+                qz *= invNorm;
+                qw *= invNorm;
+            }
+
+            float ptx = previous.get(NativeTransformSoA.TX, i);
+            float pty = previous.get(NativeTransformSoA.TY, i);
+            float ptz = previous.get(NativeTransformSoA.TZ, i);
+            float psx = previous.get(NativeTransformSoA.SX, i);
+            float psy = previous.get(NativeTransformSoA.SY, i);
+            float psz = previous.get(NativeTransformSoA.SZ, i);
+            float ctx = current.get(NativeTransformSoA.TX, i);
+            float cty = current.get(NativeTransformSoA.TY, i);
+            float ctz = current.get(NativeTransformSoA.TZ, i);
+            float csx = current.get(NativeTransformSoA.SX, i);
+            float csy = current.get(NativeTransformSoA.SY, i);
+            float csz = current.get(NativeTransformSoA.SZ, i);
+            out.set(NativeTransformSoA.TX, i, ptx + (ctx - ptx) * alpha);
+            out.set(NativeTransformSoA.TY, i, pty + (cty - pty) * alpha);
+            out.set(NativeTransformSoA.TZ, i, ptz + (ctz - ptz) * alpha);
+            out.set(NativeTransformSoA.QX, i, qx);
+            out.set(NativeTransformSoA.QY, i, qy);
+            out.set(NativeTransformSoA.QZ, i, qz);
+            out.set(NativeTransformSoA.QW, i, qw);
+            out.set(NativeTransformSoA.SX, i, psx + (csx - psx) * alpha);
+            out.set(NativeTransformSoA.SY, i, psy + (csy - psy) * alpha);
+            out.set(NativeTransformSoA.SZ, i, psz + (csz - psz) * alpha);
+        }
+    }
+
+    private static void copyRange(TransformSoA src, TransformSoA dst, int start, int end) {
+        int n = end - start;
+        System.arraycopy(src.tx, start, dst.tx, start, n);
+        System.arraycopy(src.ty, start, dst.ty, start, n);
+        System.arraycopy(src.tz, start, dst.tz, start, n);
+        System.arraycopy(src.qx, start, dst.qx, start, n);
+        System.arraycopy(src.qy, start, dst.qy, start, n);
+        System.arraycopy(src.qz, start, dst.qz, start, n);
+        System.arraycopy(src.qw, start, dst.qw, start, n);
+        System.arraycopy(src.sx, start, dst.sx, start, n);
+        System.arraycopy(src.sy, start, dst.sy, start, n);
+        System.arraycopy(src.sz, start, dst.sz, start, n);
+    }
+
     private static void composeBatchScalarStrict(TransformSoA parents, TransformSoA locals, TransformSoA out, int count) {
         for (int i = 0; i < count; i++) {
             float psx = parents.sx[i];
@@ -162,4 +1060,15 @@ public final class TransformKernels {
             out.sz[i] = psz * locals.sz[i];
         }
     }
+
+//#ifdef __HAS_VECTOR_API__
+
+    private static int[] packedAffineLaneOffsets(int lanes) {
+        int[] offsets = new int[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            offsets[lane] = lane * PackedAffineArray.STRIDE_FLOATS;
+        }
+        return offsets;
+    }
+//#endif
 }
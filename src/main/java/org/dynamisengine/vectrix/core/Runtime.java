@@ -49,6 +49,18 @@ public final class Runtime {
     private Runtime() {
     }
 
+    /**
+     * Whether the memory backend chosen at startup by {@code MemUtil} is the Foreign Function &amp; Memory API.
+     * This honours {@code -Djoml.noffm} and {@code -Djoml.forceFfm}.
+     */
+    public static boolean hasFfmMemory() {
+//#ifdef __HAS_FFM__
+        return MemUtil.INSTANCE instanceof MemUtil.MemUtilFFM;
+//#else
+        return false;
+//#endif
+    }
+
     private static boolean hasFloatToRawIntBits() {
         try {
             Float.class.getDeclaredMethod("floatToRawIntBits", new Class[] { float.class });
@@ -0,0 +1,726 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.geometry;
+
+import org.dynamisengine.vectrix.soa.AABBSoA;
+
+/**
+ * Flat bounding volume hierarchy over the boxes of an {@link AABBSoA}.
+ * <p>
+ * Nodes are stored as parallel arrays. Node {@code 0} is the root; an internal node stores the index of its
+ * left child in {@link #nodeLeftFirst()} and its right child is the next node, while a leaf stores the first
+ * slot of its range in {@link #primitiveIndices()} and a non-zero {@link #nodePrimitiveCount()}. Children are
+ * always allocated after their parent, so every subtree covers a contiguous primitive range and a refit can
+ * run in reverse node order.
+ * <p>
+ * {@link #build(AABBSoA, int)} uses binned surface area heuristic splits. Queries read the boxes of the
+ * {@link AABBSoA} the hierarchy was built over, which must stay alive; after the boxes move
+ * {@link #refit()} restores conservative node bounds without changing the topology.
+ * <p>
+ * Queries are thread-safe as long as no build or refit runs concurrently.
+ */
+public final class AabbBvh {
+    /**
+     * Default maximum number of primitives per leaf.
+     */
+    public static final int DEFAULT_MAX_LEAF_SIZE = 4;
+    /**
+     * Number of centroid bins evaluated per axis.
+     */
+    public static final int SAH_BINS = 16;
+    /**
+     * Cost of visiting a node relative to testing one primitive box.
+     */
+    public static final float SAH_TRAVERSAL_COST = 1.0f;
+
+    static final ThreadLocal<TraversalScratch> SCRATCH = ThreadLocal.withInitial(TraversalScratch::new);
+
+    float[] nodeMinX = new float[0];
+    float[] nodeMinY = new float[0];
+    float[] nodeMinZ = new float[0];
+    float[] nodeMaxX = new float[0];
+    float[] nodeMaxY = new float[0];
+    float[] nodeMaxZ = new float[0];
+    int[] nodeLeftFirst = new int[0];
+    int[] nodePrimitiveCount = new int[0];
+    int[] primitiveIndices = new int[0];
+    int nodeCount;
+    int primitiveCount;
+    int depth;
+    AABBSoA bounds;
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int primitiveCount() {
+        return primitiveCount;
+    }
+
+    /**
+     * Number of nodes on the longest root-to-leaf path.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    public AABBSoA bounds() {
+        return bounds;
+    }
+
+    public float[] nodeMinX() {
+        return nodeMinX;
+    }
+
+    public float[] nodeMinY() {
+        return nodeMinY;
+    }
+
+    public float[] nodeMinZ() {
+        return nodeMinZ;
+    }
+
+    public float[] nodeMaxX() {
+        return nodeMaxX;
+    }
+
+    public float[] nodeMaxY() {
+        return nodeMaxY;
+    }
+
+    public float[] nodeMaxZ() {
+        return nodeMaxZ;
+    }
+
+    public int[] nodeLeftFirst() {
+        return nodeLeftFirst;
+    }
+
+    public int[] nodePrimitiveCount() {
+        return nodePrimitiveCount;
+    }
+
+    public int[] primitiveIndices() {
+        return primitiveIndices;
+    }
+
+    public boolean isLeaf(int node) {
+        return nodePrimitiveCount[node] != 0;
+    }
+
+    /**
+     * Build over the first {@code count} boxes with {@link #DEFAULT_MAX_LEAF_SIZE}.
+     */
+    public AabbBvh build(AABBSoA bounds, int count) {
+        return build(bounds, count, DEFAULT_MAX_LEAF_SIZE);
+    }
+
+    /**
+     * Build over the first {@code count} boxes using binned SAH splits.
+     * <p>
+     * A node becomes a leaf when no split is cheaper than intersecting all of its primitives and it holds at
+     * most {@code maxLeafSize} primitives; larger nodes are always split.
+     */
+    public AabbBvh build(AABBSoA bounds, int count, int maxLeafSize) {
+        if (count < 0 || count > bounds.size()) {
+            throw new IllegalArgumentException("count out of range: " + count);
+        }
+        if (maxLeafSize < 1) {
+            throw new IllegalArgumentException("maxLeafSize must be >= 1: " + maxLeafSize);
+        }
+        reset(bounds, count);
+        if (count == 0) {
+            return this;
+        }
+        for (int i = 0; i < count; i++) {
+            primitiveIndices[i] = i;
+        }
+        // Boxes are copied into slot order and partitioned alongside the indices so every pass is sequential.
+        SahBuilder builder = new SahBuilder(bounds, count);
+        int[] stack = new int[64];
+        int[] stackDepth = new int[64];
+        int top = 0;
+        nodeCount = 1;
+        nodeLeftFirst[0] = 0;
+        nodePrimitiveCount[0] = count;
+        stack[top] = 0;
+        stackDepth[top++] = 1;
+        while (top > 0) {
+            int node = stack[--top];
+            int nodeDepth = stackDepth[top];
+            depth = java.lang.Math.max(depth, nodeDepth);
+            int first = nodeLeftFirst[node];
+            int n = nodePrimitiveCount[node];
+            int mid = builder.split(this, node, first, n, maxLeafSize);
+            if (mid < 0) {
+                continue;
+            }
+            int left = nodeCount;
+            nodeCount += 2;
+            nodeLeftFirst[left] = first;
+            nodePrimitiveCount[left] = mid - first;
+            nodeLeftFirst[left + 1] = mid;
+            nodePrimitiveCount[left + 1] = first + n - mid;
+            nodeLeftFirst[node] = left;
+            nodePrimitiveCount[node] = 0;
+            if (top + 2 > stack.length) {
+                stack = java.util.Arrays.copyOf(stack, stack.length * 2);
+                stackDepth = java.util.Arrays.copyOf(stackDepth, stack.length);
+            }
+            stack[top] = left + 1;
+            stackDepth[top++] = nodeDepth + 1;
+            stack[top] = left;
+            stackDepth[top++] = nodeDepth + 1;
+        }
+        return this;
+    }
+
+    /**
+     * Recompute all node bounds bottom-up from the current boxes, keeping the tree topology.
+     */
+    public void refit() {
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            if (nodePrimitiveCount[node] != 0) {
+                fitLeaf(node);
+            } else {
+                int l = nodeLeftFirst[node];
+                int r = l + 1;
+                nodeMinX[node] = java.lang.Math.min(nodeMinX[l], nodeMinX[r]);
+                nodeMinY[node] = java.lang.Math.min(nodeMinY[l], nodeMinY[r]);
+                nodeMinZ[node] = java.lang.Math.min(nodeMinZ[l], nodeMinZ[r]);
+                nodeMaxX[node] = java.lang.Math.max(nodeMaxX[l], nodeMaxX[r]);
+                nodeMaxY[node] = java.lang.Math.max(nodeMaxY[l], nodeMaxY[r]);
+                nodeMaxZ[node] = java.lang.Math.max(nodeMaxZ[l], nodeMaxZ[r]);
+            }
+        }
+    }
+
+    /**
+     * Collect the indices of all boxes hit by the ray {@code origin + t * dir, t >= 0}.
+     * <p>
+     * Box tests use {@link Intersectionf#testRayAabInvDir(float, float, float, float, float, float, float, float, float, float, float, float)}.
+     *
+     * @return the number of hits, which may exceed {@code outIndices.length}; only the first
+     *         {@code outIndices.length} hits are stored
+     */
+    public int queryRay(float originX, float originY, float originZ, float dirX, float dirY, float dirZ, int[] outIndices) {
+        if (nodeCount == 0) {
+            return 0;
+        }
+        float invDirX = 1.0f / dirX, invDirY = 1.0f / dirY, invDirZ = 1.0f / dirZ;
+        AABBSoA b = bounds;
+        TraversalScratch scratch = SCRATCH.get();
+        scratch.ensureQueryStack(depth + 1);
+        int[] stack = scratch.queryNodes;
+        int top = 0;
+        int hits = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (!Intersectionf.testRayAabInvDir(originX, originY, originZ, invDirX, invDirY, invDirZ,
+                    nodeMinX[node], nodeMinY[node], nodeMinZ[node], nodeMaxX[node], nodeMaxY[node], nodeMaxZ[node])) {
+                continue;
+            }
+            int n = nodePrimitiveCount[node];
+            if (n == 0) {
+                int left = nodeLeftFirst[node];
+                stack[top++] = left + 1;
+                stack[top++] = left;
+                continue;
+            }
+            for (int k = nodeLeftFirst[node], end = k + n; k < end; k++) {
+                int p = primitiveIndices[k];
+                if (Intersectionf.testRayAabInvDir(originX, originY, originZ, invDirX, invDirY, invDirZ,
+                        b.minX[p], b.minY[p], b.minZ[p], b.maxX[p], b.maxY[p], b.maxZ[p])) {
+                    if (hits < outIndices.length) {
+                        outIndices[hits] = p;
+                    }
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Collect the indices of all boxes overlapping the given box, as tested by
+     * {@link Intersectionf#testAabAab(float, float, float, float, float, float, float, float, float, float, float, float)}.
+     *
+     * @return the number of hits, which may exceed {@code outIndices.length}; only the first
+     *         {@code outIndices.length} hits are stored
+     */
+    public int queryAabb(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int[] outIndices) {
+        if (nodeCount == 0) {
+            return 0;
+        }
+        AABBSoA b = bounds;
+        TraversalScratch scratch = SCRATCH.get();
+        scratch.ensureQueryStack(depth + 1);
+        int[] stack = scratch.queryNodes;
+        int top = 0;
+        int hits = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (!Intersectionf.testAabAab(nodeMinX[node], nodeMinY[node], nodeMinZ[node], nodeMaxX[node], nodeMaxY[node], nodeMaxZ[node],
+                    minX, minY, minZ, maxX, maxY, maxZ)) {
+                continue;
+            }
+            int n = nodePrimitiveCount[node];
+            if (n == 0) {
+                int left = nodeLeftFirst[node];
+                stack[top++] = left + 1;
+                stack[top++] = left;
+                continue;
+            }
+            for (int k = nodeLeftFirst[node], end = k + n; k < end; k++) {
+                int p = primitiveIndices[k];
+                if (Intersectionf.testAabAab(b.minX[p], b.minY[p], b.minZ[p], b.maxX[p], b.maxY[p], b.maxZ[p],
+                        minX, minY, minZ, maxX, maxY, maxZ)) {
+                    if (hits < outIndices.length) {
+                        outIndices[hits] = p;
+                    }
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Collect the indices of all boxes not classified {@link FrustumIntersection#OUTSIDE} by
+     * {@link CullingKernels#classifyAabb(FrustumPlanes, float, float, float, float, float, float)}.
+     * <p>
+     * Subtrees whose node box is {@link FrustumIntersection#INSIDE} are emitted without further plane tests.
+     *
+     * @return the number of visible boxes, which may exceed {@code outIndices.length}; only the first
+     *         {@code outIndices.length} indices are stored
+     */
+    public int queryFrustum(FrustumPlanes frustum, int[] outIndices) {
+        if (nodeCount == 0) {
+            return 0;
+        }
+        AABBSoA b = bounds;
+        TraversalScratch scratch = SCRATCH.get();
+        scratch.ensureQueryStack(depth + 1);
+        int[] stack = scratch.queryNodes;
+        int[] masks = scratch.queryMasks;
+        int top = 0;
+        int hits = 0;
+        stack[top] = 0;
+        masks[top++] = FrustumPlanes.ALL_PLANES_MASK;
+        while (top > 0) {
+            int node = stack[--top];
+            // Planes the parent was fully inside of cannot reject or straddle its children.
+            int mask = CullingKernels.classifyAabbMasked(frustum,
+                    nodeMinX[node], nodeMinY[node], nodeMinZ[node], nodeMaxX[node], nodeMaxY[node], nodeMaxZ[node],
+                    masks[top], FrustumPlanes.PLANE_NX);
+            if (mask < 0) {
+                continue;
+            }
+            if (mask == 0) {
+                hits = emitSubtree(node, outIndices, hits);
+                continue;
+            }
+            int n = nodePrimitiveCount[node];
+            if (n == 0) {
+                int left = nodeLeftFirst[node];
+                stack[top] = left + 1;
+                masks[top++] = mask;
+                stack[top] = left;
+                masks[top++] = mask;
+                continue;
+            }
+            for (int k = nodeLeftFirst[node], end = k + n; k < end; k++) {
+                int p = primitiveIndices[k];
+                if (CullingKernels.classifyAabbMasked(frustum, b.minX[p], b.minY[p], b.minZ[p], b.maxX[p], b.maxY[p], b.maxZ[p],
+                        mask, FrustumPlanes.PLANE_NX) >= 0) {
+                    if (hits < outIndices.length) {
+                        outIndices[hits] = p;
+                    }
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Entry distance of a ray with {@link #safeInverse(float) inverse direction} into node {@code node}, or
+     * {@link Float#POSITIVE_INFINITY} if the slab interval misses {@code [0, tMax]}.
+     */
+    float rayEntry(int node, float originX, float originY, float originZ, float invDirX, float invDirY, float invDirZ, float tMax) {
+        float tx0 = (nodeMinX[node] - originX) * invDirX;
+        float tx1 = (nodeMaxX[node] - originX) * invDirX;
+        float ty0 = (nodeMinY[node] - originY) * invDirY;
+        float ty1 = (nodeMaxY[node] - originY) * invDirY;
+        float tz0 = (nodeMinZ[node] - originZ) * invDirZ;
+        float tz1 = (nodeMaxZ[node] - originZ) * invDirZ;
+        float tNear = java.lang.Math.max(java.lang.Math.max(java.lang.Math.min(tx0, tx1), java.lang.Math.min(ty0, ty1)),
+                java.lang.Math.max(java.lang.Math.min(tz0, tz1), 0.0f));
+        float tFar = java.lang.Math.min(java.lang.Math.min(java.lang.Math.max(tx0, tx1), java.lang.Math.max(ty0, ty1)),
+                java.lang.Math.min(java.lang.Math.max(tz0, tz1), tMax));
+        return tNear <= tFar ? tNear : Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Inverse of a ray direction component for {@link #rayEntry}, clamped to a finite value so that rays lying
+     * exactly in a slab plane produce {@code 0} instead of {@code 0 * infinity = NaN}.
+     */
+    static float safeInverse(float d) {
+        float inv = 1.0f / d;
+        return java.lang.Math.abs(inv) <= Float.MAX_VALUE ? inv : java.lang.Math.copySign(Float.MAX_VALUE, inv);
+    }
+
+    private int emitSubtree(int node, int[] outIndices, int hits) {
+        int start = subtreeStart(node);
+        int end = subtreeEnd(node);
+        int copy = java.lang.Math.min(end - start, outIndices.length - hits);
+        if (copy > 0) {
+            System.arraycopy(primitiveIndices, start, outIndices, hits, copy);
+        }
+        return hits + end - start;
+    }
+
+    /**
+     * First slot in {@link #primitiveIndices()} of the contiguous primitive range below {@code node}.
+     */
+    int subtreeStart(int node) {
+        while (nodePrimitiveCount[node] == 0) {
+            node = nodeLeftFirst[node];
+        }
+        return nodeLeftFirst[node];
+    }
+
+    /**
+     * End slot (exclusive) in {@link #primitiveIndices()} of the contiguous primitive range below {@code node}.
+     */
+    int subtreeEnd(int node) {
+        while (nodePrimitiveCount[node] == 0) {
+            node = nodeLeftFirst[node] + 1;
+        }
+        return nodeLeftFirst[node] + nodePrimitiveCount[node];
+    }
+
+    void reset(AABBSoA bounds, int count) {
+        int nodes = java.lang.Math.max(2 * count - 1, 1);
+        if (nodeMinX.length < nodes) {
+            nodeMinX = new float[nodes];
+            nodeMinY = new float[nodes];
+            nodeMinZ = new float[nodes];
+            nodeMaxX = new float[nodes];
+            nodeMaxY = new float[nodes];
+            nodeMaxZ = new float[nodes];
+            nodeLeftFirst = new int[nodes];
+            nodePrimitiveCount = new int[nodes];
+        }
+        if (primitiveIndices.length < count) {
+            primitiveIndices = new int[count];
+        }
+        this.bounds = bounds;
+        this.primitiveCount = count;
+        this.nodeCount = 0;
+        this.depth = 0;
+    }
+
+    void fitLeaf(int node) {
+        AABBSoA b = bounds;
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        for (int k = nodeLeftFirst[node], end = k + nodePrimitiveCount[node]; k < end; k++) {
+            int p = primitiveIndices[k];
+            minX = java.lang.Math.min(minX, b.minX[p]);
+            minY = java.lang.Math.min(minY, b.minY[p]);
+            minZ = java.lang.Math.min(minZ, b.minZ[p]);
+            maxX = java.lang.Math.max(maxX, b.maxX[p]);
+            maxY = java.lang.Math.max(maxY, b.maxY[p]);
+            maxZ = java.lang.Math.max(maxZ, b.maxZ[p]);
+        }
+        nodeMinX[node] = minX;
+        nodeMinY[node] = minY;
+        nodeMinZ[node] = minZ;
+        nodeMaxX[node] = maxX;
+        nodeMaxY[node] = maxY;
+        nodeMaxZ[node] = maxZ;
+    }
+
+    static float halfArea(float ex, float ey, float ez) {
+        return ex * ey + ey * ez + ez * ex;
+    }
+
+    /**
+     * Working state of one binned SAH build: box copies in slot order plus per-axis bin accumulators.
+     */
+    private static final class SahBuilder {
+        final float[] minX;
+        final float[] minY;
+        final float[] minZ;
+        final float[] maxX;
+        final float[] maxY;
+        final float[] maxZ;
+        final int[] binCount = new int[3 * SAH_BINS];
+        final float[] binMinX = new float[3 * SAH_BINS];
+        final float[] binMinY = new float[3 * SAH_BINS];
+        final float[] binMinZ = new float[3 * SAH_BINS];
+        final float[] binMaxX = new float[3 * SAH_BINS];
+        final float[] binMaxY = new float[3 * SAH_BINS];
+        final float[] binMaxZ = new float[3 * SAH_BINS];
+        final float[] leftArea = new float[SAH_BINS];
+        final int[] leftCount = new int[SAH_BINS];
+        int[] primitiveIndices;
+
+        SahBuilder(AABBSoA bounds, int count) {
+            minX = java.util.Arrays.copyOf(bounds.minX, count);
+            minY = java.util.Arrays.copyOf(bounds.minY, count);
+            minZ = java.util.Arrays.copyOf(bounds.minZ, count);
+            maxX = java.util.Arrays.copyOf(bounds.maxX, count);
+            maxY = java.util.Arrays.copyOf(bounds.maxY, count);
+            maxZ = java.util.Arrays.copyOf(bounds.maxZ, count);
+        }
+
+        /**
+         * Fit the node bounds and partition {@code [first, first + n)} along the cheapest binned SAH plane.
+         *
+         * @return the first slot of the right child, or {@code -1} to keep the node as a leaf
+         */
+        int split(AabbBvh bvh, int node, int first, int n, int maxLeafSize) {
+            primitiveIndices = bvh.primitiveIndices;
+            int end = first + n;
+            float nMinX = Float.POSITIVE_INFINITY, nMinY = Float.POSITIVE_INFINITY, nMinZ = Float.POSITIVE_INFINITY;
+            float nMaxX = Float.NEGATIVE_INFINITY, nMaxY = Float.NEGATIVE_INFINITY, nMaxZ = Float.NEGATIVE_INFINITY;
+            float cMinX = Float.POSITIVE_INFINITY, cMinY = Float.POSITIVE_INFINITY, cMinZ = Float.POSITIVE_INFINITY;
+            float cMaxX = Float.NEGATIVE_INFINITY, cMaxY = Float.NEGATIVE_INFINITY, cMaxZ = Float.NEGATIVE_INFINITY;
+            for (int k = first; k < end; k++) {
+                float x0 = minX[k], y0 = minY[k], z0 = minZ[k];
+                float x1 = maxX[k], y1 = maxY[k], z1 = maxZ[k];
+                nMinX = java.lang.Math.min(nMinX, x0);
+                nMinY = java.lang.Math.min(nMinY, y0);
+                nMinZ = java.lang.Math.min(nMinZ, z0);
+                nMaxX = java.lang.Math.max(nMaxX, x1);
+                nMaxY = java.lang.Math.max(nMaxY, y1);
+                nMaxZ = java.lang.Math.max(nMaxZ, z1);
+                float cx = x0 + x1, cy = y0 + y1, cz = z0 + z1;
+                cMinX = java.lang.Math.min(cMinX, cx);
+                cMinY = java.lang.Math.min(cMinY, cy);
+                cMinZ = java.lang.Math.min(cMinZ, cz);
+                cMaxX = java.lang.Math.max(cMaxX, cx);
+                cMaxY = java.lang.Math.max(cMaxY, cy);
+                cMaxZ = java.lang.Math.max(cMaxZ, cz);
+            }
+            bvh.nodeMinX[node] = nMinX;
+            bvh.nodeMinY[node] = nMinY;
+            bvh.nodeMinZ[node] = nMinZ;
+            bvh.nodeMaxX[node] = nMaxX;
+            bvh.nodeMaxY[node] = nMaxY;
+            bvh.nodeMaxZ[node] = nMaxZ;
+            if (n == 1) {
+                return -1;
+            }
+            // Small nodes use fewer bins; evaluating all planes dominates the build cost near the leaves.
+            int bins = java.lang.Math.min(SAH_BINS, n);
+            float scaleX = cMaxX > cMinX ? bins / (cMaxX - cMinX) : 0.0f;
+            float scaleY = cMaxY > cMinY ? bins / (cMaxY - cMinY) : 0.0f;
+            float scaleZ = cMaxZ > cMinZ ? bins / (cMaxZ - cMinZ) : 0.0f;
+            if (scaleX == 0.0f && scaleY == 0.0f && scaleZ == 0.0f) {
+                // All centroids coincide: no plane separates them, so only split by count when forced to.
+                return n > maxLeafSize ? first + (n >>> 1) : -1;
+            }
+            for (int i = 0; i < 3 * SAH_BINS; i++) {
+                binCount[i] = 0;
+                binMinX[i] = Float.POSITIVE_INFINITY;
+                binMinY[i] = Float.POSITIVE_INFINITY;
+                binMinZ[i] = Float.POSITIVE_INFINITY;
+                binMaxX[i] = Float.NEGATIVE_INFINITY;
+                binMaxY[i] = Float.NEGATIVE_INFINITY;
+                binMaxZ[i] = Float.NEGATIVE_INFINITY;
+            }
+            for (int k = first; k < end; k++) {
+                float x0 = minX[k], y0 = minY[k], z0 = minZ[k];
+                float x1 = maxX[k], y1 = maxY[k], z1 = maxZ[k];
+                accumulate(binIndex(x0 + x1, cMinX, scaleX, bins), x0, y0, z0, x1, y1, z1);
+                accumulate(SAH_BINS + binIndex(y0 + y1, cMinY, scaleY, bins), x0, y0, z0, x1, y1, z1);
+                accumulate(2 * SAH_BINS + binIndex(z0 + z1, cMinZ, scaleZ, bins), x0, y0, z0, x1, y1, z1);
+            }
+            int bestAxis = -1;
+            int bestBin = 0;
+            float bestCost = Float.POSITIVE_INFINITY;
+            for (int axis = 0; axis < 3; axis++) {
+                float scale = axis == 0 ? scaleX : axis == 1 ? scaleY : scaleZ;
+                if (scale == 0.0f) {
+                    continue;
+                }
+                int base = axis * SAH_BINS;
+                float lx0 = Float.POSITIVE_INFINITY, ly0 = Float.POSITIVE_INFINITY, lz0 = Float.POSITIVE_INFINITY;
+                float lx1 = Float.NEGATIVE_INFINITY, ly1 = Float.NEGATIVE_INFINITY, lz1 = Float.NEGATIVE_INFINITY;
+                int ln = 0;
+                for (int b = 0; b < bins - 1; b++) {
+                    int i = base + b;
+                    ln += binCount[i];
+                    lx0 = java.lang.Math.min(lx0, binMinX[i]);
+                    ly0 = java.lang.Math.min(ly0, binMinY[i]);
+                    lz0 = java.lang.Math.min(lz0, binMinZ[i]);
+                    lx1 = java.lang.Math.max(lx1, binMaxX[i]);
+                    ly1 = java.lang.Math.max(ly1, binMaxY[i]);
+                    lz1 = java.lang.Math.max(lz1, binMaxZ[i]);
+                    leftCount[b] = ln;
+                    leftArea[b] = ln == 0 ? 0.0f : halfArea(lx1 - lx0, ly1 - ly0, lz1 - lz0);
+                }
+                float rx0 = Float.POSITIVE_INFINITY, ry0 = Float.POSITIVE_INFINITY, rz0 = Float.POSITIVE_INFINITY;
+                float rx1 = Float.NEGATIVE_INFINITY, ry1 = Float.NEGATIVE_INFINITY, rz1 = Float.NEGATIVE_INFINITY;
+                int rn = 0;
+                for (int b = bins - 1; b > 0; b--) {
+                    int i = base + b;
+                    rn += binCount[i];
+                    rx0 = java.lang.Math.min(rx0, binMinX[i]);
+                    ry0 = java.lang.Math.min(ry0, binMinY[i]);
+                    rz0 = java.lang.Math.min(rz0, binMinZ[i]);
+                    rx1 = java.lang.Math.max(rx1, binMaxX[i]);
+                    ry1 = java.lang.Math.max(ry1, binMaxY[i]);
+                    rz1 = java.lang.Math.max(rz1, binMaxZ[i]);
+                    int l = leftCount[b - 1];
+                    if (l == 0 || rn == 0) {
+                        continue;
+                    }
+                    float cost = l * leftArea[b - 1] + rn * halfArea(rx1 - rx0, ry1 - ry0, rz1 - rz0);
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestBin = b;
+                    }
+                }
+            }
+            float area = halfArea(nMaxX - nMinX, nMaxY - nMinY, nMaxZ - nMinZ);
+            if (n <= maxLeafSize && SAH_TRAVERSAL_COST * area + bestCost >= n * area) {
+                return -1;
+            }
+            float lo = bestAxis == 0 ? cMinX : bestAxis == 1 ? cMinY : cMinZ;
+            float scale = bestAxis == 0 ? scaleX : bestAxis == 1 ? scaleY : scaleZ;
+            float[] a0 = bestAxis == 0 ? minX : bestAxis == 1 ? minY : minZ;
+            float[] a1 = bestAxis == 0 ? maxX : bestAxis == 1 ? maxY : maxZ;
+            int i = first;
+            int j = end - 1;
+            while (i <= j) {
+                if (binIndex(a0[i] + a1[i], lo, scale, bins) < bestBin) {
+                    i++;
+                } else {
+                    swap(i, j--);
+                }
+            }
+            return i == first || i == end ? first + (n >>> 1) : i;
+        }
+
+        private void accumulate(int b, float x0, float y0, float z0, float x1, float y1, float z1) {
+            binCount[b]++;
+            binMinX[b] = java.lang.Math.min(binMinX[b], x0);
+            binMinY[b] = java.lang.Math.min(binMinY[b], y0);
+            binMinZ[b] = java.lang.Math.min(binMinZ[b], z0);
+            binMaxX[b] = java.lang.Math.max(binMaxX[b], x1);
+            binMaxY[b] = java.lang.Math.max(binMaxY[b], y1);
+            binMaxZ[b] = java.lang.Math.max(binMaxZ[b], z1);
+        }
+
+        private void swap(int i, int j) {
+            int p = primitiveIndices[i];
+            primitiveIndices[i] = primitiveIndices[j];
+            primitiveIndices[j] = p;
+            float t = minX[i];
+            minX[i] = minX[j];
+            minX[j] = t;
+            t = minY[i];
+            minY[i] = minY[j];
+            minY[j] = t;
+            t = minZ[i];
+            minZ[i] = minZ[j];
+            minZ[j] = t;
+            t = maxX[i];
+            maxX[i] = maxX[j];
+            maxX[j] = t;
+            t = maxY[i];
+            maxY[i] = maxY[j];
+            maxY[j] = t;
+            t = maxZ[i];
+            maxZ[i] = maxZ[j];
+            maxZ[j] = t;
+        }
+
+        private static int binIndex(float c, float lo, float scale, int bins) {
+            int bin = (int) ((c - lo) * scale);
+            return bin < 0 ? 0 : bin >= bins ? bins - 1 : bin;
+        }
+    }
+
+    /**
+     * Per-thread traversal state, grown to the deepest tree traversed so far. Box queries, {@link TriangleBvh}
+     * ray and packet traversal and {@link InstanceBvh} top-level traversal keep separate stacks because single
+     * rays continue inside packet traversal and mesh queries run inside top-level traversal.
+     */
+    static final class TraversalScratch {
+        final RayHit probe = new RayHit();
+        final int[] kx = new int[RayPacket.MAX_WIDTH];
+        final int[] ky = new int[RayPacket.MAX_WIDTH];
+        final int[] kz = new int[RayPacket.MAX_WIDTH];
+        final float[] shearX = new float[RayPacket.MAX_WIDTH];
+        final float[] shearY = new float[RayPacket.MAX_WIDTH];
+        final float[] shearZ = new float[RayPacket.MAX_WIDTH];
+        final float[] okx = new float[RayPacket.MAX_WIDTH];
+        final float[] oky = new float[RayPacket.MAX_WIDTH];
+        final float[] okz = new float[RayPacket.MAX_WIDTH];
+        int[] queryNodes = new int[0];
+        int[] queryMasks = new int[0];
+        int[] rayNodes = new int[0];
+        float[] rayEntry = new float[0];
+        int[] packetNodes = new int[0];
+        int[] packetMasks = new int[0];
+        int[] tlasNodes = new int[0];
+        float[] tlasEntry = new float[0];
+
+        void ensureQueryStack(int capacity) {
+            if (queryNodes.length < capacity) {
+                queryNodes = new int[capacity];
+                queryMasks = new int[capacity];
+            }
+        }
+
+        void ensureRayStack(int capacity) {
+            if (rayNodes.length < capacity) {
+                rayNodes = new int[capacity];
+                rayEntry = new float[capacity];
+            }
+        }
+
+        void ensurePacketStack(int capacity) {
+            if (packetNodes.length < capacity) {
+                packetNodes = new int[capacity];
+                packetMasks = new int[capacity];
+            }
+        }
+
+        void ensureTlasStack(int capacity) {
+            if (tlasNodes.length < capacity) {
+                tlasNodes = new int[capacity];
+                tlasEntry = new float[capacity];
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.geometry;
+
+import org.dynamisengine.vectrix.soa.AABBSoA;
+
+/**
+ * Frame-to-frame frustum culling over an {@link AabbBvh} with plane-mask inheritance and plane coherency.
+ * <p>
+ * Every node is tested only against the planes its parent straddles, so a node fully inside the frustum
+ * accepts its whole subtree without further tests and rejected subtrees are skipped, making the cost depend
+ * on the visible part of the scene rather than its size. The plane that last rejected each node and each
+ * object is cached and tested first in the next frame (see
+ * {@link FrustumIntersection#intersectAab(float, float, float, float, float, float, int, int)}), so objects
+ * that stay culled usually cost a single plane test.
+ * <p>
+ * Results equal a flat {@link CullingKernels#classifyAabb} of every object; the cache only decides test
+ * order. It is keyed by node and object index, so it stays useful across {@link AabbBvh#refit()} and is
+ * dropped when the tree is rebuilt with a different node count or by {@link #resetCoherency()}. {@link #cull}
+ * updates the cache and reuses traversal stacks owned by the culler, so each thread needs its own culler.
+ */
+public final class BvhFrustumCuller {
+    private final AabbBvh bvh;
+    private byte[] nodePlane = new byte[0];
+    private byte[] objectPlane = new byte[0];
+    private int[] stack = new int[0];
+    private int[] masks = new int[0];
+    private int visitedNodes;
+
+    public BvhFrustumCuller(AabbBvh bvh) {
+        this.bvh = bvh;
+    }
+
+    public AabbBvh bvh() {
+        return bvh;
+    }
+
+    /**
+     * Number of nodes classified by the last {@link #cull} call.
+     */
+    public int visitedNodes() {
+        return visitedNodes;
+    }
+
+    /**
+     * Forget the cached rejecting planes, e.g. after a camera cut.
+     */
+    public void resetCoherency() {
+        java.util.Arrays.fill(nodePlane, (byte) 0);
+        java.util.Arrays.fill(objectPlane, (byte) 0);
+    }
+
+    /**
+     * Collect the objects that are not outside {@code frustum}.
+     * <p>
+     * Writes up to {@code outIndices.length} object indices and, if {@code outResults} is not {@code null},
+     * their classification ({@link FrustumIntersection#INSIDE} or {@link FrustumIntersection#INTERSECT}) at the
+     * same positions. Objects below a fully inside node come out in tree order as one run.
+     *
+     * @return the total number of visible objects, which may exceed {@code outIndices.length}
+     */
+    public int cull(FrustumPlanes frustum, int[] outIndices, int[] outResults) {
+        AabbBvh tree = bvh;
+        visitedNodes = 0;
+        if (tree.nodeCount == 0) {
+            return 0;
+        }
+        ensureCapacity(tree);
+        AABBSoA b = tree.bounds;
+        int[] primitives = tree.primitiveIndices;
+        int capacity = outResults == null ? outIndices.length : java.lang.Math.min(outIndices.length, outResults.length);
+        int[] stack = this.stack;
+        int[] masks = this.masks;
+        int top = 0;
+        int hits = 0;
+        int visited = 0;
+        stack[top] = 0;
+        masks[top++] = FrustumPlanes.ALL_PLANES_MASK;
+        while (top > 0) {
+            int node = stack[--top];
+            visited++;
+            int mask = CullingKernels.classifyAabbMasked(frustum,
+                    tree.nodeMinX[node], tree.nodeMinY[node], tree.nodeMinZ[node],
+                    tree.nodeMaxX[node], tree.nodeMaxY[node], tree.nodeMaxZ[node], masks[top], nodePlane[node]);
+            if (mask < 0) {
+                nodePlane[node] = (byte) ~mask;
+                continue;
+            }
+            if (mask == 0) {
+                int start = tree.subtreeStart(node);
+                int end = tree.subtreeEnd(node);
+                int copy = java.lang.Math.min(end - start, capacity - hits);
+                if (copy > 0) {
+                    System.arraycopy(primitives, start, outIndices, hits, copy);
+                    if (outResults != null) {
+                        java.util.Arrays.fill(outResults, hits, hits + copy, FrustumIntersection.INSIDE);
+                    }
+                }
+                hits += end - start;
+                continue;
+            }
+            int n = tree.nodePrimitiveCount[node];
+            if (n == 0) {
+                int left = tree.nodeLeftFirst[node];
+                stack[top] = left + 1;
+                masks[top++] = mask;
+                stack[top] = left;
+                masks[top++] = mask;
+                continue;
+            }
+            for (int k = tree.nodeLeftFirst[node], end = k + n; k < end; k++) {
+                int p = primitives[k];
+                int objectMask = CullingKernels.classifyAabbMasked(frustum,
+                        b.minX[p], b.minY[p], b.minZ[p], b.maxX[p], b.maxY[p], b.maxZ[p], mask, objectPlane[p]);
+                if (objectMask < 0) {
+                    objectPlane[p] = (byte) ~objectMask;
+                    continue;
+                }
+                if (hits < capacity) {
+                    outIndices[hits] = p;
+                    if (outResults != null) {
+                        outResults[hits] = objectMask == 0 ? FrustumIntersection.INSIDE : FrustumIntersection.INTERSECT;
+                    }
+                }
+                hits++;
+            }
+        }
+        visitedNodes = visited;
+        return hits;
+    }
+
+    private void ensureCapacity(AabbBvh tree) {
+        if (nodePlane.length != tree.nodeCount) {
+            nodePlane = new byte[tree.nodeCount];
+        }
+        if (objectPlane.length < tree.primitiveCount) {
+            objectPlane = java.util.Arrays.copyOf(objectPlane, tree.primitiveCount);
+        }
+        if (stack.length < tree.depth + 1) {
+            stack = new int[tree.depth + 1];
+            masks = new int[tree.depth + 1];
+        }
+    }
+}
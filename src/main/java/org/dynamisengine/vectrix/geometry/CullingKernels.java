@@ -28,9 +28,14 @@ import org.dynamisengine.vectrix.experimental.KernelConfig;
 import org.dynamisengine.vectrix.core.MathMode;
 import org.dynamisengine.vectrix.simd.SimdSupport;
 import org.dynamisengine.vectrix.soa.AABBSoA;
+import org.dynamisengine.vectrix.soa.NativeAABBSoA;
+import org.dynamisengine.vectrix.soa.NativeFloatColumns;
+import org.dynamisengine.vectrix.soa.SphereSoA;
 //#ifdef __HAS_VECTOR_API__
 import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
 import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
 import jdk.incubator.vector.VectorSpecies;
 //#endif
 
@@ -38,12 +43,22 @@ import jdk.incubator.vector.VectorSpecies;
  * Scalar batch culling kernels.
  */
 public final class CullingKernels {
+    /**
+     * Level of detail written by the LOD kernels for objects outside the frustum.
+     */
+    public static final int LOD_CULLED = -1;
+
     private static final String PROP_EXPERIMENTAL_CULLING_SIMD = "vectrix.culling.simd";
     private static final int SIMD_BATCH_THRESHOLD = 64;
     private static final int SIMD_BATCH_MAX = 32768;
     private static final boolean EXPERIMENTAL_CULLING_SIMD = KernelConfig.parseBoolean(System.getProperty(PROP_EXPERIMENTAL_CULLING_SIMD), false);
+    private static final int SINK_CLASSIFY = 0;
+    private static final int SINK_VISIBLE = 1;
+    private static final int SINK_SPLIT = 2;
+    private static final int MULTI_VIEW_BLOCK = 1024;
 //#ifdef __HAS_VECTOR_API__
     private static final VectorSpecies<Float> CULL_SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> CULL_INT_SPECIES = VectorSpecies.of(int.class, CULL_SPECIES.vectorShape());
 //#endif
 
     private CullingKernels() {
@@ -138,11 +153,38 @@ public final class CullingKernels {
      */
     public static void frustumCullAabbBatchSimd(FrustumPlanes frustum, AABBSoA bounds, int[] outResult, int count) {
 //#ifdef __HAS_VECTOR_API__
-        int lanes = CULL_SPECIES.length();
-        if (lanes <= 1) {
+        if (CULL_SPECIES.length() <= 1) {
             frustumCullAabbBatchScalar(frustum, bounds, outResult, count);
             return;
         }
+        cullAabbSimd(frustum, bounds, null, count, SINK_CLASSIFY, outResult, null, null);
+//#else
+        int i = 0;
+        int limit = count & ~3;
+        for (; i < limit; i += 4) {
+            classifyInto(frustum, bounds, outResult, i);
+            classifyInto(frustum, bounds, outResult, i + 1);
+            classifyInto(frustum, bounds, outResult, i + 2);
+            classifyInto(frustum, bounds, outResult, i + 3);
+        }
+        for (; i < count; i++) {
+            classifyInto(frustum, bounds, outResult, i);
+        }
+//#endif
+    }
+
+//#ifdef __HAS_VECTOR_API__
+    /**
+     * Vector AABB classification shared by the batch kernels; {@code sink} selects what is written for each box:
+     * its classification into {@code out0}, its index into {@code out0} if visible, or its index into
+     * {@code out0} (inside) or {@code out1} (intersecting). Boxes are read from {@code bounds}, or from
+     * {@code nativeBounds} when {@code bounds} is {@code null}.
+     *
+     * @return the number of indices written, {@code 0} for {@link #SINK_CLASSIFY}
+     */
+    private static int cullAabbSimd(FrustumPlanes frustum, AABBSoA bounds, NativeAABBSoA nativeBounds, int count, int sink,
+            int[] out0, int[] out1, int[] outCounts) {
+        int lanes = CULL_SPECIES.length();
         boolean nxNegX = frustum.x[FrustumPlanes.PLANE_NX] < 0.0f;
         boolean nxNegY = frustum.y[FrustumPlanes.PLANE_NX] < 0.0f;
         boolean nxNegZ = frustum.z[FrustumPlanes.PLANE_NX] < 0.0f;
@@ -191,13 +233,26 @@ public final class CullingKernels {
         int limit = count - (count % lanes);
         VectorMask<Float> allTrue = CULL_SPECIES.indexInRange(0, lanes);
         VectorMask<Float> allFalse = allTrue.not();
+        IntVector iota = IntVector.zero(CULL_INT_SPECIES).addIndex(1);
+        int n0 = 0;
+        int n1 = 0;
         for (; i < limit; i += lanes) {
-            FloatVector minXv = FloatVector.fromArray(CULL_SPECIES, bounds.minX, i);
-            FloatVector minYv = FloatVector.fromArray(CULL_SPECIES, bounds.minY, i);
-            FloatVector minZv = FloatVector.fromArray(CULL_SPECIES, bounds.minZ, i);
-            FloatVector maxXv = FloatVector.fromArray(CULL_SPECIES, bounds.maxX, i);
-            FloatVector maxYv = FloatVector.fromArray(CULL_SPECIES, bounds.maxY, i);
-            FloatVector maxZv = FloatVector.fromArray(CULL_SPECIES, bounds.maxZ, i);
+            FloatVector minXv, minYv, minZv, maxXv, maxYv, maxZv;
+            if (bounds != null) {
+                minXv = FloatVector.fromArray(CULL_SPECIES, bounds.minX, i);
+                minYv = FloatVector.fromArray(CULL_SPECIES, bounds.minY, i);
+                minZv = FloatVector.fromArray(CULL_SPECIES, bounds.minZ, i);
+                maxXv = FloatVector.fromArray(CULL_SPECIES, bounds.maxX, i);
+                maxYv = FloatVector.fromArray(CULL_SPECIES, bounds.maxY, i);
+                maxZv = FloatVector.fromArray(CULL_SPECIES, bounds.maxZ, i);
+            } else {
+                minXv = nativeBounds.loadVector(CULL_SPECIES, NativeAABBSoA.MIN_X, i);
+                minYv = nativeBounds.loadVector(CULL_SPECIES, NativeAABBSoA.MIN_Y, i);
+                minZv = nativeBounds.loadVector(CULL_SPECIES, NativeAABBSoA.MIN_Z, i);
+                maxXv = nativeBounds.loadVector(CULL_SPECIES, NativeAABBSoA.MAX_X, i);
+                maxYv = nativeBounds.loadVector(CULL_SPECIES, NativeAABBSoA.MAX_Y, i);
+                maxZv = nativeBounds.loadVector(CULL_SPECIES, NativeAABBSoA.MAX_Z, i);
+            }
 
             VectorMask<Float> outsideMask = allFalse;
             VectorMask<Float> insideMask = allTrue;
@@ -232,33 +287,51 @@ public final class CullingKernels {
             dMin = (pzNegX ? maxXv : minXv).mul(pzXv).add((pzNegY ? maxYv : minYv).mul(pzYv)).add((pzNegZ ? maxZv : minZv).mul(pzZv)).add(pzWv);
             insideMask = insideMask.and(dMin.lt(0.0f).not());
 
-            for (int lane = 0; lane < lanes; lane++) {
-                if (outsideMask.laneIsSet(lane)) {
-                    outResult[i + lane] = FrustumIntersection.OUTSIDE;
-                } else if (insideMask.laneIsSet(lane)) {
-                    outResult[i + lane] = FrustumIntersection.INSIDE;
-                } else {
-                    outResult[i + lane] = FrustumIntersection.INTERSECT;
+            if (sink == SINK_CLASSIFY) {
+                for (int lane = 0; lane < lanes; lane++) {
+                    if (outsideMask.laneIsSet(lane)) {
+                        out0[i + lane] = FrustumIntersection.OUTSIDE;
+                    } else if (insideMask.laneIsSet(lane)) {
+                        out0[i + lane] = FrustumIntersection.INSIDE;
+                    } else {
+                        out0[i + lane] = FrustumIntersection.INTERSECT;
+                    }
                 }
+                continue;
+            }
+            // Compress the surviving lane indices to the front and store the whole vector: n0 and n1 never
+            // exceed i, so the store stays within the count entries each output must hold.
+            IntVector indices = iota.add(i);
+            VectorMask<Integer> outside = outsideMask.cast(CULL_INT_SPECIES);
+            VectorMask<Integer> inside = insideMask.cast(CULL_INT_SPECIES).andNot(outside);
+            VectorMask<Integer> first = sink == SINK_VISIBLE ? outside.not() : inside;
+            indices.compress(first).intoArray(out0, n0);
+            n0 += first.trueCount();
+            if (sink == SINK_SPLIT) {
+                VectorMask<Integer> intersect = outside.or(inside).not();
+                indices.compress(intersect).intoArray(out1, n1);
+                n1 += intersect.trueCount();
             }
         }
         for (; i < count; i++) {
-            classifyInto(frustum, bounds, outResult, i);
-        }
-//#else
-        int i = 0;
-        int limit = count & ~3;
-        for (; i < limit; i += 4) {
-            classifyInto(frustum, bounds, outResult, i);
-            classifyInto(frustum, bounds, outResult, i + 1);
-            classifyInto(frustum, bounds, outResult, i + 2);
-            classifyInto(frustum, bounds, outResult, i + 3);
+            int result = bounds != null
+                    ? classifyAabb(frustum, bounds.minX[i], bounds.minY[i], bounds.minZ[i], bounds.maxX[i], bounds.maxY[i], bounds.maxZ[i])
+                    : classifyNative(frustum, nativeBounds, i);
+            if (sink == SINK_CLASSIFY) {
+                out0[i] = result;
+            } else if (result == FrustumIntersection.INSIDE || sink == SINK_VISIBLE && result == FrustumIntersection.INTERSECT) {
+                out0[n0++] = i;
+            } else if (result == FrustumIntersection.INTERSECT) {
+                out1[n1++] = i;
+            }
         }
-        for (; i < count; i++) {
-            classifyInto(frustum, bounds, outResult, i);
+        if (outCounts != null) {
+            outCounts[0] = n0;
+            outCounts[1] = n1;
         }
-//#endif
+        return n0 + n1;
     }
+//#endif
 
     private static void classifyInto(FrustumPlanes frustum, AABBSoA bounds, int[] outResult, int i) {
         outResult[i] = classifyAabb(
@@ -274,6 +347,316 @@ public final class CullingKernels {
         frustumCullAabbBatch(new FrustumPlanes().set(viewProj, false), bounds, outResult, count);
     }
 
+    /**
+     * Write the indices of the AABBs that are not outside the frustum into {@code outVisible}, in ascending order,
+     * without a per-object classification pass.
+     *
+     * @param outVisible receives the visible indices; must hold {@code count} entries in the worst case, and
+     *          entries past the returned count may be overwritten
+     * @return the number of visible AABBs
+     */
+    public static int frustumCullAabbBatchCompact(FrustumPlanes frustum, AABBSoA bounds, int count, int[] outVisible) {
+        if (count <= 0) {
+            return 0;
+        }
+        if (!useSimd(count)) {
+            return frustumCullAabbBatchCompactScalar(frustum, bounds, count, outVisible);
+        }
+        return frustumCullAabbBatchCompactSimd(frustum, bounds, count, outVisible);
+    }
+
+    /**
+     * Force scalar implementation regardless of runtime backend.
+     */
+    public static int frustumCullAabbBatchCompactScalar(FrustumPlanes frustum, AABBSoA bounds, int count, int[] outVisible) {
+        int visible = 0;
+        for (int i = 0; i < count; i++) {
+            if (classifyAabb(frustum, bounds.minX[i], bounds.minY[i], bounds.minZ[i], bounds.maxX[i], bounds.maxY[i], bounds.maxZ[i])
+                    != FrustumIntersection.OUTSIDE) {
+                outVisible[visible++] = i;
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * Force the Vector API implementation, compacting the surviving lane indices of each vector with a masked
+     * compress.
+     */
+    public static int frustumCullAabbBatchCompactSimd(FrustumPlanes frustum, AABBSoA bounds, int count, int[] outVisible) {
+//#ifdef __HAS_VECTOR_API__
+        if (CULL_SPECIES.length() <= 1) {
+            return frustumCullAabbBatchCompactScalar(frustum, bounds, count, outVisible);
+        }
+        return cullAabbSimd(frustum, bounds, null, count, SINK_VISIBLE, outVisible, null, null);
+//#else
+        return frustumCullAabbBatchCompactScalar(frustum, bounds, count, outVisible);
+//#endif
+    }
+
+    /**
+     * Write the indices of AABBs fully inside the frustum into {@code outInside} and of those intersecting it into
+     * {@code outIntersect}, each in ascending order.
+     *
+     * @param outInside receives the inside indices; must hold {@code count} entries, and entries past
+     *          {@code outCounts[0]} may be overwritten
+     * @param outIntersect receives the intersecting indices; must hold {@code count} entries, and entries past
+     *          {@code outCounts[1]} may be overwritten
+     * @param outCounts receives the number of inside indices at {@code [0]} and of intersecting indices at {@code [1]}
+     * @return the number of visible AABBs, {@code outCounts[0] + outCounts[1]}
+     */
+    public static int frustumCullAabbBatchCompact(FrustumPlanes frustum, AABBSoA bounds, int count,
+            int[] outInside, int[] outIntersect, int[] outCounts) {
+        if (count <= 0) {
+            outCounts[0] = 0;
+            outCounts[1] = 0;
+            return 0;
+        }
+        if (!useSimd(count)) {
+            return frustumCullAabbBatchCompactScalar(frustum, bounds, count, outInside, outIntersect, outCounts);
+        }
+        return frustumCullAabbBatchCompactSimd(frustum, bounds, count, outInside, outIntersect, outCounts);
+    }
+
+    /**
+     * Force scalar implementation regardless of runtime backend.
+     */
+    public static int frustumCullAabbBatchCompactScalar(FrustumPlanes frustum, AABBSoA bounds, int count,
+            int[] outInside, int[] outIntersect, int[] outCounts) {
+        int inside = 0;
+        int intersect = 0;
+        for (int i = 0; i < count; i++) {
+            int result = classifyAabb(frustum, bounds.minX[i], bounds.minY[i], bounds.minZ[i], bounds.maxX[i], bounds.maxY[i], bounds.maxZ[i]);
+            if (result == FrustumIntersection.INSIDE) {
+                outInside[inside++] = i;
+            } else if (result == FrustumIntersection.INTERSECT) {
+                outIntersect[intersect++] = i;
+            }
+        }
+        outCounts[0] = inside;
+        outCounts[1] = intersect;
+        return inside + intersect;
+    }
+
+    /**
+     * Force the Vector API implementation of the split compaction.
+     */
+    public static int frustumCullAabbBatchCompactSimd(FrustumPlanes frustum, AABBSoA bounds, int count,
+            int[] outInside, int[] outIntersect, int[] outCounts) {
+//#ifdef __HAS_VECTOR_API__
+        if (CULL_SPECIES.length() <= 1) {
+            return frustumCullAabbBatchCompactScalar(frustum, bounds, count, outInside, outIntersect, outCounts);
+        }
+        return cullAabbSimd(frustum, bounds, null, count, SINK_SPLIT, outInside, outIntersect, outCounts);
+//#else
+        return frustumCullAabbBatchCompactScalar(frustum, bounds, count, outInside, outIntersect, outCounts);
+//#endif
+    }
+
+    /**
+     * Cull every AABB against up to 32 views in a single pass over {@code bounds}.
+     * <p>
+     * Bit {@code v} of {@code outViewMask[i]} is set when box {@code i} is not outside {@code views[v]}, i.e. when
+     * {@link #classifyAabb} would not return {@link FrustumIntersection#OUTSIDE}. Each box is loaded once and tested
+     * against all views while it is in registers, instead of one pass over the bounds per view.
+     */
+    public static void frustumCullAabbMultiView(FrustumPlanes[] views, int viewCount, AABBSoA bounds, int[] outViewMask, int count) {
+        checkViewCount(views, viewCount);
+        if (count <= 0) {
+            return;
+        }
+        if (!useComputeBoundSimd(count)) {
+            multiViewScalar(views, viewCount, bounds, 0, count, outViewMask, 0);
+            return;
+        }
+        frustumCullAabbMultiViewSimd(views, viewCount, bounds, outViewMask, count);
+    }
+
+    /**
+     * Force scalar implementation regardless of runtime backend.
+     */
+    public static void frustumCullAabbMultiViewScalar(FrustumPlanes[] views, int viewCount, AABBSoA bounds, int[] outViewMask, int count) {
+        checkViewCount(views, viewCount);
+        multiViewScalar(views, viewCount, bounds, 0, count, outViewMask, 0);
+    }
+
+    /**
+     * Force the Vector API implementation: view bits are accumulated per lane under each view's visibility mask.
+     */
+    public static void frustumCullAabbMultiViewSimd(FrustumPlanes[] views, int viewCount, AABBSoA bounds, int[] outViewMask, int count) {
+        checkViewCount(views, viewCount);
+//#ifdef __HAS_VECTOR_API__
+        if (CULL_SPECIES.length() > 1 && CULL_INT_SPECIES.length() == CULL_SPECIES.length()) {
+            multiViewSimd(views, viewCount, bounds, 0, count, outViewMask, 0);
+            return;
+        }
+//#endif
+        multiViewScalar(views, viewCount, bounds, 0, count, outViewMask, 0);
+    }
+
+    /**
+     * Cull every AABB against up to 32 views in a single pass, writing one ascending index list per view.
+     * <p>
+     * View masks are computed for blocks of boxes that stay in cache and then scattered into the per-view lists,
+     * so the bounds are still read only once.
+     *
+     * @param outIndices one index array per view, each able to hold {@code count} entries in the worst case
+     * @param outCounts receives the number of visible boxes per view
+     */
+    public static void frustumCullAabbMultiView(FrustumPlanes[] views, int viewCount, AABBSoA bounds, int count,
+            int[][] outIndices, int[] outCounts) {
+        checkViewCount(views, viewCount);
+        for (int v = 0; v < viewCount; v++) {
+            outCounts[v] = 0;
+        }
+        if (count <= 0) {
+            return;
+        }
+//#ifdef __HAS_VECTOR_API__
+        boolean simd = useComputeBoundSimd(count) && CULL_SPECIES.length() > 1 && CULL_INT_SPECIES.length() == CULL_SPECIES.length();
+//#endif
+        int[] masks = new int[java.lang.Math.min(count, MULTI_VIEW_BLOCK)];
+        for (int start = 0; start < count; start += MULTI_VIEW_BLOCK) {
+            int end = java.lang.Math.min(count, start + MULTI_VIEW_BLOCK);
+//#ifdef __HAS_VECTOR_API__
+            if (simd) {
+                multiViewSimd(views, viewCount, bounds, start, end, masks, 0);
+            } else {
+                multiViewScalar(views, viewCount, bounds, start, end, masks, 0);
+            }
+//#else
+            multiViewScalar(views, viewCount, bounds, start, end, masks, 0);
+//#endif
+            for (int i = start; i < end; i++) {
+                for (int m = masks[i - start]; m != 0; m &= m - 1) {
+                    int v = Integer.numberOfTrailingZeros(m);
+                    outIndices[v][outCounts[v]++] = i;
+                }
+            }
+        }
+    }
+
+    private static void checkViewCount(FrustumPlanes[] views, int viewCount) {
+        if (viewCount < 0 || viewCount > Integer.SIZE || viewCount > views.length) {
+            throw new IllegalArgumentException("viewCount out of range: " + viewCount);
+        }
+    }
+
+    private static void multiViewScalar(FrustumPlanes[] views, int viewCount, AABBSoA bounds, int start, int end,
+            int[] outViewMask, int outOffset) {
+        for (int i = start; i < end; i++) {
+            float minX = bounds.minX[i], minY = bounds.minY[i], minZ = bounds.minZ[i];
+            float maxX = bounds.maxX[i], maxY = bounds.maxY[i], maxZ = bounds.maxZ[i];
+            int mask = 0;
+            for (int v = 0; v < viewCount; v++) {
+                FrustumPlanes f = views[v];
+                boolean visible = true;
+                for (int p = 0; p < FrustumPlanes.COUNT; p++) {
+                    float px = f.x[p], py = f.y[p], pz = f.z[p];
+                    if (px * (px < 0.0f ? minX : maxX) + py * (py < 0.0f ? minY : maxY) + pz * (pz < 0.0f ? minZ : maxZ) + f.w[p] < 0.0f) {
+                        visible = false;
+                        break;
+                    }
+                }
+                if (visible) {
+                    mask |= 1 << v;
+                }
+            }
+            outViewMask[outOffset + i - start] = mask;
+        }
+    }
+
+//#ifdef __HAS_VECTOR_API__
+    private static void multiViewSimd(FrustumPlanes[] views, int viewCount, AABBSoA bounds, int start, int end,
+            int[] outViewMask, int outOffset) {
+        int lanes = CULL_SPECIES.length();
+        int i = start;
+        int limit = end - ((end - start) % lanes);
+        for (; i < limit; i += lanes) {
+            FloatVector minXv = FloatVector.fromArray(CULL_SPECIES, bounds.minX, i);
+            FloatVector minYv = FloatVector.fromArray(CULL_SPECIES, bounds.minY, i);
+            FloatVector minZv = FloatVector.fromArray(CULL_SPECIES, bounds.minZ, i);
+            FloatVector maxXv = FloatVector.fromArray(CULL_SPECIES, bounds.maxX, i);
+            FloatVector maxYv = FloatVector.fromArray(CULL_SPECIES, bounds.maxY, i);
+            FloatVector maxZv = FloatVector.fromArray(CULL_SPECIES, bounds.maxZ, i);
+            IntVector mask = IntVector.zero(CULL_INT_SPECIES);
+            for (int v = 0; v < viewCount; v++) {
+                FrustumPlanes f = views[v];
+                VectorMask<Float> outside = CULL_SPECIES.maskAll(false);
+                for (int p = 0; p < FrustumPlanes.COUNT; p++) {
+                    float px = f.x[p], py = f.y[p], pz = f.z[p];
+                    FloatVector dMax = (px < 0.0f ? minXv : maxXv).mul(px)
+                            .add((py < 0.0f ? minYv : maxYv).mul(py))
+                            .add((pz < 0.0f ? minZv : maxZv).mul(pz))
+                            .add(f.w[p]);
+                    outside = outside.or(dMax.lt(0.0f));
+                }
+                mask = mask.lanewise(VectorOperators.OR, 1 << v, outside.not().cast(CULL_INT_SPECIES));
+            }
+            mask.intoArray(outViewMask, outOffset + i - start);
+        }
+        multiViewScalar(views, viewCount, bounds, i, end, outViewMask, outOffset + i - start);
+    }
+//#endif
+
+    private static boolean useSimd(int count) {
+        return useComputeBoundSimd(count) && count <= SIMD_BATCH_MAX;
+    }
+
+    /**
+     * Dispatch for kernels doing enough arithmetic per object to stay compute bound at any batch size (multi-view
+     * and LOD culling), so the {@link #SIMD_BATCH_MAX} cap of the single-view kernels does not apply.
+     */
+    private static boolean useComputeBoundSimd(int count) {
+        return KernelConfig.mathMode() != MathMode.STRICT && KernelConfig.simdEnabled()
+                && SimdSupport.backend() == SimdSupport.Backend.VECTOR_API
+                && count >= SIMD_BATCH_THRESHOLD
+                && EXPERIMENTAL_CULLING_SIMD;
+    }
+
+    /**
+     * Compute per-AABB frustum classification for off-heap bounds into {@code outResult}, reading the native
+     * columns in place. Dispatch and results match {@link #frustumCullAabbBatch(FrustumPlanes, AABBSoA, int[], int)}.
+     */
+    public static void frustumCullAabbBatch(FrustumPlanes frustum, NativeAABBSoA bounds, int[] outResult, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (!useSimd(count) || !NativeFloatColumns.hasVectorAccess()) {
+            frustumCullAabbBatchScalar(frustum, bounds, outResult, count);
+            return;
+        }
+        frustumCullAabbBatchSimd(frustum, bounds, outResult, count);
+    }
+
+    /**
+     * Force scalar implementation for off-heap bounds regardless of runtime backend.
+     */
+    public static void frustumCullAabbBatchScalar(FrustumPlanes frustum, NativeAABBSoA bounds, int[] outResult, int count) {
+        for (int i = 0; i < count; i++) {
+            outResult[i] = classifyNative(frustum, bounds, i);
+        }
+    }
+
+    /**
+     * Force the Vector API implementation for off-heap bounds, loading each column straight from native memory.
+     */
+    public static void frustumCullAabbBatchSimd(FrustumPlanes frustum, NativeAABBSoA bounds, int[] outResult, int count) {
+//#ifdef __HAS_VECTOR_API__
+        if (CULL_SPECIES.length() > 1) {
+            cullAabbSimd(frustum, null, bounds, count, SINK_CLASSIFY, outResult, null, null);
+            return;
+        }
+//#endif
+        frustumCullAabbBatchScalar(frustum, bounds, outResult, count);
+    }
+
+    private static int classifyNative(FrustumPlanes frustum, NativeAABBSoA bounds, int i) {
+        return classifyAabb(frustum,
+                bounds.get(NativeAABBSoA.MIN_X, i), bounds.get(NativeAABBSoA.MIN_Y, i), bounds.get(NativeAABBSoA.MIN_Z, i),
+                bounds.get(NativeAABBSoA.MAX_X, i), bounds.get(NativeAABBSoA.MAX_Y, i), bounds.get(NativeAABBSoA.MAX_Z, i));
+    }
+
     public static int classifyAabb(FrustumPlanes frustum, float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
         boolean inside = true;
         for (int p = 0; p < FrustumPlanes.COUNT; p++) {
@@ -297,4 +680,456 @@ public final class CullingKernels {
         }
         return inside ? FrustumIntersection.INSIDE : FrustumIntersection.INTERSECT;
     }
+
+    /**
+     * Compute per-sphere frustum classification into {@code outResult}.
+     * Result values are from {@link FrustumIntersection}: {@code INSIDE}, {@code INTERSECT}, {@code OUTSIDE}.
+     * <p>
+     * Sphere distances are only meaningful for normalized planes, see {@link FrustumPlanes#set(Matrix4fc, boolean)}.
+     */
+    public static void frustumCullSphereBatch(FrustumPlanes frustum, SphereSoA spheres, int[] outResult, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (KernelConfig.mathMode() == MathMode.STRICT || !KernelConfig.simdEnabled()
+                || SimdSupport.backend() != SimdSupport.Backend.VECTOR_API
+                || count < SIMD_BATCH_THRESHOLD || count > SIMD_BATCH_MAX
+                || !EXPERIMENTAL_CULLING_SIMD) {
+            frustumCullSphereBatchScalar(frustum, spheres, outResult, count);
+            return;
+        }
+        frustumCullSphereBatchSimd(frustum, spheres, outResult, count);
+    }
+
+    /**
+     * Force scalar implementation regardless of runtime backend.
+     */
+    public static void frustumCullSphereBatchScalar(FrustumPlanes frustum, SphereSoA spheres, int[] outResult, int count) {
+        for (int i = 0; i < count; i++) {
+            outResult[i] = classifySphere(frustum, spheres.x[i], spheres.y[i], spheres.z[i], spheres.radius[i]);
+        }
+    }
+
+    /**
+     * Force the Vector API implementation, one sphere per lane.
+     */
+    public static void frustumCullSphereBatchSimd(FrustumPlanes frustum, SphereSoA spheres, int[] outResult, int count) {
+//#ifdef __HAS_VECTOR_API__
+        int lanes = CULL_SPECIES.length();
+        if (lanes <= 1) {
+            frustumCullSphereBatchScalar(frustum, spheres, outResult, count);
+            return;
+        }
+        FloatVector nxXv = FloatVector.broadcast(CULL_SPECIES, frustum.x[FrustumPlanes.PLANE_NX]);
+        FloatVector nxYv = FloatVector.broadcast(CULL_SPECIES, frustum.y[FrustumPlanes.PLANE_NX]);
+        FloatVector nxZv = FloatVector.broadcast(CULL_SPECIES, frustum.z[FrustumPlanes.PLANE_NX]);
+        FloatVector nxWv = FloatVector.broadcast(CULL_SPECIES, frustum.w[FrustumPlanes.PLANE_NX]);
+        FloatVector pxXv = FloatVector.broadcast(CULL_SPECIES, frustum.x[FrustumPlanes.PLANE_PX]);
+        FloatVector pxYv = FloatVector.broadcast(CULL_SPECIES, frustum.y[FrustumPlanes.PLANE_PX]);
+        FloatVector pxZv = FloatVector.broadcast(CULL_SPECIES, frustum.z[FrustumPlanes.PLANE_PX]);
+        FloatVector pxWv = FloatVector.broadcast(CULL_SPECIES, frustum.w[FrustumPlanes.PLANE_PX]);
+        FloatVector nyXv = FloatVector.broadcast(CULL_SPECIES, frustum.x[FrustumPlanes.PLANE_NY]);
+        FloatVector nyYv = FloatVector.broadcast(CULL_SPECIES, frustum.y[FrustumPlanes.PLANE_NY]);
+        FloatVector nyZv = FloatVector.broadcast(CULL_SPECIES, frustum.z[FrustumPlanes.PLANE_NY]);
+        FloatVector nyWv = FloatVector.broadcast(CULL_SPECIES, frustum.w[FrustumPlanes.PLANE_NY]);
+        FloatVector pyXv = FloatVector.broadcast(CULL_SPECIES, frustum.x[FrustumPlanes.PLANE_PY]);
+        FloatVector pyYv = FloatVector.broadcast(CULL_SPECIES, frustum.y[FrustumPlanes.PLANE_PY]);
+        FloatVector pyZv = FloatVector.broadcast(CULL_SPECIES, frustum.z[FrustumPlanes.PLANE_PY]);
+        FloatVector pyWv = FloatVector.broadcast(CULL_SPECIES, frustum.w[FrustumPlanes.PLANE_PY]);
+        FloatVector nzXv = FloatVector.broadcast(CULL_SPECIES, frustum.x[FrustumPlanes.PLANE_NZ]);
+        FloatVector nzYv = FloatVector.broadcast(CULL_SPECIES, frustum.y[FrustumPlanes.PLANE_NZ]);
+        FloatVector nzZv = FloatVector.broadcast(CULL_SPECIES, frustum.z[FrustumPlanes.PLANE_NZ]);
+        FloatVector nzWv = FloatVector.broadcast(CULL_SPECIES, frustum.w[FrustumPlanes.PLANE_NZ]);
+        FloatVector pzXv = FloatVector.broadcast(CULL_SPECIES, frustum.x[FrustumPlanes.PLANE_PZ]);
+        FloatVector pzYv = FloatVector.broadcast(CULL_SPECIES, frustum.y[FrustumPlanes.PLANE_PZ]);
+        FloatVector pzZv = FloatVector.broadcast(CULL_SPECIES, frustum.z[FrustumPlanes.PLANE_PZ]);
+        FloatVector pzWv = FloatVector.broadcast(CULL_SPECIES, frustum.w[FrustumPlanes.PLANE_PZ]);
+
+        int i = 0;
+        int limit = count - (count % lanes);
+        for (; i < limit; i += lanes) {
+            FloatVector xv = FloatVector.fromArray(CULL_SPECIES, spheres.x, i);
+            FloatVector yv = FloatVector.fromArray(CULL_SPECIES, spheres.y, i);
+            FloatVector zv = FloatVector.fromArray(CULL_SPECIES, spheres.z, i);
+            FloatVector rv = FloatVector.fromArray(CULL_SPECIES, spheres.radius, i);
+            FloatVector negRv = rv.neg();
+
+            FloatVector dist = nxXv.mul(xv).add(nxYv.mul(yv)).add(nxZv.mul(zv)).add(nxWv);
+            VectorMask<Float> outsideMask = dist.lt(negRv);
+            VectorMask<Float> straddleMask = dist.lt(rv);
+
+            dist = pxXv.mul(xv).add(pxYv.mul(yv)).add(pxZv.mul(zv)).add(pxWv);
+            outsideMask = outsideMask.or(dist.lt(negRv));
+            straddleMask = straddleMask.or(dist.lt(rv));
+
+            dist = nyXv.mul(xv).add(nyYv.mul(yv)).add(nyZv.mul(zv)).add(nyWv);
+            outsideMask = outsideMask.or(dist.lt(negRv));
+            straddleMask = straddleMask.or(dist.lt(rv));
+
+            dist = pyXv.mul(xv).add(pyYv.mul(yv)).add(pyZv.mul(zv)).add(pyWv);
+            outsideMask = outsideMask.or(dist.lt(negRv));
+            straddleMask = straddleMask.or(dist.lt(rv));
+
+            dist = nzXv.mul(xv).add(nzYv.mul(yv)).add(nzZv.mul(zv)).add(nzWv);
+            outsideMask = outsideMask.or(dist.lt(negRv));
+            straddleMask = straddleMask.or(dist.lt(rv));
+
+            dist = pzXv.mul(xv).add(pzYv.mul(yv)).add(pzZv.mul(zv)).add(pzWv);
+            outsideMask = outsideMask.or(dist.lt(negRv));
+            straddleMask = straddleMask.or(dist.lt(rv));
+
+            // INSIDE = -2, INTERSECT = INSIDE + 1, OUTSIDE = INTERSECT - 2: branch-free per lane.
+            long outside = outsideMask.toLong();
+            long straddle = straddleMask.toLong() | outside;
+            for (int lane = 0; lane < lanes; lane++) {
+                outResult[i + lane] = FrustumIntersection.INSIDE + (int) (straddle >>> lane & 1L) - 2 * (int) (outside >>> lane & 1L);
+            }
+        }
+        for (; i < count; i++) {
+            outResult[i] = classifySphere(frustum, spheres.x[i], spheres.y[i], spheres.z[i], spheres.radius[i]);
+        }
+//#else
+        frustumCullSphereBatchScalar(frustum, spheres, outResult, count);
+//#endif
+    }
+
+    /**
+     * Classify one sphere like {@link FrustumIntersection#intersectSphere(float, float, float, float)}.
+     */
+    public static int classifySphere(FrustumPlanes frustum, float x, float y, float z, float r) {
+        boolean inside = true;
+        for (int p = 0; p < FrustumPlanes.COUNT; p++) {
+            float dist = frustum.x[p] * x + frustum.y[p] * y + frustum.z[p] * z + frustum.w[p];
+            if (dist < -r) {
+                return FrustumIntersection.OUTSIDE;
+            }
+            inside &= dist >= r;
+        }
+        return inside ? FrustumIntersection.INSIDE : FrustumIntersection.INTERSECT;
+    }
+
+    /**
+     * Classify a box against the planes selected by {@code planeMask}, testing {@code startPlane} first.
+     * <p>
+     * This is the plane-masking and coherency scheme of
+     * {@link FrustumIntersection#intersectAab(float, float, float, float, float, float, int, int)}, except that the
+     * result keeps the planes the box straddles: a child box contained in this box only needs to be tested
+     * against those planes, and gets exactly the classification a full six-plane test would give it.
+     *
+     * @param planeMask bitset of planes to test, {@code 1 << FrustumPlanes.PLANE_*}
+     * @param startPlane plane to test first, usually the one that rejected the box last frame
+     * @return the subset of {@code planeMask} the box straddles ({@code 0} when it is inside all of them), or
+     *         {@code ~plane} for the plane that rejected the box
+     */
+    public static int classifyAabbMasked(FrustumPlanes frustum, float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+            int planeMask, int startPlane) {
+        int straddled = planeMask;
+        // Visit startPlane first, then the remaining planes of the mask in index order, each exactly once.
+        int p = (planeMask & 1 << startPlane) != 0 ? startPlane : Integer.numberOfTrailingZeros(planeMask);
+        for (int m = planeMask; m != 0; m &= ~(1 << p), p = Integer.numberOfTrailingZeros(m)) {
+            float px = frustum.x[p];
+            float py = frustum.y[p];
+            float pz = frustum.z[p];
+            float pw = frustum.w[p];
+
+            float dMax = px * (px < 0.0f ? minX : maxX)
+                    + py * (py < 0.0f ? minY : maxY)
+                    + pz * (pz < 0.0f ? minZ : maxZ)
+                    + pw;
+            if (dMax < 0.0f) {
+                return ~p;
+            }
+            float dMin = px * (px < 0.0f ? maxX : minX)
+                    + py * (py < 0.0f ? maxY : minY)
+                    + pz * (pz < 0.0f ? maxZ : minZ)
+                    + pw;
+            if (dMin >= 0.0f) {
+                straddled &= ~(1 << p);
+            }
+        }
+        return straddled;
+    }
+
+    /**
+     * Frustum-cull AABBs and pick a level of detail for the visible ones in the same pass, without hysteresis.
+     *
+     * @see #frustumCullLodAabbBatch(Matrix4fc, AABBSoA, float[], float, int[], int[], int)
+     */
+    public static int frustumCullLodAabbBatch(Matrix4fc viewProj, AABBSoA bounds, float[] lodThresholds, int[] outLod, int count) {
+        return frustumCullLodAabbBatch(viewProj, bounds, lodThresholds, 0.0f, null, outLod, count);
+    }
+
+    /**
+     * Frustum-cull AABBs and pick a level of detail for the visible ones in the same pass.
+     * <p>
+     * The screen size of an object is the projected radius of its bounding sphere over half the viewport height,
+     * {@code radius * |row 1 of viewProj| / w} with {@code w} the clip-space w of the centre, so that 1 means the
+     * object spans the viewport height; objects whose centre is at or behind the eye get an infinite size. The
+     * level of detail is the number of {@code lodThresholds} the size is below, so thresholds are given in
+     * decreasing order and the result ranges from 0 (finest) to {@code lodThresholds.length}. Culling uses the
+     * same box test as {@link #frustumCullAabbBatch(FrustumPlanes, AABBSoA, int[], int)}.
+     * <p>
+     * With {@code lodState}, a visible object keeps its previous level unless its size passes the threshold
+     * between the two levels by more than {@code hysteresis} times the threshold, which stops objects flickering
+     * between levels near a threshold. {@code lodState} holds the previous level of every object, or a negative
+     * value when there is none, and is updated for visible objects only.
+     *
+     * @param hysteresis relative dead band around each threshold, in {@code [0, 1)}; ignored without {@code lodState}
+     * @param lodState per-object previous levels, updated in place, or {@code null} to select without hysteresis
+     * @param outLod receives each object's level of detail, or {@link #LOD_CULLED}
+     * @return the number of visible objects
+     */
+    public static int frustumCullLodAabbBatch(Matrix4fc viewProj, AABBSoA bounds, float[] lodThresholds, float hysteresis,
+            int[] lodState, int[] outLod, int count) {
+        if (useComputeBoundSimd(count)) {
+            return frustumCullLodAabbBatchSimd(viewProj, bounds, lodThresholds, hysteresis, lodState, outLod, count);
+        }
+        return frustumCullLodAabbBatchScalar(viewProj, bounds, lodThresholds, hysteresis, lodState, outLod, count);
+    }
+
+    /**
+     * Force scalar implementation regardless of runtime backend.
+     */
+    public static int frustumCullLodAabbBatchScalar(Matrix4fc viewProj, AABBSoA bounds, float[] lodThresholds, float hysteresis,
+            int[] lodState, int[] outLod, int count) {
+        LodBands bands = new LodBands(viewProj, lodThresholds, hysteresis, lodState);
+        FrustumPlanes frustum = new FrustumPlanes().set(viewProj, false);
+        return cullLodAabbScalar(frustum, bands, bounds, lodState, outLod, 0, count);
+    }
+
+    /**
+     * Force the Vector API implementation, one box per lane; results equal
+     * {@link #frustumCullLodAabbBatchScalar}.
+     */
+    public static int frustumCullLodAabbBatchSimd(Matrix4fc viewProj, AABBSoA bounds, float[] lodThresholds, float hysteresis,
+            int[] lodState, int[] outLod, int count) {
+        LodBands bands = new LodBands(viewProj, lodThresholds, hysteresis, lodState);
+        FrustumPlanes frustum = new FrustumPlanes().set(viewProj, false);
+//#ifdef __HAS_VECTOR_API__
+        int lanes = CULL_SPECIES.length();
+        int visible = 0;
+        int i = 0;
+        int limit = count - (count % lanes);
+        for (; i < limit; i += lanes) {
+            FloatVector minX = FloatVector.fromArray(CULL_SPECIES, bounds.minX, i);
+            FloatVector minY = FloatVector.fromArray(CULL_SPECIES, bounds.minY, i);
+            FloatVector minZ = FloatVector.fromArray(CULL_SPECIES, bounds.minZ, i);
+            FloatVector maxX = FloatVector.fromArray(CULL_SPECIES, bounds.maxX, i);
+            FloatVector maxY = FloatVector.fromArray(CULL_SPECIES, bounds.maxY, i);
+            FloatVector maxZ = FloatVector.fromArray(CULL_SPECIES, bounds.maxZ, i);
+            VectorMask<Float> outside = CULL_SPECIES.maskAll(false);
+            for (int p = 0; p < FrustumPlanes.COUNT; p++) {
+                float px = frustum.x[p], py = frustum.y[p], pz = frustum.z[p];
+                FloatVector dMax = (px < 0.0f ? minX : maxX).mul(px)
+                        .add((py < 0.0f ? minY : maxY).mul(py))
+                        .add((pz < 0.0f ? minZ : maxZ).mul(pz))
+                        .add(frustum.w[p]);
+                outside = outside.or(dMax.lt(0.0f));
+            }
+            FloatVector ex = maxX.sub(minX);
+            FloatVector ey = maxY.sub(minY);
+            FloatVector ez = maxZ.sub(minZ);
+            FloatVector radius = ex.mul(ex).add(ey.mul(ey)).add(ez.mul(ez)).sqrt().mul(0.5f);
+            FloatVector w = minX.add(maxX).mul(0.5f).mul(bands.wx)
+                    .add(minY.add(maxY).mul(0.5f).mul(bands.wy))
+                    .add(minZ.add(maxZ).mul(0.5f).mul(bands.wz))
+                    .add(bands.ww);
+            visible += storeLodSimd(bands, radius, w, outside.not(), lodState, outLod, i);
+        }
+        return visible + cullLodAabbScalar(frustum, bands, bounds, lodState, outLod, i, count);
+//#else
+        return cullLodAabbScalar(frustum, bands, bounds, lodState, outLod, 0, count);
+//#endif
+    }
+
+    /**
+     * Frustum-cull spheres and pick a level of detail for the visible ones in the same pass, without hysteresis.
+     *
+     * @see #frustumCullLodSphereBatch(Matrix4fc, SphereSoA, float[], float, int[], int[], int)
+     */
+    public static int frustumCullLodSphereBatch(Matrix4fc viewProj, SphereSoA spheres, float[] lodThresholds, int[] outLod, int count) {
+        return frustumCullLodSphereBatch(viewProj, spheres, lodThresholds, 0.0f, null, outLod, count);
+    }
+
+    /**
+     * Sphere counterpart of {@link #frustumCullLodAabbBatch(Matrix4fc, AABBSoA, float[], float, int[], int[], int)};
+     * the screen size uses the sphere itself and culling the test of {@link #classifySphere}.
+     */
+    public static int frustumCullLodSphereBatch(Matrix4fc viewProj, SphereSoA spheres, float[] lodThresholds, float hysteresis,
+            int[] lodState, int[] outLod, int count) {
+        if (useComputeBoundSimd(count)) {
+            return frustumCullLodSphereBatchSimd(viewProj, spheres, lodThresholds, hysteresis, lodState, outLod, count);
+        }
+        return frustumCullLodSphereBatchScalar(viewProj, spheres, lodThresholds, hysteresis, lodState, outLod, count);
+    }
+
+    /**
+     * Force scalar implementation regardless of runtime backend.
+     */
+    public static int frustumCullLodSphereBatchScalar(Matrix4fc viewProj, SphereSoA spheres, float[] lodThresholds, float hysteresis,
+            int[] lodState, int[] outLod, int count) {
+        LodBands bands = new LodBands(viewProj, lodThresholds, hysteresis, lodState);
+        FrustumPlanes frustum = new FrustumPlanes().set(viewProj, true);
+        return cullLodSphereScalar(frustum, bands, spheres, lodState, outLod, 0, count);
+    }
+
+    /**
+     * Force the Vector API implementation, one sphere per lane; results equal
+     * {@link #frustumCullLodSphereBatchScalar}.
+     */
+    public static int frustumCullLodSphereBatchSimd(Matrix4fc viewProj, SphereSoA spheres, float[] lodThresholds, float hysteresis,
+            int[] lodState, int[] outLod, int count) {
+        LodBands bands = new LodBands(viewProj, lodThresholds, hysteresis, lodState);
+        FrustumPlanes frustum = new FrustumPlanes().set(viewProj, true);
+//#ifdef __HAS_VECTOR_API__
+        int lanes = CULL_SPECIES.length();
+        int visible = 0;
+        int i = 0;
+        int limit = count - (count % lanes);
+        for (; i < limit; i += lanes) {
+            FloatVector x = FloatVector.fromArray(CULL_SPECIES, spheres.x, i);
+            FloatVector y = FloatVector.fromArray(CULL_SPECIES, spheres.y, i);
+            FloatVector z = FloatVector.fromArray(CULL_SPECIES, spheres.z, i);
+            FloatVector radius = FloatVector.fromArray(CULL_SPECIES, spheres.radius, i);
+            FloatVector negRadius = radius.neg();
+            VectorMask<Float> outside = CULL_SPECIES.maskAll(false);
+            for (int p = 0; p < FrustumPlanes.COUNT; p++) {
+                FloatVector dist = x.mul(frustum.x[p]).add(y.mul(frustum.y[p])).add(z.mul(frustum.z[p])).add(frustum.w[p]);
+                outside = outside.or(dist.lt(negRadius));
+            }
+            FloatVector w = x.mul(bands.wx).add(y.mul(bands.wy)).add(z.mul(bands.wz)).add(bands.ww);
+            visible += storeLodSimd(bands, radius, w, outside.not(), lodState, outLod, i);
+        }
+        return visible + cullLodSphereScalar(frustum, bands, spheres, lodState, outLod, i, count);
+//#else
+        return cullLodSphereScalar(frustum, bands, spheres, lodState, outLod, 0, count);
+//#endif
+    }
+
+    private static int cullLodAabbScalar(FrustumPlanes frustum, LodBands bands, AABBSoA bounds, int[] lodState, int[] outLod,
+            int start, int end) {
+        int visible = 0;
+        for (int i = start; i < end; i++) {
+            float minX = bounds.minX[i], minY = bounds.minY[i], minZ = bounds.minZ[i];
+            float maxX = bounds.maxX[i], maxY = bounds.maxY[i], maxZ = bounds.maxZ[i];
+            boolean outside = false;
+            for (int p = 0; p < FrustumPlanes.COUNT && !outside; p++) {
+                float px = frustum.x[p], py = frustum.y[p], pz = frustum.z[p];
+                outside = px * (px < 0.0f ? minX : maxX) + py * (py < 0.0f ? minY : maxY) + pz * (pz < 0.0f ? minZ : maxZ) + frustum.w[p] < 0.0f;
+            }
+            if (outside) {
+                outLod[i] = LOD_CULLED;
+                continue;
+            }
+            float ex = maxX - minX, ey = maxY - minY, ez = maxZ - minZ;
+            float radius = (float) java.lang.Math.sqrt(ex * ex + ey * ey + ez * ez) * 0.5f;
+            float w = (minX + maxX) * 0.5f * bands.wx + (minY + maxY) * 0.5f * bands.wy + (minZ + maxZ) * 0.5f * bands.wz + bands.ww;
+            storeLod(bands, radius, w, lodState, outLod, i);
+            visible++;
+        }
+        return visible;
+    }
+
+    private static int cullLodSphereScalar(FrustumPlanes frustum, LodBands bands, SphereSoA spheres, int[] lodState, int[] outLod,
+            int start, int end) {
+        int visible = 0;
+        for (int i = start; i < end; i++) {
+            float x = spheres.x[i], y = spheres.y[i], z = spheres.z[i], radius = spheres.radius[i];
+            boolean outside = false;
+            for (int p = 0; p < FrustumPlanes.COUNT && !outside; p++) {
+                outside = x * frustum.x[p] + y * frustum.y[p] + z * frustum.z[p] + frustum.w[p] < -radius;
+            }
+            if (outside) {
+                outLod[i] = LOD_CULLED;
+                continue;
+            }
+            storeLod(bands, radius, x * bands.wx + y * bands.wy + z * bands.wz + bands.ww, lodState, outLod, i);
+            visible++;
+        }
+        return visible;
+    }
+
+    private static void storeLod(LodBands bands, float radius, float w, int[] lodState, int[] outLod, int i) {
+        float size = w > 0.0f ? radius * bands.scale / w : Float.POSITIVE_INFINITY;
+        int lod = 0;
+        for (float t : bands.thresholds) {
+            lod += size < t ? 1 : 0;
+        }
+        if (lodState != null) {
+            int previous = lodState[i];
+            if (previous >= 0) {
+                int finest = 0;
+                int coarsest = 0;
+                for (int k = 0; k < bands.lower.length; k++) {
+                    finest += size < bands.lower[k] ? 1 : 0;
+                    coarsest += size < bands.upper[k] ? 1 : 0;
+                }
+                lod = java.lang.Math.min(java.lang.Math.max(previous, finest), coarsest);
+            }
+            lodState[i] = lod;
+        }
+        outLod[i] = lod;
+    }
+
+//#ifdef __HAS_VECTOR_API__
+    private static int storeLodSimd(LodBands bands, FloatVector radius, FloatVector w, VectorMask<Float> visible,
+            int[] lodState, int[] outLod, int i) {
+        FloatVector size = radius.mul(bands.scale).div(w)
+                .blend(Float.POSITIVE_INFINITY, w.compare(VectorOperators.GT, 0.0f).not());
+        IntVector lod = IntVector.zero(CULL_INT_SPECIES);
+        for (float t : bands.thresholds) {
+            lod = lod.lanewise(VectorOperators.ADD, 1, size.lt(t).cast(CULL_INT_SPECIES));
+        }
+        VectorMask<Integer> visibleInt = visible.cast(CULL_INT_SPECIES);
+        if (lodState != null) {
+            IntVector previous = IntVector.fromArray(CULL_INT_SPECIES, lodState, i);
+            IntVector finest = IntVector.zero(CULL_INT_SPECIES);
+            IntVector coarsest = IntVector.zero(CULL_INT_SPECIES);
+            for (int k = 0; k < bands.lower.length; k++) {
+                finest = finest.lanewise(VectorOperators.ADD, 1, size.lt(bands.lower[k]).cast(CULL_INT_SPECIES));
+                coarsest = coarsest.lanewise(VectorOperators.ADD, 1, size.lt(bands.upper[k]).cast(CULL_INT_SPECIES));
+            }
+            lod = lod.blend(previous.max(finest).min(coarsest), previous.compare(VectorOperators.GE, 0));
+            previous.blend(lod, visibleInt).intoArray(lodState, i);
+        }
+        lod.blend(LOD_CULLED, visibleInt.not()).intoArray(outLod, i);
+        return visibleInt.trueCount();
+    }
+//#endif
+
+    /**
+     * Per-call constants of the LOD kernels: the clip-space w row, the screen-size scale and the thresholds
+     * widened and narrowed by the hysteresis band.
+     */
+    private static final class LodBands {
+        final float wx, wy, wz, ww;
+        final float scale;
+        final float[] thresholds;
+        final float[] lower;
+        final float[] upper;
+
+        LodBands(Matrix4fc viewProj, float[] thresholds, float hysteresis, int[] lodState) {
+            for (int k = 1; k < thresholds.length; k++) {
+                if (!(thresholds[k] <= thresholds[k - 1])) {
+                    throw new IllegalArgumentException("lodThresholds must be in decreasing order");
+                }
+            }
+            if (!(hysteresis >= 0.0f && hysteresis < 1.0f)) {
+                throw new IllegalArgumentException("hysteresis must be in [0, 1): " + hysteresis);
+            }
+            this.wx = viewProj.m03();
+            this.wy = viewProj.m13();
+            this.wz = viewProj.m23();
+            this.ww = viewProj.m33();
+            this.scale = (float) java.lang.Math.sqrt(viewProj.m01() * viewProj.m01() + viewProj.m11() * viewProj.m11()
+                    + viewProj.m21() * viewProj.m21());
+            this.thresholds = thresholds;
+            this.lower = new float[lodState != null ? thresholds.length : 0];
+            this.upper = new float[lower.length];
+            for (int k = 0; k < lower.length; k++) {
+                lower[k] = thresholds[k] * (1.0f - hysteresis);
+                upper[k] = thresholds[k] * (1.0f + hysteresis);
+            }
+        }
+    }
 }
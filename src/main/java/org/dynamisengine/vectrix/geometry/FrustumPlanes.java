@@ -36,6 +36,10 @@ public class FrustumPlanes {
     public static final int PLANE_NZ = 4;
     public static final int PLANE_PZ = 5;
     public static final int COUNT = 6;
+    /**
+     * Bitset of all six planes, {@code 1 << PLANE_*} per plane.
+     */
+    public static final int ALL_PLANES_MASK = (1 << COUNT) - 1;
 
     public final float[] x = new float[COUNT];
     public final float[] y = new float[COUNT];
@@ -0,0 +1,697 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.geometry;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+import org.dynamisengine.vectrix.affine.BatchChunks;
+import org.dynamisengine.vectrix.core.MathMode;
+import org.dynamisengine.vectrix.core.Matrix4fc;
+import org.dynamisengine.vectrix.experimental.KernelConfig;
+import org.dynamisengine.vectrix.simd.SimdSupport;
+import org.dynamisengine.vectrix.soa.AABBSoA;
+//#ifdef __HAS_VECTOR_API__
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+//#endif
+
+/**
+ * Software hierarchical-Z occlusion culling: occluder triangles are rasterized into a small CPU depth buffer,
+ * reduced into a max-depth mip pyramid, and object bounds are tested against the pyramid.
+ * <p>
+ * A frame starts with {@link #begin(Matrix4fc)}, which clears the buffer and fixes the view-projection matrix.
+ * {@link #rasterize(float[], int[], int, Executor)} then draws occluders in bands of {@link #BAND_ROWS} rows,
+ * spread across an optional {@link Executor}, and rebuilds the pyramid. Each box is projected to a screen
+ * rectangle and nearest depth and compared with at most 2x2 texels of the pyramid level its rectangle fits in.
+ * <p>
+ * The test is conservative: occluders only write pixels they cover completely, with the farthest depth the
+ * triangle reaches inside that pixel, so a box is reported occluded only if it is hidden everywhere (up to
+ * float rounding). Depth is NDC {@code z / w} and must grow with distance, as with the standard
+ * {@code perspective} and {@code ortho} matrices of either depth range; reversed-Z projections are not
+ * supported. Triangles with a vertex behind {@link #MIN_CLIP_W} are skipped rather than clipped, and boxes
+ * with a corner behind it are always visible. Boxes completely outside the viewport are reported as not
+ * visible, so this is usually run on the output of frustum culling.
+ * <p>
+ * The buffer is reused across frames and is not safe for concurrent {@code begin} or {@code rasterize}
+ * calls; once rasterized, tests are read-only and may run concurrently.
+ */
+public final class HiZOcclusionBuffer {
+    /**
+     * Smallest allowed buffer width or height.
+     */
+    public static final int MIN_SIZE = 16;
+    /**
+     * Largest allowed buffer width or height.
+     */
+    public static final int MAX_SIZE = 4096;
+    /**
+     * Rows of a rasterization band, the unit of work handed to a worker.
+     */
+    public static final int BAND_ROWS = 8;
+    /**
+     * Clip-space {@code w} below which a vertex is treated as crossing the near plane.
+     */
+    public static final float MIN_CLIP_W = 1.0e-5f;
+
+    private static final String PROP_EXPERIMENTAL_OCCLUSION_SIMD = "vectrix.occlusion.simd";
+    private static final boolean EXPERIMENTAL_OCCLUSION_SIMD = KernelConfig.parseBoolean(System.getProperty(PROP_EXPERIMENTAL_OCCLUSION_SIMD), false);
+    // Per triangle: three edge functions (a, b, c) with c pre-shifted to the pixel's worst corner, then the
+    // depth plane (dz/dx, dz/dy, z0) with z0 pre-shifted to the pixel's farthest corner, then the max depth.
+    private static final int SETUP_STRIDE = 13;
+//#ifdef __HAS_VECTOR_API__
+    private static final VectorSpecies<Float> RASTER_SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final float[] RASTER_IOTA = new float[RASTER_SPECIES.length()];
+
+    static {
+        for (int i = 0; i < RASTER_IOTA.length; i++) {
+            RASTER_IOTA[i] = i;
+        }
+    }
+//#endif
+
+    private final int width;
+    private final int height;
+    private final int levelCount;
+    private final int[] levelWidth;
+    private final int[] levelHeight;
+    private final int[] levelOffset;
+    // All levels back to back, level 0 (the depth buffer) first.
+    private final float[] pyramid;
+
+    private float m00, m01, m02, m03;
+    private float m10, m11, m12, m13;
+    private float m20, m21, m22, m23;
+    private float m30, m31, m32, m33;
+
+    private float[] setup = new float[0];
+    private int[] setupBounds = new int[0];
+    private int setupCount;
+
+    /**
+     * Create a buffer of {@code width x height} pixels; both must be powers of two in
+     * {@code [MIN_SIZE, MAX_SIZE]}. A few hundred pixels across is typical.
+     */
+    public HiZOcclusionBuffer(int width, int height) {
+        checkSize("width", width);
+        checkSize("height", height);
+        this.width = width;
+        this.height = height;
+        this.levelCount = 32 - Integer.numberOfLeadingZeros(java.lang.Math.max(width, height));
+        this.levelWidth = new int[levelCount];
+        this.levelHeight = new int[levelCount];
+        this.levelOffset = new int[levelCount];
+        int texels = 0;
+        for (int level = 0; level < levelCount; level++) {
+            levelWidth[level] = java.lang.Math.max(1, width >> level);
+            levelHeight[level] = java.lang.Math.max(1, height >> level);
+            levelOffset[level] = texels;
+            texels += levelWidth[level] * levelHeight[level];
+        }
+        this.pyramid = new float[texels];
+        Arrays.fill(pyramid, Float.POSITIVE_INFINITY);
+    }
+
+    private static void checkSize(String name, int size) {
+        if (size < MIN_SIZE || size > MAX_SIZE || (size & (size - 1)) != 0) {
+            throw new IllegalArgumentException(name + " must be a power of two in [" + MIN_SIZE + ", " + MAX_SIZE + "]: " + size);
+        }
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Number of pyramid levels, from the full-resolution buffer down to a single texel.
+     */
+    public int levelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Stored depth of texel {@code (x, y)} of pyramid {@code level}; row 0 is the bottom of the viewport.
+     * Texels no occluder fully covers hold {@link Float#POSITIVE_INFINITY}.
+     */
+    public float depth(int level, int x, int y) {
+        return pyramid[levelOffset[level] + y * levelWidth[level] + x];
+    }
+
+    /**
+     * Start a frame: clear the buffer and use {@code viewProjection} for the following rasterization and tests.
+     */
+    public HiZOcclusionBuffer begin(Matrix4fc viewProjection) {
+        m00 = viewProjection.m00();
+        m01 = viewProjection.m01();
+        m02 = viewProjection.m02();
+        m03 = viewProjection.m03();
+        m10 = viewProjection.m10();
+        m11 = viewProjection.m11();
+        m12 = viewProjection.m12();
+        m13 = viewProjection.m13();
+        m20 = viewProjection.m20();
+        m21 = viewProjection.m21();
+        m22 = viewProjection.m22();
+        m23 = viewProjection.m23();
+        m30 = viewProjection.m30();
+        m31 = viewProjection.m31();
+        m32 = viewProjection.m32();
+        m33 = viewProjection.m33();
+        Arrays.fill(pyramid, Float.POSITIVE_INFINITY);
+        return this;
+    }
+
+    /**
+     * Rasterize occluders on the calling thread.
+     *
+     * @see #rasterize(float[], int[], int, Executor)
+     */
+    public HiZOcclusionBuffer rasterize(float[] positions, int[] indices, int triangleCount) {
+        return rasterize(positions, indices, triangleCount, null);
+    }
+
+    /**
+     * Rasterize {@code triangleCount} occluder triangles into the buffer and rebuild the pyramid.
+     * <p>
+     * {@code positions} holds world-space {@code x, y, z} triples and {@code indices} three vertex indices per
+     * triangle, as for {@link TriangleBvh}. Both windings are drawn. Several calls per frame accumulate.
+     *
+     * @param executor
+     *          rasterizes bands of rows in parallel, or {@code null} for the calling thread
+     */
+    public HiZOcclusionBuffer rasterize(float[] positions, int[] indices, int triangleCount, Executor executor) {
+        return rasterize(positions, indices, triangleCount, executor, useSimd());
+    }
+
+    /**
+     * Force the scalar rasterizer regardless of runtime backend.
+     */
+    public HiZOcclusionBuffer rasterizeScalar(float[] positions, int[] indices, int triangleCount, Executor executor) {
+        return rasterize(positions, indices, triangleCount, executor, false);
+    }
+
+    /**
+     * Force the Vector API rasterizer, one row segment per vector; falls back to
+     * {@link #rasterizeScalar} when the Vector API is unavailable. Both write identical depths.
+     */
+    public HiZOcclusionBuffer rasterizeSimd(float[] positions, int[] indices, int triangleCount, Executor executor) {
+        return rasterize(positions, indices, triangleCount, executor, true);
+    }
+
+    private static boolean useSimd() {
+        return KernelConfig.mathMode() != MathMode.STRICT && KernelConfig.simdEnabled()
+                && SimdSupport.backend() == SimdSupport.Backend.VECTOR_API
+                && EXPERIMENTAL_OCCLUSION_SIMD;
+    }
+
+    private HiZOcclusionBuffer rasterize(float[] positions, int[] indices, int triangleCount, Executor executor, final boolean simd) {
+        if (triangleCount < 0 || triangleCount * 3 > indices.length) {
+            throw new IllegalArgumentException("triangleCount out of range: " + triangleCount);
+        }
+        setupTriangles(positions, indices, triangleCount);
+        if (setupCount > 0) {
+            int pixels = width * height;
+            int bandSize = width * BAND_ROWS;
+            BatchChunks.ChunkConsumer band = (start, end) -> rasterizeRows(start / width, end / width, simd);
+            if (executor == null) {
+                BatchChunks.forEachChunk(pixels, bandSize, band);
+            } else {
+                // Chunk sizes stay multiples of the power-of-two width, so every chunk covers whole rows.
+                BatchChunks.forEachChunkParallel(pixels, bandSize, executor, band);
+            }
+        }
+        buildPyramid();
+        return this;
+    }
+
+    private void setupTriangles(float[] positions, int[] indices, int triangleCount) {
+        if (setupBounds.length < triangleCount * 4) {
+            setup = new float[triangleCount * SETUP_STRIDE];
+            setupBounds = new int[triangleCount * 4];
+        }
+        float halfWidth = 0.5f * width;
+        float halfHeight = 0.5f * height;
+        float[] sx = new float[3];
+        float[] sy = new float[3];
+        float[] sz = new float[3];
+        int count = 0;
+        triangles:
+        for (int t = 0; t < triangleCount; t++) {
+            for (int v = 0; v < 3; v++) {
+                int p = indices[t * 3 + v] * 3;
+                float x = positions[p];
+                float y = positions[p + 1];
+                float z = positions[p + 2];
+                float w = m03 * x + m13 * y + m23 * z + m33;
+                if (!(w >= MIN_CLIP_W)) {
+                    continue triangles;
+                }
+                float invW = 1.0f / w;
+                sx[v] = ((m00 * x + m10 * y + m20 * z + m30) * invW + 1.0f) * halfWidth;
+                sy[v] = ((m01 * x + m11 * y + m21 * z + m31) * invW + 1.0f) * halfHeight;
+                sz[v] = (m02 * x + m12 * y + m22 * z + m32) * invW;
+            }
+            float area = (sx[1] - sx[0]) * (sy[2] - sy[0]) - (sx[2] - sx[0]) * (sy[1] - sy[0]);
+            if (!(java.lang.Math.abs(area) > 0.0f) || java.lang.Math.abs(area) == Float.POSITIVE_INFINITY) {
+                continue;
+            }
+            int i1 = area > 0.0f ? 1 : 2;
+            int i2 = 3 - i1;
+            float x0 = sx[0], y0 = sy[0], z0 = sz[0];
+            float x1 = sx[i1], y1 = sy[i1], z1 = sz[i1];
+            float x2 = sx[i2], y2 = sy[i2], z2 = sz[i2];
+            area = java.lang.Math.abs(area);
+            // Pixels whose whole square lies inside the triangle's bounding box.
+            float minX = java.lang.Math.max((float) java.lang.Math.ceil(java.lang.Math.min(x0, java.lang.Math.min(x1, x2))), 0.0f);
+            float maxX = java.lang.Math.min((float) java.lang.Math.floor(java.lang.Math.max(x0, java.lang.Math.max(x1, x2))) - 1.0f, width - 1.0f);
+            float minY = java.lang.Math.max((float) java.lang.Math.ceil(java.lang.Math.min(y0, java.lang.Math.min(y1, y2))), 0.0f);
+            float maxY = java.lang.Math.min((float) java.lang.Math.floor(java.lang.Math.max(y0, java.lang.Math.max(y1, y2))) - 1.0f, height - 1.0f);
+            if (!(minX <= maxX) || !(minY <= maxY)) {
+                continue;
+            }
+            int o = count * SETUP_STRIDE;
+            edge(setup, o, x0, y0, x1, y1);
+            edge(setup, o + 3, x1, y1, x2, y2);
+            edge(setup, o + 6, x2, y2, x0, y0);
+            float dzdx = ((z1 - z0) * (y2 - y0) - (z2 - z0) * (y1 - y0)) / area;
+            float dzdy = ((z2 - z0) * (x1 - x0) - (z1 - z0) * (x2 - x0)) / area;
+            setup[o + 9] = dzdx;
+            setup[o + 10] = dzdy;
+            setup[o + 11] = z0 - dzdx * x0 - dzdy * y0 + 0.5f * (java.lang.Math.abs(dzdx) + java.lang.Math.abs(dzdy));
+            setup[o + 12] = java.lang.Math.max(z0, java.lang.Math.max(z1, z2));
+            int b = count * 4;
+            setupBounds[b] = (int) minX;
+            setupBounds[b + 1] = (int) maxX;
+            setupBounds[b + 2] = (int) minY;
+            setupBounds[b + 3] = (int) maxY;
+            count++;
+        }
+        setupCount = count;
+    }
+
+    private static void edge(float[] setup, int o, float xa, float ya, float xb, float yb) {
+        float a = ya - yb;
+        float b = xb - xa;
+        setup[o] = a;
+        setup[o + 1] = b;
+        setup[o + 2] = -(a * xa + b * ya) - 0.5f * (java.lang.Math.abs(a) + java.lang.Math.abs(b));
+    }
+
+    private void rasterizeRows(int rowStart, int rowEnd, boolean simd) {
+        float[] depth = pyramid;
+        for (int t = 0; t < setupCount; t++) {
+            int b = t * 4;
+            int y0 = java.lang.Math.max(setupBounds[b + 2], rowStart);
+            int y1 = java.lang.Math.min(setupBounds[b + 3], rowEnd - 1);
+            int x0 = setupBounds[b];
+            int x1 = setupBounds[b + 1];
+            int o = t * SETUP_STRIDE;
+            for (int y = y0; y <= y1; y++) {
+                if (simd) {
+                    rasterizeRowSimd(setup, o, depth, y * width, x0, x1, y + 0.5f);
+                } else {
+                    rasterizeRowScalar(setup, o, depth, y * width, x0, x1, y + 0.5f);
+                }
+            }
+        }
+    }
+
+    private static void rasterizeRowScalar(float[] s, int o, float[] depth, int row, int x0, int x1, float yc) {
+        float a0 = s[o], r0 = s[o + 1] * yc + s[o + 2];
+        float a1 = s[o + 3], r1 = s[o + 4] * yc + s[o + 5];
+        float a2 = s[o + 6], r2 = s[o + 7] * yc + s[o + 8];
+        float zx = s[o + 9], rz = s[o + 10] * yc + s[o + 11];
+        float zMax = s[o + 12];
+        for (int x = x0; x <= x1; x++) {
+            float xc = x + 0.5f;
+            if (a0 * xc + r0 >= 0.0f && a1 * xc + r1 >= 0.0f && a2 * xc + r2 >= 0.0f) {
+                float z = java.lang.Math.min(zx * xc + rz, zMax);
+                if (z < depth[row + x]) {
+                    depth[row + x] = z;
+                }
+            }
+        }
+    }
+
+    private static void rasterizeRowSimd(float[] s, int o, float[] depth, int row, int x0, int x1, float yc) {
+//#ifdef __HAS_VECTOR_API__
+        float a0 = s[o], r0 = s[o + 1] * yc + s[o + 2];
+        float a1 = s[o + 3], r1 = s[o + 4] * yc + s[o + 5];
+        float a2 = s[o + 6], r2 = s[o + 7] * yc + s[o + 8];
+        float zx = s[o + 9], rz = s[o + 10] * yc + s[o + 11];
+        float zMax = s[o + 12];
+        FloatVector iota = FloatVector.fromArray(RASTER_SPECIES, RASTER_IOTA, 0);
+        int lanes = RASTER_SPECIES.length();
+        for (int x = x0; x <= x1; x += lanes) {
+            FloatVector xc = iota.add(x + 0.5f);
+            VectorMask<Float> inside = RASTER_SPECIES.indexInRange(x, x1 + 1)
+                    .and(xc.mul(a0).add(r0).compare(VectorOperators.GE, 0.0f))
+                    .and(xc.mul(a1).add(r1).compare(VectorOperators.GE, 0.0f))
+                    .and(xc.mul(a2).add(r2).compare(VectorOperators.GE, 0.0f));
+            if (!inside.anyTrue()) {
+                continue;
+            }
+            FloatVector z = xc.mul(zx).add(rz).min(zMax);
+            FloatVector.fromArray(RASTER_SPECIES, depth, row + x, inside).min(z).intoArray(depth, row + x, inside);
+        }
+//#else
+        rasterizeRowScalar(s, o, depth, row, x0, x1, yc);
+//#endif
+    }
+
+    private void buildPyramid() {
+        for (int level = 1; level < levelCount; level++) {
+            float[] d = pyramid;
+            int src = levelOffset[level - 1];
+            int dst = levelOffset[level];
+            int srcWidth = levelWidth[level - 1];
+            int srcHeight = levelHeight[level - 1];
+            int dstWidth = levelWidth[level];
+            int dstHeight = levelHeight[level];
+            int dx = srcWidth > dstWidth ? 1 : 0;
+            int dy = srcHeight > dstHeight ? srcWidth : 0;
+            for (int y = 0; y < dstHeight; y++) {
+                int srcRow = src + (srcHeight > dstHeight ? 2 * y : y) * srcWidth;
+                int dstRow = dst + y * dstWidth;
+                for (int x = 0; x < dstWidth; x++) {
+                    int i = srcRow + (dx != 0 ? 2 * x : x);
+                    d[dstRow + x] = java.lang.Math.max(java.lang.Math.max(d[i], d[i + dx]),
+                            java.lang.Math.max(d[i + dy], d[i + dy + dx]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test a world-space box against the pyramid.
+     *
+     * @return {@code false} if the box is hidden behind rasterized occluders or lies completely outside the
+     *         viewport, {@code true} otherwise
+     */
+    public boolean testAabb(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        // Corners are the projected min corner plus any combination of the projected edge vectors.
+        float cx = m00 * minX + m10 * minY + m20 * minZ + m30;
+        float cy = m01 * minX + m11 * minY + m21 * minZ + m31;
+        float cz = m02 * minX + m12 * minY + m22 * minZ + m32;
+        float cw = m03 * minX + m13 * minY + m23 * minZ + m33;
+        float ex = maxX - minX, ey = maxY - minY, ez = maxZ - minZ;
+        float xx = m00 * ex, xy = m01 * ex, xz = m02 * ex, xw = m03 * ex;
+        float yx = m10 * ey, yy = m11 * ey, yz = m12 * ey, yw = m13 * ey;
+        float zx = m20 * ez, zy = m21 * ez, zz = m22 * ez, zw = m23 * ez;
+        float minSx = Float.POSITIVE_INFINITY, maxSx = Float.NEGATIVE_INFINITY;
+        float minSy = Float.POSITIVE_INFINITY, maxSy = Float.NEGATIVE_INFINITY;
+        float minSz = Float.POSITIVE_INFINITY;
+        for (int corner = 0; corner < 8; corner++) {
+            float px = cx, py = cy, pz = cz, pw = cw;
+            if ((corner & 1) != 0) {
+                px += xx;
+                py += xy;
+                pz += xz;
+                pw += xw;
+            }
+            if ((corner & 2) != 0) {
+                px += yx;
+                py += yy;
+                pz += yz;
+                pw += yw;
+            }
+            if ((corner & 4) != 0) {
+                px += zx;
+                py += zy;
+                pz += zz;
+                pw += zw;
+            }
+            if (!(pw >= MIN_CLIP_W)) {
+                return true;
+            }
+            float invW = 1.0f / pw;
+            float sx = px * invW, sy = py * invW;
+            minSx = java.lang.Math.min(minSx, sx);
+            maxSx = java.lang.Math.max(maxSx, sx);
+            minSy = java.lang.Math.min(minSy, sy);
+            maxSy = java.lang.Math.max(maxSy, sy);
+            minSz = java.lang.Math.min(minSz, pz * invW);
+        }
+        return testRect(minSx, minSy, maxSx, maxSy, minSz);
+    }
+
+    private boolean testRect(float minSx, float minSy, float maxSx, float maxSy, float nearestDepth) {
+        float px0 = (minSx + 1.0f) * (0.5f * width);
+        float px1 = (maxSx + 1.0f) * (0.5f * width);
+        float py0 = (minSy + 1.0f) * (0.5f * height);
+        float py1 = (maxSy + 1.0f) * (0.5f * height);
+        if (!(px1 >= 0.0f && py1 >= 0.0f && px0 < width && py0 < height)) {
+            return false;
+        }
+        return testPixelRect(px0, py0, px1, py1, nearestDepth);
+    }
+
+    private boolean testPixelRect(float px0, float py0, float px1, float py1, float nearestDepth) {
+        int x0 = px0 <= 0.0f ? 0 : (int) px0;
+        int y0 = py0 <= 0.0f ? 0 : (int) py0;
+        int x1 = px1 >= width ? width - 1 : (int) px1;
+        int y1 = py1 >= height ? height - 1 : (int) py1;
+        // The smallest level on which the rectangle spans at most two texels per axis.
+        int span = java.lang.Math.max(x1 - x0, y1 - y0);
+        int level = span == 0 ? 0 : 31 - Integer.numberOfLeadingZeros(span);
+        if ((x1 >> level) - (x0 >> level) > 1 || (y1 >> level) - (y0 >> level) > 1) {
+            level++;
+        }
+        float[] d = pyramid;
+        int w = levelWidth[level];
+        int row0 = levelOffset[level] + (y0 >> level) * w;
+        int row1 = levelOffset[level] + (y1 >> level) * w;
+        int lx0 = x0 >> level;
+        int lx1 = x1 >> level;
+        float farthest = java.lang.Math.max(java.lang.Math.max(d[row0 + lx0], d[row0 + lx1]),
+                java.lang.Math.max(d[row1 + lx0], d[row1 + lx1]));
+        return nearestDepth <= farthest;
+    }
+
+    /**
+     * Test the first {@code count} boxes of {@code bounds} on the calling thread.
+     *
+     * @see #testAabbBatch(AABBSoA, boolean[], int, Executor)
+     */
+    public void testAabbBatch(AABBSoA bounds, boolean[] outVisible, int count) {
+        testAabbBatch(bounds, outVisible, count, null);
+    }
+
+    /**
+     * Test the first {@code count} boxes of {@code bounds}, writing {@link #testAabb} of box {@code i} to
+     * {@code outVisible[i]}.
+     *
+     * @param executor
+     *          tests chunks of boxes in parallel, or {@code null} for the calling thread
+     */
+    public void testAabbBatch(AABBSoA bounds, boolean[] outVisible, int count, Executor executor) {
+        testAabbBatch(bounds, outVisible, count, executor, useSimd());
+    }
+
+    /**
+     * Force scalar box tests regardless of runtime backend.
+     */
+    public void testAabbBatchScalar(AABBSoA bounds, boolean[] outVisible, int count, Executor executor) {
+        testAabbBatch(bounds, outVisible, count, executor, false);
+    }
+
+    /**
+     * Force the Vector API box tests, projecting one box per lane; falls back to {@link #testAabbBatchScalar}
+     * when the Vector API is unavailable. Both produce identical results.
+     */
+    public void testAabbBatchSimd(AABBSoA bounds, boolean[] outVisible, int count, Executor executor) {
+        testAabbBatch(bounds, outVisible, count, executor, true);
+    }
+
+    private void testAabbBatch(final AABBSoA bounds, final boolean[] outVisible, int count, Executor executor, final boolean simd) {
+        if (count < 0 || count > bounds.size() || count > outVisible.length) {
+            throw new IllegalArgumentException("count out of range: " + count);
+        }
+        BatchChunks.ChunkConsumer chunk = (start, end) -> {
+            if (simd) {
+                testRangeSimd(bounds, outVisible, start, end);
+            } else {
+                testRangeScalar(bounds, outVisible, start, end);
+            }
+        };
+        if (executor == null) {
+            BatchChunks.forEachChunk(count, count, chunk);
+        } else {
+            BatchChunks.forEachChunkParallel(count, 0, executor, chunk);
+        }
+    }
+
+    private void testRangeScalar(AABBSoA bounds, boolean[] outVisible, int start, int end) {
+        float[] minX = bounds.minX, minY = bounds.minY, minZ = bounds.minZ;
+        float[] maxX = bounds.maxX, maxY = bounds.maxY, maxZ = bounds.maxZ;
+        for (int i = start; i < end; i++) {
+            outVisible[i] = testAabb(minX[i], minY[i], minZ[i], maxX[i], maxY[i], maxZ[i]);
+        }
+    }
+
+    private void testRangeSimd(AABBSoA bounds, boolean[] outVisible, int start, int end) {
+//#ifdef __HAS_VECTOR_API__
+        VectorSpecies<Float> species = RASTER_SPECIES;
+        int lanes = species.length();
+        float[] rect = new float[lanes * 5];
+        int i = start;
+        for (int upper = start + species.loopBound(end - start); i < upper; i += lanes) {
+            FloatVector minX = FloatVector.fromArray(species, bounds.minX, i);
+            FloatVector minY = FloatVector.fromArray(species, bounds.minY, i);
+            FloatVector minZ = FloatVector.fromArray(species, bounds.minZ, i);
+            FloatVector ex = FloatVector.fromArray(species, bounds.maxX, i).sub(minX);
+            FloatVector ey = FloatVector.fromArray(species, bounds.maxY, i).sub(minY);
+            FloatVector ez = FloatVector.fromArray(species, bounds.maxZ, i).sub(minZ);
+            FloatVector cx = minX.mul(m00).add(minY.mul(m10)).add(minZ.mul(m20)).add(m30);
+            FloatVector cy = minX.mul(m01).add(minY.mul(m11)).add(minZ.mul(m21)).add(m31);
+            FloatVector cz = minX.mul(m02).add(minY.mul(m12)).add(minZ.mul(m22)).add(m32);
+            FloatVector cw = minX.mul(m03).add(minY.mul(m13)).add(minZ.mul(m23)).add(m33);
+            FloatVector xx = ex.mul(m00), xy = ex.mul(m01), xz = ex.mul(m02), xw = ex.mul(m03);
+            FloatVector yx = ey.mul(m10), yy = ey.mul(m11), yz = ey.mul(m12), yw = ey.mul(m13);
+            FloatVector zx = ez.mul(m20), zy = ez.mul(m21), zz = ez.mul(m22), zw = ez.mul(m23);
+            // Corners are unrolled by hand: C2 keeps vectors of a corner loop boxed.
+            FloatVector one = FloatVector.broadcast(species, 1.0f);
+            FloatVector invW = one.div(cw);
+            FloatVector sx = cx.mul(invW);
+            FloatVector sy = cy.mul(invW);
+            FloatVector minSx = sx, maxSx = sx, minSy = sy, maxSy = sy;
+            FloatVector minSz = cz.mul(invW);
+            FloatVector minW = cw;
+            FloatVector ax = cx.add(xx), ay = cy.add(xy), az = cz.add(xz), aw = cw.add(xw);
+            invW = one.div(aw);
+            sx = ax.mul(invW);
+            sy = ay.mul(invW);
+            minSx = minSx.min(sx);
+            maxSx = maxSx.max(sx);
+            minSy = minSy.min(sy);
+            maxSy = maxSy.max(sy);
+            minSz = minSz.min(az.mul(invW));
+            minW = minW.min(aw);
+            FloatVector bx = cx.add(yx), by = cy.add(yy), bz = cz.add(yz), bw = cw.add(yw);
+            invW = one.div(bw);
+            sx = bx.mul(invW);
+            sy = by.mul(invW);
+            minSx = minSx.min(sx);
+            maxSx = maxSx.max(sx);
+            minSy = minSy.min(sy);
+            maxSy = maxSy.max(sy);
+            minSz = minSz.min(bz.mul(invW));
+            minW = minW.min(bw);
+            FloatVector abx = ax.add(yx), aby = ay.add(yy), abz = az.add(yz), abw = aw.add(yw);
+            invW = one.div(abw);
+            sx = abx.mul(invW);
+            sy = aby.mul(invW);
+            minSx = minSx.min(sx);
+            maxSx = maxSx.max(sx);
+            minSy = minSy.min(sy);
+            maxSy = maxSy.max(sy);
+            minSz = minSz.min(abz.mul(invW));
+            minW = minW.min(abw);
+            FloatVector px = cx.add(zx), py = cy.add(zy), pz = cz.add(zz), pw = cw.add(zw);
+            invW = one.div(pw);
+            sx = px.mul(invW);
+            sy = py.mul(invW);
+            minSx = minSx.min(sx);
+            maxSx = maxSx.max(sx);
+            minSy = minSy.min(sy);
+            maxSy = maxSy.max(sy);
+            minSz = minSz.min(pz.mul(invW));
+            minW = minW.min(pw);
+            px = ax.add(zx);
+            py = ay.add(zy);
+            pz = az.add(zz);
+            pw = aw.add(zw);
+            invW = one.div(pw);
+            sx = px.mul(invW);
+            sy = py.mul(invW);
+            minSx = minSx.min(sx);
+            maxSx = maxSx.max(sx);
+            minSy = minSy.min(sy);
+            maxSy = maxSy.max(sy);
+            minSz = minSz.min(pz.mul(invW));
+            minW = minW.min(pw);
+            px = bx.add(zx);
+            py = by.add(zy);
+            pz = bz.add(zz);
+            pw = bw.add(zw);
+            invW = one.div(pw);
+            sx = px.mul(invW);
+            sy = py.mul(invW);
+            minSx = minSx.min(sx);
+            maxSx = maxSx.max(sx);
+            minSy = minSy.min(sy);
+            maxSy = maxSy.max(sy);
+            minSz = minSz.min(pz.mul(invW));
+            minW = minW.min(pw);
+            px = abx.add(zx);
+            py = aby.add(zy);
+            pz = abz.add(zz);
+            pw = abw.add(zw);
+            invW = one.div(pw);
+            sx = px.mul(invW);
+            sy = py.mul(invW);
+            minSx = minSx.min(sx);
+            maxSx = maxSx.max(sx);
+            minSy = minSy.min(sy);
+            maxSy = maxSy.max(sy);
+            minSz = minSz.min(pz.mul(invW));
+            minW = minW.min(pw);
+            // Lanes behind the near plane are visible and lanes off screen are not; the rest look up the pyramid.
+            FloatVector px0 = minSx.add(1.0f).mul(0.5f * width);
+            FloatVector px1 = maxSx.add(1.0f).mul(0.5f * width);
+            FloatVector py0 = minSy.add(1.0f).mul(0.5f * height);
+            FloatVector py1 = maxSy.add(1.0f).mul(0.5f * height);
+            VectorMask<Float> front = minW.compare(VectorOperators.GE, MIN_CLIP_W);
+            long lookup = px1.compare(VectorOperators.GE, 0.0f)
+                    .and(py1.compare(VectorOperators.GE, 0.0f))
+                    .and(px0.compare(VectorOperators.LT, width))
+                    .and(py0.compare(VectorOperators.LT, height))
+                    .and(front).toLong();
+            front.not().intoArray(outVisible, i);
+            if (lookup == 0L) {
+                continue;
+            }
+            px0.intoArray(rect, 0);
+            py0.intoArray(rect, lanes);
+            px1.intoArray(rect, 2 * lanes);
+            py1.intoArray(rect, 3 * lanes);
+            minSz.intoArray(rect, 4 * lanes);
+            for (long m = lookup; m != 0L; m &= m - 1L) {
+                int l = Long.numberOfTrailingZeros(m);
+                outVisible[i + l] = testPixelRect(rect[l], rect[lanes + l], rect[2 * lanes + l], rect[3 * lanes + l],
+                        rect[4 * lanes + l]);
+            }
+        }
+        testRangeScalar(bounds, outVisible, i, end);
+//#else
+        testRangeScalar(bounds, outVisible, start, end);
+//#endif
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.geometry;
+
+import org.dynamisengine.vectrix.affine.PackedAffineArray;
+import org.dynamisengine.vectrix.affine.PackedAffineKernels;
+import org.dynamisengine.vectrix.soa.AABBSoA;
+
+/**
+ * Top-level ray tracing structure over instances of {@link TriangleBvh} meshes.
+ * <p>
+ * Each instance references a mesh and an object-to-world transform in a {@link PackedAffineArray}. The top
+ * level is an {@link AabbBvh} over the world bounds of the instances; during traversal rays are moved into
+ * object space with the cached inverse transform and continue in the mesh hierarchy. Directions are not
+ * renormalized, so hit distances stay in world units and instanced geometry is never flattened.
+ * <p>
+ * After transforms change, {@link #refit()} updates the inverses, instance bounds and top-level node bounds;
+ * call {@link #build(TriangleBvh[], int[], PackedAffineArray, int)} again when instances moved far enough to
+ * degrade the top-level tree.
+ */
+public final class InstanceBvh {
+    private final AabbBvh tlas = new AabbBvh();
+    private TriangleBvh[] meshes;
+    private int[] instanceMesh;
+    private PackedAffineArray transforms;
+    private PackedAffineArray inverses;
+    private AABBSoA instanceBounds;
+    private int[] order;
+    private int instanceCount;
+
+    /**
+     * Build the top level over {@code instanceCount} instances; instance {@code i} draws
+     * {@code meshes[instanceMesh[i]]} with transform {@code i} of {@code transforms}.
+     */
+    public InstanceBvh build(TriangleBvh[] meshes, int[] instanceMesh, PackedAffineArray transforms, int instanceCount) {
+        if (instanceCount < 0 || instanceCount > instanceMesh.length || instanceCount > transforms.size()) {
+            throw new IllegalArgumentException("instanceCount out of range: " + instanceCount);
+        }
+        for (int i = 0; i < instanceCount; i++) {
+            if (instanceMesh[i] < 0 || instanceMesh[i] >= meshes.length) {
+                throw new IllegalArgumentException("instance " + i + " references missing mesh " + instanceMesh[i]);
+            }
+        }
+        this.meshes = meshes;
+        this.instanceMesh = instanceMesh;
+        this.transforms = transforms;
+        this.instanceCount = instanceCount;
+        if (instanceBounds == null || instanceBounds.size() < instanceCount) {
+            instanceBounds = new AABBSoA(instanceCount);
+            inverses = new PackedAffineArray(instanceCount);
+            order = new int[instanceCount];
+            for (int i = 0; i < instanceCount; i++) {
+                order[i] = i;
+            }
+        }
+        updateInstances();
+        tlas.build(instanceBounds, instanceCount);
+        return this;
+    }
+
+    /**
+     * Re-read the instance transforms and refit the top level without changing its topology.
+     */
+    public void refit() {
+        updateInstances();
+        tlas.refit();
+    }
+
+    public AabbBvh tlas() {
+        return tlas;
+    }
+
+    public AABBSoA instanceBounds() {
+        return instanceBounds;
+    }
+
+    public int instanceCount() {
+        return instanceCount;
+    }
+
+    /**
+     * Find the closest triangle hit by the world-space ray {@code origin + t * dir} with {@code 0 <= t < hit.t}.
+     *
+     * @return {@code true} if {@code hit} was updated; {@link RayHit#instance} names the instance
+     */
+    public boolean intersectRay(float originX, float originY, float originZ, float dirX, float dirY, float dirZ, RayHit hit) {
+        return traverse(originX, originY, originZ, dirX, dirY, dirZ, hit, hit.t, false, AabbBvh.SCRATCH.get());
+    }
+
+    /**
+     * Test whether any instance triangle is hit by {@code origin + t * dir} with {@code 0 <= t < tMax}.
+     */
+    public boolean testRay(float originX, float originY, float originZ, float dirX, float dirY, float dirZ, float tMax) {
+        AabbBvh.TraversalScratch scratch = AabbBvh.SCRATCH.get();
+        return traverse(originX, originY, originZ, dirX, dirY, dirZ, scratch.probe, tMax, true, scratch);
+    }
+
+    private boolean traverse(float originX, float originY, float originZ, float dirX, float dirY, float dirZ,
+            RayHit hit, float tMax, boolean anyHit, AabbBvh.TraversalScratch scratch) {
+        AabbBvh tree = tlas;
+        if (tree.nodeCount == 0) {
+            return false;
+        }
+        float invDirX = AabbBvh.safeInverse(dirX), invDirY = AabbBvh.safeInverse(dirY), invDirZ = AabbBvh.safeInverse(dirZ);
+        float[] inv = inverses.raw();
+        boolean found = false;
+        scratch.ensureTlasStack(tree.depth + 1);
+        int[] stack = scratch.tlasNodes;
+        float[] entry = scratch.tlasEntry;
+        int top = 0;
+        stack[top] = 0;
+        entry[top++] = tree.rayEntry(0, originX, originY, originZ, invDirX, invDirY, invDirZ, tMax);
+        while (top > 0) {
+            int node = stack[--top];
+            if (entry[top] > tMax) {
+                continue;
+            }
+            int n = tree.nodePrimitiveCount[node];
+            if (n == 0) {
+                int near = tree.nodeLeftFirst[node];
+                int far = near + 1;
+                float tNear = tree.rayEntry(near, originX, originY, originZ, invDirX, invDirY, invDirZ, tMax);
+                float tFar = tree.rayEntry(far, originX, originY, originZ, invDirX, invDirY, invDirZ, tMax);
+                if (tFar < tNear) {
+                    int swapNode = near;
+                    near = far;
+                    far = swapNode;
+                    float swapT = tNear;
+                    tNear = tFar;
+                    tFar = swapT;
+                }
+                if (tFar != Float.POSITIVE_INFINITY) {
+                    stack[top] = far;
+                    entry[top++] = tFar;
+                }
+                if (tNear != Float.POSITIVE_INFINITY) {
+                    stack[top] = near;
+                    entry[top++] = tNear;
+                }
+                continue;
+            }
+            for (int k = tree.nodeLeftFirst[node], end = k + n; k < end; k++) {
+                int instance = tree.primitiveIndices[k];
+                int o = inverses.offsetOf(instance);
+                float m00 = inv[o], m01 = inv[o + 1], m02 = inv[o + 2], tx = inv[o + 3];
+                float m10 = inv[o + 4], m11 = inv[o + 5], m12 = inv[o + 6], ty = inv[o + 7];
+                float m20 = inv[o + 8], m21 = inv[o + 9], m22 = inv[o + 10], tz = inv[o + 11];
+                float lox = m00 * originX + m10 * originY + m20 * originZ + tx;
+                float loy = m01 * originX + m11 * originY + m21 * originZ + ty;
+                float loz = m02 * originX + m12 * originY + m22 * originZ + tz;
+                float ldx = m00 * dirX + m10 * dirY + m20 * dirZ;
+                float ldy = m01 * dirX + m11 * dirY + m21 * dirZ;
+                float ldz = m02 * dirX + m12 * dirY + m22 * dirZ;
+                if (meshes[instanceMesh[instance]].intersectRay(lox, loy, loz, ldx, ldy, ldz, hit, tMax, instance, anyHit, 0,
+                        scratch)) {
+                    if (anyHit) {
+                        return true;
+                    }
+                    tMax = hit.t;
+                    found = true;
+                }
+            }
+        }
+        return found;
+    }
+
+    private void updateInstances() {
+        AABBSoA b = instanceBounds;
+        for (int i = 0; i < instanceCount; i++) {
+            AabbBvh mesh = meshes[instanceMesh[i]].bvh();
+            if (mesh.nodeCount == 0) {
+                // Empty meshes collapse to their origin so the world bounds stay finite.
+                b.set(i, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f);
+            } else {
+                b.set(i, mesh.nodeMinX[0], mesh.nodeMinY[0], mesh.nodeMinZ[0], mesh.nodeMaxX[0], mesh.nodeMaxY[0], mesh.nodeMaxZ[0]);
+            }
+        }
+        PackedAffineKernels.transformAabbPackedAffineBatch(transforms, order,
+                b.minX, b.minY, b.minZ, b.maxX, b.maxY, b.maxZ,
+                b.minX, b.minY, b.minZ, b.maxX, b.maxY, b.maxZ, instanceCount);
+        PackedAffineKernels.invertPackedAffineBatch(transforms, inverses, instanceCount);
+    }
+}
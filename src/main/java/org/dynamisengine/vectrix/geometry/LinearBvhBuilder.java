@@ -0,0 +1,280 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.geometry;
+
+import java.util.concurrent.Executor;
+
+import org.dynamisengine.vectrix.affine.BatchChunks;
+import org.dynamisengine.vectrix.hash.SpatialHash;
+import org.dynamisengine.vectrix.soa.AABBSoA;
+
+/**
+ * Linear BVH (LBVH) builder for per-frame rebuilds of moving objects.
+ * <p>
+ * Box centroids are quantized to 30-bit Morton codes ({@link SpatialHash#mortonCode3i(int, int, int)}),
+ * radix-sorted, and the hierarchy is emitted top-down by splitting each range at the highest differing code
+ * bit. The result uses the {@link AabbBvh} node layout, so the same ray, AABB and frustum queries apply, and
+ * {@link AabbBvh#refit()} serves as the refit-only mode when objects move without needing a new topology.
+ * <p>
+ * Centroid bounds, Morton codes and every radix pass run in chunks across an optional {@link Executor};
+ * hierarchy emission and the final bounds fit are linear passes on the calling thread. Scratch buffers are
+ * kept between builds, so a builder should not be shared across threads.
+ */
+public final class LinearBvhBuilder {
+    /**
+     * Quantization bits per axis of the Morton codes.
+     */
+    public static final int MORTON_BITS_PER_AXIS = 10;
+    private static final int RADIX_BITS = 10;
+    private static final int RADIX_BUCKETS = 1 << RADIX_BITS;
+    private static final int RADIX_PASSES = 3;
+
+    private int[] codes = new int[0];
+    private int[] codesScratch = new int[0];
+    private int[] order = new int[0];
+    private int[] orderScratch = new int[0];
+    private int[] histograms = new int[0];
+    private float[] partialBounds = new float[0];
+    private int[] stack = new int[64];
+
+    /**
+     * Build on the calling thread with {@link AabbBvh#DEFAULT_MAX_LEAF_SIZE}.
+     */
+    public AabbBvh build(AabbBvh out, AABBSoA bounds, int count) {
+        return build(out, bounds, count, AabbBvh.DEFAULT_MAX_LEAF_SIZE, null);
+    }
+
+    /**
+     * Rebuild {@code out} over the first {@code count} boxes of {@code bounds}.
+     *
+     * @param executor
+     *          runs the centroid, Morton code and sort passes in parallel, or {@code null} for the calling thread
+     */
+    public AabbBvh build(AabbBvh out, AABBSoA bounds, int count, int maxLeafSize, Executor executor) {
+        if (count < 0 || count > bounds.size()) {
+            throw new IllegalArgumentException("count out of range: " + count);
+        }
+        if (maxLeafSize < 1) {
+            throw new IllegalArgumentException("maxLeafSize must be >= 1: " + maxLeafSize);
+        }
+        out.reset(bounds, count);
+        if (count == 0) {
+            return out;
+        }
+        ensureCapacity(count);
+        int parallelism = executor == null ? 1 : BatchChunks.parallelism(executor);
+        int chunkSize = BatchChunks.parallelChunkSize(count, (count + parallelism - 1) / parallelism, parallelism);
+        int chunks = (count + chunkSize - 1) / chunkSize;
+        if (histograms.length < chunks * RADIX_BUCKETS) {
+            histograms = new int[chunks * RADIX_BUCKETS];
+            partialBounds = new float[chunks * 6];
+        }
+
+        computeCodes(bounds, count, chunkSize, chunks, executor);
+        for (int pass = 0; pass < RADIX_PASSES; pass++) {
+            radixPass(pass * RADIX_BITS, count, chunkSize, chunks, executor);
+            int[] t = codes;
+            codes = codesScratch;
+            codesScratch = t;
+            t = order;
+            order = orderScratch;
+            orderScratch = t;
+        }
+        System.arraycopy(order, 0, out.primitiveIndices, 0, count);
+        emit(out, count, maxLeafSize);
+        out.refit();
+        return out;
+    }
+
+    private void computeCodes(AABBSoA bounds, int count, int chunkSize, int chunks, Executor executor) {
+        final float[] partial = partialBounds;
+        run(count, chunkSize, executor, (start, end) -> {
+            float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+            float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+            for (int i = start; i < end; i++) {
+                float cx = bounds.minX[i] + bounds.maxX[i];
+                float cy = bounds.minY[i] + bounds.maxY[i];
+                float cz = bounds.minZ[i] + bounds.maxZ[i];
+                minX = java.lang.Math.min(minX, cx);
+                minY = java.lang.Math.min(minY, cy);
+                minZ = java.lang.Math.min(minZ, cz);
+                maxX = java.lang.Math.max(maxX, cx);
+                maxY = java.lang.Math.max(maxY, cy);
+                maxZ = java.lang.Math.max(maxZ, cz);
+            }
+            int o = start / chunkSize * 6;
+            partial[o] = minX;
+            partial[o + 1] = minY;
+            partial[o + 2] = minZ;
+            partial[o + 3] = maxX;
+            partial[o + 4] = maxY;
+            partial[o + 5] = maxZ;
+        });
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        for (int c = 0; c < chunks; c++) {
+            int o = c * 6;
+            minX = java.lang.Math.min(minX, partial[o]);
+            minY = java.lang.Math.min(minY, partial[o + 1]);
+            minZ = java.lang.Math.min(minZ, partial[o + 2]);
+            maxX = java.lang.Math.max(maxX, partial[o + 3]);
+            maxY = java.lang.Math.max(maxY, partial[o + 4]);
+            maxZ = java.lang.Math.max(maxZ, partial[o + 5]);
+        }
+        float cells = (float) ((1 << MORTON_BITS_PER_AXIS) - 1);
+        final float originX = minX, originY = minY, originZ = minZ;
+        final float scaleX = maxX > minX ? cells / (maxX - minX) : 0.0f;
+        final float scaleY = maxY > minY ? cells / (maxY - minY) : 0.0f;
+        final float scaleZ = maxZ > minZ ? cells / (maxZ - minZ) : 0.0f;
+        final int[] outCodes = codes;
+        final int[] outOrder = order;
+        run(count, chunkSize, executor, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                int qx = (int) ((bounds.minX[i] + bounds.maxX[i] - originX) * scaleX);
+                int qy = (int) ((bounds.minY[i] + bounds.maxY[i] - originY) * scaleY);
+                int qz = (int) ((bounds.minZ[i] + bounds.maxZ[i] - originZ) * scaleZ);
+                outCodes[i] = SpatialHash.mortonCode3i(qx, qy, qz);
+                outOrder[i] = i;
+            }
+        });
+    }
+
+    /**
+     * One stable LSD counting pass from {@code codes/order} into {@code codesScratch/orderScratch}.
+     */
+    private void radixPass(int shift, int count, int chunkSize, int chunks, Executor executor) {
+        final int[] hist = histograms;
+        final int[] srcCodes = codes;
+        final int[] srcOrder = order;
+        final int[] dstCodes = codesScratch;
+        final int[] dstOrder = orderScratch;
+        java.util.Arrays.fill(hist, 0, chunks * RADIX_BUCKETS, 0);
+        run(count, chunkSize, executor, (start, end) -> {
+            int base = start / chunkSize * RADIX_BUCKETS;
+            for (int i = start; i < end; i++) {
+                hist[base + ((srcCodes[i] >>> shift) & (RADIX_BUCKETS - 1))]++;
+            }
+        });
+        // Exclusive prefix sum in bucket-major, chunk-minor order keeps the pass stable.
+        int sum = 0;
+        for (int b = 0; b < RADIX_BUCKETS; b++) {
+            for (int c = 0; c < chunks; c++) {
+                int h = c * RADIX_BUCKETS + b;
+                int n = hist[h];
+                hist[h] = sum;
+                sum += n;
+            }
+        }
+        run(count, chunkSize, executor, (start, end) -> {
+            int base = start / chunkSize * RADIX_BUCKETS;
+            for (int i = start; i < end; i++) {
+                int code = srcCodes[i];
+                int dst = hist[base + ((code >>> shift) & (RADIX_BUCKETS - 1))]++;
+                dstCodes[dst] = code;
+                dstOrder[dst] = srcOrder[i];
+            }
+        });
+    }
+
+    /**
+     * Emit nodes top-down from the sorted codes; each range is split where its highest differing bit flips.
+     */
+    private void emit(AabbBvh out, int count, int maxLeafSize) {
+        int[] sorted = codes;
+        int top = 0;
+        int[] s = stack;
+        out.nodeCount = 1;
+        out.nodeLeftFirst[0] = 0;
+        out.nodePrimitiveCount[0] = count;
+        s[top++] = 0;
+        s[top++] = 1;
+        while (top > 0) {
+            int nodeDepth = s[--top];
+            int node = s[--top];
+            out.depth = java.lang.Math.max(out.depth, nodeDepth);
+            int first = out.nodeLeftFirst[node];
+            int n = out.nodePrimitiveCount[node];
+            if (n <= maxLeafSize) {
+                continue;
+            }
+            int last = first + n - 1;
+            int mid = findSplit(sorted, first, last);
+            int left = out.nodeCount;
+            out.nodeCount += 2;
+            out.nodeLeftFirst[left] = first;
+            out.nodePrimitiveCount[left] = mid - first;
+            out.nodeLeftFirst[left + 1] = mid;
+            out.nodePrimitiveCount[left + 1] = last + 1 - mid;
+            out.nodeLeftFirst[node] = left;
+            out.nodePrimitiveCount[node] = 0;
+            if (top + 4 > s.length) {
+                s = stack = java.util.Arrays.copyOf(s, s.length * 2);
+            }
+            s[top++] = left + 1;
+            s[top++] = nodeDepth + 1;
+            s[top++] = left;
+            s[top++] = nodeDepth + 1;
+        }
+    }
+
+    /**
+     * @return the first slot of the upper half of {@code [first, last]}
+     */
+    private static int findSplit(int[] sorted, int first, int last) {
+        int firstCode = sorted[first];
+        int lastCode = sorted[last];
+        if (firstCode == lastCode) {
+            // Duplicate codes carry no spatial order; balance by count.
+            return (first + last + 1) >>> 1;
+        }
+        int commonPrefix = Integer.numberOfLeadingZeros(firstCode ^ lastCode);
+        int split = first;
+        int step = last - first;
+        do {
+            step = (step + 1) >>> 1;
+            int candidate = split + step;
+            if (candidate < last && Integer.numberOfLeadingZeros(firstCode ^ sorted[candidate]) > commonPrefix) {
+                split = candidate;
+            }
+        } while (step > 1);
+        return split + 1;
+    }
+
+    private static void run(int count, int chunkSize, Executor executor, BatchChunks.ChunkConsumer consumer) {
+        if (executor == null) {
+            BatchChunks.forEachChunk(count, chunkSize, consumer);
+        } else {
+            BatchChunks.forEachChunkParallel(count, chunkSize, executor, consumer);
+        }
+    }
+
+    private void ensureCapacity(int count) {
+        if (codes.length < count) {
+            codes = new int[count];
+            codesScratch = new int[count];
+            order = new int[count];
+            orderScratch = new int[count];
+        }
+    }
+}
@@ -23,11 +23,10 @@
  */
 package org.dynamisengine.vectrix.geometry;
 
-import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.dynamisengine.vectrix.affine.BatchChunks;
 
 /**
  * Class for polygon/point intersection tests when testing many points against one or many static concave or convex, simple polygons.
@@ -36,6 +35,11 @@ import java.util.List;
  * custom interval tree to avoid testing all polygon edges against a point, but only those that intersect the imaginary ray along the same y co-ordinate of the
  * search point. This algorithm additionally also supports multiple polygons.
  * <p>
+ * The interval tree is stored in flat primitive arrays: each node owns a contiguous range of edge slots sorted by the lower
+ * y of the edge, plus a permutation of the same range sorted by decreasing upper y. A point query walks a single path from
+ * the root. {@link #testPoints(float[], int, long[], Executor)} and {@link #testPoints(float[], int, int[], Executor)} test
+ * many points per call.
+ * <p>
  * This class is thread-safe and can be used in a multithreaded environment when testing many points against the same polygon concurrently.
  * <p>
  * Reference: <a href="http://alienryderflex.com/polygon/">http://alienryderflex.com</a>
@@ -44,97 +48,29 @@ import java.util.List;
  */
 public class PolygonsIntersection {
 
-    static class ByStartComparator implements Comparator {
-        public int compare(Object o1, Object o2) {
-            Interval i1 = (Interval) o1;
-            Interval i2 = (Interval) o2;
-            return Float.compare(i1.start, i2.start);
-        }
-    }
-
-    static class ByEndComparator implements Comparator {
-        public int compare(Object o1, Object o2) {
-            Interval i1 = (Interval) o1;
-            Interval i2 = (Interval) o2;
-            return Float.compare(i2.end, i1.end);
-        }
-    }
-
-    static class Interval {
-        float start, end;
-        int i, j, polyIndex;
-    }
-
-    static class IntervalTreeNode {
-        float center;
-        float childrenMinMax;
-        IntervalTreeNode left;
-        IntervalTreeNode right;
-        List/* <Interval> */ byBeginning;
-        List/* <Interval> */ byEnding;
-
-        static boolean computeEvenOdd(float[] verticesXY, Interval ival, float x, float y, boolean evenOdd, BitSet inPolys) {
-            boolean newEvenOdd = evenOdd;
-            int i = ival.i;
-            int j = ival.j;
-            float yi = verticesXY[2 * i + 1];
-            float yj = verticesXY[2 * j + 1];
-            float xi = verticesXY[2 * i + 0];
-            float xj = verticesXY[2 * j + 0];
-            if ((yi < y && yj >= y || yj < y && yi >= y) && (xi <= x || xj <= x)) {
-                float xDist = xi + (y - yi) / (yj - yi) * (xj - xi) - x;
-                newEvenOdd ^= xDist < 0.0f;
-                if (newEvenOdd != evenOdd && inPolys != null) {
-                    inPolys.flip(ival.polyIndex);
-                }
-            }
-            return newEvenOdd;
-        }
-
-        boolean traverse(float[] verticesXY, float x, float y, boolean evenOdd, BitSet inPolys) {
-            boolean newEvenOdd = evenOdd;
-            if (y == center && byBeginning != null) {
-                int size = byBeginning.size();
-                for (int b = 0; b < size; b++) {
-                    Interval ival = (Interval) byBeginning.get(b);
-                    newEvenOdd = computeEvenOdd(verticesXY, ival, x, y, newEvenOdd, inPolys);
-                }
-            } else if (y < center) {
-                if (left != null && left.childrenMinMax >= y)
-                    newEvenOdd = left.traverse(verticesXY, x, y, newEvenOdd, inPolys);
-                if (byBeginning != null) {
-                    int size = byBeginning.size();
-                    for (int b = 0; b < size; b++) {
-                        Interval ival = (Interval) byBeginning.get(b);
-                        if (ival.start > y)
-                            break;
-                        newEvenOdd = computeEvenOdd(verticesXY, ival, x, y, newEvenOdd, inPolys);
-                    }
-                }
-            } else if (y > center) {
-                if (right != null && right.childrenMinMax <= y)
-                    newEvenOdd = right.traverse(verticesXY, x, y, newEvenOdd, inPolys);
-                if (byEnding != null) {
-                    int size = byEnding.size();
-                    for (int b = 0; b < size; b++) {
-                        Interval ival = (Interval) byEnding.get(b);
-                        if (ival.end < y)
-                            break;
-                        newEvenOdd = computeEvenOdd(verticesXY, ival, x, y, newEvenOdd, inPolys);
-                    }
-                }
-            }
-            return newEvenOdd;
-        }
-    }
-
-    private static final ByStartComparator byStartComparator = new ByStartComparator();
-    private static final ByEndComparator byEndComparator = new ByEndComparator();
-
     protected final float[] verticesXY;
     private float minX, minY, maxX, maxY;
     private float centerX, centerY, radiusSquared;
-    private IntervalTreeNode tree;
+
+    // Edges in tree slot order; the crossing test reads the end points of edge (i, j) as (xi, yi) and (xj, yj).
+    private int edgeCount;
+    private float[] edgeStart;
+    private float[] edgeXi;
+    private float[] edgeYi;
+    private float[] edgeXj;
+    private float[] edgeYj;
+    private int[] edgePolygon;
+    // Per node, the slots of its range ordered by decreasing upper y, and that upper y.
+    private int[] endOrder;
+    private float[] endValue;
+
+    private int nodeCount;
+    private float[] nodeCenter;
+    private float[] nodeChildrenMinMax;
+    private int[] nodeLeft;
+    private int[] nodeRight;
+    private int[] nodeFirst;
+    private int[] nodeEnd;
 
     /**
      * Create a new {@link PolygonsIntersection} object with the given polygon vertices.
@@ -151,67 +87,35 @@ public class PolygonsIntersection {
      *            the number of vertices to use from the <code>verticesXY</code> array, staring with index 0
      */
     public PolygonsIntersection(float[] verticesXY, int[] polygons, int count) {
-        this.verticesXY = verticesXY;
-        // Do all the allocations and initializations during this constructor
-        preprocess(count, polygons);
+        this(verticesXY, polygons, count, null);
     }
 
-    private IntervalTreeNode buildNode(List intervals, float center) {
-        List left = null;
-        List right = null;
-        List byStart = null;
-        List byEnd = null;
-        float leftMin = 1E38f, leftMax = -1E38f, rightMin = 1E38f, rightMax = -1E38f;
-        float thisMin = 1E38f, thisMax = -1E38f;
-        for (int i = 0; i < intervals.size(); i++) {
-            Interval ival = (Interval) intervals.get(i);
-            if (ival.start < center && ival.end < center) {
-                if (left == null)
-                    left = new ArrayList();
-                left.add(ival);
-                leftMin = leftMin < ival.start ? leftMin : ival.start;
-                leftMax = leftMax > ival.end ? leftMax : ival.end;
-            } else if (ival.start > center && ival.end > center) {
-                if (right == null)
-                    right = new ArrayList();
-                right.add(ival);
-                rightMin = rightMin < ival.start ? rightMin : ival.start;
-                rightMax = rightMax > ival.end ? rightMax : ival.end;
-            } else {
-                if (byStart == null || byEnd == null) {
-                    byStart = new ArrayList();
-                    byEnd = new ArrayList();
-                }
-                thisMin = ival.start < thisMin ? ival.start : thisMin;
-                thisMax = ival.end > thisMax ? ival.end : thisMax;
-                byStart.add(ival);
-                byEnd.add(ival);
-            }
-        }
-        if (byStart != null) {
-            Collections.sort(byStart, byStartComparator);
-            Collections.sort(byEnd, byEndComparator);
-        }
-        IntervalTreeNode tree = new IntervalTreeNode();
-        tree.byBeginning = byStart;
-        tree.byEnding = byEnd;
-        tree.center = center;
-        if (left != null) {
-            tree.left = buildNode(left, (leftMin + leftMax) / 2.0f);
-            tree.left.childrenMinMax = leftMax;
-        }
-        if (right != null) {
-            tree.right = buildNode(right, (rightMin + rightMax) / 2.0f);
-            tree.right.childrenMinMax = rightMin;
-        }
-        return tree;
+    /**
+     * Create a new {@link PolygonsIntersection} object with the given polygon vertices, sorting the interval tree nodes across
+     * <code>executor</code>.
+     * 
+     * @see #PolygonsIntersection(float[], int[], int)
+     * 
+     * @param executor
+     *            sorts the interval tree nodes in parallel, or <code>null</code> for the calling thread
+     */
+    public PolygonsIntersection(float[] verticesXY, int[] polygons, int count, Executor executor) {
+        this.verticesXY = verticesXY;
+        // Do all the allocations and initializations during this constructor
+        preprocess(count, polygons, executor);
     }
 
-    private void preprocess(int count, int[] polygons) {
+    private void preprocess(int count, int[] polygons, Executor executor) {
+        int capacity = java.lang.Math.max(count, 1) + (polygons != null ? polygons.length : 0) + 1;
+        int[] edgeI = new int[capacity];
+        int[] edgeJ = new int[capacity];
+        int[] polyOf = new int[capacity];
+        float[] start = new float[capacity];
+        float[] end = new float[capacity];
+        int n = 0;
         int i, j = 0;
         minX = minY = 1E38f;
         maxX = maxY = -1E38f;
-        List intervals = new ArrayList(count);
         int first = 0;
         int currPoly = 0;
         for (i = 1; i < count; i++) {
@@ -219,13 +123,11 @@ public class PolygonsIntersection {
                 /* New polygon starts. End the current. */
                 float prevy = verticesXY[2 * (i - 1) + 1];
                 float firsty = verticesXY[2 * first + 1];
-                Interval ival = new Interval();
-                ival.start = prevy < firsty ? prevy : firsty;
-                ival.end = firsty > prevy ? firsty : prevy;
-                ival.i = i - 1;
-                ival.j = first;
-                ival.polyIndex = currPoly;
-                intervals.add(ival);
+                start[n] = prevy < firsty ? prevy : firsty;
+                end[n] = firsty > prevy ? firsty : prevy;
+                edgeI[n] = i - 1;
+                edgeJ[n] = first;
+                polyOf[n++] = currPoly;
                 first = i;
                 currPoly++;
                 i++;
@@ -238,13 +140,11 @@ public class PolygonsIntersection {
             minY = yi < minY ? yi : minY;
             maxX = xi > maxX ? xi : maxX;
             maxY = yi > maxY ? yi : maxY;
-            Interval ival = new Interval();
-            ival.start = yi < yj ? yi : yj;
-            ival.end = yj > yi ? yj : yi;
-            ival.i = i;
-            ival.j = j;
-            ival.polyIndex = currPoly;
-            intervals.add(ival);
+            start[n] = yi < yj ? yi : yj;
+            end[n] = yj > yi ? yj : yi;
+            edgeI[n] = i;
+            edgeJ[n] = j;
+            polyOf[n++] = currPoly;
             j = i;
         }
         // Close current polygon
@@ -255,13 +155,11 @@ public class PolygonsIntersection {
         minY = yi < minY ? yi : minY;
         maxX = xi > maxX ? xi : maxX;
         maxY = yi > maxY ? yi : maxY;
-        Interval ival = new Interval();
-        ival.start = yi < yj ? yi : yj;
-        ival.end = yj > yi ? yj : yi;
-        ival.i = i - 1;
-        ival.j = first;
-        ival.polyIndex = currPoly;
-        intervals.add(ival);
+        start[n] = yi < yj ? yi : yj;
+        end[n] = yj > yi ? yj : yi;
+        edgeI[n] = i - 1;
+        edgeJ[n] = first;
+        polyOf[n++] = currPoly;
         // compute bounding sphere and rectangle
         centerX = (maxX + minX) * 0.5f;
         centerY = (maxY + minY) * 0.5f;
@@ -269,7 +167,234 @@ public class PolygonsIntersection {
         float dy = maxY - centerY;
         radiusSquared = dx * dx + dy * dy;
         // build interval tree
-        tree = buildNode(intervals, centerY);
+        int[] perm = buildTopology(start, end, n);
+        sortNodes(perm, start, end, executor);
+        fillSlots(perm, start, edgeI, edgeJ, polyOf, executor);
+    }
+
+    /**
+     * Lay out the tree top-down: every node partitions its range of <code>perm</code> into the edges entirely below its center,
+     * the edges spanning it and the edges entirely above it, keeps the spanning edges and hands the other two groups to its children.
+     * 
+     * @return the edge index of every slot
+     */
+    private int[] buildTopology(float[] start, float[] end, int n) {
+        edgeCount = n;
+        int[] perm = new int[n];
+        int[] scratch = new int[n];
+        for (int e = 0; e < n; e++) {
+            perm[e] = e;
+        }
+        int maxNodes = 2 * n + 1;
+        nodeCenter = new float[maxNodes];
+        nodeChildrenMinMax = new float[maxNodes];
+        nodeLeft = new int[maxNodes];
+        nodeRight = new int[maxNodes];
+        nodeFirst = new int[maxNodes];
+        nodeEnd = new int[maxNodes];
+        int[] stack = new int[64];
+        int top = 0;
+        nodeCount = 1;
+        nodeCenter[0] = centerY;
+        stack[top++] = 0;
+        stack[top++] = 0;
+        stack[top++] = n;
+        while (top > 0) {
+            int hi = stack[--top];
+            int lo = stack[--top];
+            int node = stack[--top];
+            float center = nodeCenter[node];
+            float leftMin = 1E38f, leftMax = -1E38f, rightMin = 1E38f, rightMax = -1E38f;
+            int nl = 0, nm = 0;
+            for (int k = lo; k < hi; k++) {
+                int e = perm[k];
+                if (start[e] < center && end[e] < center) {
+                    nl++;
+                    leftMin = leftMin < start[e] ? leftMin : start[e];
+                    leftMax = leftMax > end[e] ? leftMax : end[e];
+                } else if (start[e] > center && end[e] > center) {
+                    rightMin = rightMin < start[e] ? rightMin : start[e];
+                    rightMax = rightMax > end[e] ? rightMax : end[e];
+                } else {
+                    nm++;
+                }
+            }
+            int l = lo, m = lo + nl, r = lo + nl + nm;
+            for (int k = lo; k < hi; k++) {
+                int e = perm[k];
+                if (start[e] < center && end[e] < center) {
+                    scratch[l++] = e;
+                } else if (start[e] > center && end[e] > center) {
+                    scratch[r++] = e;
+                } else {
+                    scratch[m++] = e;
+                }
+            }
+            System.arraycopy(scratch, lo, perm, lo, hi - lo);
+            nodeFirst[node] = lo + nl;
+            nodeEnd[node] = lo + nl + nm;
+            nodeLeft[node] = -1;
+            nodeRight[node] = -1;
+            if (top + 6 > stack.length) {
+                stack = java.util.Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (nl > 0) {
+                int child = nodeCount++;
+                nodeLeft[node] = child;
+                nodeCenter[child] = (leftMin + leftMax) / 2.0f;
+                nodeChildrenMinMax[child] = leftMax;
+                stack[top++] = child;
+                stack[top++] = lo;
+                stack[top++] = lo + nl;
+            }
+            if (lo + nl + nm < hi) {
+                int child = nodeCount++;
+                nodeRight[node] = child;
+                nodeCenter[child] = (rightMin + rightMax) / 2.0f;
+                nodeChildrenMinMax[child] = rightMin;
+                stack[top++] = child;
+                stack[top++] = lo + nl + nm;
+                stack[top++] = hi;
+            }
+        }
+        return perm;
+    }
+
+    /**
+     * Sort the slots of every node by increasing lower y and build its permutation by decreasing upper y. Nodes own disjoint
+     * slot ranges, so they are sorted independently.
+     */
+    private void sortNodes(final int[] perm, final float[] start, final float[] end, Executor executor) {
+        final long[] keys = new long[edgeCount];
+        endOrder = new int[edgeCount];
+        endValue = new float[edgeCount];
+        run(nodeCount, executor, (n0, n1) -> {
+            for (int node = n0; node < n1; node++) {
+                int first = nodeFirst[node], last = nodeEnd[node];
+                if (last - first < 2) {
+                    if (first < last) {
+                        endOrder[first] = first;
+                        endValue[first] = end[perm[first]];
+                    }
+                    continue;
+                }
+                for (int k = first; k < last; k++) {
+                    keys[k] = (long) sortableBits(start[perm[k]]) << 32 | perm[k];
+                }
+                java.util.Arrays.sort(keys, first, last);
+                for (int k = first; k < last; k++) {
+                    perm[k] = (int) keys[k];
+                }
+                for (int k = first; k < last; k++) {
+                    keys[k] = (long) sortableBits(end[perm[k]]) << 32 | k;
+                }
+                java.util.Arrays.sort(keys, first, last);
+                for (int k = first; k < last; k++) {
+                    int slot = (int) keys[last - 1 - (k - first)];
+                    endOrder[k] = slot;
+                    endValue[k] = end[perm[slot]];
+                }
+            }
+        });
+    }
+
+    private void fillSlots(final int[] perm, final float[] start, final int[] edgeI, final int[] edgeJ, final int[] polyOf, Executor executor) {
+        int n = edgeCount;
+        edgeStart = new float[n];
+        edgeXi = new float[n];
+        edgeYi = new float[n];
+        edgeXj = new float[n];
+        edgeYj = new float[n];
+        edgePolygon = new int[n];
+        final float[] v = verticesXY;
+        run(n, executor, (s0, s1) -> {
+            for (int s = s0; s < s1; s++) {
+                int e = perm[s];
+                edgeStart[s] = start[e];
+                edgeXi[s] = v[2 * edgeI[e] + 0];
+                edgeYi[s] = v[2 * edgeI[e] + 1];
+                edgeXj[s] = v[2 * edgeJ[e] + 0];
+                edgeYj[s] = v[2 * edgeJ[e] + 1];
+                edgePolygon[s] = polyOf[e];
+            }
+        });
+    }
+
+    private static int sortableBits(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+
+    private static void run(int count, Executor executor, BatchChunks.ChunkConsumer consumer) {
+        if (executor == null) {
+            BatchChunks.forEachChunk(count, count, consumer);
+        } else {
+            BatchChunks.forEachChunkParallel(count, 0, executor, consumer);
+        }
+    }
+
+    private boolean computeEvenOdd(int s, float x, float y, boolean evenOdd, BitSet inPolys) {
+        boolean newEvenOdd = evenOdd;
+        float yi = edgeYi[s];
+        float yj = edgeYj[s];
+        float xi = edgeXi[s];
+        float xj = edgeXj[s];
+        if ((yi < y && yj >= y || yj < y && yi >= y) && (xi <= x || xj <= x)) {
+            float xDist = xi + (y - yi) / (yj - yi) * (xj - xi) - x;
+            newEvenOdd ^= xDist < 0.0f;
+            if (newEvenOdd != evenOdd && inPolys != null) {
+                inPolys.flip(edgePolygon[s]);
+            }
+        }
+        return newEvenOdd;
+    }
+
+    /**
+     * Walk the single root-to-leaf path of nodes whose intervals may contain <code>y</code>.
+     */
+    private boolean traverse(float x, float y, BitSet inPolys) {
+        boolean evenOdd = false;
+        int node = 0;
+        while (node >= 0) {
+            float center = nodeCenter[node];
+            int first = nodeFirst[node];
+            int last = nodeEnd[node];
+            if (y == center) {
+                for (int s = first; s < last; s++) {
+                    evenOdd = computeEvenOdd(s, x, y, evenOdd, inPolys);
+                }
+                node = -1;
+            } else if (y < center) {
+                for (int s = first; s < last; s++) {
+                    if (edgeStart[s] > y)
+                        break;
+                    evenOdd = computeEvenOdd(s, x, y, evenOdd, inPolys);
+                }
+                int left = nodeLeft[node];
+                node = left >= 0 && nodeChildrenMinMax[left] >= y ? left : -1;
+            } else if (y > center) {
+                for (int k = first; k < last; k++) {
+                    if (endValue[k] < y)
+                        break;
+                    evenOdd = computeEvenOdd(endOrder[k], x, y, evenOdd, inPolys);
+                }
+                int right = nodeRight[node];
+                node = right >= 0 && nodeChildrenMinMax[right] <= y ? right : -1;
+            } else {
+                node = -1;
+            }
+        }
+        return evenOdd;
+    }
+
+    private boolean insideBounds(float x, float y) {
+        // check bounding sphere first
+        float dx = (x - centerX);
+        float dy = (y - centerY);
+        if (dx * dx + dy * dy > radiusSquared)
+            return false;
+        // check bounding box next
+        return !(maxX < x || maxY < y || minX > x || minY > y);
     }
     
     /**
@@ -305,22 +430,99 @@ public class PolygonsIntersection {
      * @return <code>true</code> iff the point lies inside the polygon and not inside a hole; <code>false</code> otherwise
      */
     public boolean testPoint(float x, float y, BitSet inPolys) {
-        // check bounding sphere first
-        float dx = (x - centerX);
-        float dy = (y - centerY);
         if (inPolys != null)
             inPolys.clear();
-        if (dx * dx + dy * dy > radiusSquared)
-            return false;
-        // check bounding box next
-        if (maxX < x || maxY < y || minX > x || minY > y)
+        if (!insideBounds(x, y))
             return false;
         // ask interval tree for all polygon edges intersecting 'y' and perform
         // the even/odd/crosscutting/raycast algorithm on them and also return
         // the polygon index of the polygon the point is in by setting the appropriate
         // bit in the given BitSet.
-        boolean res = tree.traverse(verticesXY, x, y, false, inPolys);
-        return res;
+        return traverse(x, y, inPolys);
+    }
+
+    /**
+     * Test the first <code>count</code> points of <code>xy</code> on the calling thread.
+     * 
+     * @see #testPoints(float[], int, long[], Executor)
+     */
+    public int testPoints(float[] xy, int count, long[] outInside) {
+        return testPoints(xy, count, outInside, null);
+    }
+
+    /**
+     * Test the first <code>count</code> points of <code>xy</code>, given as consecutive x and y coordinates, and store the result of
+     * {@link #testPoint(float, float)} for point <i>i</i> in bit <code>i &amp; 63</code> of <code>outInside[i &gt;&gt;&gt; 6]</code>.
+     * Bits of the last word beyond <code>count</code> are cleared.
+     * 
+     * @param executor
+     *            tests the points in parallel, or <code>null</code> for the calling thread
+     * @return the number of points inside
+     */
+    public int testPoints(final float[] xy, final int count, final long[] outInside, Executor executor) {
+        checkPoints(xy, count);
+        final int words = (count + 63) >>> 6;
+        if (outInside.length < words) {
+            throw new IllegalArgumentException("outInside.length < (count + 63) / 64: " + outInside.length);
+        }
+        final int[] partial = new int[words];
+        // Chunks are whole words so that no two threads write the same word.
+        run(words, executor, (w0, w1) -> {
+            for (int w = w0; w < w1; w++) {
+                long bits = 0L;
+                int base = w << 6;
+                int end = java.lang.Math.min(base + 64, count);
+                for (int i = base; i < end; i++) {
+                    float x = xy[2 * i], y = xy[2 * i + 1];
+                    if (insideBounds(x, y) && traverse(x, y, null)) {
+                        bits |= 1L << (i - base);
+                    }
+                }
+                outInside[w] = bits;
+                partial[w] = Long.bitCount(bits);
+            }
+        });
+        int inside = 0;
+        for (int w = 0; w < words; w++) {
+            inside += partial[w];
+        }
+        return inside;
+    }
+
+    /**
+     * Test the first <code>count</code> points of <code>xy</code> on the calling thread.
+     * 
+     * @see #testPoints(float[], int, int[], Executor)
+     */
+    public void testPoints(float[] xy, int count, int[] outPolygon) {
+        testPoints(xy, count, outPolygon, null);
+    }
+
+    /**
+     * Test the first <code>count</code> points of <code>xy</code>, given as consecutive x and y coordinates, and store for point
+     * <i>i</i> the lowest index of the polygons containing it when {@link #testPoint(float, float)} is <code>true</code>, or
+     * <code>-1</code> otherwise. For polygons that do not overlap this is the index of the region hit by the point.
+     * 
+     * @param executor
+     *            tests the points in parallel, or <code>null</code> for the calling thread
+     */
+    public void testPoints(final float[] xy, final int count, final int[] outPolygon, Executor executor) {
+        checkPoints(xy, count);
+        if (outPolygon.length < count) {
+            throw new IllegalArgumentException("outPolygon.length < count: " + outPolygon.length);
+        }
+        run(count, executor, (start, end) -> {
+            BitSet inPolys = new BitSet();
+            for (int i = start; i < end; i++) {
+                outPolygon[i] = testPoint(xy[2 * i], xy[2 * i + 1], inPolys) ? inPolys.nextSetBit(0) : -1;
+            }
+        });
+    }
+
+    private static void checkPoints(float[] xy, int count) {
+        if (count < 0 || 2L * count > xy.length) {
+            throw new IllegalArgumentException("count out of range: " + count);
+        }
     }
 
 }
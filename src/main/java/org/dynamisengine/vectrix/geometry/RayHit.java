@@ -0,0 +1,67 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.geometry;
+
+/**
+ * Closest-hit record filled by {@link TriangleBvh} and {@link InstanceBvh} ray queries.
+ * <p>
+ * {@link #u} and {@link #v} are the barycentric weights of the second and third triangle vertex, as in
+ * {@link Intersectionf#intersectRayTriangle(float, float, float, float, float, float, float, float, float, float, float, float, float, float, float, float)}.
+ */
+public final class RayHit {
+    /**
+     * Ray parameter of the hit, or the search limit while no hit has been found.
+     */
+    public float t;
+    public float u;
+    public float v;
+    /**
+     * Triangle index within its mesh, or {@code -1} if nothing was hit.
+     */
+    public int primitive;
+    /**
+     * Instance index for {@link InstanceBvh} queries, otherwise {@code -1}.
+     */
+    public int instance;
+
+    public RayHit() {
+        reset(Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Clear the hit and limit the search to {@code t < tMax}.
+     */
+    public RayHit reset(float tMax) {
+        t = tMax;
+        u = 0.0f;
+        v = 0.0f;
+        primitive = -1;
+        instance = -1;
+        return this;
+    }
+
+    public boolean hasHit() {
+        return primitive >= 0;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.geometry;
+
+import org.dynamisengine.vectrix.core.MathMode;
+import org.dynamisengine.vectrix.experimental.KernelConfig;
+import org.dynamisengine.vectrix.simd.SimdSupport;
+//#ifdef __HAS_VECTOR_API__
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+//#endif
+
+/**
+ * A packet of 4 or 8 rays in structure-of-arrays layout, tested against an axis-aligned box one lane per ray.
+ * <p>
+ * Box tests take and return lane bitmasks: bit {@code i} set means ray {@code i} takes part in the test, or
+ * hits the box within {@code [0, tMax(i)]}. Passing the result of one test as the active mask of the next gives
+ * the early-out masks used by packet traversal in {@link TriangleBvh#intersectPacket(RayPacket, RayHit[])}.
+ * Inverse directions are computed when a lane is set, so the box test is the same slab test as single-ray BVH
+ * traversal and both agree bit for bit.
+ */
+public final class RayPacket {
+    private static final String PROP_EXPERIMENTAL_RAY_PACKET_SIMD = "vectrix.raypacket.simd";
+    private static final boolean EXPERIMENTAL_RAY_PACKET_SIMD = KernelConfig.parseBoolean(System.getProperty(PROP_EXPERIMENTAL_RAY_PACKET_SIMD), false);
+    static final int MAX_WIDTH = 8;
+//#ifdef __HAS_VECTOR_API__
+    private static final VectorSpecies<Float> SPECIES_4 = FloatVector.SPECIES_128;
+    private static final VectorSpecies<Float> SPECIES_8 = FloatVector.SPECIES_256;
+//#endif
+
+    final float[] originX;
+    final float[] originY;
+    final float[] originZ;
+    final float[] dirX;
+    final float[] dirY;
+    final float[] dirZ;
+    final float[] invDirX;
+    final float[] invDirY;
+    final float[] invDirZ;
+    final float[] tMax;
+    private final int width;
+    private int size;
+
+    /**
+     * Create an empty packet of {@code width} lanes, which must be 4 or 8.
+     */
+    public RayPacket(int width) {
+        if (width != 4 && width != 8) {
+            throw new IllegalArgumentException("width must be 4 or 8: " + width);
+        }
+        this.width = width;
+        this.originX = new float[width];
+        this.originY = new float[width];
+        this.originZ = new float[width];
+        this.dirX = new float[width];
+        this.dirY = new float[width];
+        this.dirZ = new float[width];
+        this.invDirX = new float[width];
+        this.invDirY = new float[width];
+        this.invDirZ = new float[width];
+        this.tMax = new float[width];
+    }
+
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Number of lanes in use; lanes {@code [0, size)} form {@link #activeMask()}.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Bitmask of the lanes in use.
+     */
+    public int activeMask() {
+        return (1 << size) - 1;
+    }
+
+    public RayPacket clear() {
+        size = 0;
+        return this;
+    }
+
+    /**
+     * Append a ray searching {@code [0, tMax)}.
+     *
+     * @return the lane of the new ray
+     */
+    public int add(float originX, float originY, float originZ, float dirX, float dirY, float dirZ, float tMax) {
+        if (size == width) {
+            throw new IllegalArgumentException("packet is full: " + width);
+        }
+        int lane = size++;
+        set(lane, originX, originY, originZ, dirX, dirY, dirZ, tMax);
+        return lane;
+    }
+
+    /**
+     * Replace the ray in lane {@code lane}, which must be below {@link #size()}.
+     */
+    public RayPacket set(int lane, float originX, float originY, float originZ, float dirX, float dirY, float dirZ, float tMax) {
+        if (lane < 0 || lane >= size) {
+            throw new IllegalArgumentException("lane out of range: " + lane);
+        }
+        this.originX[lane] = originX;
+        this.originY[lane] = originY;
+        this.originZ[lane] = originZ;
+        this.dirX[lane] = dirX;
+        this.dirY[lane] = dirY;
+        this.dirZ[lane] = dirZ;
+        this.invDirX[lane] = AabbBvh.safeInverse(dirX);
+        this.invDirY[lane] = AabbBvh.safeInverse(dirY);
+        this.invDirZ[lane] = AabbBvh.safeInverse(dirZ);
+        this.tMax[lane] = tMax;
+        return this;
+    }
+
+    public float tMax(int lane) {
+        return tMax[lane];
+    }
+
+    public RayPacket tMax(int lane, float tMax) {
+        this.tMax[lane] = tMax;
+        return this;
+    }
+
+    /**
+     * Whether all rays in use share one direction octant, the condition for traversing them together.
+     */
+    public boolean isCoherent() {
+        if (size == 0) {
+            return true;
+        }
+        boolean negX = invDirX[0] < 0.0f, negY = invDirY[0] < 0.0f, negZ = invDirZ[0] < 0.0f;
+        for (int i = 1; i < size; i++) {
+            if ((invDirX[i] < 0.0f) != negX || (invDirY[i] < 0.0f) != negY || (invDirZ[i] < 0.0f) != negZ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Test the rays selected by {@code activeMask} against a box.
+     *
+     * @return the subset of {@code activeMask} whose rays hit the box within {@code [0, tMax]}
+     */
+    public int testAab(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int activeMask) {
+        if (activeMask == 0) {
+            return 0;
+        }
+        if (KernelConfig.mathMode() == MathMode.STRICT || !KernelConfig.simdEnabled()
+                || SimdSupport.backend() != SimdSupport.Backend.VECTOR_API
+                || !EXPERIMENTAL_RAY_PACKET_SIMD) {
+            return testAabScalar(minX, minY, minZ, maxX, maxY, maxZ, activeMask);
+        }
+        return testAabSimd(minX, minY, minZ, maxX, maxY, maxZ, activeMask);
+    }
+
+    /**
+     * Force scalar implementation regardless of runtime backend.
+     */
+    public int testAabScalar(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int activeMask) {
+        int hits = 0;
+        for (int m = activeMask; m != 0; m &= m - 1) {
+            int i = Integer.numberOfTrailingZeros(m);
+            float tx0 = (minX - originX[i]) * invDirX[i];
+            float tx1 = (maxX - originX[i]) * invDirX[i];
+            float ty0 = (minY - originY[i]) * invDirY[i];
+            float ty1 = (maxY - originY[i]) * invDirY[i];
+            float tz0 = (minZ - originZ[i]) * invDirZ[i];
+            float tz1 = (maxZ - originZ[i]) * invDirZ[i];
+            float tNear = java.lang.Math.max(java.lang.Math.max(java.lang.Math.min(tx0, tx1), java.lang.Math.min(ty0, ty1)),
+                    java.lang.Math.max(java.lang.Math.min(tz0, tz1), 0.0f));
+            float tFar = java.lang.Math.min(java.lang.Math.min(java.lang.Math.max(tx0, tx1), java.lang.Math.max(ty0, ty1)),
+                    java.lang.Math.min(java.lang.Math.max(tz0, tz1), tMax[i]));
+            if (tNear <= tFar) {
+                hits |= 1 << i;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Force the Vector API implementation, one packet per 128-bit or 256-bit vector; falls back to
+     * {@link #testAabScalar} when the Vector API is unavailable or the shape is not supported by the hardware.
+     */
+    public int testAabSimd(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int activeMask) {
+//#ifdef __HAS_VECTOR_API__
+        VectorSpecies<Float> species = width == 4 ? SPECIES_4 : SPECIES_8;
+        if (species.vectorBitSize() > FloatVector.SPECIES_PREFERRED.vectorBitSize()) {
+            return testAabScalar(minX, minY, minZ, maxX, maxY, maxZ, activeMask);
+        }
+        FloatVector ox = FloatVector.fromArray(species, originX, 0);
+        FloatVector oy = FloatVector.fromArray(species, originY, 0);
+        FloatVector oz = FloatVector.fromArray(species, originZ, 0);
+        FloatVector ix = FloatVector.fromArray(species, invDirX, 0);
+        FloatVector iy = FloatVector.fromArray(species, invDirY, 0);
+        FloatVector iz = FloatVector.fromArray(species, invDirZ, 0);
+        FloatVector tx0 = FloatVector.broadcast(species, minX).sub(ox).mul(ix);
+        FloatVector tx1 = FloatVector.broadcast(species, maxX).sub(ox).mul(ix);
+        FloatVector ty0 = FloatVector.broadcast(species, minY).sub(oy).mul(iy);
+        FloatVector ty1 = FloatVector.broadcast(species, maxY).sub(oy).mul(iy);
+        FloatVector tz0 = FloatVector.broadcast(species, minZ).sub(oz).mul(iz);
+        FloatVector tz1 = FloatVector.broadcast(species, maxZ).sub(oz).mul(iz);
+        FloatVector tNear = tx0.min(tx1).max(ty0.min(ty1)).max(tz0.min(tz1).max(0.0f));
+        FloatVector tFar = tx0.max(tx1).min(ty0.max(ty1)).min(tz0.max(tz1).min(FloatVector.fromArray(species, tMax, 0)));
+        return (int) tNear.compare(VectorOperators.LE, tFar).toLong() & activeMask;
+//#else
+        return testAabScalar(minX, minY, minZ, maxX, maxY, maxZ, activeMask);
+//#endif
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.geometry;
+
+import org.dynamisengine.vectrix.core.MathMode;
+import org.dynamisengine.vectrix.experimental.KernelConfig;
+import org.dynamisengine.vectrix.simd.SimdSupport;
+import org.dynamisengine.vectrix.soa.TriangleSoA;
+//#ifdef __HAS_VECTOR_API__
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+//#endif
+
+/**
+ * Batch Möller–Trumbore ray/triangle kernels over {@link TriangleSoA}.
+ * <p>
+ * Each triangle test performs the same operations in the same order as
+ * {@link Intersectionf#intersectRayTriangle(float, float, float, float, float, float, float, float, float, float, float, float, float, float, float, float)},
+ * so hits agree bit for bit with per-triangle calls on the same vertices. Both kernels accept hits with
+ * {@code 0 <= t < tMax} and report them as {@link RayHit} records; when several triangles are hit at the same
+ * closest distance the lowest triangle index wins.
+ */
+public final class RayTriangleKernels {
+    private static final String PROP_EXPERIMENTAL_RAY_TRIANGLE_SIMD = "vectrix.raytriangle.simd";
+    private static final int SIMD_BATCH_THRESHOLD = 32;
+    private static final boolean EXPERIMENTAL_RAY_TRIANGLE_SIMD = KernelConfig.parseBoolean(System.getProperty(PROP_EXPERIMENTAL_RAY_TRIANGLE_SIMD), false);
+//#ifdef __HAS_VECTOR_API__
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INT_SPECIES = VectorSpecies.of(int.class, SPECIES.vectorShape());
+    private static final VectorSpecies<Float> PACKET_SPECIES_4 = FloatVector.SPECIES_128;
+    private static final VectorSpecies<Float> PACKET_SPECIES_8 = FloatVector.SPECIES_256;
+//#endif
+
+    private RayTriangleKernels() {
+    }
+
+    /**
+     * Find the closest of the first {@code count} triangles hit by {@code origin + t * dir} with
+     * {@code 0 <= t < hit.t}, one triangle per vector lane.
+     * <p>
+     * On a hit, {@code hit} receives the distance, the barycentrics and the triangle index as
+     * {@link RayHit#primitive}; otherwise it is left untouched.
+     *
+     * @return whether {@code hit} was updated
+     */
+    public static boolean intersectRayTriangles(float originX, float originY, float originZ, float dirX, float dirY, float dirZ,
+            TriangleSoA triangles, int count, float epsilon, RayHit hit) {
+        if (count <= 0) {
+            return false;
+        }
+        if (KernelConfig.mathMode() == MathMode.STRICT || !KernelConfig.simdEnabled()
+                || SimdSupport.backend() != SimdSupport.Backend.VECTOR_API
+                || count < SIMD_BATCH_THRESHOLD
+                || !EXPERIMENTAL_RAY_TRIANGLE_SIMD) {
+            return intersectRayTrianglesScalar(originX, originY, originZ, dirX, dirY, dirZ, triangles, count, epsilon, hit);
+        }
+        return intersectRayTrianglesSimd(originX, originY, originZ, dirX, dirY, dirZ, triangles, count, epsilon, hit);
+    }
+
+    /**
+     * Force scalar implementation regardless of runtime backend.
+     */
+    public static boolean intersectRayTrianglesScalar(float originX, float originY, float originZ, float dirX, float dirY, float dirZ,
+            TriangleSoA triangles, int count, float epsilon, RayHit hit) {
+        boolean found = false;
+        for (int i = 0; i < count; i++) {
+            found |= hitTriangle(triangles, i, originX, originY, originZ, dirX, dirY, dirZ, epsilon, hit.t, hit);
+        }
+        return found;
+    }
+
+    /**
+     * Force the Vector API implementation; falls back to {@link #intersectRayTrianglesScalar} when the Vector API
+     * is unavailable.
+     * <p>
+     * Every lane keeps its own closest hit over the triangles it visits, and the lanes are reduced to a single
+     * record once at the end, so the loop carries no cross-lane dependency.
+     */
+    public static boolean intersectRayTrianglesSimd(float originX, float originY, float originZ, float dirX, float dirY, float dirZ,
+            TriangleSoA triangles, int count, float epsilon, RayHit hit) {
+//#ifdef __HAS_VECTOR_API__
+        int lanes = SPECIES.length();
+        int upper = SPECIES.loopBound(count);
+        boolean found = false;
+        if (upper > 0) {
+            FloatVector ox = FloatVector.broadcast(SPECIES, originX);
+            FloatVector oy = FloatVector.broadcast(SPECIES, originY);
+            FloatVector oz = FloatVector.broadcast(SPECIES, originZ);
+            FloatVector dx = FloatVector.broadcast(SPECIES, dirX);
+            FloatVector dy = FloatVector.broadcast(SPECIES, dirY);
+            FloatVector dz = FloatVector.broadcast(SPECIES, dirZ);
+            FloatVector one = FloatVector.broadcast(SPECIES, 1.0f);
+            FloatVector bestT = FloatVector.broadcast(SPECIES, hit.t);
+            FloatVector bestU = FloatVector.zero(SPECIES);
+            FloatVector bestV = FloatVector.zero(SPECIES);
+            IntVector bestIndex = IntVector.broadcast(INT_SPECIES, -1);
+            IntVector laneIndex = IntVector.zero(INT_SPECIES).addIndex(1);
+            for (int i = 0; i < upper; i += lanes) {
+                FloatVector e1x = FloatVector.fromArray(SPECIES, triangles.edge1X, i);
+                FloatVector e1y = FloatVector.fromArray(SPECIES, triangles.edge1Y, i);
+                FloatVector e1z = FloatVector.fromArray(SPECIES, triangles.edge1Z, i);
+                FloatVector e2x = FloatVector.fromArray(SPECIES, triangles.edge2X, i);
+                FloatVector e2y = FloatVector.fromArray(SPECIES, triangles.edge2Y, i);
+                FloatVector e2z = FloatVector.fromArray(SPECIES, triangles.edge2Z, i);
+                FloatVector px = dy.mul(e2z).sub(dz.mul(e2y));
+                FloatVector py = dz.mul(e2x).sub(dx.mul(e2z));
+                FloatVector pz = dx.mul(e2y).sub(dy.mul(e2x));
+                FloatVector det = e1x.mul(px).add(e1y.mul(py)).add(e1z.mul(pz));
+                FloatVector tx = ox.sub(FloatVector.fromArray(SPECIES, triangles.v0X, i));
+                FloatVector ty = oy.sub(FloatVector.fromArray(SPECIES, triangles.v0Y, i));
+                FloatVector tz = oz.sub(FloatVector.fromArray(SPECIES, triangles.v0Z, i));
+                FloatVector invDet = one.div(det);
+                FloatVector u = tx.mul(px).add(ty.mul(py)).add(tz.mul(pz)).mul(invDet);
+                FloatVector qx = ty.mul(e1z).sub(tz.mul(e1y));
+                FloatVector qy = tz.mul(e1x).sub(tx.mul(e1z));
+                FloatVector qz = tx.mul(e1y).sub(ty.mul(e1x));
+                FloatVector v = dx.mul(qx).add(dy.mul(qy)).add(dz.mul(qz)).mul(invDet);
+                FloatVector t = e2x.mul(qx).add(e2y.mul(qy)).add(e2z.mul(qz)).mul(invDet);
+                VectorMask<Float> rejected = det.compare(VectorOperators.GT, -epsilon).and(det.compare(VectorOperators.LT, epsilon))
+                        .or(u.compare(VectorOperators.LT, 0.0f)).or(u.compare(VectorOperators.GT, 1.0f))
+                        .or(v.compare(VectorOperators.LT, 0.0f)).or(u.add(v).compare(VectorOperators.GT, 1.0f));
+                VectorMask<Float> closer = t.compare(VectorOperators.GE, 0.0f).and(t.compare(VectorOperators.LT, bestT)).andNot(rejected);
+                bestT = bestT.blend(t, closer);
+                bestU = bestU.blend(u, closer);
+                bestV = bestV.blend(v, closer);
+                bestIndex = bestIndex.blend(laneIndex.add(i), closer.cast(INT_SPECIES));
+            }
+            long hitLanes = bestIndex.compare(VectorOperators.GE, 0).toLong();
+            if (hitLanes != 0L) {
+                float closest = bestT.reduceLanes(VectorOperators.MIN);
+                long ties = bestT.compare(VectorOperators.EQ, closest).toLong() & hitLanes;
+                int bestLane = -1;
+                int primitive = Integer.MAX_VALUE;
+                for (long m = ties; m != 0L; m &= m - 1L) {
+                    int lane = Long.numberOfTrailingZeros(m);
+                    int index = bestIndex.lane(lane);
+                    if (index < primitive) {
+                        primitive = index;
+                        bestLane = lane;
+                    }
+                }
+                hit.t = closest;
+                hit.u = bestU.lane(bestLane);
+                hit.v = bestV.lane(bestLane);
+                hit.primitive = primitive;
+                hit.instance = -1;
+                found = true;
+            }
+        }
+        for (int i = upper; i < count; i++) {
+            found |= hitTriangle(triangles, i, originX, originY, originZ, dirX, dirY, dirZ, epsilon, hit.t, hit);
+        }
+        return found;
+//#else
+        return intersectRayTrianglesScalar(originX, originY, originZ, dirX, dirY, dirZ, triangles, count, epsilon, hit);
+//#endif
+    }
+
+    /**
+     * Test the rays of {@code packet} selected by {@code activeMask} against one triangle, one ray per lane.
+     * <p>
+     * As in {@link TriangleBvh#intersectPacket(RayPacket, RayHit[])}, a lane hits when {@code 0 <= t < tMax(i)};
+     * {@code hits[i]} then receives the hit and the lane's {@link RayPacket#tMax(int) tMax} shrinks to its
+     * distance, so calling this for each triangle of a leaf leaves every lane with its closest hit.
+     *
+     * @return the subset of {@code activeMask} whose hit record was updated
+     */
+    public static int intersectPacketTriangle(RayPacket packet, int activeMask, TriangleSoA triangles, int triangle,
+            float epsilon, RayHit[] hits) {
+        if (hits.length < packet.size()) {
+            throw new IllegalArgumentException("hits.length < packet.size(): " + hits.length);
+        }
+        activeMask &= packet.activeMask();
+        if (activeMask == 0) {
+            return 0;
+        }
+        if (KernelConfig.mathMode() == MathMode.STRICT || !KernelConfig.simdEnabled()
+                || SimdSupport.backend() != SimdSupport.Backend.VECTOR_API
+                || !EXPERIMENTAL_RAY_TRIANGLE_SIMD) {
+            return intersectPacketTriangleScalar(packet, activeMask, triangles, triangle, epsilon, hits);
+        }
+        return intersectPacketTriangleSimd(packet, activeMask, triangles, triangle, epsilon, hits);
+    }
+
+    /**
+     * Force scalar implementation regardless of runtime backend.
+     */
+    public static int intersectPacketTriangleScalar(RayPacket packet, int activeMask, TriangleSoA triangles, int triangle,
+            float epsilon, RayHit[] hits) {
+        int updated = 0;
+        for (int m = activeMask & packet.activeMask(); m != 0; m &= m - 1) {
+            int i = Integer.numberOfTrailingZeros(m);
+            if (hitTriangle(triangles, triangle, packet.originX[i], packet.originY[i], packet.originZ[i],
+                    packet.dirX[i], packet.dirY[i], packet.dirZ[i], epsilon, packet.tMax[i], hits[i])) {
+                packet.tMax[i] = hits[i].t;
+                updated |= 1 << i;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Force the Vector API implementation, one packet per 128-bit or 256-bit vector; falls back to
+     * {@link #intersectPacketTriangleScalar} when the Vector API is unavailable or the shape is not supported by
+     * the hardware.
+     */
+    public static int intersectPacketTriangleSimd(RayPacket packet, int activeMask, TriangleSoA triangles, int triangle,
+            float epsilon, RayHit[] hits) {
+//#ifdef __HAS_VECTOR_API__
+        VectorSpecies<Float> species = packet.width() == 4 ? PACKET_SPECIES_4 : PACKET_SPECIES_8;
+        if (species.vectorBitSize() > FloatVector.SPECIES_PREFERRED.vectorBitSize()) {
+            return intersectPacketTriangleScalar(packet, activeMask, triangles, triangle, epsilon, hits);
+        }
+        float e1x = triangles.edge1X[triangle], e1y = triangles.edge1Y[triangle], e1z = triangles.edge1Z[triangle];
+        float e2x = triangles.edge2X[triangle], e2y = triangles.edge2Y[triangle], e2z = triangles.edge2Z[triangle];
+        FloatVector dx = FloatVector.fromArray(species, packet.dirX, 0);
+        FloatVector dy = FloatVector.fromArray(species, packet.dirY, 0);
+        FloatVector dz = FloatVector.fromArray(species, packet.dirZ, 0);
+        FloatVector px = dy.mul(e2z).sub(dz.mul(e2y));
+        FloatVector py = dz.mul(e2x).sub(dx.mul(e2z));
+        FloatVector pz = dx.mul(e2y).sub(dy.mul(e2x));
+        FloatVector det = px.mul(e1x).add(py.mul(e1y)).add(pz.mul(e1z));
+        FloatVector tx = FloatVector.fromArray(species, packet.originX, 0).sub(triangles.v0X[triangle]);
+        FloatVector ty = FloatVector.fromArray(species, packet.originY, 0).sub(triangles.v0Y[triangle]);
+        FloatVector tz = FloatVector.fromArray(species, packet.originZ, 0).sub(triangles.v0Z[triangle]);
+        FloatVector invDet = FloatVector.broadcast(species, 1.0f).div(det);
+        FloatVector u = tx.mul(px).add(ty.mul(py)).add(tz.mul(pz)).mul(invDet);
+        FloatVector qx = ty.mul(e1z).sub(tz.mul(e1y));
+        FloatVector qy = tz.mul(e1x).sub(tx.mul(e1z));
+        FloatVector qz = tx.mul(e1y).sub(ty.mul(e1x));
+        FloatVector v = dx.mul(qx).add(dy.mul(qy)).add(dz.mul(qz)).mul(invDet);
+        FloatVector t = qx.mul(e2x).add(qy.mul(e2y)).add(qz.mul(e2z)).mul(invDet);
+        VectorMask<Float> rejected = det.compare(VectorOperators.GT, -epsilon).and(det.compare(VectorOperators.LT, epsilon))
+                .or(u.compare(VectorOperators.LT, 0.0f)).or(u.compare(VectorOperators.GT, 1.0f))
+                .or(v.compare(VectorOperators.LT, 0.0f)).or(u.add(v).compare(VectorOperators.GT, 1.0f));
+        VectorMask<Float> closer = t.compare(VectorOperators.GE, 0.0f)
+                .and(t.compare(VectorOperators.LT, FloatVector.fromArray(species, packet.tMax, 0))).andNot(rejected);
+        int updated = (int) closer.toLong() & activeMask & packet.activeMask();
+        for (int m = updated; m != 0; m &= m - 1) {
+            int i = Integer.numberOfTrailingZeros(m);
+            RayHit hit = hits[i];
+            hit.t = t.lane(i);
+            hit.u = u.lane(i);
+            hit.v = v.lane(i);
+            hit.primitive = triangle;
+            hit.instance = -1;
+            packet.tMax[i] = hit.t;
+        }
+        return updated;
+//#else
+        return intersectPacketTriangleScalar(packet, activeMask, triangles, triangle, epsilon, hits);
+//#endif
+    }
+
+    private static boolean hitTriangle(TriangleSoA triangles, int i, float originX, float originY, float originZ,
+            float dirX, float dirY, float dirZ, float epsilon, float tMax, RayHit hit) {
+        float edge1X = triangles.edge1X[i], edge1Y = triangles.edge1Y[i], edge1Z = triangles.edge1Z[i];
+        float edge2X = triangles.edge2X[i], edge2Y = triangles.edge2Y[i], edge2Z = triangles.edge2Z[i];
+        float pvecX = dirY * edge2Z - dirZ * edge2Y;
+        float pvecY = dirZ * edge2X - dirX * edge2Z;
+        float pvecZ = dirX * edge2Y - dirY * edge2X;
+        float det = edge1X * pvecX + edge1Y * pvecY + edge1Z * pvecZ;
+        if (det > -epsilon && det < epsilon) {
+            return false;
+        }
+        float tvecX = originX - triangles.v0X[i];
+        float tvecY = originY - triangles.v0Y[i];
+        float tvecZ = originZ - triangles.v0Z[i];
+        float invDet = 1.0f / det;
+        float u = (tvecX * pvecX + tvecY * pvecY + tvecZ * pvecZ) * invDet;
+        if (u < 0.0f || u > 1.0f) {
+            return false;
+        }
+        float qvecX = tvecY * edge1Z - tvecZ * edge1Y;
+        float qvecY = tvecZ * edge1X - tvecX * edge1Z;
+        float qvecZ = tvecX * edge1Y - tvecY * edge1X;
+        float v = (dirX * qvecX + dirY * qvecY + dirZ * qvecZ) * invDet;
+        if (v < 0.0f || u + v > 1.0f) {
+            return false;
+        }
+        float t = (edge2X * qvecX + edge2Y * qvecY + edge2Z * qvecZ) * invDet;
+        if (!(t >= 0.0f && t < tMax)) {
+            return false;
+        }
+        hit.t = t;
+        hit.u = u;
+        hit.v = v;
+        hit.primitive = i;
+        hit.instance = -1;
+        return true;
+    }
+}
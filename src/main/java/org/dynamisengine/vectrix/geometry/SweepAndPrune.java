@@ -0,0 +1,535 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.geometry;
+
+import java.util.concurrent.Executor;
+
+import org.dynamisengine.vectrix.affine.BatchChunks;
+import org.dynamisengine.vectrix.hash.PcgHash;
+import org.dynamisengine.vectrix.soa.AABBSoA;
+
+/**
+ * Incremental sweep-and-prune broad phase over the boxes of an {@link AABBSoA}.
+ * <p>
+ * The box endpoints are kept sorted on all three axes between updates. Because objects move only a little from
+ * one frame to the next, {@link #update(AABBSoA, int, Executor)} restores the order with an insertion sort
+ * that costs little more than one pass. Whenever the minimum of one box moves past the maximum of another,
+ * the pair may have started or stopped overlapping. Only those pairs are re-examined, and a pair counts as
+ * overlapping exactly when {@link Intersectionf#testAabAab(float, float, float, float, float, float, float, float, float, float, float, float)}
+ * holds.
+ * <p>
+ * Each update reports the pairs that started and stopped overlapping through {@link #addedPairs()} and
+ * {@link #removedPairs()}, two object indices per pair with the smaller index first. The three axes are sorted
+ * independently, so an {@link Executor} can sort them in parallel; the reported pairs and their order do not
+ * depend on whether one is used. Teleports or bulk edits that scramble the order are better served by
+ * {@link #rebuild(AABBSoA, int, Executor)}, which sorts from scratch and still reports the difference.
+ * <p>
+ * Boxes are expected to have {@code min <= max} on every axis. An instance keeps its endpoint, pair and event
+ * buffers between updates and should not be shared across threads.
+ */
+public final class SweepAndPrune {
+    private static final int AXES = 3;
+    private static final int REMOVE_EVENT = 0x80000000;
+    private static final byte PAIR_NOW = 1;
+    private static final byte PAIR_BEFORE = 2;
+    private static final byte PAIR_TOUCHED = 4;
+    private static final long EMPTY_KEY = -1L;
+
+    private AABBSoA bounds;
+    private int count = -1;
+    private final float[][] endpointValues = new float[AXES][0];
+    private final int[][] endpointTags = new int[AXES][0];
+    private final long[][] sortKeys = new long[AXES][0];
+    private final int[][] events = new int[AXES][16];
+    private final int[] eventCounts = new int[AXES];
+
+    private long[] pairKeys = newKeyTable(64);
+    private byte[] pairFlags = new byte[64];
+    private int pairSlotsUsed;
+    private int pairCount;
+    private long[] touched = new long[64];
+    private int touchedCount;
+    private int[] active = new int[16];
+    private float[] activeMinU = new float[16];
+    private float[] activeMaxU = new float[16];
+    private float[] activeMinV = new float[16];
+    private float[] activeMaxV = new float[16];
+    private final float[] sweepCost = new float[AXES];
+    private int[] activeSlot = new int[0];
+
+    private int[] added = new int[32];
+    private int addedCount;
+    private int[] removed = new int[32];
+    private int removedCount;
+
+    /**
+     * Update on the calling thread.
+     */
+    public SweepAndPrune update(AABBSoA bounds, int count) {
+        return update(bounds, count, null);
+    }
+
+    /**
+     * Bring the overlap pairs up to date with the first {@code count} boxes of {@code bounds}.
+     * <p>
+     * The sorted order from the previous update is reused when {@code bounds} and {@code count} are unchanged,
+     * otherwise this behaves like {@link #rebuild(AABBSoA, int, Executor)}.
+     *
+     * @param executor
+     *          sorts the three axes in parallel, or {@code null} for the calling thread
+     */
+    public SweepAndPrune update(AABBSoA bounds, int count, Executor executor) {
+        if (bounds != this.bounds || count != this.count) {
+            return rebuild(bounds, count, executor);
+        }
+        beginUpdate();
+        runAxes(executor, false);
+        for (int axis = 0; axis < AXES; axis++) {
+            int[] e = events[axis];
+            for (int k = 0, n = eventCounts[axis]; k < n; k += 2) {
+                int a = e[k] & ~REMOVE_EVENT;
+                int b = e[k + 1];
+                if (e[k] < 0) {
+                    setPair(a, b, false);
+                } else if (overlaps(a, b)) {
+                    setPair(a, b, true);
+                }
+            }
+        }
+        endUpdate();
+        return this;
+    }
+
+    /**
+     * Sort the endpoints of the first {@code count} boxes of {@code bounds} from scratch and recompute every
+     * overlap pair with a single sweep. Pairs are still reported relative to the previous update.
+     *
+     * @param executor
+     *          sorts the three axes in parallel, or {@code null} for the calling thread
+     */
+    public SweepAndPrune rebuild(AABBSoA bounds, int count, Executor executor) {
+        if (count < 0 || count > bounds.size()) {
+            throw new IllegalArgumentException("count out of range: " + count);
+        }
+        if (count > 1 << 30) {
+            throw new IllegalArgumentException("count too large: " + count);
+        }
+        this.bounds = bounds;
+        this.count = count;
+        int endpoints = count * 2;
+        for (int axis = 0; axis < AXES; axis++) {
+            if (endpointValues[axis].length < endpoints) {
+                endpointValues[axis] = new float[endpoints];
+                endpointTags[axis] = new int[endpoints];
+            }
+        }
+        if (activeSlot.length < count) {
+            activeSlot = new int[count];
+        }
+        java.util.Arrays.fill(activeSlot, 0, count, -1);
+        beginUpdate();
+        for (int slot = 0; slot < pairKeys.length; slot++) {
+            if (pairKeys[slot] != EMPTY_KEY) {
+                long key = pairKeys[slot];
+                setPair((int) (key >>> 32), (int) key, false);
+            }
+        }
+        runAxes(executor, true);
+        int sweep = 0;
+        for (int axis = 1; axis < AXES; axis++) {
+            if (sweepCost[axis] < sweepCost[sweep]) {
+                sweep = axis;
+            }
+        }
+        sweepAxis(sweep);
+        endUpdate();
+        return this;
+    }
+
+    /**
+     * Number of overlapping pairs after the last update.
+     */
+    public int pairCount() {
+        return pairCount;
+    }
+
+    /**
+     * Whether boxes {@code a} and {@code b} overlapped at the last update.
+     */
+    public boolean containsPair(int a, int b) {
+        int slot = findSlot(pairKey(a, b));
+        return slot >= 0 && (pairFlags[slot] & PAIR_NOW) != 0;
+    }
+
+    /**
+     * Copy every overlapping pair into {@code out}, two object indices per pair with the smaller index first.
+     *
+     * @return the number of pairs written
+     */
+    public int copyPairs(int[] out) {
+        if (out.length < pairCount * 2) {
+            throw new IllegalArgumentException("out.length < 2 * pairCount(): " + out.length);
+        }
+        int n = 0;
+        for (int slot = 0; slot < pairKeys.length; slot++) {
+            long key = pairKeys[slot];
+            if (key != EMPTY_KEY) {
+                out[n++] = (int) (key >>> 32);
+                out[n++] = (int) key;
+            }
+        }
+        return n / 2;
+    }
+
+    /**
+     * Pairs that started overlapping in the last update, as {@code 2 * addedPairCount()} object indices. The
+     * array is reused by the next update.
+     */
+    public int[] addedPairs() {
+        return added;
+    }
+
+    public int addedPairCount() {
+        return addedCount / 2;
+    }
+
+    /**
+     * Pairs that stopped overlapping in the last update, including pairs whose objects were dropped by a smaller
+     * {@code count}, as {@code 2 * removedPairCount()} object indices. The array is reused by the next update.
+     */
+    public int[] removedPairs() {
+        return removed;
+    }
+
+    public int removedPairCount() {
+        return removedCount / 2;
+    }
+
+    private void runAxes(Executor executor, boolean rebuild) {
+        if (executor == null || count < BatchChunks.MIN_PARALLEL_GRAIN) {
+            for (int axis = 0; axis < AXES; axis++) {
+                sortAxis(axis, rebuild);
+            }
+            return;
+        }
+        // One minimum-size chunk per axis.
+        int grain = BatchChunks.MIN_PARALLEL_GRAIN;
+        BatchChunks.forEachChunkParallel(AXES * grain, grain, executor, (start, end) -> sortAxis(start / grain, rebuild));
+    }
+
+    private void sortAxis(int axis, boolean rebuild) {
+        float[] min = axisMin(axis);
+        float[] max = axisMax(axis);
+        float[] values = endpointValues[axis];
+        int[] tags = endpointTags[axis];
+        int n = count * 2;
+        if (rebuild) {
+            long[] keys = sortKeys[axis];
+            if (keys.length < n) {
+                keys = sortKeys[axis] = new long[n];
+            }
+            float lowest = Float.POSITIVE_INFINITY, highest = Float.NEGATIVE_INFINITY;
+            double extent = 0.0;
+            for (int i = 0; i < count; i++) {
+                lowest = java.lang.Math.min(lowest, min[i]);
+                highest = java.lang.Math.max(highest, max[i]);
+                extent += max[i] - min[i];
+                keys[2 * i] = ((long) sortableBits(min[i] + 0.0f) << 32) | i;
+                keys[2 * i + 1] = ((long) sortableBits(max[i] + 0.0f) << 32) | 0x80000000L | i;
+            }
+            // The sweep keeps about count * mean extent / range boxes open on an axis; the rebuild sweeps the
+            // axis where that is smallest.
+            sweepCost[axis] = highest > lowest ? (float) (extent / (highest - lowest)) : Float.POSITIVE_INFINITY;
+            // Minimum endpoints sort before maximum endpoints at equal values, so touching boxes overlap.
+            java.util.Arrays.sort(keys, 0, n);
+            for (int j = 0; j < n; j++) {
+                int low = (int) keys[j];
+                int object = low & 0x7FFFFFFF;
+                int tag = object << 1 | low >>> 31;
+                tags[j] = tag;
+                values[j] = ((tag & 1) == 0 ? min[object] : max[object]) + 0.0f;
+            }
+            eventCounts[axis] = 0;
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            int tag = tags[j];
+            values[j] = ((tag & 1) == 0 ? min[tag >>> 1] : max[tag >>> 1]) + 0.0f;
+        }
+        int[] e = events[axis];
+        int eventCount = 0;
+        for (int j = 1; j < n; j++) {
+            float value = values[j];
+            int tag = tags[j];
+            int k = j - 1;
+            while (k >= 0 && before(value, tag, values[k], tags[k])) {
+                int other = tags[k];
+                if (((tag ^ other) & 1) != 0 && (tag >>> 1) != (other >>> 1)) {
+                    if (eventCount + 2 > e.length) {
+                        e = events[axis] = java.util.Arrays.copyOf(e, e.length * 2);
+                    }
+                    // A minimum passing a maximum may start an overlap; a maximum passing a minimum ends one.
+                    int a = java.lang.Math.min(tag >>> 1, other >>> 1);
+                    int b = java.lang.Math.max(tag >>> 1, other >>> 1);
+                    e[eventCount++] = (tag & 1) == 0 ? a : a | REMOVE_EVENT;
+                    e[eventCount++] = b;
+                }
+                values[k + 1] = values[k];
+                tags[k + 1] = other;
+                k--;
+            }
+            values[k + 1] = value;
+            tags[k + 1] = tag;
+        }
+        eventCounts[axis] = eventCount;
+    }
+
+    /**
+     * Emit every overlapping pair by sweeping the sorted endpoints of {@code axis} with a list of open boxes.
+     * The sort order already guarantees overlap on the sweep axis, so only the other two axes of the open boxes
+     * are tested, from dense arrays parallel to the list.
+     */
+    private void sweepAxis(int axis) {
+        float[] minU = axisMin((axis + 1) % AXES), maxU = axisMax((axis + 1) % AXES);
+        float[] minV = axisMin((axis + 2) % AXES), maxV = axisMax((axis + 2) % AXES);
+        int[] tags = endpointTags[axis];
+        int open = 0;
+        for (int j = 0, n = count * 2; j < n; j++) {
+            int tag = tags[j];
+            int object = tag >>> 1;
+            if ((tag & 1) != 0) {
+                int slot = activeSlot[object];
+                if (slot >= 0) {
+                    int last = active[--open];
+                    active[slot] = last;
+                    activeMinU[slot] = activeMinU[open];
+                    activeMaxU[slot] = activeMaxU[open];
+                    activeMinV[slot] = activeMinV[open];
+                    activeMaxV[slot] = activeMaxV[open];
+                    activeSlot[last] = slot;
+                    activeSlot[object] = -1;
+                }
+                continue;
+            }
+            float u0 = minU[object], u1 = maxU[object], v0 = minV[object], v1 = maxV[object];
+            for (int k = 0; k < open; k++) {
+                if (u1 >= activeMinU[k] && u0 <= activeMaxU[k] && v1 >= activeMinV[k] && v0 <= activeMaxV[k]) {
+                    int other = active[k];
+                    setPair(java.lang.Math.min(object, other), java.lang.Math.max(object, other), true);
+                }
+            }
+            if (open == active.length) {
+                growActive(open * 2);
+            }
+            activeSlot[object] = open;
+            active[open] = object;
+            activeMinU[open] = u0;
+            activeMaxU[open] = u1;
+            activeMinV[open] = v0;
+            activeMaxV[open] = v1;
+            open++;
+        }
+    }
+
+    private void growActive(int capacity) {
+        active = java.util.Arrays.copyOf(active, capacity);
+        activeMinU = java.util.Arrays.copyOf(activeMinU, capacity);
+        activeMaxU = java.util.Arrays.copyOf(activeMaxU, capacity);
+        activeMinV = java.util.Arrays.copyOf(activeMinV, capacity);
+        activeMaxV = java.util.Arrays.copyOf(activeMaxV, capacity);
+    }
+
+    private static boolean before(float value, int tag, float otherValue, int otherTag) {
+        return value < otherValue || value == otherValue && (tag & 1) == 0 && (otherTag & 1) != 0;
+    }
+
+    private static int sortableBits(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+
+    private boolean overlaps(int a, int b) {
+        AABBSoA box = bounds;
+        return Intersectionf.testAabAab(box.minX[a], box.minY[a], box.minZ[a], box.maxX[a], box.maxY[a], box.maxZ[a],
+                box.minX[b], box.minY[b], box.minZ[b], box.maxX[b], box.maxY[b], box.maxZ[b]);
+    }
+
+    private float[] axisMin(int axis) {
+        return axis == 0 ? bounds.minX : axis == 1 ? bounds.minY : bounds.minZ;
+    }
+
+    private float[] axisMax(int axis) {
+        return axis == 0 ? bounds.maxX : axis == 1 ? bounds.maxY : bounds.maxZ;
+    }
+
+    private void beginUpdate() {
+        touchedCount = 0;
+        addedCount = 0;
+        removedCount = 0;
+    }
+
+    /**
+     * Record the overlap state of pair {@code a < b} for this update. The state before the update is kept
+     * alongside, so a pair that is added and removed again within one update is never reported.
+     */
+    private void setPair(int a, int b, boolean overlapping) {
+        long key = pairKey(a, b);
+        int slot = findSlot(key);
+        if (slot < 0) {
+            if (!overlapping) {
+                return;
+            }
+            slot = insertSlot(key);
+        }
+        byte flags = pairFlags[slot];
+        if ((flags & PAIR_TOUCHED) == 0) {
+            flags = (byte) (PAIR_TOUCHED | ((flags & PAIR_NOW) != 0 ? PAIR_BEFORE : 0));
+            if (touchedCount == touched.length) {
+                touched = java.util.Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = key;
+        }
+        pairFlags[slot] = (byte) (overlapping ? flags | PAIR_NOW : flags & ~PAIR_NOW);
+    }
+
+    private void endUpdate() {
+        for (int t = 0; t < touchedCount; t++) {
+            long key = touched[t];
+            int slot = findSlot(key);
+            byte flags = pairFlags[slot];
+            boolean now = (flags & PAIR_NOW) != 0;
+            if (now == ((flags & PAIR_BEFORE) != 0)) {
+                // Unchanged across the update.
+            } else if (now) {
+                added = appendPair(added, addedCount, key);
+                addedCount += 2;
+                pairCount++;
+            } else {
+                removed = appendPair(removed, removedCount, key);
+                removedCount += 2;
+                pairCount--;
+            }
+            if (now) {
+                pairFlags[slot] = PAIR_NOW;
+            } else {
+                deleteSlot(slot);
+            }
+        }
+    }
+
+    private static int[] appendPair(int[] pairs, int size, long key) {
+        if (size + 2 > pairs.length) {
+            pairs = java.util.Arrays.copyOf(pairs, pairs.length * 2);
+        }
+        pairs[size] = (int) (key >>> 32);
+        pairs[size + 1] = (int) key;
+        return pairs;
+    }
+
+    private static long pairKey(int a, int b) {
+        return (long) java.lang.Math.min(a, b) << 32 | java.lang.Math.max(a, b);
+    }
+
+    private static long[] newKeyTable(int capacity) {
+        long[] keys = new long[capacity];
+        java.util.Arrays.fill(keys, EMPTY_KEY);
+        return keys;
+    }
+
+    private int home(long key, int mask) {
+        return PcgHash.hash32((int) (key >>> 32) * 0x9E3779B1 ^ (int) key) & mask;
+    }
+
+    private int findSlot(long key) {
+        long[] keys = pairKeys;
+        int mask = keys.length - 1;
+        for (int slot = home(key, mask); ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) {
+                return slot;
+            }
+            if (k == EMPTY_KEY) {
+                return -1;
+            }
+        }
+    }
+
+    private int insertSlot(long key) {
+        if ((pairSlotsUsed + 1) * 2 > pairKeys.length) {
+            resizeTable(pairKeys.length * 2);
+        }
+        long[] keys = pairKeys;
+        int mask = keys.length - 1;
+        int slot = home(key, mask);
+        while (keys[slot] != EMPTY_KEY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        pairFlags[slot] = 0;
+        pairSlotsUsed++;
+        return slot;
+    }
+
+    /**
+     * Linear-probing deletion: shift later entries of the probe run back so lookups never need tombstones.
+     */
+    private void deleteSlot(int slot) {
+        long[] keys = pairKeys;
+        byte[] flags = pairFlags;
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != EMPTY_KEY; next = (next + 1) & mask) {
+            int h = home(keys[next], mask);
+            if (((next - h) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                flags[hole] = flags[next];
+                hole = next;
+            }
+        }
+        keys[hole] = EMPTY_KEY;
+        flags[hole] = 0;
+        pairSlotsUsed--;
+    }
+
+    private void resizeTable(int capacity) {
+        long[] oldKeys = pairKeys;
+        byte[] oldFlags = pairFlags;
+        long[] keys = newKeyTable(capacity);
+        byte[] flags = new byte[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY_KEY) {
+                int slot = home(key, mask);
+                while (keys[slot] != EMPTY_KEY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                flags[slot] = oldFlags[i];
+            }
+        }
+        pairKeys = keys;
+        pairFlags = flags;
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.geometry;
+
+import org.dynamisengine.vectrix.soa.AABBSoA;
+
+/**
+ * Bottom-level ray tracing structure: an {@link AabbBvh} over the triangles of one indexed mesh.
+ * <p>
+ * Vertices are read from an interleaved {@code xyz} position array and triangles from a triangle-list index
+ * array; both are referenced, not copied. Ray-triangle tests use the watertight formulation of Woop, Benthin
+ * and Wald (shear into ray space, edge functions with a double precision fallback on exact zeros), so rays
+ * through shared edges and vertices never slip between neighbouring triangles. Like
+ * {@link Intersectionf#intersectRayTriangle(float, float, float, float, float, float, float, float, float, float, float, float, float, float, float, float)}
+ * the test is two-sided.
+ *
+ * @see InstanceBvh
+ */
+public final class TriangleBvh {
+    private final float[] positions;
+    private final int[] indices;
+    private final int triangleCount;
+    private final AABBSoA triangleBounds;
+    private final AabbBvh bvh = new AabbBvh();
+
+    /**
+     * Build over the first {@code triangleCount} triangles of {@code indices} using binned SAH splits.
+     */
+    public TriangleBvh(float[] positions, int[] indices, int triangleCount) {
+        if (triangleCount < 0 || triangleCount * 3 > indices.length) {
+            throw new IllegalArgumentException("triangleCount out of range: " + triangleCount);
+        }
+        this.positions = positions;
+        this.indices = indices;
+        this.triangleCount = triangleCount;
+        this.triangleBounds = new AABBSoA(triangleCount);
+        fitTriangles();
+        bvh.build(triangleBounds, triangleCount);
+    }
+
+    public float[] positions() {
+        return positions;
+    }
+
+    public int[] indices() {
+        return indices;
+    }
+
+    public int triangleCount() {
+        return triangleCount;
+    }
+
+    public AabbBvh bvh() {
+        return bvh;
+    }
+
+    /**
+     * Refit node bounds after the vertex positions changed in place, keeping the tree topology.
+     */
+    public void refit() {
+        fitTriangles();
+        bvh.refit();
+    }
+
+    /**
+     * Find the closest triangle hit by {@code origin + t * dir} with {@code 0 <= t < hit.t}.
+     *
+     * @return {@code true} if {@code hit} was updated
+     */
+    public boolean intersectRay(float originX, float originY, float originZ, float dirX, float dirY, float dirZ, RayHit hit) {
+        return intersectRay(originX, originY, originZ, dirX, dirY, dirZ, hit, hit.t, -1, false, 0,
+                AabbBvh.SCRATCH.get());
+    }
+
+    /**
+     * Test whether any triangle is hit by {@code origin + t * dir} with {@code 0 <= t < tMax}.
+     */
+    public boolean testRay(float originX, float originY, float originZ, float dirX, float dirY, float dirZ, float tMax) {
+        AabbBvh.TraversalScratch scratch = AabbBvh.SCRATCH.get();
+        return intersectRay(originX, originY, originZ, dirX, dirY, dirZ, scratch.probe, tMax, -1, true, 0, scratch);
+    }
+
+    /**
+     * Find the closest hit with {@code 0 <= t < tMax} for each ray of {@code packet}, traversing the tree once
+     * for all rays.
+     * <p>
+     * The rays share node tests through {@link RayPacket#testAab}, with the lane mask narrowing as rays miss
+     * nodes. A packet whose rays point into different octants is traced one ray at a time, and once a single
+     * ray is left in a subtree it continues with single-ray traversal. When lane {@code i} hits,
+     * {@code hits[i]} receives the hit and the lane's {@link RayPacket#tMax(int) tMax} shrinks to its
+     * distance; lanes without a hit leave their record untouched.
+     *
+     * @return the bitmask of lanes whose hit record was updated
+     */
+    public int intersectPacket(RayPacket packet, RayHit[] hits) {
+        if (hits.length < packet.size()) {
+            throw new IllegalArgumentException("hits.length < packet.size(): " + hits.length);
+        }
+        AabbBvh tree = bvh;
+        int active = packet.activeMask();
+        if (tree.nodeCount == 0 || active == 0) {
+            return 0;
+        }
+        AabbBvh.TraversalScratch scratch = AabbBvh.SCRATCH.get();
+        if (!packet.isCoherent()) {
+            int found = 0;
+            for (int i = 0; i < packet.size(); i++) {
+                if (intersectLane(packet, i, hits[i], 0, scratch)) {
+                    found |= 1 << i;
+                }
+            }
+            return found;
+        }
+        int size = packet.size();
+        int[] kx = scratch.kx, ky = scratch.ky, kz = scratch.kz;
+        float[] shearX = scratch.shearX, shearY = scratch.shearY, shearZ = scratch.shearZ;
+        float[] okx = scratch.okx, oky = scratch.oky, okz = scratch.okz;
+        for (int i = 0; i < size; i++) {
+            float dx = packet.dirX[i], dy = packet.dirY[i], dz = packet.dirZ[i];
+            int axes = shearAxes(dx, dy, dz);
+            kx[i] = axes & 3;
+            ky[i] = (axes >>> 2) & 3;
+            kz[i] = axes >>> 4;
+            float dkz = component(dx, dy, dz, kz[i]);
+            shearX[i] = component(dx, dy, dz, kx[i]) / dkz;
+            shearY[i] = component(dx, dy, dz, ky[i]) / dkz;
+            shearZ[i] = 1.0f / dkz;
+            okx[i] = component(packet.originX[i], packet.originY[i], packet.originZ[i], kx[i]);
+            oky[i] = component(packet.originX[i], packet.originY[i], packet.originZ[i], ky[i]);
+            okz[i] = component(packet.originX[i], packet.originY[i], packet.originZ[i], kz[i]);
+        }
+        // All rays share an octant, so the first ray's direction orders children front to back for every lane.
+        float leadX = packet.dirX[0], leadY = packet.dirY[0], leadZ = packet.dirZ[0];
+
+        int found = 0;
+        scratch.ensurePacketStack(tree.depth + 1);
+        int[] stack = scratch.packetNodes;
+        int[] masks = scratch.packetMasks;
+        int top = 0;
+        stack[top] = 0;
+        masks[top++] = active;
+        while (top > 0) {
+            int node = stack[--top];
+            int mask = packet.testAab(tree.nodeMinX[node], tree.nodeMinY[node], tree.nodeMinZ[node],
+                    tree.nodeMaxX[node], tree.nodeMaxY[node], tree.nodeMaxZ[node], masks[top]);
+            if (mask == 0) {
+                continue;
+            }
+            if ((mask & (mask - 1)) == 0) {
+                int lane = Integer.numberOfTrailingZeros(mask);
+                if (intersectLane(packet, lane, hits[lane], node, scratch)) {
+                    found |= mask;
+                }
+                continue;
+            }
+            int n = tree.nodePrimitiveCount[node];
+            if (n == 0) {
+                int near = tree.nodeLeftFirst[node];
+                int far = near + 1;
+                float centerDelta = (tree.nodeMinX[far] + tree.nodeMaxX[far] - tree.nodeMinX[near] - tree.nodeMaxX[near]) * leadX
+                        + (tree.nodeMinY[far] + tree.nodeMaxY[far] - tree.nodeMinY[near] - tree.nodeMaxY[near]) * leadY
+                        + (tree.nodeMinZ[far] + tree.nodeMaxZ[far] - tree.nodeMinZ[near] - tree.nodeMaxZ[near]) * leadZ;
+                if (centerDelta < 0.0f) {
+                    near = far;
+                    far = near - 1;
+                }
+                stack[top] = far;
+                masks[top++] = mask;
+                stack[top] = near;
+                masks[top++] = mask;
+                continue;
+            }
+            for (int k = tree.nodeLeftFirst[node], end = k + n; k < end; k++) {
+                int triangle = tree.primitiveIndices[k];
+                for (int m = mask; m != 0; m &= m - 1) {
+                    int i = Integer.numberOfTrailingZeros(m);
+                    if (hitTriangle(triangle, okx[i], oky[i], okz[i], kx[i], ky[i], kz[i], shearX[i], shearY[i], shearZ[i],
+                            packet.tMax[i], hits[i], -1)) {
+                        packet.tMax[i] = hits[i].t;
+                        found |= 1 << i;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private boolean intersectLane(RayPacket packet, int lane, RayHit hit, int rootNode, AabbBvh.TraversalScratch scratch) {
+        if (!intersectRay(packet.originX[lane], packet.originY[lane], packet.originZ[lane],
+                packet.dirX[lane], packet.dirY[lane], packet.dirZ[lane], hit, packet.tMax[lane], -1, false, rootNode,
+                scratch)) {
+            return false;
+        }
+        packet.tMax[lane] = hit.t;
+        return true;
+    }
+
+    /**
+     * Closest (or any) hit below {@code tMax} in the subtree of {@code rootNode}; {@code hit} is only written
+     * on success. The traversal stack comes from the ray stack of {@code scratch}.
+     */
+    boolean intersectRay(float originX, float originY, float originZ, float dirX, float dirY, float dirZ,
+            RayHit hit, float tMax, int instance, boolean anyHit, int rootNode, AabbBvh.TraversalScratch scratch) {
+        AabbBvh tree = bvh;
+        if (tree.nodeCount == 0) {
+            return false;
+        }
+        float invDirX = AabbBvh.safeInverse(dirX), invDirY = AabbBvh.safeInverse(dirY), invDirZ = AabbBvh.safeInverse(dirZ);
+        if (tree.rayEntry(rootNode, originX, originY, originZ, invDirX, invDirY, invDirZ, tMax) == Float.POSITIVE_INFINITY) {
+            return false;
+        }
+        int axes = shearAxes(dirX, dirY, dirZ);
+        int kx = axes & 3;
+        int ky = (axes >>> 2) & 3;
+        int kz = axes >>> 4;
+        float dkz = component(dirX, dirY, dirZ, kz);
+        float shearX = component(dirX, dirY, dirZ, kx) / dkz;
+        float shearY = component(dirX, dirY, dirZ, ky) / dkz;
+        float shearZ = 1.0f / dkz;
+        float okx = component(originX, originY, originZ, kx);
+        float oky = component(originX, originY, originZ, ky);
+        float okz = component(originX, originY, originZ, kz);
+
+        boolean found = false;
+        scratch.ensureRayStack(tree.depth + 1);
+        int[] stack = scratch.rayNodes;
+        float[] entry = scratch.rayEntry;
+        int top = 0;
+        stack[top] = rootNode;
+        entry[top++] = 0.0f;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entry[top] > tMax) {
+                continue;
+            }
+            int n = tree.nodePrimitiveCount[node];
+            if (n == 0) {
+                int near = tree.nodeLeftFirst[node];
+                int far = near + 1;
+                float tNear = tree.rayEntry(near, originX, originY, originZ, invDirX, invDirY, invDirZ, tMax);
+                float tFar = tree.rayEntry(far, originX, originY, originZ, invDirX, invDirY, invDirZ, tMax);
+                if (tFar < tNear) {
+                    int swapNode = near;
+                    near = far;
+                    far = swapNode;
+                    float swapT = tNear;
+                    tNear = tFar;
+                    tFar = swapT;
+                }
+                if (tFar != Float.POSITIVE_INFINITY) {
+                    stack[top] = far;
+                    entry[top++] = tFar;
+                }
+                if (tNear != Float.POSITIVE_INFINITY) {
+                    stack[top] = near;
+                    entry[top++] = tNear;
+                }
+                continue;
+            }
+            for (int k = tree.nodeLeftFirst[node], end = k + n; k < end; k++) {
+                if (hitTriangle(tree.primitiveIndices[k], okx, oky, okz, kx, ky, kz, shearX, shearY, shearZ, tMax, hit, instance)) {
+                    if (anyHit) {
+                        return true;
+                    }
+                    tMax = hit.t;
+                    found = true;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Shear axes of the watertight test packed as {@code kx | ky << 2 | kz << 4}: {@code kz} is the dominant
+     * direction axis and {@code kx}/{@code ky} are swapped for negative {@code kz} to keep the winding.
+     */
+    static int shearAxes(float dirX, float dirY, float dirZ) {
+        float ax = java.lang.Math.abs(dirX), ay = java.lang.Math.abs(dirY), az = java.lang.Math.abs(dirZ);
+        int kz = ax > ay ? (ax > az ? 0 : 2) : (ay > az ? 1 : 2);
+        int kx = kz == 2 ? 0 : kz + 1;
+        int ky = kx == 2 ? 0 : kx + 1;
+        if (component(dirX, dirY, dirZ, kz) < 0.0f) {
+            int t = kx;
+            kx = ky;
+            ky = t;
+        }
+        return kx | ky << 2 | kz << 4;
+    }
+
+    private boolean hitTriangle(int triangle, float okx, float oky, float okz, int kx, int ky, int kz,
+            float shearX, float shearY, float shearZ, float tMax, RayHit hit, int instance) {
+        float[] p = positions;
+        int i = triangle * 3;
+        int a = indices[i] * 3;
+        int b = indices[i + 1] * 3;
+        int c = indices[i + 2] * 3;
+        float az = p[a + kz] - okz;
+        float bz = p[b + kz] - okz;
+        float cz = p[c + kz] - okz;
+        float ax = p[a + kx] - okx - shearX * az;
+        float ay = p[a + ky] - oky - shearY * az;
+        float bx = p[b + kx] - okx - shearX * bz;
+        float by = p[b + ky] - oky - shearY * bz;
+        float cx = p[c + kx] - okx - shearX * cz;
+        float cy = p[c + ky] - oky - shearY * cz;
+        float u = cx * by - cy * bx;
+        float v = ax * cy - ay * cx;
+        float w = bx * ay - by * ax;
+        if (u == 0.0f || v == 0.0f || w == 0.0f) {
+            u = (float) ((double) cx * by - (double) cy * bx);
+            v = (float) ((double) ax * cy - (double) ay * cx);
+            w = (float) ((double) bx * ay - (double) by * ax);
+        }
+        if ((u < 0.0f || v < 0.0f || w < 0.0f) && (u > 0.0f || v > 0.0f || w > 0.0f)) {
+            return false;
+        }
+        float det = u + v + w;
+        if (det == 0.0f) {
+            return false;
+        }
+        float scaledT = shearZ * (u * az + v * bz + w * cz);
+        if (det > 0.0f ? scaledT < 0.0f || scaledT > tMax * det : scaledT > 0.0f || scaledT < tMax * det) {
+            return false;
+        }
+        float invDet = 1.0f / det;
+        float t = scaledT * invDet;
+        if (t >= tMax) {
+            return false;
+        }
+        hit.t = t;
+        hit.u = v * invDet;
+        hit.v = w * invDet;
+        hit.primitive = triangle;
+        hit.instance = instance;
+        return true;
+    }
+
+    private void fitTriangles() {
+        float[] p = positions;
+        AABBSoA b = triangleBounds;
+        for (int tri = 0; tri < triangleCount; tri++) {
+            int i0 = indices[tri * 3] * 3;
+            int i1 = indices[tri * 3 + 1] * 3;
+            int i2 = indices[tri * 3 + 2] * 3;
+            b.set(tri,
+                    java.lang.Math.min(p[i0], java.lang.Math.min(p[i1], p[i2])),
+                    java.lang.Math.min(p[i0 + 1], java.lang.Math.min(p[i1 + 1], p[i2 + 1])),
+                    java.lang.Math.min(p[i0 + 2], java.lang.Math.min(p[i1 + 2], p[i2 + 2])),
+                    java.lang.Math.max(p[i0], java.lang.Math.max(p[i1], p[i2])),
+                    java.lang.Math.max(p[i0 + 1], java.lang.Math.max(p[i1 + 1], p[i2 + 1])),
+                    java.lang.Math.max(p[i0 + 2], java.lang.Math.max(p[i1 + 2], p[i2 + 2])));
+        }
+    }
+
+    private static float component(float x, float y, float z, int axis) {
+        return axis == 0 ? x : axis == 1 ? y : z;
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.hash;
+
+import java.util.concurrent.Executor;
+
+import org.dynamisengine.vectrix.affine.BatchChunks;
+
+/**
+ * Uniform hashed grid rebuilt from scratch every frame by counting sort, for particle neighbor search.
+ * <p>
+ * {@link #build(float[], float[], float[], int, Executor)} maps each particle to a bucket with
+ * {@link SpatialHash#hashCell3i(int, int, int)}, counts the particles per bucket, turns the counts into bucket
+ * ranges with a prefix sum and scatters the particle indices into bucket order. The positions are then
+ * gathered into {@link #sortedX()}, {@link #sortedY()} and {@link #sortedZ()}, so particles of one cell sit
+ * next to each other in memory; {@link #gather(float[], float[], Executor)} and
+ * {@link #scatter(float[], float[], Executor)} move any other per-particle array into and out of that order.
+ * Neighbor queries work on sorted indices, and {@link #order()} maps them back to the original particles.
+ * <p>
+ * Several cells may share a bucket, so neighbor iteration tests distances and never reports a particle twice.
+ * Particles are counted and scattered in chunks of an optional {@link Executor}, each chunk with its own bucket
+ * histogram, and the prefix sum over the histograms runs over bucket ranges; the scatter is stable, so the result
+ * does not depend on the worker count. Buffers are kept between builds and
+ * {@link #queryNeighbors(float, float, float, float, int[])} uses scratch owned by the grid, so a grid should not
+ * be built or queried from several threads at once; {@link #forEachNeighborPair(float, NeighborConsumer, Executor)}
+ * is the parallel query.
+ */
+public final class CountingSortGrid {
+    private static final int MIN_BUCKETS = 16;
+
+    /**
+     * Receives neighbor pairs as sorted particle indices.
+     */
+    @FunctionalInterface
+    public interface NeighborConsumer {
+        void accept(int particle, int neighbor, float distanceSquared);
+    }
+
+    private final float cellSize;
+    private final float invCellSize;
+    private final int fixedBucketCount;
+
+    private int count;
+    private int bucketMask;
+    private int[] bucketStart = new int[0];
+    private int[] bucketEnd = new int[0];
+    private int[] particleBucket = new int[0];
+    private int[] order = new int[0];
+    private float[] sortedX = new float[0];
+    private float[] sortedY = new float[0];
+    private float[] sortedZ = new float[0];
+    private int[] chunkHistograms = new int[0];
+    private int[] rangeTotals = new int[0];
+    private final int[] queryBuckets = new int[27];
+
+    /**
+     * Create a grid whose bucket count follows the particle count of each build.
+     */
+    public CountingSortGrid(float cellSize) {
+        this(cellSize, 0);
+    }
+
+    /**
+     * Create a grid with cubic cells of edge {@code cellSize} hashed into {@code bucketCount} buckets, which must
+     * be a power of two, or {@code 0} to use the next power of two at or above the particle count.
+     */
+    public CountingSortGrid(float cellSize, int bucketCount) {
+        if (!(cellSize > 0.0f) || Float.isInfinite(cellSize)) {
+            throw new IllegalArgumentException("cellSize must be positive and finite: " + cellSize);
+        }
+        if (bucketCount < 0 || (bucketCount & (bucketCount - 1)) != 0) {
+            throw new IllegalArgumentException("bucketCount must be 0 or a power of two: " + bucketCount);
+        }
+        this.cellSize = cellSize;
+        this.invCellSize = 1.0f / cellSize;
+        this.fixedBucketCount = bucketCount;
+    }
+
+    public float cellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Number of particles in the last build.
+     */
+    public int count() {
+        return count;
+    }
+
+    public int bucketCount() {
+        return bucketMask + 1;
+    }
+
+    /**
+     * Original particle index of each sorted index.
+     */
+    public int[] order() {
+        return order;
+    }
+
+    public float[] sortedX() {
+        return sortedX;
+    }
+
+    public float[] sortedY() {
+        return sortedY;
+    }
+
+    public float[] sortedZ() {
+        return sortedZ;
+    }
+
+    /**
+     * Bucket holding the cell that contains the given point.
+     */
+    public int bucketOf(float x, float y, float z) {
+        return bucket(cell(x), cell(y), cell(z));
+    }
+
+    /**
+     * First sorted index of bucket {@code b}.
+     */
+    public int bucketStart(int b) {
+        return bucketStart[b];
+    }
+
+    /**
+     * One past the last sorted index of bucket {@code b}.
+     */
+    public int bucketEnd(int b) {
+        return bucketEnd[b];
+    }
+
+    /**
+     * Build on the calling thread.
+     */
+    public CountingSortGrid build(float[] x, float[] y, float[] z, int count) {
+        return build(x, y, z, count, null);
+    }
+
+    /**
+     * Rebuild the grid over the first {@code count} particles.
+     *
+     * @param executor
+     *          runs the bucket and particle passes in parallel, or {@code null} for the calling thread
+     */
+    public CountingSortGrid build(float[] x, float[] y, float[] z, int count, Executor executor) {
+        if (count < 0 || count > x.length || count > y.length || count > z.length) {
+            throw new IllegalArgumentException("count out of range: " + count);
+        }
+        int buckets = fixedBucketCount > 0 ? fixedBucketCount : bucketCountFor(count);
+        ensureCapacity(count, buckets);
+        this.count = count;
+        this.bucketMask = buckets - 1;
+        // Counting and scattering are split by particle chunk with one histogram per chunk, as in the radix passes
+        // of LinearBvhBuilder. An exclusive prefix sum in bucket-major, chunk-minor order keeps the scatter stable.
+        int parallelism = executor == null ? 1 : BatchChunks.parallelism(executor);
+        // Rounding only grows chunks, so there are never more chunks than workers and the histograms stay indexable.
+        int workers = java.lang.Math.min(parallelism, java.lang.Math.max(1, Integer.MAX_VALUE / buckets));
+        final int chunkSize = BatchChunks.parallelChunkSize(count, (count + workers - 1) / workers, parallelism);
+        final int chunks = (count + chunkSize - 1) / chunkSize;
+        final int rangeSize = BatchChunks.parallelChunkSize(buckets, (buckets + parallelism - 1) / parallelism, parallelism);
+        int ranges = (buckets + rangeSize - 1) / rangeSize;
+        if (chunkHistograms.length < chunks * buckets) {
+            chunkHistograms = new int[chunks * buckets];
+        }
+        if (rangeTotals.length < ranges) {
+            rangeTotals = new int[ranges];
+        }
+        final int[] pb = particleBucket;
+        final int[] hist = chunkHistograms;
+        final int nb = buckets;
+        run(count, chunkSize, executor, (start, end) -> {
+            int base = start / chunkSize * nb;
+            java.util.Arrays.fill(hist, base, base + nb, 0);
+            for (int i = start; i < end; i++) {
+                int b = bucket(cell(x[i]), cell(y[i]), cell(z[i]));
+                pb[i] = b;
+                hist[base + b]++;
+            }
+        });
+
+        // The prefix sum runs over bucket ranges: per-range totals first, then each range turns its buckets'
+        // chunk counts into scatter offsets, walking the histograms chunk by chunk for contiguous reads.
+        final int[] starts = bucketStart;
+        final int[] ends = bucketEnd;
+        final int[] totals = rangeTotals;
+        run(buckets, rangeSize, executor, (b0, b1) -> {
+            java.util.Arrays.fill(ends, b0, b1, 0);
+            for (int c = 0; c < chunks; c++) {
+                for (int b = b0, h = c * nb + b0; b < b1; b++, h++) {
+                    ends[b] += hist[h];
+                }
+            }
+            int sum = 0;
+            for (int b = b0; b < b1; b++) {
+                sum += ends[b];
+            }
+            totals[b0 / rangeSize] = sum;
+        });
+        int offset = 0;
+        for (int r = 0; r < ranges; r++) {
+            int t = totals[r];
+            totals[r] = offset;
+            offset += t;
+        }
+        run(buckets, rangeSize, executor, (b0, b1) -> {
+            int sum = totals[b0 / rangeSize];
+            for (int b = b0; b < b1; b++) {
+                int c = ends[b];
+                starts[b] = sum;
+                ends[b] = sum;
+                sum += c;
+            }
+            for (int c = 0; c < chunks; c++) {
+                for (int b = b0, h = c * nb + b0; b < b1; b++, h++) {
+                    int n = hist[h];
+                    hist[h] = ends[b];
+                    ends[b] += n;
+                }
+            }
+        });
+        final int[] sortedOrder = order;
+        run(count, chunkSize, executor, (start, end) -> {
+            int base = start / chunkSize * nb;
+            for (int i = start; i < end; i++) {
+                sortedOrder[hist[base + pb[i]]++] = i;
+            }
+        });
+
+        final float[] sx = sortedX, sy = sortedY, sz = sortedZ;
+        run(count, 0, executor, (start, end) -> {
+            for (int j = start; j < end; j++) {
+                int i = sortedOrder[j];
+                sx[j] = x[i];
+                sy[j] = y[i];
+                sz[j] = z[i];
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Copy per-particle values into sorted order: {@code sorted[j] = values[order()[j]]}.
+     */
+    public void gather(float[] values, float[] sorted, Executor executor) {
+        final int[] o = order;
+        run(count, 0, executor, (start, end) -> {
+            for (int j = start; j < end; j++) {
+                sorted[j] = values[o[j]];
+            }
+        });
+    }
+
+    /**
+     * Copy values in sorted order back to particle order: {@code values[order()[j]] = sorted[j]}.
+     */
+    public void scatter(float[] sorted, float[] values, Executor executor) {
+        final int[] o = order;
+        run(count, 0, executor, (start, end) -> {
+            for (int j = start; j < end; j++) {
+                values[o[j]] = sorted[j];
+            }
+        });
+    }
+
+    /**
+     * Collect the sorted indices of all particles within {@code radius} of the given point, boundary included.
+     * {@code radius} must not exceed {@link #cellSize()}, so the 27 cells around the point cover the query.
+     *
+     * @return the number of particles found, which may exceed {@code outSorted.length}; only the first
+     *         {@code outSorted.length} indices are stored
+     */
+    public int queryNeighbors(float x, float y, float z, float radius, int[] outSorted) {
+        checkRadius(radius);
+        int[] buckets = queryBuckets;
+        int bucketCount = neighborBuckets(cell(x), cell(y), cell(z), buckets);
+        float r2 = radius * radius;
+        int found = 0;
+        for (int k = 0; k < bucketCount; k++) {
+            int b = buckets[k];
+            for (int j = bucketStart[b], end = bucketEnd[b]; j < end; j++) {
+                float dx = sortedX[j] - x, dy = sortedY[j] - y, dz = sortedZ[j] - z;
+                if (dx * dx + dy * dy + dz * dz <= r2) {
+                    if (found < outSorted.length) {
+                        outSorted[found] = j;
+                    }
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Visit every ordered pair of distinct particles within {@code radius} of each other, as sorted indices, on
+     * the calling thread.
+     */
+    public void forEachNeighborPair(float radius, NeighborConsumer consumer) {
+        forEachNeighborPair(radius, consumer, null);
+    }
+
+    /**
+     * Visit every ordered pair of distinct particles within {@code radius} of each other, as sorted indices:
+     * each pair is reported once as {@code (i, j)} and once as {@code (j, i)}. Each particle's neighbors come
+     * from the 27 cells around it, so {@code radius} must not exceed {@link #cellSize()}.
+     * <p>
+     * With an {@link Executor}, particles are split into chunks of sorted indices and all pairs of one
+     * {@code particle} are reported by the same thread, so a consumer may write per-particle results without
+     * synchronization.
+     */
+    public void forEachNeighborPair(float radius, NeighborConsumer consumer, Executor executor) {
+        checkRadius(radius);
+        final float r2 = radius * radius;
+        run(count, 0, executor, (start, end) -> {
+            int[] buckets = new int[27];
+            int bucketCount = 0;
+            int lastX = 0, lastY = 0, lastZ = 0;
+            for (int i = start; i < end; i++) {
+                float px = sortedX[i], py = sortedY[i], pz = sortedZ[i];
+                int cx = cell(px), cy = cell(py), cz = cell(pz);
+                // Sorted particles of one cell are contiguous, so the bucket list is usually reused.
+                if (i == start || cx != lastX || cy != lastY || cz != lastZ) {
+                    bucketCount = neighborBuckets(cx, cy, cz, buckets);
+                    lastX = cx;
+                    lastY = cy;
+                    lastZ = cz;
+                }
+                for (int k = 0; k < bucketCount; k++) {
+                    int b = buckets[k];
+                    for (int j = bucketStart[b], bEnd = bucketEnd[b]; j < bEnd; j++) {
+                        float dx = sortedX[j] - px, dy = sortedY[j] - py, dz = sortedZ[j] - pz;
+                        float d2 = dx * dx + dy * dy + dz * dz;
+                        if (d2 <= r2 && j != i) {
+                            consumer.accept(i, j, d2);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Write the distinct buckets of the 27 cells around {@code (cx, cy, cz)} into {@code out}.
+     */
+    private int neighborBuckets(int cx, int cy, int cz, int[] out) {
+        int n = 0;
+        for (int dz = -1; dz <= 1; dz++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int b = bucket(cx + dx, cy + dy, cz + dz);
+                    if (bucketEnd[b] == bucketStart[b]) {
+                        continue;
+                    }
+                    boolean seen = false;
+                    for (int k = 0; k < n; k++) {
+                        if (out[k] == b) {
+                            seen = true;
+                            break;
+                        }
+                    }
+                    if (!seen) {
+                        out[n++] = b;
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    private void checkRadius(float radius) {
+        if (!(radius >= 0.0f) || radius > cellSize) {
+            throw new IllegalArgumentException("radius must be in [0, cellSize]: " + radius);
+        }
+    }
+
+    private int bucket(int cx, int cy, int cz) {
+        return SpatialHash.hashCell3i(cx, cy, cz) & bucketMask;
+    }
+
+    private int cell(float v) {
+        return (int) java.lang.Math.floor(v * invCellSize);
+    }
+
+    private static int bucketCountFor(int count) {
+        int buckets = MIN_BUCKETS;
+        while (buckets < count && buckets < 1 << 30) {
+            buckets <<= 1;
+        }
+        return buckets;
+    }
+
+    private void ensureCapacity(int count, int buckets) {
+        if (bucketStart.length < buckets) {
+            bucketStart = new int[buckets];
+            bucketEnd = new int[buckets];
+        }
+        if (order.length < count) {
+            particleBucket = new int[count];
+            order = new int[count];
+            sortedX = new float[count];
+            sortedY = new float[count];
+            sortedZ = new float[count];
+        }
+    }
+
+    private static void run(int count, int chunkSize, Executor executor, BatchChunks.ChunkConsumer consumer) {
+        if (executor == null) {
+            BatchChunks.forEachChunk(count, chunkSize, consumer);
+        } else {
+            BatchChunks.forEachChunkParallel(count, chunkSize, executor, consumer);
+        }
+    }
+}
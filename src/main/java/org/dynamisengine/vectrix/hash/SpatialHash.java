@@ -39,4 +39,20 @@ public final class SpatialHash {
         int mix = x * PRIME_X ^ y * PRIME_Y ^ z * PRIME_Z;
         return PcgHash.hash32(mix);
     }
+
+    /**
+     * Interleave the low 10 bits of each coordinate into a 30-bit Morton (Z-order) code, x in the lowest bit.
+     */
+    public static int mortonCode3i(int x, int y, int z) {
+        return spreadBits10(x) | (spreadBits10(y) << 1) | (spreadBits10(z) << 2);
+    }
+
+    private static int spreadBits10(int v) {
+        v &= 0x3FF;
+        v = (v | (v << 16)) & 0x030000FF;
+        v = (v | (v << 8)) & 0x0300F00F;
+        v = (v | (v << 4)) & 0x030C30C3;
+        v = (v | (v << 2)) & 0x09249249;
+        return v;
+    }
 }
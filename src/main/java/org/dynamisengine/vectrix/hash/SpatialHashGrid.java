@@ -0,0 +1,477 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.hash;
+
+/**
+ * Sparse uniform grid of points stored in an open-addressing hash table of cells keyed by
+ * {@link SpatialHash#hashCell3i(int, int, int)}.
+ * <p>
+ * Entries are identified by non-negative int ids, typically entity indices, and all per-entry state lives in
+ * arrays indexed by id: the position and the links of a doubly linked list through the entries of each cell.
+ * Only occupied cells are stored. The cell table uses linear probing and backward-shift deletion, so empty
+ * cells are removed without tombstones and probe lengths stay short under churn. Nothing is allocated per
+ * insert, move or query; the id arrays and the cell table grow by doubling.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class SpatialHashGrid {
+    private static final int MIN_TABLE_CAPACITY = 16;
+
+    private final float cellSize;
+    private final float invCellSize;
+
+    private int[] cellX;
+    private int[] cellY;
+    private int[] cellZ;
+    private int[] cellHead;
+    private int cellCount;
+
+    private float[] posX;
+    private float[] posY;
+    private float[] posZ;
+    private int[] next;
+    private int[] prev;
+    private boolean[] present;
+    private int size;
+
+    public SpatialHashGrid(float cellSize) {
+        this(cellSize, 0);
+    }
+
+    /**
+     * Create a grid with cubic cells of edge {@code cellSize}, presized for ids below {@code expectedEntries}.
+     */
+    public SpatialHashGrid(float cellSize, int expectedEntries) {
+        if (!(cellSize > 0.0f) || Float.isInfinite(cellSize)) {
+            throw new IllegalArgumentException("cellSize must be positive and finite: " + cellSize);
+        }
+        if (expectedEntries < 0) {
+            throw new IllegalArgumentException("expectedEntries must be >= 0: " + expectedEntries);
+        }
+        this.cellSize = cellSize;
+        this.invCellSize = 1.0f / cellSize;
+        allocateTable(tableCapacityFor(expectedEntries));
+        allocateEntries(java.lang.Math.max(expectedEntries, MIN_TABLE_CAPACITY));
+    }
+
+    public float cellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Number of entries in the grid.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of occupied cells.
+     */
+    public int cellCount() {
+        return cellCount;
+    }
+
+    public int tableCapacity() {
+        return cellHead.length;
+    }
+
+    /**
+     * Occupied cells divided by {@link #tableCapacity()}; the table doubles before this exceeds one half.
+     */
+    public float loadFactor() {
+        return (float) cellCount / cellHead.length;
+    }
+
+    /**
+     * Mean number of slots probed to find an occupied cell, {@code 1} when every cell sits in its home slot and
+     * {@code 0} for an empty grid. Computed by scanning the table.
+     */
+    public float averageProbeLength() {
+        if (cellCount == 0) {
+            return 0.0f;
+        }
+        long total = 0L;
+        int mask = cellHead.length - 1;
+        for (int slot = 0; slot < cellHead.length; slot++) {
+            if (cellHead[slot] >= 0) {
+                total += probeLength(slot, mask);
+            }
+        }
+        return (float) ((double) total / cellCount);
+    }
+
+    /**
+     * Longest probe sequence of any occupied cell, {@code 0} for an empty grid. Computed by scanning the table.
+     */
+    public int maxProbeLength() {
+        int longest = 0;
+        int mask = cellHead.length - 1;
+        for (int slot = 0; slot < cellHead.length; slot++) {
+            if (cellHead[slot] >= 0) {
+                longest = java.lang.Math.max(longest, probeLength(slot, mask));
+            }
+        }
+        return longest;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < present.length && present[id];
+    }
+
+    public float x(int id) {
+        checkPresent(id);
+        return posX[id];
+    }
+
+    public float y(int id) {
+        checkPresent(id);
+        return posY[id];
+    }
+
+    public float z(int id) {
+        checkPresent(id);
+        return posZ[id];
+    }
+
+    /**
+     * Add entry {@code id} at the given position.
+     *
+     * @throws IllegalArgumentException if {@code id} is negative or already present
+     */
+    public SpatialHashGrid insert(int id, float x, float y, float z) {
+        if (id < 0) {
+            throw new IllegalArgumentException("id must be >= 0: " + id);
+        }
+        if (id >= present.length) {
+            allocateEntries(java.lang.Math.max(id + 1, present.length * 2));
+        }
+        if (present[id]) {
+            throw new IllegalArgumentException("id already present: " + id);
+        }
+        present[id] = true;
+        size++;
+        posX[id] = x;
+        posY[id] = y;
+        posZ[id] = z;
+        link(id, cell(x), cell(y), cell(z));
+        return this;
+    }
+
+    /**
+     * Remove entry {@code id}.
+     *
+     * @return whether the entry was present
+     */
+    public boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        unlink(id, cell(posX[id]), cell(posY[id]), cell(posZ[id]));
+        present[id] = false;
+        size--;
+        return true;
+    }
+
+    /**
+     * Move entry {@code id} to a new position; the cell lists are only touched when the entry changes cell.
+     *
+     * @throws IllegalArgumentException if {@code id} is not present
+     */
+    public SpatialHashGrid move(int id, float x, float y, float z) {
+        checkPresent(id);
+        int oldX = cell(posX[id]), oldY = cell(posY[id]), oldZ = cell(posZ[id]);
+        int newX = cell(x), newY = cell(y), newZ = cell(z);
+        posX[id] = x;
+        posY[id] = y;
+        posZ[id] = z;
+        if (oldX != newX || oldY != newY || oldZ != newZ) {
+            unlink(id, oldX, oldY, oldZ);
+            link(id, newX, newY, newZ);
+        }
+        return this;
+    }
+
+    /**
+     * Remove every entry, keeping the allocated capacity.
+     */
+    public void clear() {
+        java.util.Arrays.fill(cellHead, -1);
+        java.util.Arrays.fill(present, false);
+        cellCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Collect the ids of all entries within {@code radius} of the given point, boundary included.
+     *
+     * @return the number of entries found, which may exceed {@code outIds.length}; only the first
+     *         {@code outIds.length} ids are stored
+     */
+    public int queryRadius(float x, float y, float z, float radius, int[] outIds) {
+        if (!(radius >= 0.0f)) {
+            return 0;
+        }
+        float r2 = radius * radius;
+        int found = 0;
+        int x0 = cell(x - radius), x1 = cell(x + radius);
+        int y0 = cell(y - radius), y1 = cell(y + radius);
+        int z0 = cell(z - radius), z1 = cell(z + radius);
+        if (cellRangeVolume(x0, y0, z0, x1, y1, z1) > cellCount) {
+            for (int slot = 0; slot < cellHead.length; slot++) {
+                int head = cellHead[slot];
+                if (head >= 0 && inRange(slot, x0, y0, z0, x1, y1, z1)) {
+                    found = collectRadius(head, x, y, z, r2, outIds, found);
+                }
+            }
+            return found;
+        }
+        // Offsets rather than inclusive bounds, so ranges ending at Integer.MAX_VALUE terminate.
+        for (int dz = 0, nz = z1 - z0; dz <= nz; dz++) {
+            for (int dy = 0, ny = y1 - y0; dy <= ny; dy++) {
+                for (int dx = 0, nx = x1 - x0; dx <= nx; dx++) {
+                    int slot = findCell(x0 + dx, y0 + dy, z0 + dz);
+                    if (slot >= 0) {
+                        found = collectRadius(cellHead[slot], x, y, z, r2, outIds, found);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Collect the ids of all entries inside the given box, boundary included.
+     *
+     * @return the number of entries found, which may exceed {@code outIds.length}; only the first
+     *         {@code outIds.length} ids are stored
+     */
+    public int queryAabb(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int[] outIds) {
+        if (!(minX <= maxX && minY <= maxY && minZ <= maxZ)) {
+            return 0;
+        }
+        int found = 0;
+        int x0 = cell(minX), x1 = cell(maxX);
+        int y0 = cell(minY), y1 = cell(maxY);
+        int z0 = cell(minZ), z1 = cell(maxZ);
+        if (cellRangeVolume(x0, y0, z0, x1, y1, z1) > cellCount) {
+            for (int slot = 0; slot < cellHead.length; slot++) {
+                int head = cellHead[slot];
+                if (head >= 0 && inRange(slot, x0, y0, z0, x1, y1, z1)) {
+                    found = collectAabb(head, minX, minY, minZ, maxX, maxY, maxZ, outIds, found);
+                }
+            }
+            return found;
+        }
+        for (int dz = 0, nz = z1 - z0; dz <= nz; dz++) {
+            for (int dy = 0, ny = y1 - y0; dy <= ny; dy++) {
+                for (int dx = 0, nx = x1 - x0; dx <= nx; dx++) {
+                    int slot = findCell(x0 + dx, y0 + dy, z0 + dz);
+                    if (slot >= 0) {
+                        found = collectAabb(cellHead[slot], minX, minY, minZ, maxX, maxY, maxZ, outIds, found);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private int collectRadius(int id, float x, float y, float z, float r2, int[] outIds, int found) {
+        for (; id >= 0; id = next[id]) {
+            float dx = posX[id] - x, dy = posY[id] - y, dz = posZ[id] - z;
+            if (dx * dx + dy * dy + dz * dz <= r2) {
+                if (found < outIds.length) {
+                    outIds[found] = id;
+                }
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private int collectAabb(int id, float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int[] outIds, int found) {
+        for (; id >= 0; id = next[id]) {
+            float px = posX[id], py = posY[id], pz = posZ[id];
+            if (px >= minX && px <= maxX && py >= minY && py <= maxY && pz >= minZ && pz <= maxZ) {
+                if (found < outIds.length) {
+                    outIds[found] = id;
+                }
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Number of cells in an inclusive cell range, saturating instead of overflowing.
+     */
+    private static long cellRangeVolume(int x0, int y0, int z0, int x1, int y1, int z1) {
+        long nx = (long) x1 - x0 + 1L, ny = (long) y1 - y0 + 1L, nz = (long) z1 - z0 + 1L;
+        return nx > Long.MAX_VALUE / ny / nz ? Long.MAX_VALUE : nx * ny * nz;
+    }
+
+    private boolean inRange(int slot, int x0, int y0, int z0, int x1, int y1, int z1) {
+        int cx = cellX[slot], cy = cellY[slot], cz = cellZ[slot];
+        return cx >= x0 && cx <= x1 && cy >= y0 && cy <= y1 && cz >= z0 && cz <= z1;
+    }
+
+    private int cell(float v) {
+        return (int) java.lang.Math.floor(v * invCellSize);
+    }
+
+    private void checkPresent(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("id not present: " + id);
+        }
+    }
+
+    private void link(int id, int cx, int cy, int cz) {
+        int slot = findCell(cx, cy, cz);
+        if (slot < 0) {
+            slot = insertCell(cx, cy, cz);
+        }
+        int head = cellHead[slot];
+        next[id] = head;
+        prev[id] = -1;
+        if (head >= 0) {
+            prev[head] = id;
+        }
+        cellHead[slot] = id;
+    }
+
+    private void unlink(int id, int cx, int cy, int cz) {
+        int n = next[id], p = prev[id];
+        if (n >= 0) {
+            prev[n] = p;
+        }
+        if (p >= 0) {
+            next[p] = n;
+            return;
+        }
+        int slot = findCell(cx, cy, cz);
+        if (n >= 0) {
+            cellHead[slot] = n;
+        } else {
+            deleteCell(slot);
+        }
+    }
+
+    private int findCell(int cx, int cy, int cz) {
+        int[] heads = cellHead;
+        int mask = heads.length - 1;
+        for (int slot = SpatialHash.hashCell3i(cx, cy, cz) & mask; heads[slot] >= 0; slot = (slot + 1) & mask) {
+            if (cellX[slot] == cx && cellY[slot] == cy && cellZ[slot] == cz) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int insertCell(int cx, int cy, int cz) {
+        if ((cellCount + 1) * 2 > cellHead.length) {
+            resizeTable(cellHead.length * 2);
+        }
+        int mask = cellHead.length - 1;
+        int slot = SpatialHash.hashCell3i(cx, cy, cz) & mask;
+        while (cellHead[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        cellX[slot] = cx;
+        cellY[slot] = cy;
+        cellZ[slot] = cz;
+        cellCount++;
+        return slot;
+    }
+
+    /**
+     * Linear-probing deletion: shift later cells of the probe run back so lookups never need tombstones.
+     */
+    private void deleteCell(int slot) {
+        int mask = cellHead.length - 1;
+        int hole = slot;
+        for (int n = (hole + 1) & mask; cellHead[n] >= 0; n = (n + 1) & mask) {
+            int home = SpatialHash.hashCell3i(cellX[n], cellY[n], cellZ[n]) & mask;
+            if (((n - home) & mask) >= ((n - hole) & mask)) {
+                cellX[hole] = cellX[n];
+                cellY[hole] = cellY[n];
+                cellZ[hole] = cellZ[n];
+                cellHead[hole] = cellHead[n];
+                hole = n;
+            }
+        }
+        cellHead[hole] = -1;
+        cellCount--;
+    }
+
+    private int probeLength(int slot, int mask) {
+        int home = SpatialHash.hashCell3i(cellX[slot], cellY[slot], cellZ[slot]) & mask;
+        return ((slot - home) & mask) + 1;
+    }
+
+    private static int tableCapacityFor(int cells) {
+        int capacity = MIN_TABLE_CAPACITY;
+        while (capacity < cells * 2 && capacity < 1 << 30) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocateTable(int capacity) {
+        cellX = new int[capacity];
+        cellY = new int[capacity];
+        cellZ = new int[capacity];
+        cellHead = new int[capacity];
+        java.util.Arrays.fill(cellHead, -1);
+    }
+
+    private void resizeTable(int capacity) {
+        int[] oldX = cellX, oldY = cellY, oldZ = cellZ, oldHead = cellHead;
+        allocateTable(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldHead.length; i++) {
+            if (oldHead[i] >= 0) {
+                int slot = SpatialHash.hashCell3i(oldX[i], oldY[i], oldZ[i]) & mask;
+                while (cellHead[slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                cellX[slot] = oldX[i];
+                cellY[slot] = oldY[i];
+                cellZ[slot] = oldZ[i];
+                cellHead[slot] = oldHead[i];
+            }
+        }
+    }
+
+    private void allocateEntries(int capacity) {
+        if (present != null && capacity <= present.length) {
+            return;
+        }
+        posX = present == null ? new float[capacity] : java.util.Arrays.copyOf(posX, capacity);
+        posY = present == null ? new float[capacity] : java.util.Arrays.copyOf(posY, capacity);
+        posZ = present == null ? new float[capacity] : java.util.Arrays.copyOf(posZ, capacity);
+        next = present == null ? new int[capacity] : java.util.Arrays.copyOf(next, capacity);
+        prev = present == null ? new int[capacity] : java.util.Arrays.copyOf(prev, capacity);
+        present = present == null ? new boolean[capacity] : java.util.Arrays.copyOf(present, capacity);
+    }
+}
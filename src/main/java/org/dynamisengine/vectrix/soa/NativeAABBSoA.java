@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.soa;
+
+/**
+ * Off-heap counterpart of {@link AABBSoA} with one native float column per bound component.
+ */
+public final class NativeAABBSoA extends NativeFloatColumns {
+    public static final int MIN_X = 0;
+    public static final int MIN_Y = 1;
+    public static final int MIN_Z = 2;
+    public static final int MAX_X = 3;
+    public static final int MAX_Y = 4;
+    public static final int MAX_Z = 5;
+    public static final int COLUMNS = 6;
+
+    public NativeAABBSoA(int size) {
+        super(COLUMNS, size);
+    }
+
+    public int size() {
+        return columnLength();
+    }
+
+    public void set(int i, float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        set(MIN_X, i, minX);
+        set(MIN_Y, i, minY);
+        set(MIN_Z, i, minZ);
+        set(MAX_X, i, maxX);
+        set(MAX_Y, i, maxY);
+        set(MAX_Z, i, maxZ);
+    }
+
+    /**
+     * Bulk-copy elements {@code [start, start + count)} from heap storage.
+     */
+    public void copyFrom(AABBSoA src, int start, int count) {
+        copyColumnFrom(MIN_X, src.minX, start, count);
+        copyColumnFrom(MIN_Y, src.minY, start, count);
+        copyColumnFrom(MIN_Z, src.minZ, start, count);
+        copyColumnFrom(MAX_X, src.maxX, start, count);
+        copyColumnFrom(MAX_Y, src.maxY, start, count);
+        copyColumnFrom(MAX_Z, src.maxZ, start, count);
+    }
+
+    /**
+     * Bulk-copy elements {@code [start, start + count)} into heap storage.
+     */
+    public void copyTo(AABBSoA dst, int start, int count) {
+        copyColumnTo(MIN_X, dst.minX, start, count);
+        copyColumnTo(MIN_Y, dst.minY, start, count);
+        copyColumnTo(MIN_Z, dst.minZ, start, count);
+        copyColumnTo(MAX_X, dst.maxX, start, count);
+        copyColumnTo(MAX_Y, dst.maxY, start, count);
+        copyColumnTo(MAX_Z, dst.maxZ, start, count);
+    }
+}
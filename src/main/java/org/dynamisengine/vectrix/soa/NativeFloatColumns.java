@@ -0,0 +1,211 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.soa;
+
+//#ifdef __HAS_FFM__
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+//#endif
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import org.dynamisengine.vectrix.core.Runtime;
+//#ifdef __HAS_VECTOR_API__
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+//#endif
+
+/**
+ * Off-heap float column storage shared by the native structure-of-arrays containers.
+ * <p>
+ * All columns live in one native-order direct buffer, each starting at a multiple of {@link #ALIGNMENT_BYTES}
+ * from the buffer base. When the Foreign Function &amp; Memory backend is active (see
+ * {@link Runtime#hasFfmMemory()}) the storage is an automatically managed, 64-byte aligned memory segment;
+ * otherwise it is a plain direct {@link ByteBuffer}. Either way the memory is outside the Java heap and can be
+ * handed to a native renderer without copying.
+ * <p>
+ * Batch kernels read and write the columns in place: scalar code through {@link #get(int, int)} and
+ * {@link #set(int, int, float)}, Vector API code through {@code loadVector} and {@code storeVector}.
+ */
+public abstract class NativeFloatColumns {
+    public static final int ALIGNMENT_BYTES = 64;
+
+    private final ByteBuffer buffer;
+    private final FloatBuffer[] columns;
+    private final int columnLength;
+    private final int columnStrideBytes;
+//#ifdef __HAS_FFM__
+    private final MemorySegment segment;
+//#endif
+
+    protected NativeFloatColumns(int columnCount, int columnLength) {
+        if (columnCount <= 0) {
+            throw new IllegalArgumentException("columnCount must be positive: " + columnCount);
+        }
+        if (columnLength < 0) {
+            throw new IllegalArgumentException("columnLength must not be negative: " + columnLength);
+        }
+        this.columnLength = columnLength;
+        this.columnStrideBytes = (columnLength * 4 + ALIGNMENT_BYTES - 1) & -ALIGNMENT_BYTES;
+        long bytes = java.lang.Math.max((long) columnStrideBytes * columnCount, 1L);
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Native column storage exceeds 2 GiB");
+        }
+//#ifdef __HAS_FFM__
+        if (Runtime.hasFfmMemory()) {
+            segment = Arena.ofAuto().allocate(bytes, ALIGNMENT_BYTES);
+            buffer = segment.asByteBuffer().order(ByteOrder.nativeOrder());
+        } else {
+            buffer = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+            segment = MemorySegment.ofBuffer(buffer);
+        }
+//#else
+        buffer = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+//#endif
+        columns = new FloatBuffer[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            ByteBuffer view = buffer.duplicate();
+            ((Buffer) view).position(c * columnStrideBytes);
+            ((Buffer) view).limit(c * columnStrideBytes + columnLength * 4);
+            columns[c] = view.slice().order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+    }
+
+    public final int columnCount() {
+        return columns.length;
+    }
+
+    /**
+     * Number of floats in each column.
+     */
+    public final int columnLength() {
+        return columnLength;
+    }
+
+    /**
+     * Byte offset of column {@code column} from the start of {@link #buffer()}.
+     */
+    public final int columnOffsetBytes(int column) {
+        return column * columnStrideBytes;
+    }
+
+    /**
+     * Backing native-order buffer spanning all columns.
+     */
+    public final ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Absolute-indexed view of column {@code column}; do not change its position or limit.
+     */
+    public final FloatBuffer column(int column) {
+        return columns[column];
+    }
+
+//#ifdef __HAS_FFM__
+    /**
+     * Backing memory segment spanning all columns.
+     */
+    public final MemorySegment segment() {
+        return segment;
+    }
+//#endif
+
+    public final float get(int column, int i) {
+        return columns[column].get(i);
+    }
+
+    public final void set(int column, int i, float value) {
+        columns[column].put(i, value);
+    }
+
+    /**
+     * Whether {@code loadVector} and {@code storeVector} are single vector accesses to the memory segment. Without
+     * the Foreign Function &amp; Memory API they move one lane at a time, and kernels dispatch to scalar code instead.
+     */
+    public static boolean hasVectorAccess() {
+//#ifdef __HAS_FFM__
+        return true;
+//#else
+        return false;
+//#endif
+    }
+
+//#ifdef __HAS_VECTOR_API__
+    /**
+     * Load {@code species.length()} consecutive floats of column {@code column}, starting at element {@code i}.
+     */
+    public final FloatVector loadVector(VectorSpecies<Float> species, int column, int i) {
+//#ifdef __HAS_FFM__
+        return FloatVector.fromMemorySegment(species, segment, (long) column * columnStrideBytes + 4L * i, ByteOrder.nativeOrder());
+//#else
+        FloatBuffer src = columns[column];
+        FloatVector v = FloatVector.zero(species);
+        for (int lane = 0, lanes = species.length(); lane < lanes; lane++) {
+            v = v.withLane(lane, src.get(i + lane));
+        }
+        return v;
+//#endif
+    }
+
+    /**
+     * Store the lanes of {@code v} into column {@code column}, starting at element {@code i}.
+     */
+    public final void storeVector(FloatVector v, int column, int i) {
+//#ifdef __HAS_FFM__
+        v.intoMemorySegment(segment, (long) column * columnStrideBytes + 4L * i, ByteOrder.nativeOrder());
+//#else
+        FloatBuffer dst = columns[column];
+        for (int lane = 0, lanes = v.length(); lane < lanes; lane++) {
+            dst.put(i + lane, v.lane(lane));
+        }
+//#endif
+    }
+//#endif
+
+    /**
+     * Set every element of column {@code column} to {@code value}.
+     */
+    protected final void fillColumn(int column, float value) {
+        FloatBuffer dst = columns[column];
+        for (int i = 0; i < columnLength; i++) {
+            dst.put(i, value);
+        }
+    }
+
+    protected final void copyColumnFrom(int column, float[] src, int start, int count) {
+        FloatBuffer dst = columns[column].duplicate();
+        ((Buffer) dst).position(start);
+        dst.put(src, start, count);
+    }
+
+    protected final void copyColumnTo(int column, float[] dst, int start, int count) {
+        FloatBuffer src = columns[column].duplicate();
+        ((Buffer) src).position(start);
+        src.get(dst, start, count);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.soa;
+
+import org.dynamisengine.vectrix.affine.Transformf;
+
+/**
+ * Off-heap counterpart of {@link TransformSoA} with one native float column per component.
+ */
+public final class NativeTransformSoA extends NativeFloatColumns {
+    public static final int TX = 0;
+    public static final int TY = 1;
+    public static final int TZ = 2;
+    public static final int QX = 3;
+    public static final int QY = 4;
+    public static final int QZ = 5;
+    public static final int QW = 6;
+    public static final int SX = 7;
+    public static final int SY = 8;
+    public static final int SZ = 9;
+    public static final int COLUMNS = 10;
+
+    public NativeTransformSoA(int size) {
+        super(COLUMNS, size);
+        fillColumn(QW, 1.0f);
+        fillColumn(SX, 1.0f);
+        fillColumn(SY, 1.0f);
+        fillColumn(SZ, 1.0f);
+    }
+
+    public int size() {
+        return columnLength();
+    }
+
+    public void set(int i, Transformf t) {
+        set(TX, i, t.translation.x);
+        set(TY, i, t.translation.y);
+        set(TZ, i, t.translation.z);
+        set(QX, i, t.rotation.x);
+        set(QY, i, t.rotation.y);
+        set(QZ, i, t.rotation.z);
+        set(QW, i, t.rotation.w);
+        set(SX, i, t.scale.x);
+        set(SY, i, t.scale.y);
+        set(SZ, i, t.scale.z);
+    }
+
+    public Transformf get(int i, Transformf dest) {
+        dest.translation.set(get(TX, i), get(TY, i), get(TZ, i));
+        dest.rotation.set(get(QX, i), get(QY, i), get(QZ, i), get(QW, i));
+        dest.scale.set(get(SX, i), get(SY, i), get(SZ, i));
+        return dest;
+    }
+
+    /**
+     * Bulk-copy elements {@code [start, start + count)} from heap storage.
+     */
+    public void copyFrom(TransformSoA src, int start, int count) {
+        copyColumnFrom(TX, src.tx, start, count);
+        copyColumnFrom(TY, src.ty, start, count);
+        copyColumnFrom(TZ, src.tz, start, count);
+        copyColumnFrom(QX, src.qx, start, count);
+        copyColumnFrom(QY, src.qy, start, count);
+        copyColumnFrom(QZ, src.qz, start, count);
+        copyColumnFrom(QW, src.qw, start, count);
+        copyColumnFrom(SX, src.sx, start, count);
+        copyColumnFrom(SY, src.sy, start, count);
+        copyColumnFrom(SZ, src.sz, start, count);
+    }
+
+    /**
+     * Bulk-copy elements {@code [start, start + count)} into heap storage.
+     */
+    public void copyTo(TransformSoA dst, int start, int count) {
+        copyColumnTo(TX, dst.tx, start, count);
+        copyColumnTo(TY, dst.ty, start, count);
+        copyColumnTo(TZ, dst.tz, start, count);
+        copyColumnTo(QX, dst.qx, start, count);
+        copyColumnTo(QY, dst.qy, start, count);
+        copyColumnTo(QZ, dst.qz, start, count);
+        copyColumnTo(QW, dst.qw, start, count);
+        copyColumnTo(SX, dst.sx, start, count);
+        copyColumnTo(SY, dst.sy, start, count);
+        copyColumnTo(SZ, dst.sz, start, count);
+    }
+}
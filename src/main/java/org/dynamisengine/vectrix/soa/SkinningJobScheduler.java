@@ -0,0 +1,198 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.soa;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+import org.dynamisengine.vectrix.affine.BatchChunks;
+
+/**
+ * Balances linear-blend skinning of many meshes across an {@link Executor}.
+ * <p>
+ * Jobs are laid end to end in one virtual vertex range which is cut into chunks by
+ * {@link BatchChunks#forEachChunkParallel(int, int, Executor, BatchChunks.ChunkConsumer)}. Small meshes are
+ * therefore packed into a shared chunk, while large meshes are split across several workers. Each job keeps
+ * its own palette and influence arrays; output ranges of different jobs must not overlap.
+ */
+public final class SkinningJobScheduler {
+    private float[][] palettes;
+    private int[][] jointIndices;
+    private float[][] jointWeights;
+    private float[][] inX;
+    private float[][] inY;
+    private float[][] inZ;
+    private float[][] outX;
+    private float[][] outY;
+    private float[][] outZ;
+    private int[] starts;
+    private int[] offsets;
+    private int jobCount;
+
+    public SkinningJobScheduler() {
+        this(16);
+    }
+
+    public SkinningJobScheduler(int initialCapacity) {
+        int capacity = java.lang.Math.max(initialCapacity, 1);
+        palettes = new float[capacity][];
+        jointIndices = new int[capacity][];
+        jointWeights = new float[capacity][];
+        inX = new float[capacity][];
+        inY = new float[capacity][];
+        inZ = new float[capacity][];
+        outX = new float[capacity][];
+        outY = new float[capacity][];
+        outZ = new float[capacity][];
+        starts = new int[capacity];
+        offsets = new int[capacity + 1];
+    }
+
+    /**
+     * Queue skinning of vertices {@code [start, end)} with the given 3x4 palette and 4-influence streams.
+     *
+     * @return the job index
+     */
+    public int add(float[] matrixPalette12, int[] jointIndices, float[] jointWeights,
+            float[] inX, float[] inY, float[] inZ, float[] outX, float[] outY, float[] outZ, int start, int end) {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("invalid vertex range [" + start + ", " + end + ")");
+        }
+        if (jointIndices.length < end * 4 || jointWeights.length < end * 4
+                || inX.length < end || inY.length < end || inZ.length < end
+                || outX.length < end || outY.length < end || outZ.length < end) {
+            throw new IllegalArgumentException("vertex range exceeds stream length: " + end);
+        }
+        if ((long) offsets[jobCount] + (end - start) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("total vertex count exceeds int range");
+        }
+        if (jobCount == starts.length) {
+            grow(jobCount * 2);
+        }
+        int job = jobCount++;
+        this.palettes[job] = matrixPalette12;
+        this.jointIndices[job] = jointIndices;
+        this.jointWeights[job] = jointWeights;
+        this.inX[job] = inX;
+        this.inY[job] = inY;
+        this.inZ[job] = inZ;
+        this.outX[job] = outX;
+        this.outY[job] = outY;
+        this.outZ[job] = outZ;
+        starts[job] = start;
+        offsets[jobCount] = offsets[job] + (end - start);
+        return job;
+    }
+
+    /**
+     * Drop all queued jobs, keeping the allocated capacity.
+     */
+    public void clear() {
+        Arrays.fill(palettes, 0, jobCount, null);
+        Arrays.fill(jointIndices, 0, jobCount, null);
+        Arrays.fill(jointWeights, 0, jobCount, null);
+        Arrays.fill(inX, 0, jobCount, null);
+        Arrays.fill(inY, 0, jobCount, null);
+        Arrays.fill(inZ, 0, jobCount, null);
+        Arrays.fill(outX, 0, jobCount, null);
+        Arrays.fill(outY, 0, jobCount, null);
+        Arrays.fill(outZ, 0, jobCount, null);
+        jobCount = 0;
+    }
+
+    public int jobCount() {
+        return jobCount;
+    }
+
+    public int totalVertices() {
+        return offsets[jobCount];
+    }
+
+    /**
+     * Skin all queued jobs on the calling thread.
+     */
+    public void run() {
+        skinRange(0, totalVertices());
+    }
+
+    /**
+     * Skin all queued jobs across {@code executor} with an automatically chosen chunk size.
+     */
+    public void run(Executor executor) {
+        run(executor, 0);
+    }
+
+    /**
+     * Skin all queued jobs across {@code executor}, cutting the combined vertex range into chunks of
+     * {@code chunkSize} vertices (see {@link BatchChunks#parallelChunkSize(int, int, int)}).
+     */
+    public void run(Executor executor, int chunkSize) {
+        BatchChunks.forEachChunkParallel(totalVertices(), chunkSize, executor, this::skinRange);
+    }
+
+    private void skinRange(int startInclusive, int endExclusive) {
+        int job = jobAt(startInclusive);
+        int position = startInclusive;
+        while (position < endExclusive) {
+            int jobEnd = offsets[job + 1];
+            int pieceEnd = java.lang.Math.min(jobEnd, endExclusive);
+            if (pieceEnd > position) {
+                int local = starts[job] - offsets[job];
+                SkinningKernels.skinLbs4MatrixPaletteRange(palettes[job], jointIndices[job], jointWeights[job],
+                        inX[job], inY[job], inZ[job], outX[job], outY[job], outZ[job],
+                        position + local, pieceEnd + local);
+            }
+            position = pieceEnd;
+            job++;
+        }
+    }
+
+    private int jobAt(int vertex) {
+        int lo = 0;
+        int hi = jobCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= vertex) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private void grow(int capacity) {
+        palettes = Arrays.copyOf(palettes, capacity);
+        jointIndices = Arrays.copyOf(jointIndices, capacity);
+        jointWeights = Arrays.copyOf(jointWeights, capacity);
+        inX = Arrays.copyOf(inX, capacity);
+        inY = Arrays.copyOf(inY, capacity);
+        inZ = Arrays.copyOf(inZ, capacity);
+        outX = Arrays.copyOf(outX, capacity);
+        outY = Arrays.copyOf(outY, capacity);
+        outZ = Arrays.copyOf(outZ, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        offsets = Arrays.copyOf(offsets, capacity + 1);
+    }
+}
@@ -25,9 +25,13 @@ package org.dynamisengine.vectrix.soa;
 
 import org.dynamisengine.vectrix.experimental.KernelConfig;
 import org.dynamisengine.vectrix.core.MathMode;
+import org.dynamisengine.vectrix.gpu.PackedNorm;
 import org.dynamisengine.vectrix.simd.SimdSupport;
 //#ifdef __HAS_VECTOR_API__
 import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
 import jdk.incubator.vector.VectorSpecies;
 //#endif
 
@@ -38,8 +42,11 @@ public final class SkinningKernels {
     private static final String PROP_EXPERIMENTAL_SKINNING_SIMD = "vectrix.skinning.simd";
     private static final int SIMD_BATCH_THRESHOLD = 64;
     private static final boolean EXPERIMENTAL_SKINNING_SIMD = KernelConfig.parseBoolean(System.getProperty(PROP_EXPERIMENTAL_SKINNING_SIMD), false);
+    private static final float UNORM8_SCALE = 1.0f / 255.0f;
 //#ifdef __HAS_VECTOR_API__
     private static final VectorSpecies<Float> SKIN_SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> SKIN_INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final ThreadLocal<LaneScratch> LANE_SCRATCH = ThreadLocal.withInitial(LaneScratch::new);
 //#endif
 
     private SkinningKernels() {
@@ -179,6 +186,11 @@ public final class SkinningKernels {
 
     public static void skinDualQuat4(DualQuatSoA joints, int[] jointIndices, float[] jointWeights, float[] inX, float[] inY, float[] inZ,
             float[] outX, float[] outY, float[] outZ, int count) {
+        skinDualQuat4Scalar(joints, jointIndices, jointWeights, inX, inY, inZ, outX, outY, outZ, count);
+    }
+
+    public static void skinDualQuat4Scalar(DualQuatSoA joints, int[] jointIndices, float[] jointWeights, float[] inX, float[] inY, float[] inZ,
+            float[] outX, float[] outY, float[] outZ, int count) {
         for (int i = 0; i < count; i++) {
             int base = i << 2;
             skinDualQuat4Single(joints, jointIndices[base], jointIndices[base + 1], jointIndices[base + 2], jointIndices[base + 3], jointWeights[base], jointWeights[base + 1],
@@ -186,13 +198,100 @@ public final class SkinningKernels {
         }
     }
 
+    /**
+     * Lane-parallel dual-quaternion skinning for packed influences.
+     * <p>
+     * Each block of packed joint indices and weights is split into per-influence lanes, then blended exactly like
+     * {@link #skinDualQuat4SoASimd}. Results are bit-identical to {@link #skinDualQuat4Scalar}.
+     */
+    public static void skinDualQuat4Vector(DualQuatSoA joints, int[] jointIndices, float[] jointWeights, float[] inX, float[] inY, float[] inZ,
+            float[] outX, float[] outY, float[] outZ, int count) {
+//#ifdef __HAS_VECTOR_API__
+        int lanes = SKIN_SPECIES.length();
+        if (lanes <= 1) {
+            skinDualQuat4Scalar(joints, jointIndices, jointWeights, inX, inY, inZ, outX, outY, outZ, count);
+            return;
+        }
+        LaneScratch scratch = LANE_SCRATCH.get();
+        int[] j0 = scratch.j0, j1 = scratch.j1, j2 = scratch.j2, j3 = scratch.j3;
+        float[] w0 = scratch.w0, w1 = scratch.w1, w2 = scratch.w2, w3 = scratch.w3;
+        int i = 0;
+        int limit = count - (count % lanes);
+        for (; i < limit; i += lanes) {
+            for (int lane = 0; lane < lanes; lane++) {
+                int base = (i + lane) << 2;
+                j0[lane] = jointIndices[base];
+                j1[lane] = jointIndices[base + 1];
+                j2[lane] = jointIndices[base + 2];
+                j3[lane] = jointIndices[base + 3];
+                w0[lane] = jointWeights[base];
+                w1[lane] = jointWeights[base + 1];
+                w2[lane] = jointWeights[base + 2];
+                w3[lane] = jointWeights[base + 3];
+            }
+            skinDualQuat4Lanes(joints, j0, j1, j2, j3, w0, w1, w2, w3, 0, inX, inY, inZ, outX, outY, outZ, i);
+        }
+        for (; i < count; i++) {
+            int base = i << 2;
+            skinDualQuat4Single(joints, jointIndices[base], jointIndices[base + 1], jointIndices[base + 2], jointIndices[base + 3], jointWeights[base], jointWeights[base + 1],
+                    jointWeights[base + 2], jointWeights[base + 3], inX[i], inY[i], inZ[i], outX, outY, outZ, i);
+        }
+//#else
+        skinDualQuat4Scalar(joints, jointIndices, jointWeights, inX, inY, inZ, outX, outY, outZ, count);
+//#endif
+    }
+
     public static void skinDualQuat4SoA(DualQuatSoA joints, int[] j0, int[] j1, int[] j2, int[] j3, float[] w0, float[] w1, float[] w2, float[] w3,
             float[] inX, float[] inY, float[] inZ, float[] outX, float[] outY, float[] outZ, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (KernelConfig.mathMode() == MathMode.STRICT
+                || !KernelConfig.simdEnabled()
+                || SimdSupport.backend() != SimdSupport.Backend.VECTOR_API
+                || !EXPERIMENTAL_SKINNING_SIMD
+                || count < SIMD_BATCH_THRESHOLD) {
+            skinDualQuat4SoAScalar(joints, j0, j1, j2, j3, w0, w1, w2, w3, inX, inY, inZ, outX, outY, outZ, count);
+            return;
+        }
+        skinDualQuat4SoASimd(joints, j0, j1, j2, j3, w0, w1, w2, w3, inX, inY, inZ, outX, outY, outZ, count);
+    }
+
+    public static void skinDualQuat4SoAScalar(DualQuatSoA joints, int[] j0, int[] j1, int[] j2, int[] j3, float[] w0, float[] w1, float[] w2, float[] w3,
+            float[] inX, float[] inY, float[] inZ, float[] outX, float[] outY, float[] outZ, int count) {
         for (int i = 0; i < count; i++) {
             skinDualQuat4Single(joints, j0[i], j1[i], j2[i], j3[i], w0[i], w1[i], w2[i], w3[i], inX[i], inY[i], inZ[i], outX, outY, outZ, i);
         }
     }
 
+    /**
+     * Lane-parallel dual-quaternion skinning: joint dual quaternions are gathered per influence, sign-corrected
+     * against the first influence, blended, normalised and applied to the vertex in vector registers.
+     * <p>
+     * Each lane performs the same float operations as {@link #skinDualQuat4SoAScalar}, so results are
+     * bit-identical. Builds without the Vector API fall back to scalar.
+     */
+    public static void skinDualQuat4SoASimd(DualQuatSoA joints, int[] j0, int[] j1, int[] j2, int[] j3, float[] w0, float[] w1, float[] w2, float[] w3,
+            float[] inX, float[] inY, float[] inZ, float[] outX, float[] outY, float[] outZ, int count) {
+//#ifdef __HAS_VECTOR_API__
+        int lanes = SKIN_SPECIES.length();
+        if (lanes <= 1) {
+            skinDualQuat4SoAScalar(joints, j0, j1, j2, j3, w0, w1, w2, w3, inX, inY, inZ, outX, outY, outZ, count);
+            return;
+        }
+        int i = 0;
+        int limit = count - (count % lanes);
+        for (; i < limit; i += lanes) {
+            skinDualQuat4Lanes(joints, j0, j1, j2, j3, w0, w1, w2, w3, i, inX, inY, inZ, outX, outY, outZ, i);
+        }
+        for (; i < count; i++) {
+            skinDualQuat4Single(joints, j0[i], j1[i], j2[i], j3[i], w0[i], w1[i], w2[i], w3[i], inX[i], inY[i], inZ[i], outX, outY, outZ, i);
+        }
+//#else
+        skinDualQuat4SoAScalar(joints, j0, j1, j2, j3, w0, w1, w2, w3, inX, inY, inZ, outX, outY, outZ, count);
+//#endif
+    }
+
     /**
      * Build a rigid matrix palette with 12 floats per joint:
      * [m00 m01 m02 tx  m10 m11 m12 ty  m20 m21 m22 tz]
@@ -243,7 +342,16 @@ public final class SkinningKernels {
      */
     public static void skinLbs4MatrixPalette(float[] matrixPalette12, int[] jointIndices, float[] jointWeights,
             float[] inX, float[] inY, float[] inZ, float[] outX, float[] outY, float[] outZ, int count) {
-        for (int i = 0; i < count; i++) {
+        skinLbs4MatrixPaletteRange(matrixPalette12, jointIndices, jointWeights, inX, inY, inZ, outX, outY, outZ, 0, count);
+    }
+
+    /**
+     * {@link #skinLbs4MatrixPalette(float[], int[], float[], float[], float[], float[], float[], float[], float[], int)}
+     * restricted to vertices {@code [start, end)}; used by {@link SkinningJobScheduler} to split meshes into chunks.
+     */
+    public static void skinLbs4MatrixPaletteRange(float[] matrixPalette12, int[] jointIndices, float[] jointWeights,
+            float[] inX, float[] inY, float[] inZ, float[] outX, float[] outY, float[] outZ, int start, int end) {
+        for (int i = start; i < end; i++) {
             int base = i << 2;
             float x = inX[i];
             float y = inY[i];
@@ -285,6 +393,258 @@ public final class SkinningKernels {
         }
     }
 
+    /**
+     * Pack four joint indices per vertex into unsigned 8-bit lanes for the compressed
+     * {@link #skinLbs4MatrixPalette(float[], byte[], int[], float[], float[], float[], float[], float[], float[], int)} stream.
+     */
+    public static void packJointIndices8(int[] jointIndices, byte[] outJointIndices8, int count) {
+        for (int i = 0, n = count << 2; i < n; i++) {
+            int j = jointIndices[i];
+            if (j < 0 || j > 0xFF) {
+                throw new IllegalArgumentException("Joint index does not fit in 8 bits: " + j);
+            }
+            outJointIndices8[i] = (byte) j;
+        }
+    }
+
+    /**
+     * Pack four joint indices per vertex into unsigned 16-bit lanes for the compressed
+     * {@link #skinLbs4MatrixPalette(float[], short[], int[], float[], float[], float[], float[], float[], float[], int)} stream.
+     */
+    public static void packJointIndices16(int[] jointIndices, short[] outJointIndices16, int count) {
+        for (int i = 0, n = count << 2; i < n; i++) {
+            int j = jointIndices[i];
+            if (j < 0 || j > 0xFFFF) {
+                throw new IllegalArgumentException("Joint index does not fit in 16 bits: " + j);
+            }
+            outJointIndices16[i] = (short) j;
+        }
+    }
+
+    /**
+     * Quantize four weights per vertex to one {@link PackedNorm#packUnorm8x4 unorm8x4} word.
+     * <p>
+     * The rounding residual is folded into the largest weight so the quantized weights of a normalized vertex still
+     * sum to exactly 255.
+     */
+    public static void packWeightsUnorm8x4(float[] jointWeights, int[] outPackedWeights, int count) {
+        for (int i = 0; i < count; i++) {
+            int base = i << 2;
+            int q0 = PackedNorm.packUnorm8(jointWeights[base]);
+            int q1 = PackedNorm.packUnorm8(jointWeights[base + 1]);
+            int q2 = PackedNorm.packUnorm8(jointWeights[base + 2]);
+            int q3 = PackedNorm.packUnorm8(jointWeights[base + 3]);
+            int sum = q0 + q1 + q2 + q3;
+            int target = PackedNorm.packUnorm8(jointWeights[base] + jointWeights[base + 1] + jointWeights[base + 2] + jointWeights[base + 3]);
+            int residual = target - sum;
+            if (residual != 0) {
+                if (q0 >= q1 && q0 >= q2 && q0 >= q3) {
+                    q0 = clampUnorm8(q0 + residual);
+                } else if (q1 >= q2 && q1 >= q3) {
+                    q1 = clampUnorm8(q1 + residual);
+                } else if (q2 >= q3) {
+                    q2 = clampUnorm8(q2 + residual);
+                } else {
+                    q3 = clampUnorm8(q3 + residual);
+                }
+            }
+            outPackedWeights[i] = q0 | (q1 << 8) | (q2 << 16) | (q3 << 24);
+        }
+    }
+
+    /**
+     * Matrix-palette skinning from a compressed influence stream: 8-bit joint indices (4 per vertex) and
+     * {@link #packWeightsUnorm8x4 unorm8x4} weights, 8 bytes per vertex instead of 32. Influences are decoded
+     * inside the loop.
+     */
+    public static void skinLbs4MatrixPalette(float[] matrixPalette12, byte[] jointIndices8, int[] packedWeights,
+            float[] inX, float[] inY, float[] inZ, float[] outX, float[] outY, float[] outZ, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (KernelConfig.mathMode() == MathMode.STRICT
+                || !KernelConfig.simdEnabled()
+                || SimdSupport.backend() != SimdSupport.Backend.VECTOR_API
+                || !EXPERIMENTAL_SKINNING_SIMD
+                || count < SIMD_BATCH_THRESHOLD) {
+            skinLbs4MatrixPaletteScalar(matrixPalette12, jointIndices8, null, packedWeights, inX, inY, inZ, outX, outY, outZ, 0, count);
+            return;
+        }
+        skinLbs4MatrixPaletteVector(matrixPalette12, jointIndices8, null, packedWeights, inX, inY, inZ, outX, outY, outZ, count);
+    }
+
+    /**
+     * Matrix-palette skinning from a compressed influence stream with 16-bit joint indices (4 per vertex) and
+     * {@link #packWeightsUnorm8x4 unorm8x4} weights, 12 bytes per vertex.
+     */
+    public static void skinLbs4MatrixPalette(float[] matrixPalette12, short[] jointIndices16, int[] packedWeights,
+            float[] inX, float[] inY, float[] inZ, float[] outX, float[] outY, float[] outZ, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (KernelConfig.mathMode() == MathMode.STRICT
+                || !KernelConfig.simdEnabled()
+                || SimdSupport.backend() != SimdSupport.Backend.VECTOR_API
+                || !EXPERIMENTAL_SKINNING_SIMD
+                || count < SIMD_BATCH_THRESHOLD) {
+            skinLbs4MatrixPaletteScalar(matrixPalette12, null, jointIndices16, packedWeights, inX, inY, inZ, outX, outY, outZ, 0, count);
+            return;
+        }
+        skinLbs4MatrixPaletteVector(matrixPalette12, null, jointIndices16, packedWeights, inX, inY, inZ, outX, outY, outZ, count);
+    }
+
+    /**
+     * Force the scalar kernel for the 8-bit compressed influence stream.
+     */
+    public static void skinLbs4MatrixPaletteScalar(float[] matrixPalette12, byte[] jointIndices8, int[] packedWeights,
+            float[] inX, float[] inY, float[] inZ, float[] outX, float[] outY, float[] outZ, int count) {
+        skinLbs4MatrixPaletteScalar(matrixPalette12, jointIndices8, null, packedWeights, inX, inY, inZ, outX, outY, outZ, 0, count);
+    }
+
+    /**
+     * Force the scalar kernel for the 16-bit compressed influence stream.
+     */
+    public static void skinLbs4MatrixPaletteScalar(float[] matrixPalette12, short[] jointIndices16, int[] packedWeights,
+            float[] inX, float[] inY, float[] inZ, float[] outX, float[] outY, float[] outZ, int count) {
+        skinLbs4MatrixPaletteScalar(matrixPalette12, null, jointIndices16, packedWeights, inX, inY, inZ, outX, outY, outZ, 0, count);
+    }
+
+    /**
+     * Force the lane-parallel kernel for the 8-bit compressed influence stream: weights are widened from unorm8 in
+     * vector registers and palette rows are gathered per influence. Results are bit-identical to the scalar kernel.
+     */
+    public static void skinLbs4MatrixPaletteVector(float[] matrixPalette12, byte[] jointIndices8, int[] packedWeights,
+            float[] inX, float[] inY, float[] inZ, float[] outX, float[] outY, float[] outZ, int count) {
+        skinLbs4MatrixPaletteVector(matrixPalette12, jointIndices8, null, packedWeights, inX, inY, inZ, outX, outY, outZ, count);
+    }
+
+    /**
+     * Force the lane-parallel kernel for the 16-bit compressed influence stream.
+     */
+    public static void skinLbs4MatrixPaletteVector(float[] matrixPalette12, short[] jointIndices16, int[] packedWeights,
+            float[] inX, float[] inY, float[] inZ, float[] outX, float[] outY, float[] outZ, int count) {
+        skinLbs4MatrixPaletteVector(matrixPalette12, null, jointIndices16, packedWeights, inX, inY, inZ, outX, outY, outZ, count);
+    }
+
+    private static void skinLbs4MatrixPaletteVector(float[] matrixPalette12, byte[] jointIndices8, short[] jointIndices16, int[] packedWeights,
+            float[] inX, float[] inY, float[] inZ, float[] outX, float[] outY, float[] outZ, int count) {
+//#ifdef __HAS_VECTOR_API__
+        int lanes = SKIN_SPECIES.length();
+        if (lanes <= 1 || SKIN_INT_SPECIES.length() != lanes) {
+            skinLbs4MatrixPaletteScalar(matrixPalette12, jointIndices8, jointIndices16, packedWeights, inX, inY, inZ, outX, outY, outZ, 0, count);
+            return;
+        }
+        // Palette offsets reuse the per-thread influence index lanes.
+        LaneScratch scratch = LANE_SCRATCH.get();
+        int[] o0 = scratch.j0, o1 = scratch.j1, o2 = scratch.j2, o3 = scratch.j3;
+        FloatVector scale = FloatVector.broadcast(SKIN_SPECIES, UNORM8_SCALE);
+        int i = 0;
+        int limit = count - (count % lanes);
+        for (; i < limit; i += lanes) {
+            for (int lane = 0; lane < lanes; lane++) {
+                int base = (i + lane) << 2;
+                if (jointIndices8 != null) {
+                    o0[lane] = (jointIndices8[base] & 0xFF) * 12;
+                    o1[lane] = (jointIndices8[base + 1] & 0xFF) * 12;
+                    o2[lane] = (jointIndices8[base + 2] & 0xFF) * 12;
+                    o3[lane] = (jointIndices8[base + 3] & 0xFF) * 12;
+                } else {
+                    o0[lane] = (jointIndices16[base] & 0xFFFF) * 12;
+                    o1[lane] = (jointIndices16[base + 1] & 0xFFFF) * 12;
+                    o2[lane] = (jointIndices16[base + 2] & 0xFFFF) * 12;
+                    o3[lane] = (jointIndices16[base + 3] & 0xFFFF) * 12;
+                }
+            }
+            IntVector pw = IntVector.fromArray(SKIN_INT_SPECIES, packedWeights, i);
+            FloatVector w0 = ((FloatVector) pw.and(0xFF).convert(VectorOperators.I2F, 0)).mul(scale);
+            FloatVector w1 = ((FloatVector) pw.lanewise(VectorOperators.LSHR, 8).and(0xFF).convert(VectorOperators.I2F, 0)).mul(scale);
+            FloatVector w2 = ((FloatVector) pw.lanewise(VectorOperators.LSHR, 16).and(0xFF).convert(VectorOperators.I2F, 0)).mul(scale);
+            FloatVector w3 = ((FloatVector) pw.lanewise(VectorOperators.LSHR, 24).convert(VectorOperators.I2F, 0)).mul(scale);
+            FloatVector x = FloatVector.fromArray(SKIN_SPECIES, inX, i);
+            FloatVector y = FloatVector.fromArray(SKIN_SPECIES, inY, i);
+            FloatVector z = FloatVector.fromArray(SKIN_SPECIES, inZ, i);
+            FloatVector ox = FloatVector.zero(SKIN_SPECIES);
+            FloatVector oy = FloatVector.zero(SKIN_SPECIES);
+            FloatVector oz = FloatVector.zero(SKIN_SPECIES);
+            ox = ox.add(paletteRow(matrixPalette12, o0, 0, x, y, z).mul(w0));
+            oy = oy.add(paletteRow(matrixPalette12, o0, 4, x, y, z).mul(w0));
+            oz = oz.add(paletteRow(matrixPalette12, o0, 8, x, y, z).mul(w0));
+            ox = ox.add(paletteRow(matrixPalette12, o1, 0, x, y, z).mul(w1));
+            oy = oy.add(paletteRow(matrixPalette12, o1, 4, x, y, z).mul(w1));
+            oz = oz.add(paletteRow(matrixPalette12, o1, 8, x, y, z).mul(w1));
+            ox = ox.add(paletteRow(matrixPalette12, o2, 0, x, y, z).mul(w2));
+            oy = oy.add(paletteRow(matrixPalette12, o2, 4, x, y, z).mul(w2));
+            oz = oz.add(paletteRow(matrixPalette12, o2, 8, x, y, z).mul(w2));
+            ox = ox.add(paletteRow(matrixPalette12, o3, 0, x, y, z).mul(w3));
+            oy = oy.add(paletteRow(matrixPalette12, o3, 4, x, y, z).mul(w3));
+            oz = oz.add(paletteRow(matrixPalette12, o3, 8, x, y, z).mul(w3));
+            ox.intoArray(outX, i);
+            oy.intoArray(outY, i);
+            oz.intoArray(outZ, i);
+        }
+        skinLbs4MatrixPaletteScalar(matrixPalette12, jointIndices8, jointIndices16, packedWeights, inX, inY, inZ, outX, outY, outZ, i, count);
+//#else
+        skinLbs4MatrixPaletteScalar(matrixPalette12, jointIndices8, jointIndices16, packedWeights, inX, inY, inZ, outX, outY, outZ, 0, count);
+//#endif
+    }
+
+    private static void skinLbs4MatrixPaletteScalar(float[] matrixPalette12, byte[] jointIndices8, short[] jointIndices16, int[] packedWeights,
+            float[] inX, float[] inY, float[] inZ, float[] outX, float[] outY, float[] outZ, int start, int end) {
+        for (int i = start; i < end; i++) {
+            int base = i << 2;
+            float x = inX[i];
+            float y = inY[i];
+            float z = inZ[i];
+
+            int j0, j1, j2, j3;
+            if (jointIndices8 != null) {
+                j0 = (jointIndices8[base] & 0xFF) * 12;
+                j1 = (jointIndices8[base + 1] & 0xFF) * 12;
+                j2 = (jointIndices8[base + 2] & 0xFF) * 12;
+                j3 = (jointIndices8[base + 3] & 0xFF) * 12;
+            } else {
+                j0 = (jointIndices16[base] & 0xFFFF) * 12;
+                j1 = (jointIndices16[base + 1] & 0xFFFF) * 12;
+                j2 = (jointIndices16[base + 2] & 0xFFFF) * 12;
+                j3 = (jointIndices16[base + 3] & 0xFFFF) * 12;
+            }
+
+            int pw = packedWeights[i];
+            float w0 = (pw & 0xFF) * UNORM8_SCALE;
+            float w1 = ((pw >>> 8) & 0xFF) * UNORM8_SCALE;
+            float w2 = ((pw >>> 16) & 0xFF) * UNORM8_SCALE;
+            float w3 = (pw >>> 24) * UNORM8_SCALE;
+
+            float ox = 0.0f;
+            float oy = 0.0f;
+            float oz = 0.0f;
+
+            ox += (matrixPalette12[j0] * x + matrixPalette12[j0 + 1] * y + matrixPalette12[j0 + 2] * z + matrixPalette12[j0 + 3]) * w0;
+            oy += (matrixPalette12[j0 + 4] * x + matrixPalette12[j0 + 5] * y + matrixPalette12[j0 + 6] * z + matrixPalette12[j0 + 7]) * w0;
+            oz += (matrixPalette12[j0 + 8] * x + matrixPalette12[j0 + 9] * y + matrixPalette12[j0 + 10] * z + matrixPalette12[j0 + 11]) * w0;
+
+            ox += (matrixPalette12[j1] * x + matrixPalette12[j1 + 1] * y + matrixPalette12[j1 + 2] * z + matrixPalette12[j1 + 3]) * w1;
+            oy += (matrixPalette12[j1 + 4] * x + matrixPalette12[j1 + 5] * y + matrixPalette12[j1 + 6] * z + matrixPalette12[j1 + 7]) * w1;
+            oz += (matrixPalette12[j1 + 8] * x + matrixPalette12[j1 + 9] * y + matrixPalette12[j1 + 10] * z + matrixPalette12[j1 + 11]) * w1;
+
+            ox += (matrixPalette12[j2] * x + matrixPalette12[j2 + 1] * y + matrixPalette12[j2 + 2] * z + matrixPalette12[j2 + 3]) * w2;
+            oy += (matrixPalette12[j2 + 4] * x + matrixPalette12[j2 + 5] * y + matrixPalette12[j2 + 6] * z + matrixPalette12[j2 + 7]) * w2;
+            oz += (matrixPalette12[j2 + 8] * x + matrixPalette12[j2 + 9] * y + matrixPalette12[j2 + 10] * z + matrixPalette12[j2 + 11]) * w2;
+
+            ox += (matrixPalette12[j3] * x + matrixPalette12[j3 + 1] * y + matrixPalette12[j3 + 2] * z + matrixPalette12[j3 + 3]) * w3;
+            oy += (matrixPalette12[j3 + 4] * x + matrixPalette12[j3 + 5] * y + matrixPalette12[j3 + 6] * z + matrixPalette12[j3 + 7]) * w3;
+            oz += (matrixPalette12[j3 + 8] * x + matrixPalette12[j3 + 9] * y + matrixPalette12[j3 + 10] * z + matrixPalette12[j3 + 11]) * w3;
+
+            outX[i] = ox;
+            outY[i] = oy;
+            outZ[i] = oz;
+        }
+    }
+
+    private static int clampUnorm8(int q) {
+        return q < 0 ? 0 : (q > 0xFF ? 0xFF : q);
+    }
+
     private static void skinLbs4Single(TransformSoA joints, int j0, int j1, int j2, int j3, float w0, float w1, float w2, float w3, float x, float y,
             float z, float[] outX, float[] outY, float[] outZ, int i) {
         float ox = 0.0f;
@@ -413,6 +773,105 @@ public final class SkinningKernels {
         outZ[i] = rz + tz;
     }
 
+//#ifdef __HAS_VECTOR_API__
+    /**
+     * Skin one block of {@code SKIN_SPECIES.length()} vertices starting at {@code i}; influences are read from
+     * {@code j*} / {@code w*} starting at {@code influence}.
+     */
+    private static void skinDualQuat4Lanes(DualQuatSoA joints, int[] j0, int[] j1, int[] j2, int[] j3, float[] w0, float[] w1, float[] w2, float[] w3,
+            int influence, float[] inX, float[] inY, float[] inZ, float[] outX, float[] outY, float[] outZ, int i) {
+        FloatVector refX = FloatVector.fromArray(SKIN_SPECIES, joints.rx, 0, j0, influence);
+        FloatVector refY = FloatVector.fromArray(SKIN_SPECIES, joints.ry, 0, j0, influence);
+        FloatVector refZ = FloatVector.fromArray(SKIN_SPECIES, joints.rz, 0, j0, influence);
+        FloatVector refW = FloatVector.fromArray(SKIN_SPECIES, joints.rw, 0, j0, influence);
+        FloatVector sw0 = signedWeight(refX, refY, refZ, refW, refX, refY, refZ, refW, FloatVector.fromArray(SKIN_SPECIES, w0, influence));
+
+        FloatVector arx = refX.mul(sw0);
+        FloatVector ary = refY.mul(sw0);
+        FloatVector arz = refZ.mul(sw0);
+        FloatVector arw = refW.mul(sw0);
+        FloatVector adx = FloatVector.fromArray(SKIN_SPECIES, joints.dx, 0, j0, influence).mul(sw0);
+        FloatVector ady = FloatVector.fromArray(SKIN_SPECIES, joints.dy, 0, j0, influence).mul(sw0);
+        FloatVector adz = FloatVector.fromArray(SKIN_SPECIES, joints.dz, 0, j0, influence).mul(sw0);
+        FloatVector adw = FloatVector.fromArray(SKIN_SPECIES, joints.dw, 0, j0, influence).mul(sw0);
+
+        for (int k = 1; k < 4; k++) {
+            int[] jk = k == 1 ? j1 : k == 2 ? j2 : j3;
+            float[] wk = k == 1 ? w1 : k == 2 ? w2 : w3;
+            FloatVector rx = FloatVector.fromArray(SKIN_SPECIES, joints.rx, 0, jk, influence);
+            FloatVector ry = FloatVector.fromArray(SKIN_SPECIES, joints.ry, 0, jk, influence);
+            FloatVector rz = FloatVector.fromArray(SKIN_SPECIES, joints.rz, 0, jk, influence);
+            FloatVector rw = FloatVector.fromArray(SKIN_SPECIES, joints.rw, 0, jk, influence);
+            FloatVector sw = signedWeight(refX, refY, refZ, refW, rx, ry, rz, rw, FloatVector.fromArray(SKIN_SPECIES, wk, influence));
+            arx = arx.add(rx.mul(sw));
+            ary = ary.add(ry.mul(sw));
+            arz = arz.add(rz.mul(sw));
+            arw = arw.add(rw.mul(sw));
+            adx = adx.add(FloatVector.fromArray(SKIN_SPECIES, joints.dx, 0, jk, influence).mul(sw));
+            ady = ady.add(FloatVector.fromArray(SKIN_SPECIES, joints.dy, 0, jk, influence).mul(sw));
+            adz = adz.add(FloatVector.fromArray(SKIN_SPECIES, joints.dz, 0, jk, influence).mul(sw));
+            adw = adw.add(FloatVector.fromArray(SKIN_SPECIES, joints.dw, 0, jk, influence).mul(sw));
+        }
+
+        FloatVector x = FloatVector.fromArray(SKIN_SPECIES, inX, i);
+        FloatVector y = FloatVector.fromArray(SKIN_SPECIES, inY, i);
+        FloatVector z = FloatVector.fromArray(SKIN_SPECIES, inZ, i);
+        FloatVector norm2 = arx.mul(arx).add(ary.mul(ary)).add(arz.mul(arz)).add(arw.mul(arw));
+        VectorMask<Float> degenerate = norm2.compare(VectorOperators.EQ, 0.0f);
+        FloatVector invNorm = FloatVector.broadcast(SKIN_SPECIES, 1.0f).div(norm2.sqrt());
+        arx = arx.mul(invNorm);
+        ary = ary.mul(invNorm);
+        arz = arz.mul(invNorm);
+        arw = arw.mul(invNorm);
+        adx = adx.mul(invNorm);
+        ady = ady.mul(invNorm);
+        adz = adz.mul(invNorm);
+        adw = adw.mul(invNorm);
+
+        FloatVector tx2 = ary.mul(z).sub(arz.mul(y)).mul(2.0f);
+        FloatVector ty2 = arz.mul(x).sub(arx.mul(z)).mul(2.0f);
+        FloatVector tz2 = arx.mul(y).sub(ary.mul(x)).mul(2.0f);
+        FloatVector rx = x.add(arw.mul(tx2)).add(ary.mul(tz2).sub(arz.mul(ty2)));
+        FloatVector ry = y.add(arw.mul(ty2)).add(arz.mul(tx2).sub(arx.mul(tz2)));
+        FloatVector rz = z.add(arw.mul(tz2)).add(arx.mul(ty2).sub(ary.mul(tx2)));
+
+        FloatVector tx = adw.neg().mul(arx).add(adx.mul(arw)).sub(ady.mul(arz)).add(adz.mul(ary)).mul(2.0f);
+        FloatVector ty = adw.neg().mul(ary).add(adx.mul(arz)).add(ady.mul(arw)).sub(adz.mul(arx)).mul(2.0f);
+        FloatVector tz = adw.neg().mul(arz).sub(adx.mul(ary)).add(ady.mul(arx)).add(adz.mul(arw)).mul(2.0f);
+
+        rx.add(tx).blend(x, degenerate).intoArray(outX, i);
+        ry.add(ty).blend(y, degenerate).intoArray(outY, i);
+        rz.add(tz).blend(z, degenerate).intoArray(outZ, i);
+    }
+
+    private static FloatVector paletteRow(float[] matrixPalette12, int[] jointOffsets, int row, FloatVector x, FloatVector y, FloatVector z) {
+        return FloatVector.fromArray(SKIN_SPECIES, matrixPalette12, row, jointOffsets, 0).mul(x)
+                .add(FloatVector.fromArray(SKIN_SPECIES, matrixPalette12, row + 1, jointOffsets, 0).mul(y))
+                .add(FloatVector.fromArray(SKIN_SPECIES, matrixPalette12, row + 2, jointOffsets, 0).mul(z))
+                .add(FloatVector.fromArray(SKIN_SPECIES, matrixPalette12, row + 3, jointOffsets, 0));
+    }
+
+    /**
+     * Per-thread lane buffers for splitting packed influences or palette offsets, reused across calls.
+     */
+    private static final class LaneScratch {
+        final int[] j0 = new int[SKIN_SPECIES.length()];
+        final int[] j1 = new int[SKIN_SPECIES.length()];
+        final int[] j2 = new int[SKIN_SPECIES.length()];
+        final int[] j3 = new int[SKIN_SPECIES.length()];
+        final float[] w0 = new float[SKIN_SPECIES.length()];
+        final float[] w1 = new float[SKIN_SPECIES.length()];
+        final float[] w2 = new float[SKIN_SPECIES.length()];
+        final float[] w3 = new float[SKIN_SPECIES.length()];
+    }
+
+    private static FloatVector signedWeight(FloatVector refX, FloatVector refY, FloatVector refZ, FloatVector refW,
+            FloatVector rx, FloatVector ry, FloatVector rz, FloatVector rw, FloatVector weight) {
+        FloatVector dot = refX.mul(rx).add(refY.mul(ry)).add(refZ.mul(rz)).add(refW.mul(rw));
+        return weight.blend(weight.neg(), dot.compare(VectorOperators.LT, 0.0f));
+    }
+//#endif
+
     private static float signForReference(DualQuatSoA joints, float refX, float refY, float refZ, float refW, int j) {
         float rx = joints.rx[j], ry = joints.ry[j], rz = joints.rz[j], rw = joints.rw[j];
         float dot = refX * rx + refY * ry + refZ * rz + refW * rw;
@@ -0,0 +1,166 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.soa;
+
+import java.util.Arrays;
+
+import org.dynamisengine.vectrix.affine.BatchChunks;
+import org.dynamisengine.vectrix.affine.TransformKernels;
+
+/**
+ * Incremental local-to-world updates for a {@link TransformHierarchy}.
+ * <p>
+ * Slots whose local transform changed are marked dirty; {@link #update(TransformSoA, TransformSoA)} spreads
+ * dirtiness to all descendants and recomposes only that subset, so the cost follows the number of changed
+ * slots rather than the hierarchy size. The recomposed slots are reported as merged index ranges for
+ * downstream consumers such as instance uploads.
+ */
+public final class TransformDirtyTracker {
+    private final TransformHierarchy hierarchy;
+    private final long[] dirtyBits;
+    private final int[] dirtySlots;
+    private final int[] rangeStarts;
+    private final int[] rangeEnds;
+    private int dirtyCount;
+    private int rangeCount;
+
+    public TransformDirtyTracker(TransformHierarchy hierarchy) {
+        int size = hierarchy.size();
+        this.hierarchy = hierarchy;
+        this.dirtyBits = new long[(size + 63) >>> 6];
+        this.dirtySlots = new int[size];
+        this.rangeStarts = new int[size];
+        this.rangeEnds = new int[size];
+    }
+
+    public TransformHierarchy hierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * Mark the local transform at hierarchy {@code slot} as changed.
+     */
+    public void markDirty(int slot) {
+        long bit = 1L << slot;
+        int word = slot >>> 6;
+        if ((dirtyBits[word] & bit) == 0L) {
+            dirtyBits[word] |= bit;
+            dirtySlots[dirtyCount++] = slot;
+        }
+    }
+
+    /**
+     * Mark every slot as changed, e.g. before the first update.
+     */
+    public void markAllDirty() {
+        for (int slot = 0, size = hierarchy.size(); slot < size; slot++) {
+            markDirty(slot);
+        }
+    }
+
+    public boolean isDirty(int slot) {
+        return (dirtyBits[slot >>> 6] & (1L << slot)) != 0L;
+    }
+
+    /**
+     * Number of slots explicitly marked since the last update, before propagation to descendants.
+     */
+    public int dirtyCount() {
+        return dirtyCount;
+    }
+
+    /**
+     * Recompose the world transforms of all dirty slots and their descendants, then clear the dirty set.
+     *
+     * @return number of recomposed slots
+     */
+    public int update(TransformSoA locals, TransformSoA worlds) {
+        for (int i = 0; i < dirtyCount; i++) {
+            int slot = dirtySlots[i];
+            for (int c = hierarchy.childStart(slot), end = hierarchy.childEnd(slot); c < end; c++) {
+                markDirty(c);
+            }
+        }
+        int n = dirtyCount;
+        Arrays.sort(dirtySlots, 0, n);
+        rangeCount = 0;
+        int level = 0;
+        int i = 0;
+        while (i < n) {
+            int start = dirtySlots[i++];
+            while (hierarchy.levelEnd(level) <= start) {
+                level++;
+            }
+            int levelEnd = hierarchy.levelEnd(level);
+            int end = start + 1;
+            while (i < n && dirtySlots[i] == end && end < levelEnd) {
+                end++;
+                i++;
+            }
+            TransformKernels.composeHierarchyRange(hierarchy, locals, worlds, start, end);
+            if (rangeCount > 0 && rangeEnds[rangeCount - 1] == start) {
+                rangeEnds[rangeCount - 1] = end;
+            } else {
+                rangeStarts[rangeCount] = start;
+                rangeEnds[rangeCount++] = end;
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            int slot = dirtySlots[k];
+            dirtyBits[slot >>> 6] &= ~(1L << slot);
+        }
+        dirtyCount = 0;
+        return n;
+    }
+
+    /**
+     * Number of merged slot ranges recomposed by the last {@link #update(TransformSoA, TransformSoA)}.
+     */
+    public int changedRangeCount() {
+        return rangeCount;
+    }
+
+    /**
+     * First slot (inclusive) of changed range {@code range}.
+     */
+    public int changedRangeStart(int range) {
+        return rangeStarts[range];
+    }
+
+    /**
+     * Last slot (exclusive) of changed range {@code range}.
+     */
+    public int changedRangeEnd(int range) {
+        return rangeEnds[range];
+    }
+
+    /**
+     * Visit the slot ranges recomposed by the last {@link #update(TransformSoA, TransformSoA)} in ascending order.
+     */
+    public void forEachChangedRange(BatchChunks.ChunkConsumer consumer) {
+        for (int r = 0; r < rangeCount; r++) {
+            consumer.accept(rangeStarts[r], rangeEnds[r]);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.soa;
+
+/**
+ * Breadth-first ordered parent topology for batch local-to-world propagation.
+ * <p>
+ * Nodes are assigned hierarchy slots so that every depth level occupies a contiguous slot range and every
+ * parent slot precedes its children. Transform data laid out in slot order (see {@link #order()}) can then be
+ * propagated one level at a time without gathering parents into temporary storage. The children of a slot
+ * also occupy a contiguous slot range, which lets descendants be visited without per-node lists.
+ */
+public final class TransformHierarchy {
+    private final int[] order;
+    private final int[] slotOf;
+    private final int[] parents;
+    private final int[] childOffsets;
+    private final int[] levelOffsets;
+
+    /**
+     * Build a hierarchy from {@code parentIndices}, where {@code parentIndices[i]} is the parent node of node
+     * {@code i} or {@code -1} for roots.
+     */
+    public TransformHierarchy(int[] parentIndices) {
+        this(parentIndices, parentIndices.length);
+    }
+
+    /**
+     * Build a hierarchy from the first {@code count} entries of {@code parentIndices}.
+     */
+    public TransformHierarchy(int[] parentIndices, int count) {
+        if (count < 0 || count > parentIndices.length) {
+            throw new IllegalArgumentException("count");
+        }
+        int[] sourceChildOffsets = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            int p = parentIndices[i];
+            if (p < -1 || p >= count || p == i) {
+                throw new IllegalArgumentException("Invalid parent index " + p + " for node " + i);
+            }
+            if (p >= 0) {
+                sourceChildOffsets[p + 1]++;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            sourceChildOffsets[i + 1] += sourceChildOffsets[i];
+        }
+        int[] children = new int[sourceChildOffsets[count]];
+        int[] cursor = new int[count];
+        System.arraycopy(sourceChildOffsets, 0, cursor, 0, count);
+        for (int i = 0; i < count; i++) {
+            int p = parentIndices[i];
+            if (p >= 0) {
+                children[cursor[p]++] = i;
+            }
+        }
+
+        order = new int[count];
+        slotOf = new int[count];
+        parents = new int[count];
+        childOffsets = new int[count + 1];
+        int tail = 0;
+        for (int i = 0; i < count; i++) {
+            if (parentIndices[i] < 0) {
+                slotOf[i] = tail;
+                parents[tail] = -1;
+                order[tail++] = i;
+            }
+        }
+        int[] offsets = new int[count + 1];
+        int levels = 0;
+        int head = 0;
+        while (head < tail) {
+            offsets[levels++] = head;
+            int levelEnd = tail;
+            for (; head < levelEnd; head++) {
+                int node = order[head];
+                childOffsets[head] = tail;
+                for (int c = sourceChildOffsets[node], end = sourceChildOffsets[node + 1]; c < end; c++) {
+                    int child = children[c];
+                    slotOf[child] = tail;
+                    parents[tail] = head;
+                    order[tail++] = child;
+                }
+            }
+        }
+        if (tail != count) {
+            throw new IllegalArgumentException("Parent indices contain a cycle");
+        }
+        childOffsets[count] = count;
+        offsets[levels] = count;
+        levelOffsets = new int[levels + 1];
+        System.arraycopy(offsets, 0, levelOffsets, 0, levels + 1);
+    }
+
+    public int size() {
+        return order.length;
+    }
+
+    public int levelCount() {
+        return levelOffsets.length - 1;
+    }
+
+    /**
+     * First slot (inclusive) of depth level {@code level}.
+     */
+    public int levelStart(int level) {
+        return levelOffsets[level];
+    }
+
+    /**
+     * Last slot (exclusive) of depth level {@code level}.
+     */
+    public int levelEnd(int level) {
+        return levelOffsets[level + 1];
+    }
+
+    /**
+     * First child slot (inclusive) of {@code slot}.
+     */
+    public int childStart(int slot) {
+        return childOffsets[slot];
+    }
+
+    /**
+     * Last child slot (exclusive) of {@code slot}.
+     */
+    public int childEnd(int slot) {
+        return childOffsets[slot + 1];
+    }
+
+    /**
+     * Backing slot-to-node mapping: {@code order()[slot]} is the source node stored at {@code slot}.
+     */
+    public int[] order() {
+        return order;
+    }
+
+    /**
+     * Backing node-to-slot mapping, the inverse of {@link #order()}.
+     */
+    public int[] slotOf() {
+        return slotOf;
+    }
+
+    /**
+     * Backing parent-slot array in slot order; roots hold {@code -1}.
+     */
+    public int[] parents() {
+        return parents;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.soa;
+
+/**
+ * Structure-of-arrays storage for triangles as a first vertex and the two edges leaving it, the form consumed
+ * by Möller–Trumbore ray tests.
+ */
+public class TriangleSoA {
+    public final float[] v0X;
+    public final float[] v0Y;
+    public final float[] v0Z;
+    public final float[] edge1X;
+    public final float[] edge1Y;
+    public final float[] edge1Z;
+    public final float[] edge2X;
+    public final float[] edge2Y;
+    public final float[] edge2Z;
+
+    public TriangleSoA(int size) {
+        v0X = new float[size];
+        v0Y = new float[size];
+        v0Z = new float[size];
+        edge1X = new float[size];
+        edge1Y = new float[size];
+        edge1Z = new float[size];
+        edge2X = new float[size];
+        edge2Y = new float[size];
+        edge2Z = new float[size];
+    }
+
+    /**
+     * Create storage for an indexed mesh laid out like {@code TriangleBvh} input: {@code x, y, z} triples in
+     * {@code positions} and three vertex indices per triangle in {@code indices}.
+     */
+    public static TriangleSoA fromMesh(float[] positions, int[] indices, int triangleCount) {
+        if (triangleCount < 0 || triangleCount * 3 > indices.length) {
+            throw new IllegalArgumentException("triangleCount out of range: " + triangleCount);
+        }
+        TriangleSoA triangles = new TriangleSoA(triangleCount);
+        for (int t = 0; t < triangleCount; t++) {
+            int a = indices[t * 3] * 3;
+            int b = indices[t * 3 + 1] * 3;
+            int c = indices[t * 3 + 2] * 3;
+            triangles.set(t, positions[a], positions[a + 1], positions[a + 2],
+                    positions[b], positions[b + 1], positions[b + 2],
+                    positions[c], positions[c + 1], positions[c + 2]);
+        }
+        return triangles;
+    }
+
+    public int size() {
+        return v0X.length;
+    }
+
+    public void set(int i, float v0X, float v0Y, float v0Z, float v1X, float v1Y, float v1Z, float v2X, float v2Y, float v2Z) {
+        this.v0X[i] = v0X;
+        this.v0Y[i] = v0Y;
+        this.v0Z[i] = v0Z;
+        this.edge1X[i] = v1X - v0X;
+        this.edge1Y[i] = v1Y - v0Y;
+        this.edge1Z[i] = v1Z - v0Z;
+        this.edge2X[i] = v2X - v0X;
+        this.edge2Y[i] = v2Y - v0Y;
+        this.edge2Z[i] = v2Z - v0Z;
+    }
+}
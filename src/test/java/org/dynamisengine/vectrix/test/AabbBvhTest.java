@@ -0,0 +1,282 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.dynamisengine.vectrix.core.Matrix4f;
+import org.dynamisengine.vectrix.geometry.AabbBvh;
+import org.dynamisengine.vectrix.geometry.BvhFrustumCuller;
+import org.dynamisengine.vectrix.geometry.CullingKernels;
+import org.dynamisengine.vectrix.geometry.FrustumIntersection;
+import org.dynamisengine.vectrix.geometry.FrustumPlanes;
+import org.dynamisengine.vectrix.geometry.Intersectionf;
+import org.dynamisengine.vectrix.geometry.LinearBvhBuilder;
+import org.dynamisengine.vectrix.soa.AABBSoA;
+
+class AabbBvhTest {
+    @Test
+    void queriesMatchLinearScan() {
+        AABBSoA boxes = randomBoxes(3000, 42);
+        AabbBvh bvh = new AabbBvh().build(boxes, boxes.size());
+        assertValidTree(bvh, boxes.size());
+        assertQueriesMatchLinearScan(bvh, boxes, 43);
+    }
+
+    @Test
+    void refitKeepsQueriesExactAfterBoxesMove() {
+        AABBSoA boxes = randomBoxes(1500, 7);
+        AabbBvh bvh = new AabbBvh().build(boxes, boxes.size(), 2);
+        SplittableRandom rnd = new SplittableRandom(8);
+        for (int i = 0; i < boxes.size(); i++) {
+            float dx = (float) rnd.nextDouble(-10.0, 10.0);
+            float dy = (float) rnd.nextDouble(-10.0, 10.0);
+            float dz = (float) rnd.nextDouble(-10.0, 10.0);
+            boxes.set(i, boxes.minX[i] + dx, boxes.minY[i] + dy, boxes.minZ[i] + dz,
+                    boxes.maxX[i] + dx, boxes.maxY[i] + dy, boxes.maxZ[i] + dz);
+        }
+        bvh.refit();
+        assertValidTree(bvh, boxes.size());
+        assertQueriesMatchLinearScan(bvh, boxes, 9);
+    }
+
+    @Test
+    void coincidentBoxesAndEmptyInputAreHandled() {
+        AABBSoA boxes = new AABBSoA(100);
+        for (int i = 0; i < boxes.size(); i++) {
+            boxes.set(i, 0.0f, 0.0f, 0.0f, 1.0f, 1.0f, 1.0f);
+        }
+        AabbBvh bvh = new AabbBvh().build(boxes, boxes.size());
+        assertValidTree(bvh, boxes.size());
+        int[] out = new int[8];
+        assertEquals(100, bvh.queryAabb(0.5f, 0.5f, 0.5f, 2.0f, 2.0f, 2.0f, out));
+
+        bvh.build(boxes, 0);
+        assertEquals(0, bvh.nodeCount());
+        assertEquals(0, bvh.queryRay(0.0f, 0.0f, -5.0f, 0.0f, 0.0f, 1.0f, out));
+    }
+
+    @Test
+    void linearBuildMatchesLinearScanAndIsIndependentOfExecutor() {
+        AABBSoA boxes = randomBoxes(5000, 11);
+        LinearBvhBuilder builder = new LinearBvhBuilder();
+        AabbBvh serial = builder.build(new AabbBvh(), boxes, boxes.size());
+        assertValidTree(serial, boxes.size());
+        assertQueriesMatchLinearScan(serial, boxes, 12);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        AabbBvh parallel;
+        try {
+            parallel = builder.build(new AabbBvh(), boxes, boxes.size(), AabbBvh.DEFAULT_MAX_LEAF_SIZE, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(serial.nodeCount(), parallel.nodeCount());
+        assertArrayEquals(Arrays.copyOf(serial.nodeLeftFirst(), serial.nodeCount()), Arrays.copyOf(parallel.nodeLeftFirst(), parallel.nodeCount()));
+        assertArrayEquals(Arrays.copyOf(serial.nodePrimitiveCount(), serial.nodeCount()), Arrays.copyOf(parallel.nodePrimitiveCount(), parallel.nodeCount()));
+        assertArrayEquals(Arrays.copyOf(serial.primitiveIndices(), boxes.size()), Arrays.copyOf(parallel.primitiveIndices(), boxes.size()));
+    }
+
+    @Test
+    void linearBuildHandlesDuplicateCodesAndRebuildsInPlace() {
+        AABBSoA boxes = new AABBSoA(300);
+        for (int i = 0; i < boxes.size(); i++) {
+            float x = i < 200 ? 0.0f : i;
+            boxes.set(i, x, 0.0f, 0.0f, x + 1.0f, 1.0f, 1.0f);
+        }
+        LinearBvhBuilder builder = new LinearBvhBuilder();
+        AabbBvh bvh = builder.build(new AabbBvh(), boxes, boxes.size(), 1, null);
+        assertValidTree(bvh, boxes.size());
+        assertQueriesMatchLinearScan(bvh, boxes, 13);
+
+        AABBSoA moved = randomBoxes(boxes.size(), 14);
+        builder.build(bvh, moved, 120);
+        assertValidTree(bvh, 120);
+        int[] out = new int[120];
+        assertEquals(120, bvh.queryAabb(-200.0f, -200.0f, -200.0f, 200.0f, 200.0f, 200.0f, out));
+    }
+
+    private static void assertQueriesMatchLinearScan(AabbBvh bvh, AABBSoA boxes, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int n = boxes.size();
+        int[] out = new int[n];
+        for (int q = 0; q < 64; q++) {
+            float ox = (float) rnd.nextDouble(-120.0, 120.0);
+            float oy = (float) rnd.nextDouble(-120.0, 120.0);
+            float oz = (float) rnd.nextDouble(-120.0, 120.0);
+            float dx = (float) rnd.nextDouble(-1.0, 1.0);
+            float dy = (float) rnd.nextDouble(-1.0, 1.0);
+            float dz = (float) rnd.nextDouble(-1.0, 1.0);
+            int[] expected = new int[n];
+            int e = 0;
+            for (int i = 0; i < n; i++) {
+                if (Intersectionf.testRayAab(ox, oy, oz, dx, dy, dz,
+                        boxes.minX[i], boxes.minY[i], boxes.minZ[i], boxes.maxX[i], boxes.maxY[i], boxes.maxZ[i])) {
+                    expected[e++] = i;
+                }
+            }
+            assertSameSet(expected, e, out, bvh.queryRay(ox, oy, oz, dx, dy, dz, out));
+
+            float hx = (float) rnd.nextDouble(1.0, 20.0);
+            e = 0;
+            for (int i = 0; i < n; i++) {
+                if (Intersectionf.testAabAab(boxes.minX[i], boxes.minY[i], boxes.minZ[i], boxes.maxX[i], boxes.maxY[i], boxes.maxZ[i],
+                        ox - hx, oy - hx, oz - hx, ox + hx, oy + hx, oz + hx)) {
+                    expected[e++] = i;
+                }
+            }
+            assertSameSet(expected, e, out, bvh.queryAabb(ox - hx, oy - hx, oz - hx, ox + hx, oy + hx, oz + hx, out));
+
+            Matrix4f vp = new Matrix4f()
+                    .perspective((float) java.lang.Math.toRadians(rnd.nextDouble(20.0, 90.0)), 16.0f / 9.0f, 0.1f, 150.0f)
+                    .lookAt(ox, oy, oz, ox + dx, oy + dy, oz + dz + 1.0e-3f, 0.0f, 1.0f, 0.0f);
+            FrustumPlanes fp = new FrustumPlanes().set(vp, true);
+            e = 0;
+            for (int i = 0; i < n; i++) {
+                if (CullingKernels.classifyAabb(fp, boxes.minX[i], boxes.minY[i], boxes.minZ[i], boxes.maxX[i], boxes.maxY[i], boxes.maxZ[i])
+                        != FrustumIntersection.OUTSIDE) {
+                    expected[e++] = i;
+                }
+            }
+            assertSameSet(expected, e, out, bvh.queryFrustum(fp, out));
+        }
+    }
+
+    private static void assertSameSet(int[] expected, int expectedCount, int[] actual, int actualCount) {
+        assertEquals(expectedCount, actualCount);
+        int[] sorted = Arrays.copyOf(actual, actualCount);
+        Arrays.sort(sorted);
+        assertArrayEquals(Arrays.copyOf(expected, expectedCount), sorted);
+    }
+
+    private static void assertValidTree(AabbBvh bvh, int count) {
+        boolean[] seen = new boolean[count];
+        int leafPrimitives = 0;
+        for (int node = 0; node < bvh.nodeCount(); node++) {
+            if (bvh.isLeaf(node)) {
+                for (int k = bvh.nodeLeftFirst()[node], end = k + bvh.nodePrimitiveCount()[node]; k < end; k++) {
+                    int p = bvh.primitiveIndices()[k];
+                    assertTrue(!seen[p]);
+                    seen[p] = true;
+                    leafPrimitives++;
+                    assertTrue(contains(bvh, node, bvh.bounds().minX[p], bvh.bounds().minY[p], bvh.bounds().minZ[p],
+                            bvh.bounds().maxX[p], bvh.bounds().maxY[p], bvh.bounds().maxZ[p]));
+                }
+            } else {
+                int left = bvh.nodeLeftFirst()[node];
+                assertTrue(left > node);
+                for (int child = left; child <= left + 1; child++) {
+                    assertTrue(contains(bvh, node, bvh.nodeMinX()[child], bvh.nodeMinY()[child], bvh.nodeMinZ()[child],
+                            bvh.nodeMaxX()[child], bvh.nodeMaxY()[child], bvh.nodeMaxZ()[child]));
+                }
+            }
+        }
+        assertEquals(count, leafPrimitives);
+    }
+
+    @Test
+    void frustumCullerMatchesFlatClassificationAcrossFrames() {
+        AABBSoA boxes = randomBoxes(6000, 15);
+        int n = boxes.size();
+        AabbBvh bvh = new AabbBvh().build(boxes, n);
+        BvhFrustumCuller culler = new BvhFrustumCuller(bvh);
+        int[] indices = new int[n];
+        int[] results = new int[n];
+        int[] expected = new int[n];
+        for (int frame = 0; frame < 40; frame++) {
+            float angle = frame * 0.05f;
+            Matrix4f vp = new Matrix4f()
+                    .perspective((float) java.lang.Math.toRadians(50.0), 16.0f / 9.0f, 0.1f, 80.0f)
+                    .lookAt(frame - 20.0f, 0.0f, 0.0f, frame - 20.0f + (float) java.lang.Math.sin(angle), 0.2f, (float) java.lang.Math.cos(angle), 0.0f, 1.0f, 0.0f);
+            FrustumPlanes fp = new FrustumPlanes().set(vp, true);
+            int visible = 0;
+            for (int i = 0; i < n; i++) {
+                expected[i] = CullingKernels.classifyAabb(fp, boxes.minX[i], boxes.minY[i], boxes.minZ[i], boxes.maxX[i], boxes.maxY[i], boxes.maxZ[i]);
+                visible += expected[i] != FrustumIntersection.OUTSIDE ? 1 : 0;
+            }
+            int hits = culler.cull(fp, indices, results);
+            assertEquals(visible, hits);
+            boolean[] seen = new boolean[n];
+            for (int k = 0; k < hits; k++) {
+                assertTrue(!seen[indices[k]]);
+                seen[indices[k]] = true;
+                assertEquals(expected[indices[k]], results[k]);
+            }
+            assertTrue(culler.visitedNodes() < bvh.nodeCount() / 2, "visited " + culler.visitedNodes());
+            assertEquals(hits, bvh.queryFrustum(fp, new int[n]));
+            if (frame == 20) {
+                culler.resetCoherency();
+            }
+        }
+        int[] partial = new int[3];
+        assertEquals(culler.cull(new FrustumPlanes().set(new Matrix4f().ortho(-500, 500, -500, 500, -500, 500)), indices, null),
+                culler.cull(new FrustumPlanes().set(new Matrix4f().ortho(-500, 500, -500, 500, -500, 500)), partial, null));
+    }
+
+    @Test
+    void maskedClassificationMatchesFullClassification() {
+        AABBSoA boxes = randomBoxes(2000, 16);
+        FrustumPlanes fp = new FrustumPlanes().set(new Matrix4f()
+                .perspective((float) java.lang.Math.toRadians(70.0), 1.0f, 0.5f, 120.0f)
+                .lookAt(0.0f, 0.0f, 0.0f, 1.0f, 0.3f, -0.4f, 0.0f, 1.0f, 0.0f), true);
+        for (int i = 0; i < boxes.size(); i++) {
+            int full = CullingKernels.classifyAabb(fp, boxes.minX[i], boxes.minY[i], boxes.minZ[i], boxes.maxX[i], boxes.maxY[i], boxes.maxZ[i]);
+            for (int start = 0; start < FrustumPlanes.COUNT; start++) {
+                int mask = CullingKernels.classifyAabbMasked(fp, boxes.minX[i], boxes.minY[i], boxes.minZ[i], boxes.maxX[i], boxes.maxY[i], boxes.maxZ[i],
+                        FrustumPlanes.ALL_PLANES_MASK, start);
+                int result = mask < 0 ? FrustumIntersection.OUTSIDE : mask == 0 ? FrustumIntersection.INSIDE : FrustumIntersection.INTERSECT;
+                assertEquals(full, result);
+            }
+            assertEquals(0, CullingKernels.classifyAabbMasked(fp, boxes.minX[i], boxes.minY[i], boxes.minZ[i], boxes.maxX[i], boxes.maxY[i], boxes.maxZ[i],
+                    0, FrustumPlanes.PLANE_NX));
+        }
+    }
+
+    private static boolean contains(AabbBvh bvh, int node, float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        return bvh.nodeMinX()[node] <= minX && bvh.nodeMinY()[node] <= minY && bvh.nodeMinZ()[node] <= minZ
+                && bvh.nodeMaxX()[node] >= maxX && bvh.nodeMaxY()[node] >= maxY && bvh.nodeMaxZ()[node] >= maxZ;
+    }
+
+    private static AABBSoA randomBoxes(int count, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        AABBSoA boxes = new AABBSoA(count);
+        for (int i = 0; i < count; i++) {
+            float cx = (float) rnd.nextDouble(-100.0, 100.0);
+            float cy = (float) rnd.nextDouble(-100.0, 100.0);
+            float cz = (float) rnd.nextDouble(-100.0, 100.0);
+            float ex = (float) rnd.nextDouble(0.05, 3.0);
+            float ey = (float) rnd.nextDouble(0.05, 3.0);
+            float ez = (float) rnd.nextDouble(0.05, 3.0);
+            boxes.set(i, cx - ex, cy - ey, cz - ez, cx + ex, cy + ey, cz + ez);
+        }
+        return boxes;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.dynamisengine.vectrix.hash.CountingSortGrid;
+
+class CountingSortGridTest {
+    @Test
+    void buildSortsParticlesStablyByBucketOnAnyWorkerCount() {
+        float[][] p = randomParticles(new SplittableRandom(97), 5000, 30.0f);
+        CountingSortGrid serial = new CountingSortGrid(1.5f).build(p[0], p[1], p[2], 5000);
+        CountingSortGrid parallel = new CountingSortGrid(1.5f);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // A smaller build first leaves stale chunk histograms behind for the full build to reuse.
+            parallel.build(p[0], p[1], p[2], 3000, pool);
+            assertArrayEquals(Arrays.copyOf(new CountingSortGrid(1.5f).build(p[0], p[1], p[2], 3000).order(), 3000),
+                    Arrays.copyOf(parallel.order(), 3000));
+            parallel.build(p[0], p[1], p[2], 5000, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertArrayEquals(Arrays.copyOf(serial.order(), 5000), Arrays.copyOf(parallel.order(), 5000));
+        assertEquals(8192, serial.bucketCount());
+        int[] order = serial.order();
+        boolean[] seen = new boolean[5000];
+        int previousBucket = -1;
+        for (int j = 0; j < 5000; j++) {
+            int i = order[j];
+            seen[i] = true;
+            int b = serial.bucketOf(p[0][i], p[1][i], p[2][i]);
+            assertTrue(serial.bucketStart(b) <= j && j < serial.bucketEnd(b));
+            assertTrue(b > previousBucket || b == previousBucket && i > order[j - 1]);
+            previousBucket = b;
+            assertEquals(p[0][i], serial.sortedX()[j]);
+            assertEquals(p[2][i], serial.sortedZ()[j]);
+        }
+        for (boolean s : seen) {
+            assertTrue(s);
+        }
+
+        float[] values = new float[5000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 0.5f;
+        }
+        float[] sorted = new float[5000];
+        float[] back = new float[5000];
+        serial.gather(values, sorted, null);
+        serial.scatter(sorted, back, null);
+        assertEquals(order[17] * 0.5f, sorted[17]);
+        assertArrayEquals(values, back);
+    }
+
+    @Test
+    void neighborPairsMatchBruteForceDespiteBucketCollisions() {
+        int count = 1200;
+        float[][] p = randomParticles(new SplittableRandom(101), count, 12.0f);
+        float radius = 1.0f;
+        int[] expected = new int[count];
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < count; j++) {
+                float dx = p[0][j] - p[0][i], dy = p[1][j] - p[1][i], dz = p[2][j] - p[2][i];
+                if (i != j && dx * dx + dy * dy + dz * dz <= radius * radius) {
+                    expected[i]++;
+                }
+            }
+        }
+        // Few buckets for many cells, so most buckets hold several cells and neighbor lists repeat buckets.
+        CountingSortGrid grid = new CountingSortGrid(1.0f, 32).build(p[0], p[1], p[2], count);
+        int[] order = grid.order();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (boolean parallel : new boolean[] {false, true}) {
+                int[] neighbors = new int[count];
+                grid.forEachNeighborPair(radius, (i, j, d2) -> {
+                    assertTrue(d2 <= radius * radius && i != j);
+                    neighbors[order[i]]++;
+                }, parallel ? pool : null);
+                assertArrayEquals(expected, neighbors);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        int[] out = new int[count];
+        for (int i = 0; i < count; i += 37) {
+            int found = grid.queryNeighbors(p[0][i], p[1][i], p[2][i], 0.75f, out);
+            int n = 0;
+            for (int j = 0; j < count; j++) {
+                float dx = p[0][j] - p[0][i], dy = p[1][j] - p[1][i], dz = p[2][j] - p[2][i];
+                if (dx * dx + dy * dy + dz * dz <= 0.75f * 0.75f) {
+                    n++;
+                }
+            }
+            assertEquals(n, found);
+            for (int k = 0; k < found; k++) {
+                int j = order[out[k]];
+                float dx = p[0][j] - p[0][i], dy = p[1][j] - p[1][i], dz = p[2][j] - p[2][i];
+                assertTrue(dx * dx + dy * dy + dz * dz <= 0.75f * 0.75f);
+            }
+        }
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new CountingSortGrid(0.0f));
+        assertThrows(IllegalArgumentException.class, () -> new CountingSortGrid(1.0f, 100));
+        CountingSortGrid grid = new CountingSortGrid(1.0f);
+        assertThrows(IllegalArgumentException.class, () -> grid.build(new float[4], new float[4], new float[3], 4));
+        grid.build(new float[4], new float[4], new float[4], 4);
+        assertThrows(IllegalArgumentException.class, () -> grid.queryNeighbors(0, 0, 0, 1.5f, new int[4]));
+        assertThrows(IllegalArgumentException.class, () -> grid.forEachNeighborPair(-1.0f, (i, j, d2) -> { }));
+        assertEquals(4, grid.queryNeighbors(0, 0, 0, 0.0f, new int[1]));
+    }
+
+    private static float[][] randomParticles(SplittableRandom rnd, int count, float extent) {
+        float[][] p = new float[3][count];
+        for (int i = 0; i < count; i++) {
+            for (int k = 0; k < 3; k++) {
+                p[k][i] = (float) rnd.nextDouble(-extent, extent);
+            }
+        }
+        return p;
+    }
+}
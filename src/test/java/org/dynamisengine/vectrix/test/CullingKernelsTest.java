@@ -23,8 +23,11 @@
  */
 package org.dynamisengine.vectrix.test;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.Arrays;
 import java.util.SplittableRandom;
 
 import org.junit.jupiter.api.Test;
@@ -35,6 +38,7 @@ import org.dynamisengine.vectrix.geometry.CullingKernels;
 import org.dynamisengine.vectrix.geometry.FrustumIntersection;
 import org.dynamisengine.vectrix.geometry.FrustumPlanes;
 import org.dynamisengine.vectrix.soa.AABBSoA;
+import org.dynamisengine.vectrix.soa.SphereSoA;
 
 class CullingKernelsTest {
     @Test
@@ -109,6 +113,261 @@ class CullingKernelsTest {
         }
     }
 
+    @Test
+    void sphereClassificationMatchesFrustumIntersection() {
+        Matrix4f vp = new Matrix4f()
+                .perspective((float) java.lang.Math.toRadians(70.0), 16.0f / 9.0f, 0.1f, 200.0f)
+                .lookAt(0.0f, 1.0f, 8.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f);
+        FrustumIntersection fr = new FrustumIntersection(vp, true);
+        FrustumPlanes fp = new FrustumPlanes().set(vp, true);
+        SplittableRandom rnd = new SplittableRandom(4321);
+
+        SphereSoA spheres = new SphereSoA(517);
+        for (int i = 0; i < spheres.size(); i++) {
+            spheres.set(i, (float) rnd.nextDouble(-40.0, 40.0), (float) rnd.nextDouble(-25.0, 25.0),
+                    (float) rnd.nextDouble(-80.0, 20.0), (float) rnd.nextDouble(0.05, 6.0));
+        }
+        int[] auto = new int[spheres.size()];
+        int[] scalar = new int[spheres.size()];
+        int[] simd = new int[spheres.size()];
+        CullingKernels.frustumCullSphereBatch(fp, spheres, auto, spheres.size());
+        CullingKernels.frustumCullSphereBatchScalar(fp, spheres, scalar, spheres.size());
+        CullingKernels.frustumCullSphereBatchSimd(fp, spheres, simd, spheres.size());
+        int[] seen = new int[4];
+        for (int i = 0; i < spheres.size(); i++) {
+            int expected = fr.intersectSphere(spheres.x[i], spheres.y[i], spheres.z[i], spheres.radius[i]);
+            if (expected >= 0) {
+                expected = FrustumIntersection.OUTSIDE;
+            }
+            assertEquals(expected, auto[i]);
+            assertEquals(expected, scalar[i]);
+            assertEquals(expected, simd[i]);
+            seen[-expected]++;
+        }
+        assertEquals(true, seen[1] > 0 && seen[2] > 0 && seen[3] > 0);
+    }
+
+    @Test
+    void compactedIndicesMatchClassification() {
+        Matrix4f vp = new Matrix4f().perspective((float) java.lang.Math.toRadians(75.0), 1.5f, 0.1f, 300.0f);
+        FrustumPlanes fp = new FrustumPlanes().set(vp, false);
+        SplittableRandom rnd = new SplittableRandom(99);
+        AABBSoA aabbs = new AABBSoA(1003);
+        for (int i = 0; i < aabbs.size(); i++) {
+            float cx = (float) rnd.nextDouble(-80.0, 80.0);
+            float cy = (float) rnd.nextDouble(-80.0, 80.0);
+            float cz = (float) rnd.nextDouble(-250.0, 20.0);
+            float e = (float) rnd.nextDouble(0.1, 10.0);
+            aabbs.set(i, cx - e, cy - e, cz - e, cx + e, cy + e, cz + e);
+        }
+        int n = aabbs.size();
+        int[] results = new int[n];
+        CullingKernels.frustumCullAabbBatchScalar(fp, aabbs, results, n);
+        int[] visible = new int[n];
+        int[] inside = new int[n];
+        int[] intersect = new int[n];
+        int nv = 0;
+        int ni = 0;
+        int nx = 0;
+        for (int i = 0; i < n; i++) {
+            if (results[i] != FrustumIntersection.OUTSIDE) {
+                visible[nv++] = i;
+            }
+            if (results[i] == FrustumIntersection.INSIDE) {
+                inside[ni++] = i;
+            } else if (results[i] == FrustumIntersection.INTERSECT) {
+                intersect[nx++] = i;
+            }
+        }
+        assertEquals(true, ni > 0 && nx > 0 && nv < n);
+        for (int variant = 0; variant < 3; variant++) {
+            int[] out = new int[n];
+            int count = variant == 0 ? CullingKernels.frustumCullAabbBatchCompact(fp, aabbs, n, out)
+                    : variant == 1 ? CullingKernels.frustumCullAabbBatchCompactScalar(fp, aabbs, n, out)
+                    : CullingKernels.frustumCullAabbBatchCompactSimd(fp, aabbs, n, out);
+            assertArrayEquals(Arrays.copyOf(visible, nv), Arrays.copyOf(out, count));
+
+            int[] outInside = new int[n];
+            int[] outIntersect = new int[n];
+            int[] counts = new int[2];
+            count = variant == 0 ? CullingKernels.frustumCullAabbBatchCompact(fp, aabbs, n, outInside, outIntersect, counts)
+                    : variant == 1 ? CullingKernels.frustumCullAabbBatchCompactScalar(fp, aabbs, n, outInside, outIntersect, counts)
+                    : CullingKernels.frustumCullAabbBatchCompactSimd(fp, aabbs, n, outInside, outIntersect, counts);
+            assertEquals(nv, count);
+            assertArrayEquals(Arrays.copyOf(inside, ni), Arrays.copyOf(outInside, counts[0]));
+            assertArrayEquals(Arrays.copyOf(intersect, nx), Arrays.copyOf(outIntersect, counts[1]));
+        }
+    }
+
+    @Test
+    void multiViewMasksAndListsMatchPerViewCulling() {
+        int views = 7;
+        FrustumPlanes[] planes = new FrustumPlanes[views];
+        for (int v = 0; v < views; v++) {
+            planes[v] = new FrustumPlanes().set(new Matrix4f()
+                    .perspective((float) java.lang.Math.toRadians(45.0 + 6.0 * v), 16.0f / 9.0f, 0.1f, 60.0f + 30.0f * v)
+                    .lookAt(0.0f, 2.0f, 10.0f, (float) java.lang.Math.sin(v), 0.0f, (float) java.lang.Math.cos(v), 0.0f, 1.0f, 0.0f), v % 2 == 0);
+        }
+        SplittableRandom rnd = new SplittableRandom(7);
+        AABBSoA aabbs = new AABBSoA(2053);
+        for (int i = 0; i < aabbs.size(); i++) {
+            float cx = (float) rnd.nextDouble(-120.0, 120.0);
+            float cy = (float) rnd.nextDouble(-40.0, 40.0);
+            float cz = (float) rnd.nextDouble(-120.0, 120.0);
+            float e = (float) rnd.nextDouble(0.1, 6.0);
+            aabbs.set(i, cx - e, cy - e, cz - e, cx + e, cy + e, cz + e);
+        }
+        int n = aabbs.size();
+        int[] expected = new int[n];
+        for (int v = 0; v < views; v++) {
+            int[] results = new int[n];
+            CullingKernels.frustumCullAabbBatchScalar(planes[v], aabbs, results, n);
+            for (int i = 0; i < n; i++) {
+                expected[i] |= results[i] != FrustumIntersection.OUTSIDE ? 1 << v : 0;
+            }
+        }
+        int[] auto = new int[n];
+        int[] scalar = new int[n];
+        int[] simd = new int[n];
+        CullingKernels.frustumCullAabbMultiView(planes, views, aabbs, auto, n);
+        CullingKernels.frustumCullAabbMultiViewScalar(planes, views, aabbs, scalar, n);
+        CullingKernels.frustumCullAabbMultiViewSimd(planes, views, aabbs, simd, n);
+        assertArrayEquals(expected, auto);
+        assertArrayEquals(expected, scalar);
+        assertArrayEquals(expected, simd);
+
+        int[][] lists = new int[views][n];
+        int[] counts = new int[views];
+        CullingKernels.frustumCullAabbMultiView(planes, views, aabbs, n, lists, counts);
+        for (int v = 0; v < views; v++) {
+            int c = 0;
+            int[] list = new int[n];
+            for (int i = 0; i < n; i++) {
+                if ((expected[i] & 1 << v) != 0) {
+                    list[c++] = i;
+                }
+            }
+            assertEquals(true, c > 0);
+            assertArrayEquals(Arrays.copyOf(list, c), Arrays.copyOf(lists[v], counts[v]));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> CullingKernels.frustumCullAabbMultiView(new FrustumPlanes[33], 33, aabbs, new int[n], n));
+    }
+
+    @Test
+    void lodSelectionMatchesSeparateCullAndSizePasses() {
+        float fov = (float) java.lang.Math.toRadians(60.0);
+        float[] thresholds = {0.5f, 0.2f, 0.08f, 0.03f};
+        SplittableRandom rnd = new SplittableRandom(31);
+        AABBSoA aabbs = new AABBSoA(1501);
+        SphereSoA spheres = new SphereSoA(aabbs.size());
+        for (int i = 0; i < aabbs.size(); i++) {
+            float cx = (float) rnd.nextDouble(-60.0, 60.0);
+            float cy = (float) rnd.nextDouble(-30.0, 30.0);
+            float cz = (float) rnd.nextDouble(-120.0, 20.0);
+            float ex = (float) rnd.nextDouble(0.05, 5.0);
+            float ey = (float) rnd.nextDouble(0.05, 5.0);
+            float ez = (float) rnd.nextDouble(0.05, 5.0);
+            aabbs.set(i, cx - ex, cy - ey, cz - ez, cx + ex, cy + ey, cz + ez);
+            spheres.set(i, cx, cy, cz, (float) java.lang.Math.sqrt(ex * ex + ey * ey + ez * ez));
+        }
+        int n = aabbs.size();
+        int[] lodState = new int[n];
+        int[] simdState = new int[n];
+        Arrays.fill(lodState, CullingKernels.LOD_CULLED);
+        Arrays.fill(simdState, CullingKernels.LOD_CULLED);
+        for (int frame = 0; frame < 4; frame++) {
+            float eyeZ = 12.0f + 9.0f * frame;
+            Matrix4f vp = new Matrix4f().perspective(fov, 16.0f / 9.0f, 0.1f, 300.0f)
+                    .lookAt(0.0f, 0.0f, eyeZ, 0.0f, 0.0f, eyeZ - 1.0f, 0.0f, 1.0f, 0.0f);
+            int[] classes = new int[n];
+            CullingKernels.frustumCullAabbBatchScalar(new FrustumPlanes().set(vp, false), aabbs, classes, n);
+            int[] lod = new int[n];
+            int visible = CullingKernels.frustumCullLodAabbBatch(vp, aabbs, thresholds, lod, n);
+            int expectedVisible = 0;
+            for (int i = 0; i < n; i++) {
+                if (classes[i] == FrustumIntersection.OUTSIDE) {
+                    assertEquals(CullingKernels.LOD_CULLED, lod[i]);
+                    continue;
+                }
+                expectedVisible++;
+                double cz = 0.5 * (aabbs.minZ[i] + aabbs.maxZ[i]);
+                double size = spheres.radius[i] / java.lang.Math.tan(fov * 0.5) / (eyeZ - cz);
+                int expected = 0;
+                boolean borderline = false;
+                for (float t : thresholds) {
+                    expected += eyeZ > cz && size < t ? 1 : 0;
+                    borderline |= java.lang.Math.abs(size - t) < 1.0e-4 * t;
+                }
+                if (!borderline) {
+                    assertEquals(expected, lod[i], "box " + i);
+                }
+            }
+            assertEquals(expectedVisible, visible);
+
+            int[] scalar = new int[n];
+            int[] simd = new int[n];
+            int[] simdStateBefore = simdState.clone();
+            CullingKernels.frustumCullLodAabbBatchScalar(vp, aabbs, thresholds, 0.25f, lodState, scalar, n);
+            CullingKernels.frustumCullLodAabbBatchSimd(vp, aabbs, thresholds, 0.25f, simdState, simd, n);
+            assertArrayEquals(scalar, simd);
+            assertArrayEquals(lodState, simdState);
+            for (int i = 0; i < n; i++) {
+                if (scalar[i] == CullingKernels.LOD_CULLED) {
+                    assertEquals(simdStateBefore[i], simdState[i]);
+                }
+            }
+
+            int[] sphereScalar = new int[n];
+            int[] sphereSimd = new int[n];
+            int[] sphereAuto = new int[n];
+            assertEquals(CullingKernels.frustumCullLodSphereBatchScalar(vp, spheres, thresholds, 0.0f, null, sphereScalar, n),
+                    CullingKernels.frustumCullLodSphereBatchSimd(vp, spheres, thresholds, 0.0f, null, sphereSimd, n));
+            CullingKernels.frustumCullLodSphereBatch(vp, spheres, thresholds, sphereAuto, n);
+            assertArrayEquals(sphereScalar, sphereSimd);
+            assertArrayEquals(sphereScalar, sphereAuto);
+        }
+    }
+
+    @Test
+    void lodHysteresisHoldsLevelInsideBand() {
+        // One threshold at size 0.1 with a 20% band: finer below distance ~14.4, coarser beyond ~21.7.
+        Matrix4f vp = new Matrix4f().perspective((float) java.lang.Math.toRadians(60.0), 1.0f, 0.1f, 100.0f);
+        float[] thresholds = {0.1f};
+        float[] distances = {10.0f, 19.0f, 23.0f, 16.0f, 14.0f, 19.0f};
+        int[] expected = {0, 0, 1, 1, 0, 0};
+        int n = 67;
+        SphereSoA spheres = new SphereSoA(n);
+        int[] scalarState = new int[n];
+        int[] simdState = new int[n];
+        Arrays.fill(scalarState, -1);
+        Arrays.fill(simdState, -1);
+        int[] scalar = new int[n];
+        int[] simd = new int[n];
+        for (int step = 0; step < distances.length; step++) {
+            for (int i = 0; i < n; i++) {
+                spheres.set(i, 0.0f, 0.0f, -distances[step], 1.0f);
+            }
+            CullingKernels.frustumCullLodSphereBatchScalar(vp, spheres, thresholds, 0.2f, scalarState, scalar, n);
+            CullingKernels.frustumCullLodSphereBatchSimd(vp, spheres, thresholds, 0.2f, simdState, simd, n);
+            for (int i = 0; i < n; i++) {
+                assertEquals(expected[step], scalar[i], "step " + step);
+                assertEquals(expected[step], simd[i], "step " + step);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            spheres.set(i, 0.0f, 0.0f, 5.0f, 1.0f);
+        }
+        assertEquals(0, CullingKernels.frustumCullLodSphereBatchSimd(vp, spheres, thresholds, 0.2f, simdState, simd, n));
+        assertEquals(CullingKernels.LOD_CULLED, simd[0]);
+        assertEquals(0, simdState[0]);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> CullingKernels.frustumCullLodSphereBatch(vp, spheres, new float[] {0.1f, 0.2f}, new int[n], n));
+        assertThrows(IllegalArgumentException.class,
+                () -> CullingKernels.frustumCullLodSphereBatch(vp, spheres, thresholds, 1.0f, simdState, new int[n], n));
+    }
+
     @Test
     void strictModeUsesScalarPath() {
         Matrix4f vp = new Matrix4f().perspective((float) java.lang.Math.toRadians(60.0), 1.0f, 0.1f, 100.0f);
@@ -43,4 +43,18 @@ class HashTest {
         int h1 = SpatialHash.hashCell3i(2, 2, 3);
         assertNotEquals(h0, h1);
     }
+
+    @Test
+    void mortonCodeInterleavesTenBitsPerAxis() {
+        assertEquals(0, SpatialHash.mortonCode3i(0, 0, 0));
+        assertEquals(1, SpatialHash.mortonCode3i(1, 0, 0));
+        assertEquals(2, SpatialHash.mortonCode3i(0, 1, 0));
+        assertEquals(4, SpatialHash.mortonCode3i(0, 0, 1));
+        assertEquals((1 << 30) - 1, SpatialHash.mortonCode3i(1023, 1023, 1023));
+        assertEquals(SpatialHash.mortonCode3i(5, 6, 7), SpatialHash.mortonCode3i(5 + 1024, 6, 7));
+        for (int bit = 0; bit < 10; bit++) {
+            assertEquals(1 << (3 * bit), SpatialHash.mortonCode3i(1 << bit, 0, 0));
+            assertEquals(1 << (3 * bit + 2), SpatialHash.mortonCode3i(0, 0, 1 << bit));
+        }
+    }
 }
@@ -0,0 +1,221 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.dynamisengine.vectrix.core.Matrix4f;
+import org.dynamisengine.vectrix.core.Vector4f;
+import org.dynamisengine.vectrix.geometry.HiZOcclusionBuffer;
+import org.dynamisengine.vectrix.geometry.TriangleBvh;
+import org.dynamisengine.vectrix.soa.AABBSoA;
+
+class HiZOcclusionBufferTest {
+    private static final float EYE_Z = 10.0f;
+
+    private static Matrix4f camera() {
+        return new Matrix4f()
+                .perspective((float) java.lang.Math.toRadians(60.0), 1.5f, 0.1f, 200.0f)
+                .lookAt(0.0f, 0.0f, EYE_Z, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f);
+    }
+
+    @Test
+    void wallHidesBoxesBehindIt() {
+        // Left half of a wall at z = 0, seen from z = 10.
+        float[] positions = {
+                -40.0f, -40.0f, 0.0f,  0.0f, -40.0f, 0.0f,  0.0f, 40.0f, 0.0f,  -40.0f, 40.0f, 0.0f
+        };
+        int[] indices = {0, 1, 2, 0, 2, 3};
+        HiZOcclusionBuffer buffer = new HiZOcclusionBuffer(128, 64).begin(camera()).rasterize(positions, indices, 2);
+
+        assertFalse(buffer.testAabb(-6.0f, -1.0f, -6.0f, -4.0f, 1.0f, -4.0f));
+        assertTrue(buffer.testAabb(4.0f, -1.0f, -6.0f, 6.0f, 1.0f, -4.0f));
+        assertTrue(buffer.testAabb(-1.0f, -1.0f, -6.0f, 1.0f, 1.0f, -4.0f), "box straddling the wall edge");
+        assertTrue(buffer.testAabb(-6.0f, -1.0f, 1.0f, -4.0f, 1.0f, 3.0f), "box in front of the wall");
+        assertTrue(buffer.testAabb(-6.0f, -1.0f, -1.0f, -4.0f, 1.0f, 1.0f), "box intersecting the wall");
+        assertTrue(buffer.testAabb(-1.0f, -1.0f, 9.0f, 1.0f, 1.0f, 12.0f), "box around the eye");
+        assertFalse(buffer.testAabb(500.0f, -1.0f, -6.0f, 502.0f, 1.0f, -4.0f), "box outside the viewport");
+
+        buffer.begin(camera());
+        assertTrue(buffer.testAabb(-6.0f, -1.0f, -6.0f, -4.0f, 1.0f, -4.0f), "begin clears occluders");
+    }
+
+    @Test
+    void occludedBoxesAreHiddenFromEveryRay() {
+        Matrix4f viewProj = camera();
+        SplittableRandom rnd = new SplittableRandom(19);
+        int triangleCount = 60;
+        float[] positions = new float[triangleCount * 9];
+        int[] indices = new int[triangleCount * 3];
+        for (int t = 0; t < triangleCount; t++) {
+            float cx = (float) rnd.nextDouble(-8.0, 8.0);
+            float cy = (float) rnd.nextDouble(-5.0, 5.0);
+            float cz = (float) rnd.nextDouble(-4.0, 2.0);
+            for (int v = 0; v < 3; v++) {
+                positions[t * 9 + v * 3] = cx + (float) rnd.nextDouble(-6.0, 6.0);
+                positions[t * 9 + v * 3 + 1] = cy + (float) rnd.nextDouble(-6.0, 6.0);
+                positions[t * 9 + v * 3 + 2] = cz + (float) rnd.nextDouble(-2.0, 2.0);
+                indices[t * 3 + v] = t * 3 + v;
+            }
+        }
+        HiZOcclusionBuffer buffer = new HiZOcclusionBuffer(64, 32).begin(viewProj)
+                .rasterize(positions, indices, triangleCount);
+        TriangleBvh occluders = new TriangleBvh(positions, indices, triangleCount);
+
+        int boxes = 600;
+        int occluded = 0;
+        Vector4f clip = new Vector4f();
+        for (int i = 0; i < boxes; i++) {
+            float cx = (float) rnd.nextDouble(-10.0, 10.0);
+            float cy = (float) rnd.nextDouble(-6.0, 6.0);
+            float cz = (float) rnd.nextDouble(-30.0, -3.0);
+            float e = (float) rnd.nextDouble(0.05, 1.5);
+            if (buffer.testAabb(cx - e, cy - e, cz - e, cx + e, cy + e, cz + e)) {
+                continue;
+            }
+            occluded++;
+            for (int s = 0; s < 125; s++) {
+                float px = cx + e * (s % 5 - 2) * 0.5f;
+                float py = cy + e * (s / 5 % 5 - 2) * 0.5f;
+                float pz = cz + e * (s / 25 - 2) * 0.5f;
+                viewProj.transform(clip.set(px, py, pz, 1.0f));
+                if (java.lang.Math.abs(clip.x) > clip.w || java.lang.Math.abs(clip.y) > clip.w) {
+                    continue;
+                }
+                assertTrue(occluders.testRay(0.0f, 0.0f, EYE_Z, px, py, pz - EYE_Z, 0.999f),
+                        "box " + i + " reported occluded but sample " + s + " is visible");
+            }
+        }
+        assertTrue(occluded > boxes / 10, "expected a fair share of occluded boxes, got " + occluded);
+    }
+
+    @Test
+    void pyramidLevelsHoldFarthestChildDepth() {
+        HiZOcclusionBuffer buffer = randomScene(new HiZOcclusionBuffer(64, 16), 5, null, false);
+        assertEquals(7, buffer.levelCount());
+        for (int level = 1; level < buffer.levelCount(); level++) {
+            int w = java.lang.Math.max(1, 64 >> level);
+            int h = java.lang.Math.max(1, 16 >> level);
+            int childH = java.lang.Math.max(1, 16 >> (level - 1));
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    float expected = Float.NEGATIVE_INFINITY;
+                    for (int cy = 0; cy < 2; cy++) {
+                        for (int cx = 0; cx < 2; cx++) {
+                            int sy = java.lang.Math.min(childH == h ? y : 2 * y + cy, childH - 1);
+                            expected = java.lang.Math.max(expected, buffer.depth(level - 1, 2 * x + cx, sy));
+                        }
+                    }
+                    assertEquals(expected, buffer.depth(level, x, y), 0.0f);
+                }
+            }
+        }
+    }
+
+    @Test
+    void simdAndParallelRasterizationMatchScalar() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            HiZOcclusionBuffer scalar = randomScene(new HiZOcclusionBuffer(256, 128), 23, null, false);
+            HiZOcclusionBuffer simd = randomScene(new HiZOcclusionBuffer(256, 128), 23, null, true);
+            HiZOcclusionBuffer parallel = randomScene(new HiZOcclusionBuffer(256, 128), 23, pool, false);
+            int covered = 0;
+            for (int y = 0; y < 128; y++) {
+                for (int x = 0; x < 256; x++) {
+                    float expected = scalar.depth(0, x, y);
+                    assertEquals(expected, simd.depth(0, x, y), 0.0f);
+                    assertEquals(expected, parallel.depth(0, x, y), 0.0f);
+                    covered += expected != Float.POSITIVE_INFINITY ? 1 : 0;
+                }
+            }
+            assertTrue(covered > 256 * 128 / 4, "occluders should cover part of the screen");
+
+            AABBSoA boxes = new AABBSoA(5000);
+            SplittableRandom rnd = new SplittableRandom(24);
+            for (int i = 0; i < boxes.size(); i++) {
+                float cx = (float) rnd.nextDouble(-15.0, 15.0);
+                float cy = (float) rnd.nextDouble(-10.0, 10.0);
+                float cz = (float) rnd.nextDouble(-40.0, 8.0);
+                float e = (float) rnd.nextDouble(0.05, 2.0);
+                boxes.set(i, cx - e, cy - e, cz - e, cx + e, cy + e, cz + e);
+            }
+            boolean[] serialVisible = new boolean[boxes.size()];
+            boolean[] parallelVisible = new boolean[boxes.size()];
+            boolean[] simdVisible = new boolean[boxes.size()];
+            scalar.testAabbBatchScalar(boxes, serialVisible, boxes.size(), null);
+            parallel.testAabbBatch(boxes, parallelVisible, boxes.size(), pool);
+            simd.testAabbBatchSimd(boxes, simdVisible, boxes.size() - 3, pool);
+            assertArrayEquals(serialVisible, parallelVisible);
+            for (int i = 0; i < boxes.size() - 3; i++) {
+                assertEquals(serialVisible[i], simdVisible[i]);
+            }
+            for (int i = 0; i < boxes.size(); i++) {
+                assertEquals(scalar.testAabb(boxes.minX[i], boxes.minY[i], boxes.minZ[i],
+                        boxes.maxX[i], boxes.maxY[i], boxes.maxZ[i]), serialVisible[i]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new HiZOcclusionBuffer(100, 64));
+        assertThrows(IllegalArgumentException.class, () -> new HiZOcclusionBuffer(8, 64));
+        assertThrows(IllegalArgumentException.class, () -> new HiZOcclusionBuffer(64, 8192));
+        HiZOcclusionBuffer buffer = new HiZOcclusionBuffer(64, 64).begin(camera());
+        assertThrows(IllegalArgumentException.class, () -> buffer.rasterize(new float[9], new int[3], 2));
+        assertThrows(IllegalArgumentException.class, () -> buffer.testAabbBatch(new AABBSoA(4), new boolean[4], 5));
+    }
+
+    private static HiZOcclusionBuffer randomScene(HiZOcclusionBuffer buffer, long seed, ForkJoinPool pool, boolean simd) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int triangleCount = 80;
+        float[] positions = new float[triangleCount * 9];
+        int[] indices = new int[triangleCount * 3];
+        for (int t = 0; t < triangleCount; t++) {
+            float cx = (float) rnd.nextDouble(-12.0, 12.0);
+            float cy = (float) rnd.nextDouble(-8.0, 8.0);
+            float cz = (float) rnd.nextDouble(-20.0, 5.0);
+            for (int v = 0; v < 3; v++) {
+                positions[t * 9 + v * 3] = cx + (float) rnd.nextDouble(-5.0, 5.0);
+                positions[t * 9 + v * 3 + 1] = cy + (float) rnd.nextDouble(-5.0, 5.0);
+                positions[t * 9 + v * 3 + 2] = cz + (float) rnd.nextDouble(-3.0, 3.0);
+                indices[t * 3 + v] = t * 3 + v;
+            }
+        }
+        buffer.begin(camera());
+        return simd
+                ? buffer.rasterizeSimd(positions, indices, triangleCount, pool)
+                : buffer.rasterizeScalar(positions, indices, triangleCount, pool);
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+import org.dynamisengine.vectrix.affine.BatchChunks;
+import org.dynamisengine.vectrix.affine.PackedAffineArray;
+import org.dynamisengine.vectrix.affine.PackedAffineKernels;
+import org.dynamisengine.vectrix.affine.Transformf;
+import org.dynamisengine.vectrix.core.MathMode;
+import org.dynamisengine.vectrix.core.Matrix3f;
+import org.dynamisengine.vectrix.core.Matrix4x3f;
+import org.dynamisengine.vectrix.experimental.KernelConfig;
+
+class PackedAffineKernelsTest {
+    @Test
+    void parallelChunkSizeIsAlignedAndStrictIgnoresParallelism() {
+        for (int parallelism = 1; parallelism <= 16; parallelism++) {
+            int size = BatchChunks.parallelChunkSize(100000, 0, parallelism);
+            assertEquals(0, size % BatchChunks.CACHE_LINE_ELEMENTS);
+            assertTrue(size >= BatchChunks.MIN_PARALLEL_GRAIN);
+        }
+        assertEquals(1008, BatchChunks.parallelChunkSize(100000, 1000, 8));
+        assertEquals(Integer.MAX_VALUE & -BatchChunks.CACHE_LINE_ELEMENTS,
+                BatchChunks.parallelChunkSize(100000, Integer.MAX_VALUE, 8));
+        assertEquals(Integer.MAX_VALUE & -BatchChunks.CACHE_LINE_ELEMENTS,
+                BatchChunks.parallelChunkSize(100000, Integer.MAX_VALUE - 3, 8));
+        MathMode prev = KernelConfig.mathMode();
+        try {
+            KernelConfig.setMathMode(MathMode.STRICT);
+            assertEquals(BatchChunks.parallelChunkSize(100000, 0, 2), BatchChunks.parallelChunkSize(100000, 0, 12));
+        } finally {
+            KernelConfig.setMathMode(prev);
+        }
+    }
+
+    @Test
+    void parallelChunksCoverEveryIndexExactlyOnce() {
+        int count = 10007;
+        AtomicIntegerArray hits = new AtomicIntegerArray(count);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            BatchChunks.forEachChunkParallel(count, 300, executor, (start, end) -> {
+                for (int i = start; i < end; i++) {
+                    hits.incrementAndGet(i);
+                }
+            });
+        } finally {
+            executor.shutdown();
+        }
+        for (int i = 0; i < count; i++) {
+            assertEquals(1, hits.get(i));
+        }
+    }
+
+    @Test
+    void parallelChunksRethrowConsumerFailure() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertThrows(IllegalStateException.class, () -> BatchChunks.forEachChunkParallel(8192, 256, pool, (start, end) -> {
+                if (start == 4096) {
+                    throw new IllegalStateException("chunk");
+                }
+            }));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelOverloadsMatchSerialKernels() {
+        int count = 5003;
+        SplittableRandom rnd = new SplittableRandom(11L);
+        Transformf[] transforms = new Transformf[count];
+        int[] order = new int[count];
+        float[] minX = new float[count], minY = new float[count], minZ = new float[count];
+        float[] maxX = new float[count], maxY = new float[count], maxZ = new float[count];
+        for (int i = 0; i < count; i++) {
+            Transformf t = new Transformf();
+            t.translation.set((float) rnd.nextDouble(-50.0, 50.0), (float) rnd.nextDouble(-50.0, 50.0), (float) rnd.nextDouble(-50.0, 50.0));
+            t.rotation.identity().rotateXYZ((float) rnd.nextDouble(-2.0, 2.0), (float) rnd.nextDouble(-2.0, 2.0), (float) rnd.nextDouble(-2.0, 2.0));
+            t.scale.set((float) rnd.nextDouble(0.5, 2.0), (float) rnd.nextDouble(0.5, 2.0), (float) rnd.nextDouble(0.5, 2.0));
+            transforms[i] = t;
+            order[i] = count - 1 - i;
+            minX[i] = (float) rnd.nextDouble(-5.0, 0.0);
+            minY[i] = (float) rnd.nextDouble(-5.0, 0.0);
+            minZ[i] = (float) rnd.nextDouble(-5.0, 0.0);
+            maxX[i] = (float) rnd.nextDouble(0.0, 5.0);
+            maxY[i] = (float) rnd.nextDouble(0.0, 5.0);
+            maxZ[i] = (float) rnd.nextDouble(0.0, 5.0);
+        }
+        PackedAffineArray packed = new PackedAffineArray(count);
+        PackedAffineKernels.trsToPackedAffineBatch(transforms, packed, count);
+
+        float[][] serial = new float[6][count];
+        float[][] parallel = new float[6][count];
+        float[] serialUpload = new float[count * PackedAffineArray.STRIDE_FLOATS];
+        float[] parallelUpload = new float[count * PackedAffineArray.STRIDE_FLOATS];
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PackedAffineKernels.transformAabbPackedAffineBatch(packed, order, minX, minY, minZ, maxX, maxY, maxZ,
+                    serial[0], serial[1], serial[2], serial[3], serial[4], serial[5], count);
+            PackedAffineKernels.transformAabbPackedAffineChunked(packed, order, minX, minY, minZ, maxX, maxY, maxZ,
+                    parallel[0], parallel[1], parallel[2], parallel[3], parallel[4], parallel[5], count, 0, pool);
+            PackedAffineKernels.uploadPackedAffine(packed, order, serialUpload, count);
+            PackedAffineKernels.uploadPackedAffineChunked(packed, order, parallelUpload, count, 512, pool);
+        } finally {
+            pool.shutdown();
+        }
+        for (int a = 0; a < 6; a++) {
+            for (int i = 0; i < count; i++) {
+                assertEquals(Float.floatToRawIntBits(serial[a][i]), Float.floatToRawIntBits(parallel[a][i]));
+            }
+        }
+        for (int i = 0; i < serialUpload.length; i++) {
+            assertEquals(Float.floatToRawIntBits(serialUpload[i]), Float.floatToRawIntBits(parallelUpload[i]));
+        }
+    }
+
+    @Test
+    void invertBatchMatchesMatrix4x3fInverseAndNormal() {
+        int count = 57;
+        PackedAffineArray packed = randomPacked(count, 19L, true);
+        PackedAffineArray inverse = new PackedAffineArray(count);
+        float[] normal = new float[count * PackedAffineKernels.NORMAL_MATRIX_STRIDE_FLOATS];
+        PackedAffineKernels.invertPackedAffineBatch(packed, inverse, normal, count);
+
+        float[] t = packed.raw();
+        Matrix4x3f m = new Matrix4x3f();
+        Matrix4x3f inv = new Matrix4x3f();
+        Matrix3f n = new Matrix3f();
+        for (int i = 0; i < count; i++) {
+            int o = packed.offsetOf(i);
+            m.set(t[o], t[o + 1], t[o + 2], t[o + 4], t[o + 5], t[o + 6], t[o + 8], t[o + 9], t[o + 10],
+                    t[o + 3], t[o + 7], t[o + 11]);
+            m.invert(inv);
+            m.normal(n);
+            float[] r = inverse.raw();
+            assertEquals(inv.m00(), r[o], 1E-4f);
+            assertEquals(inv.m01(), r[o + 1], 1E-4f);
+            assertEquals(inv.m12(), r[o + 6], 1E-4f);
+            assertEquals(inv.m20(), r[o + 8], 1E-4f);
+            assertEquals(inv.m30(), r[o + 3], 1E-3f);
+            assertEquals(inv.m31(), r[o + 7], 1E-3f);
+            assertEquals(inv.m32(), r[o + 11], 1E-3f);
+            int b = i * PackedAffineKernels.NORMAL_MATRIX_STRIDE_FLOATS;
+            assertEquals(n.m00(), normal[b], 1E-4f);
+            assertEquals(n.m01(), normal[b + 1], 1E-4f);
+            assertEquals(n.m02(), normal[b + 2], 1E-4f);
+            assertEquals(n.m10(), normal[b + 3], 1E-4f);
+            assertEquals(n.m21(), normal[b + 7], 1E-4f);
+            assertEquals(n.m22(), normal[b + 8], 1E-4f);
+        }
+    }
+
+    @Test
+    void invertRigidBatchMatchesGeneralInverseForRigidRecords() {
+        int count = 40;
+        PackedAffineArray packed = randomPacked(count, 23L, false);
+        PackedAffineArray general = new PackedAffineArray(count);
+        float[] generalNormal = new float[count * PackedAffineKernels.NORMAL_MATRIX_STRIDE_FLOATS];
+        float[] rigidNormal = new float[generalNormal.length];
+        PackedAffineKernels.invertPackedAffineBatch(packed, general, generalNormal, count);
+        PackedAffineKernels.invertRigidPackedAffineBatch(packed, packed, rigidNormal, count);
+        for (int i = 0; i < general.raw().length; i++) {
+            assertEquals(general.raw()[i], packed.raw()[i], 1E-4f);
+        }
+        for (int i = 0; i < generalNormal.length; i++) {
+            assertEquals(generalNormal[i], rigidNormal[i], 1E-5f);
+        }
+    }
+
+    private static PackedAffineArray randomPacked(int count, long seed, boolean scaled) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        Transformf[] transforms = new Transformf[count];
+        for (int i = 0; i < count; i++) {
+            Transformf t = new Transformf();
+            t.translation.set((float) rnd.nextDouble(-50.0, 50.0), (float) rnd.nextDouble(-50.0, 50.0), (float) rnd.nextDouble(-50.0, 50.0));
+            t.rotation.identity().rotateXYZ((float) rnd.nextDouble(-2.0, 2.0), (float) rnd.nextDouble(-2.0, 2.0), (float) rnd.nextDouble(-2.0, 2.0));
+            if (scaled) {
+                t.scale.set((float) rnd.nextDouble(0.5, 2.0), (float) rnd.nextDouble(0.5, 2.0), (float) rnd.nextDouble(0.5, 2.0));
+            }
+            transforms[i] = t;
+        }
+        PackedAffineArray packed = new PackedAffineArray(count);
+        PackedAffineKernels.trsToPackedAffineBatch(transforms, packed, count);
+        return packed;
+    }
+}
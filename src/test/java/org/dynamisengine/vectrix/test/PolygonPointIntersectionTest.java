@@ -27,6 +27,10 @@ import org.dynamisengine.vectrix.geometry.PolygonsIntersection;
 import org.dynamisengine.vectrix.core.Math;
 import org.junit.jupiter.api.Test;
 
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -123,4 +127,130 @@ class PolygonPointIntersectionTest {
         // Bottom edge <- algorithm only detects top edges as 'inside'
         assertFalse(isect.testPoint(-1.0f, 0));
     }
+
+    @Test
+    void testPointsMatchesSingleQueries() {
+        // Many rings of varying size plus one hole inside the first ring.
+        int rings = 64, ringN = 48;
+        float[] verticesXY = new float[(rings * ringN + 4) * 2];
+        int[] polygons = new int[rings];
+        int v = 0;
+        SplittableRandom rnd = new SplittableRandom(11);
+        for (int r = 0; r < rings; r++) {
+            if (r > 0)
+                polygons[r - 1] = v;
+            // Rings other than the first stay clear of it, but may overlap each other.
+            float cx = (float) rnd.nextDouble(8.0, 20.0) * (rnd.nextBoolean() ? 1 : -1);
+            float cy = (float) rnd.nextDouble(-20.0, 20.0);
+            float radius = r == 0 ? 4.0f : (float) rnd.nextDouble(0.5, 3.0);
+            if (r == 0)
+                cx = cy = 0.0f;
+            for (int i = 0; i < ringN; i++, v++) {
+                verticesXY[2 * v] = cx + radius * (float) Math.cos(2.0 * Math.PI * i / ringN);
+                verticesXY[2 * v + 1] = cy + radius * (float) Math.sin(2.0 * Math.PI * i / ringN);
+            }
+        }
+        polygons[rings - 1] = v;
+        float[] hole = {-1, -1, 1, -1, 1, 1, -1, 1};
+        System.arraycopy(hole, 0, verticesXY, 2 * v, hole.length);
+        v += 4;
+
+        int pointCount = 40000;
+        float[] xy = new float[pointCount * 2];
+        for (int i = 0; i < xy.length; i++)
+            xy[i] = (float) rnd.nextDouble(-24.0, 24.0);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PolygonsIntersection serial = new PolygonsIntersection(verticesXY, polygons, v);
+            PolygonsIntersection parallel = new PolygonsIntersection(verticesXY, polygons, v, pool);
+            long[] bitsSerial = new long[(pointCount + 63) >>> 6];
+            long[] bitsParallel = new long[bitsSerial.length];
+            int[] polySerial = new int[pointCount];
+            int[] polyParallel = new int[pointCount];
+            int insideSerial = serial.testPoints(xy, pointCount, bitsSerial);
+            int insideParallel = parallel.testPoints(xy, pointCount, bitsParallel, pool);
+            serial.testPoints(xy, pointCount, polySerial);
+            parallel.testPoints(xy, pointCount, polyParallel, pool);
+
+            BitSet inPolys = new BitSet();
+            int expectedInside = 0;
+            for (int i = 0; i < pointCount; i++) {
+                boolean inside = serial.testPoint(xy[2 * i], xy[2 * i + 1], inPolys);
+                assertEquals(inside, parallel.testPoint(xy[2 * i], xy[2 * i + 1]));
+                expectedInside += inside ? 1 : 0;
+                assertEquals(inside, (bitsSerial[i >>> 6] & (1L << i)) != 0L);
+                assertEquals(inside, (bitsParallel[i >>> 6] & (1L << i)) != 0L);
+                int expectedPolygon = inside ? inPolys.nextSetBit(0) : -1;
+                assertEquals(expectedPolygon, polySerial[i]);
+                assertEquals(expectedPolygon, polyParallel[i]);
+            }
+            assertEquals(expectedInside, insideSerial);
+            assertEquals(expectedInside, insideParallel);
+            assertTrue(expectedInside > 0);
+            // The hole is cut out of the first ring.
+            assertFalse(serial.testPoint(0.0f, 0.0f));
+            assertTrue(serial.testPoint(2.0f, 0.0f));
+
+            // Fixed answers of the previous implementation. The rows lie exactly on the root node center of the
+            // interval tree and on vertex y values of the first ring and the hole, where edge ranges start or end.
+            float minY = Float.POSITIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < v; i++) {
+                minY = java.lang.Math.min(minY, verticesXY[2 * i + 1]);
+                maxY = java.lang.Math.max(maxY, verticesXY[2 * i + 1]);
+            }
+            float rootCenter = (maxY + minY) * 0.5f;
+            float[] rows = {rootCenter, verticesXY[1], verticesXY[2 * 6 + 1], verticesXY[2 * 12 + 1], verticesXY[2 * 40 + 1], -1.0f, 1.0f};
+            float[] columns = {-3.5f, -1.0f, 0.0f, 0.5f, 1.0f, 2.0f, 3.9f, 4.0f, 10.0f};
+            int[] expectedFixed = {
+                    0, 0, -1, -1, -1, 0, 0, -1, -1,
+                    0, 0, -1, -1, -1, 0, 0, 0, -1,
+                    -1, 0, 0, 0, 0, 0, -1, -1, 21,
+                    -1, -1, -1, -1, -1, -1, -1, -1, -1,
+                    -1, 0, 0, 0, 0, 0, -1, -1, 61,
+                    0, 0, 0, 0, 0, 0, -1, -1, -1,
+                    0, 0, -1, -1, -1, 0, -1, -1, -1,
+                    // Other rings crossed by the root center row.
+                    20, 44, 15
+            };
+            float[] fixedXY = new float[expectedFixed.length * 2];
+            int f = 0;
+            for (float y : rows) {
+                for (float x : columns) {
+                    fixedXY[f++] = x;
+                    fixedXY[f++] = y;
+                }
+            }
+            float[] extraXY = {-13.0f, rootCenter, 15.0f, rootCenter, 20.5f, rootCenter};
+            System.arraycopy(extraXY, 0, fixedXY, f, extraXY.length);
+            int[] fixedSerial = new int[expectedFixed.length];
+            int[] fixedParallel = new int[expectedFixed.length];
+            serial.testPoints(fixedXY, expectedFixed.length, fixedSerial);
+            parallel.testPoints(fixedXY, expectedFixed.length, fixedParallel, pool);
+            assertArrayEquals(expectedFixed, fixedSerial);
+            assertArrayEquals(expectedFixed, fixedParallel);
+            for (int i = 0; i < expectedFixed.length; i++) {
+                assertEquals(expectedFixed[i] >= 0, serial.testPoint(fixedXY[2 * i], fixedXY[2 * i + 1]));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testPointsRejectsBadArguments() {
+        float[] verticesXY = {0, 0, 1, 0, 1, 1, 0, 1};
+        PolygonsIntersection isect = new PolygonsIntersection(verticesXY, new int[0], 4);
+        float[] xy = {0.5f, 0.5f, 2.0f, 2.0f};
+        assertThrows(IllegalArgumentException.class, () -> isect.testPoints(xy, 3, new long[1]));
+        assertThrows(IllegalArgumentException.class, () -> isect.testPoints(xy, -1, new int[2]));
+        assertThrows(IllegalArgumentException.class, () -> isect.testPoints(xy, 2, new long[0]));
+        assertThrows(IllegalArgumentException.class, () -> isect.testPoints(xy, 2, new int[1]));
+        int[] out = new int[2];
+        isect.testPoints(xy, 2, out);
+        assertArrayEquals(new int[]{0, -1}, out);
+        long[] bits = {-1L};
+        assertEquals(1, isect.testPoints(xy, 2, bits));
+        assertEquals(1L, bits[0]);
+    }
 }
@@ -0,0 +1,194 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.dynamisengine.vectrix.geometry.Intersectionf;
+import org.dynamisengine.vectrix.geometry.RayHit;
+import org.dynamisengine.vectrix.geometry.RayPacket;
+import org.dynamisengine.vectrix.geometry.RayTriangleKernels;
+import org.dynamisengine.vectrix.soa.TriangleSoA;
+
+class RayTriangleKernelsTest {
+    private static final float EPSILON = 1.0e-6f;
+
+    @Test
+    void closestHitMatchesPerTriangleIntersection() {
+        SplittableRandom rnd = new SplittableRandom(47);
+        int count = 301;
+        float[] positions = randomTriangles(rnd, count);
+        // A duplicate of triangle 5 must lose ties to the original.
+        System.arraycopy(positions, 5 * 9, positions, 250 * 9, 9);
+        TriangleSoA triangles = TriangleSoA.fromMesh(positions, sequentialIndices(count), count);
+        for (int r = 0; r < 500; r++) {
+            float ox = (float) rnd.nextDouble(-8.0, 8.0);
+            float oy = (float) rnd.nextDouble(-8.0, 8.0);
+            float oz = (float) rnd.nextDouble(-8.0, 8.0);
+            float[] target = r % 5 == 0 ? triangleCentroid(positions, 5) : triangleCentroid(positions, rnd.nextInt(count));
+            float dx = target[0] - ox, dy = target[1] - oy, dz = target[2] - oz;
+            float tMax = r % 7 == 0 ? 0.5f : Float.POSITIVE_INFINITY;
+            RayHit expected = new RayHit().reset(tMax);
+            for (int i = 0; i < count; i++) {
+                int b = i * 9;
+                float t = Intersectionf.intersectRayTriangle(ox, oy, oz, dx, dy, dz,
+                        positions[b], positions[b + 1], positions[b + 2], positions[b + 3], positions[b + 4], positions[b + 5],
+                        positions[b + 6], positions[b + 7], positions[b + 8], EPSILON);
+                if (t >= 0.0f && t < expected.t) {
+                    expected.t = t;
+                    expected.primitive = i;
+                }
+            }
+            for (int variant = 0; variant < 3; variant++) {
+                RayHit hit = new RayHit().reset(tMax);
+                boolean found = variant == 0
+                        ? RayTriangleKernels.intersectRayTrianglesScalar(ox, oy, oz, dx, dy, dz, triangles, count, EPSILON, hit)
+                        : variant == 1
+                        ? RayTriangleKernels.intersectRayTrianglesSimd(ox, oy, oz, dx, dy, dz, triangles, count, EPSILON, hit)
+                        : RayTriangleKernels.intersectRayTriangles(ox, oy, oz, dx, dy, dz, triangles, count, EPSILON, hit);
+                assertEquals(expected.hasHit(), found);
+                assertEquals(expected.primitive, hit.primitive);
+                assertEquals(expected.t, hit.t);
+                if (found) {
+                    assertTrue(hit.u >= 0.0f && hit.v >= 0.0f && hit.u + hit.v <= 1.0f);
+                    float[] p = positions;
+                    int b = hit.primitive * 9;
+                    float w = 1.0f - hit.u - hit.v;
+                    assertEquals(ox + hit.t * dx, w * p[b] + hit.u * p[b + 3] + hit.v * p[b + 6], 1.0e-3f);
+                    assertEquals(oy + hit.t * dy, w * p[b + 1] + hit.u * p[b + 4] + hit.v * p[b + 7], 1.0e-3f);
+                }
+            }
+        }
+    }
+
+    @Test
+    void packetHitsMatchSingleRays() {
+        SplittableRandom rnd = new SplittableRandom(53);
+        int count = 96;
+        float[] positions = randomTriangles(rnd, count);
+        TriangleSoA triangles = TriangleSoA.fromMesh(positions, sequentialIndices(count), count);
+        for (int width : new int[] {4, 8}) {
+            for (int trial = 0; trial < 40; trial++) {
+                RayPacket scalarPacket = new RayPacket(width);
+                RayPacket simdPacket = new RayPacket(width);
+                int lanes = 1 + rnd.nextInt(width);
+                float[][] rays = new float[lanes][];
+                for (int lane = 0; lane < lanes; lane++) {
+                    float[] target = triangleCentroid(positions, rnd.nextInt(count));
+                    float ox = (float) rnd.nextDouble(-8.0, 8.0);
+                    float oy = (float) rnd.nextDouble(-8.0, 8.0);
+                    float oz = 12.0f;
+                    rays[lane] = new float[] {ox, oy, oz, target[0] - ox, target[1] - oy, target[2] - oz};
+                    scalarPacket.add(ox, oy, oz, rays[lane][3], rays[lane][4], rays[lane][5], Float.POSITIVE_INFINITY);
+                    simdPacket.add(ox, oy, oz, rays[lane][3], rays[lane][4], rays[lane][5], Float.POSITIVE_INFINITY);
+                }
+                int active = scalarPacket.activeMask() & ~(trial % 3 == 0 ? 1 : 0);
+                RayHit[] scalarHits = newHits(width);
+                RayHit[] simdHits = newHits(width);
+                int scalarUpdated = 0;
+                int simdUpdated = 0;
+                for (int i = 0; i < count; i++) {
+                    scalarUpdated |= RayTriangleKernels.intersectPacketTriangleScalar(scalarPacket, active, triangles, i, EPSILON, scalarHits);
+                    simdUpdated |= RayTriangleKernels.intersectPacketTriangleSimd(simdPacket, active, triangles, i, EPSILON, simdHits);
+                }
+                assertEquals(scalarUpdated, simdUpdated);
+                for (int lane = 0; lane < lanes; lane++) {
+                    RayHit single = new RayHit();
+                    boolean found = (active & 1 << lane) != 0 && RayTriangleKernels.intersectRayTrianglesScalar(
+                            rays[lane][0], rays[lane][1], rays[lane][2], rays[lane][3], rays[lane][4], rays[lane][5],
+                            triangles, count, EPSILON, single);
+                    assertEquals(found, (scalarUpdated & 1 << lane) != 0);
+                    for (RayHit hit : new RayHit[] {scalarHits[lane], simdHits[lane]}) {
+                        assertEquals(single.primitive, hit.primitive);
+                        assertEquals(single.t, hit.t);
+                        assertEquals(single.u, hit.u);
+                        assertEquals(single.v, hit.v);
+                    }
+                    assertEquals(single.t, scalarPacket.tMax(lane));
+                    assertEquals(single.t, simdPacket.tMax(lane));
+                }
+            }
+        }
+    }
+
+    @Test
+    void soaStoresEdgesAndRejectsInvalidArguments() {
+        TriangleSoA triangles = TriangleSoA.fromMesh(new float[] {1, 2, 3, 4, 6, 8, 0, 0, 0}, new int[] {0, 1, 2}, 1);
+        assertEquals(1, triangles.size());
+        assertEquals(3.0f, triangles.edge1X[0]);
+        assertEquals(5.0f, triangles.edge1Z[0]);
+        assertEquals(-2.0f, triangles.edge2Y[0]);
+        assertThrows(IllegalArgumentException.class, () -> TriangleSoA.fromMesh(new float[9], new int[3], 2));
+        RayPacket packet = new RayPacket(4);
+        packet.add(0, 0, 0, 0, 0, 1, Float.POSITIVE_INFINITY);
+        assertThrows(IllegalArgumentException.class,
+                () -> RayTriangleKernels.intersectPacketTriangle(packet, 1, triangles, 0, EPSILON, new RayHit[0]));
+        RayHit hit = new RayHit();
+        assertFalse(RayTriangleKernels.intersectRayTriangles(0, 0, 0, 0, 0, 1, triangles, 0, EPSILON, hit));
+        assertFalse(hit.hasHit());
+    }
+
+    private static float[] randomTriangles(SplittableRandom rnd, int count) {
+        float[] positions = new float[count * 9];
+        for (int t = 0; t < count; t++) {
+            float cx = (float) rnd.nextDouble(-6.0, 6.0);
+            float cy = (float) rnd.nextDouble(-6.0, 6.0);
+            float cz = (float) rnd.nextDouble(-6.0, 6.0);
+            for (int k = 0; k < 9; k++) {
+                positions[t * 9 + k] = (k % 3 == 0 ? cx : k % 3 == 1 ? cy : cz) + (float) rnd.nextDouble(-2.5, 2.5);
+            }
+        }
+        return positions;
+    }
+
+    private static int[] sequentialIndices(int count) {
+        int[] indices = new int[count * 3];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    private static float[] triangleCentroid(float[] positions, int t) {
+        int b = t * 9;
+        return new float[] {
+                (positions[b] + positions[b + 3] + positions[b + 6]) / 3.0f,
+                (positions[b + 1] + positions[b + 4] + positions[b + 7]) / 3.0f,
+                (positions[b + 2] + positions[b + 5] + positions[b + 8]) / 3.0f};
+    }
+
+    private static RayHit[] newHits(int width) {
+        RayHit[] hits = new RayHit[width];
+        for (int i = 0; i < width; i++) {
+            hits[i] = new RayHit();
+        }
+        return hits;
+    }
+}
@@ -6,8 +6,10 @@
 package org.dynamisengine.vectrix.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.Test;
 import org.dynamisengine.vectrix.affine.DualQuatTransformf;
@@ -15,6 +17,7 @@ import org.dynamisengine.vectrix.affine.RigidTransformf;
 import org.dynamisengine.vectrix.core.Quaternionf;
 import org.dynamisengine.vectrix.core.Vector3f;
 import org.dynamisengine.vectrix.soa.DualQuatSoA;
+import org.dynamisengine.vectrix.soa.SkinningJobScheduler;
 import org.dynamisengine.vectrix.soa.SkinningKernels;
 import org.dynamisengine.vectrix.soa.TransformSoA;
 
@@ -177,6 +180,136 @@ class SkinningKernelsTest {
         }
     }
 
+    @Test
+    void dualQuatSoAScalarAndSimdForcedAreBitIdentical() {
+        Fixture f = Fixture.create(133, 4242);
+        flipOddJointsAndZeroSomeWeights(f);
+        float[] sx = new float[f.vertices];
+        float[] sy = new float[f.vertices];
+        float[] sz = new float[f.vertices];
+        float[] vx = new float[f.vertices];
+        float[] vy = new float[f.vertices];
+        float[] vz = new float[f.vertices];
+        SkinningKernels.skinDualQuat4SoAScalar(f.dqs, f.j0, f.j1, f.j2, f.j3, f.w0, f.w1, f.w2, f.w3, f.inX, f.inY, f.inZ, sx, sy, sz, f.vertices);
+        SkinningKernels.skinDualQuat4SoASimd(f.dqs, f.j0, f.j1, f.j2, f.j3, f.w0, f.w1, f.w2, f.w3, f.inX, f.inY, f.inZ, vx, vy, vz, f.vertices);
+        for (int i = 0; i < f.vertices; i++) {
+            assertEquals(Float.floatToRawIntBits(sx[i]), Float.floatToRawIntBits(vx[i]));
+            assertEquals(Float.floatToRawIntBits(sy[i]), Float.floatToRawIntBits(vy[i]));
+            assertEquals(Float.floatToRawIntBits(sz[i]), Float.floatToRawIntBits(vz[i]));
+        }
+        assertEquals(f.inX[5], vx[5], 0.0f);
+        assertEquals(f.inZ[5], vz[5], 0.0f);
+    }
+
+    @Test
+    void dualQuatPackedScalarAndVectorAreBitIdentical() {
+        Fixture f = Fixture.create(257, 515);
+        flipOddJointsAndZeroSomeWeights(f);
+        float[] sx = new float[f.vertices];
+        float[] sy = new float[f.vertices];
+        float[] sz = new float[f.vertices];
+        float[] vx = new float[f.vertices];
+        float[] vy = new float[f.vertices];
+        float[] vz = new float[f.vertices];
+        SkinningKernels.skinDualQuat4Scalar(f.dqs, f.jointIndices, f.jointWeights, f.inX, f.inY, f.inZ, sx, sy, sz, f.vertices);
+        SkinningKernels.skinDualQuat4Vector(f.dqs, f.jointIndices, f.jointWeights, f.inX, f.inY, f.inZ, vx, vy, vz, f.vertices);
+        for (int i = 0; i < f.vertices; i++) {
+            assertEquals(Float.floatToRawIntBits(sx[i]), Float.floatToRawIntBits(vx[i]));
+            assertEquals(Float.floatToRawIntBits(sy[i]), Float.floatToRawIntBits(vy[i]));
+            assertEquals(Float.floatToRawIntBits(sz[i]), Float.floatToRawIntBits(vz[i]));
+        }
+    }
+
+    @Test
+    void compressedInfluenceStreamsMatchFullPrecisionPalette() {
+        Fixture f = Fixture.create(197, 616);
+        float[] palette = new float[Fixture.JOINTS * 12];
+        SkinningKernels.buildRigidMatrixPalette12(f.joints, palette, Fixture.JOINTS);
+        byte[] joints8 = new byte[f.vertices * 4];
+        short[] joints16 = new short[f.vertices * 4];
+        int[] weights = new int[f.vertices];
+        SkinningKernels.packJointIndices8(f.jointIndices, joints8, f.vertices);
+        SkinningKernels.packJointIndices16(f.jointIndices, joints16, f.vertices);
+        SkinningKernels.packWeightsUnorm8x4(f.jointWeights, weights, f.vertices);
+
+        float[] refX = new float[f.vertices];
+        float[] refY = new float[f.vertices];
+        float[] refZ = new float[f.vertices];
+        float[] ax = new float[f.vertices];
+        float[] ay = new float[f.vertices];
+        float[] az = new float[f.vertices];
+        float[] bx = new float[f.vertices];
+        float[] by = new float[f.vertices];
+        float[] bz = new float[f.vertices];
+        SkinningKernels.skinLbs4MatrixPalette(palette, f.jointIndices, f.jointWeights, f.inX, f.inY, f.inZ, refX, refY, refZ, f.vertices);
+        SkinningKernels.skinLbs4MatrixPalette(palette, joints8, weights, f.inX, f.inY, f.inZ, ax, ay, az, f.vertices);
+        SkinningKernels.skinLbs4MatrixPalette(palette, joints16, weights, f.inX, f.inY, f.inZ, bx, by, bz, f.vertices);
+        for (int i = 0; i < f.vertices; i++) {
+            int w = weights[i];
+            assertEquals(255, (w & 0xFF) + ((w >>> 8) & 0xFF) + ((w >>> 16) & 0xFF) + (w >>> 24));
+            assertEquals(refX[i], ax[i], 2E-2f);
+            assertEquals(refY[i], ay[i], 2E-2f);
+            assertEquals(refZ[i], az[i], 2E-2f);
+            assertEquals(ax[i], bx[i], 0.0f);
+            assertEquals(ay[i], by[i], 0.0f);
+            assertEquals(az[i], bz[i], 0.0f);
+        }
+    }
+
+    @Test
+    void compressedInfluenceScalarAndVectorAreBitIdentical() {
+        Fixture f = Fixture.create(261, 717);
+        float[] palette = new float[Fixture.JOINTS * 12];
+        SkinningKernels.buildRigidMatrixPalette12(f.joints, palette, Fixture.JOINTS);
+        short[] joints16 = new short[f.vertices * 4];
+        int[] weights = new int[f.vertices];
+        SkinningKernels.packJointIndices16(f.jointIndices, joints16, f.vertices);
+        SkinningKernels.packWeightsUnorm8x4(f.jointWeights, weights, f.vertices);
+        float[] sx = new float[f.vertices];
+        float[] sy = new float[f.vertices];
+        float[] sz = new float[f.vertices];
+        float[] vx = new float[f.vertices];
+        float[] vy = new float[f.vertices];
+        float[] vz = new float[f.vertices];
+        SkinningKernels.skinLbs4MatrixPaletteScalar(palette, joints16, weights, f.inX, f.inY, f.inZ, sx, sy, sz, f.vertices);
+        SkinningKernels.skinLbs4MatrixPaletteVector(palette, joints16, weights, f.inX, f.inY, f.inZ, vx, vy, vz, f.vertices);
+        for (int i = 0; i < f.vertices; i++) {
+            assertEquals(Float.floatToRawIntBits(sx[i]), Float.floatToRawIntBits(vx[i]));
+            assertEquals(Float.floatToRawIntBits(sy[i]), Float.floatToRawIntBits(vy[i]));
+            assertEquals(Float.floatToRawIntBits(sz[i]), Float.floatToRawIntBits(vz[i]));
+        }
+    }
+
+    @Test
+    void packJointIndices8RejectsOutOfRangeIndex() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SkinningKernels.packJointIndices8(new int[] {0, 1, 256, 2}, new byte[4], 1));
+    }
+
+    private static void flipOddJointsAndZeroSomeWeights(Fixture f) {
+        for (int j = 1; j < Fixture.JOINTS; j += 2) {
+            f.dqs.rx[j] = -f.dqs.rx[j];
+            f.dqs.ry[j] = -f.dqs.ry[j];
+            f.dqs.rz[j] = -f.dqs.rz[j];
+            f.dqs.rw[j] = -f.dqs.rw[j];
+            f.dqs.dx[j] = -f.dqs.dx[j];
+            f.dqs.dy[j] = -f.dqs.dy[j];
+            f.dqs.dz[j] = -f.dqs.dz[j];
+            f.dqs.dw[j] = -f.dqs.dw[j];
+        }
+        for (int i = 5; i < f.vertices; i += 37) {
+            f.w0[i] = 0.0f;
+            f.w1[i] = 0.0f;
+            f.w2[i] = 0.0f;
+            f.w3[i] = 0.0f;
+            int base = i << 2;
+            f.jointWeights[base] = 0.0f;
+            f.jointWeights[base + 1] = 0.0f;
+            f.jointWeights[base + 2] = 0.0f;
+            f.jointWeights[base + 3] = 0.0f;
+        }
+    }
+
     @Test
     void lbsMatrixPaletteKernelMatchesPackedLbs() {
         Fixture f = Fixture.create(193, 77);
@@ -199,6 +332,65 @@ class SkinningKernelsTest {
         }
     }
 
+    @Test
+    void schedulerPacksAndSplitsMeshesLikeSerialSkinning() {
+        int[] sizes = {3, 1, 0, 17, 40, 2, 2113, 5, 700, 9};
+        Fixture[] meshes = new Fixture[sizes.length];
+        float[][] palettes = new float[sizes.length][Fixture.JOINTS * 12];
+        float[][] out = new float[sizes.length * 6][];
+        SkinningJobScheduler scheduler = new SkinningJobScheduler(2);
+        for (int m = 0; m < sizes.length; m++) {
+            Fixture f = meshes[m] = Fixture.create(sizes[m], 900 + m);
+            SkinningKernels.buildRigidMatrixPalette12(f.joints, palettes[m], Fixture.JOINTS);
+            for (int k = 0; k < 6; k++) {
+                out[m * 6 + k] = new float[f.vertices];
+            }
+            SkinningKernels.skinLbs4MatrixPalette(palettes[m], f.jointIndices, f.jointWeights, f.inX, f.inY, f.inZ,
+                    out[m * 6], out[m * 6 + 1], out[m * 6 + 2], f.vertices);
+            int start = m == 8 ? 100 : 0;
+            scheduler.add(palettes[m], f.jointIndices, f.jointWeights, f.inX, f.inY, f.inZ,
+                    out[m * 6 + 3], out[m * 6 + 4], out[m * 6 + 5], start, f.vertices);
+        }
+        assertEquals(sizes.length, scheduler.jobCount());
+        assertEquals(2890 - 100, scheduler.totalVertices());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            scheduler.run(pool, 256);
+        } finally {
+            pool.shutdown();
+        }
+        for (int m = 0; m < sizes.length; m++) {
+            int start = m == 8 ? 100 : 0;
+            for (int i = 0; i < sizes[m]; i++) {
+                for (int k = 0; k < 3; k++) {
+                    float expected = i < start ? 0.0f : out[m * 6 + k][i];
+                    assertEquals(expected, out[m * 6 + 3 + k][i], 0.0f);
+                }
+            }
+        }
+
+        scheduler.clear();
+        assertEquals(0, scheduler.jobCount());
+        assertEquals(0, scheduler.totalVertices());
+        scheduler.run();
+    }
+
+    @Test
+    void schedulerRejectsInvalidRanges() {
+        Fixture f = Fixture.create(8, 5);
+        float[] palette = new float[Fixture.JOINTS * 12];
+        float[] ox = new float[8];
+        float[] oy = new float[8];
+        float[] oz = new float[8];
+        SkinningJobScheduler scheduler = new SkinningJobScheduler();
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduler.add(palette, f.jointIndices, f.jointWeights, f.inX, f.inY, f.inZ, ox, oy, oz, 4, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduler.add(palette, f.jointIndices, f.jointWeights, f.inX, f.inY, f.inZ, ox, oy, oz, 0, 9));
+        assertEquals(0, scheduler.jobCount());
+    }
+
     private static final class Fixture {
         static final int JOINTS = 8;
         final int vertices;
@@ -5,15 +5,30 @@
  */
 package org.dynamisengine.vectrix.test;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 import org.dynamisengine.vectrix.affine.DualQuatTransformf;
+import org.dynamisengine.vectrix.affine.NativePackedAffineArray;
+import org.dynamisengine.vectrix.affine.PackedAffineArray;
+import org.dynamisengine.vectrix.affine.PackedAffineKernels;
+import org.dynamisengine.vectrix.affine.TransformKernels;
 import org.dynamisengine.vectrix.affine.Transformf;
+import org.dynamisengine.vectrix.core.MathMode;
+import org.dynamisengine.vectrix.core.Matrix4f;
 import org.dynamisengine.vectrix.core.Quaternionf;
 import org.dynamisengine.vectrix.core.Vector3f;
+import org.dynamisengine.vectrix.geometry.CullingKernels;
+import org.dynamisengine.vectrix.experimental.KernelConfig;
+import org.dynamisengine.vectrix.geometry.FrustumPlanes;
 import org.dynamisengine.vectrix.soa.AABBSoA;
 import org.dynamisengine.vectrix.soa.DualQuatSoA;
+import org.dynamisengine.vectrix.soa.NativeAABBSoA;
+import org.dynamisengine.vectrix.soa.NativeFloatColumns;
+import org.dynamisengine.vectrix.soa.NativeTransformSoA;
 import org.dynamisengine.vectrix.soa.TransformSoA;
 
 class SoAStorageTest {
@@ -80,4 +95,160 @@ class SoAStorageTest {
         assertEquals(5.0f, soa.maxY[1], 0.0f);
         assertEquals(6.0f, soa.maxZ[1], 0.0f);
     }
+
+    @Test
+    void nativeTransformSoARoundTripsThroughHeapStorage() {
+        NativeTransformSoA nat = new NativeTransformSoA(5);
+        assertEquals(5, nat.size());
+        assertEquals(1.0f, nat.get(NativeTransformSoA.QW, 4), 0.0f);
+        assertEquals(1.0f, nat.get(NativeTransformSoA.SZ, 4), 0.0f);
+        assertTrue(nat.buffer().isDirect());
+        for (int c = 0; c < nat.columnCount(); c++) {
+            assertEquals(0, nat.columnOffsetBytes(c) % NativeFloatColumns.ALIGNMENT_BYTES);
+        }
+
+        Transformf in = new Transformf(
+                new Vector3f(3.0f, -2.0f, 4.0f),
+                new Quaternionf().rotationXYZ(0.1f, 0.2f, -0.3f),
+                new Vector3f(2.0f, 2.5f, 3.0f));
+        TransformSoA heap = new TransformSoA(5);
+        heap.set(3, in);
+        nat.copyFrom(heap, 0, 5);
+        Transformf out = nat.get(3, new Transformf());
+        assertEquals(in.translation.y, out.translation.y, 0.0f);
+        assertEquals(in.rotation.z, out.rotation.z, 0.0f);
+        assertEquals(in.scale.x, out.scale.x, 0.0f);
+
+        nat.set(1, in);
+        TransformSoA back = new TransformSoA(5);
+        nat.copyTo(back, 1, 1);
+        assertEquals(in.translation.x, back.tx[1], 0.0f);
+        assertEquals(in.rotation.w, back.qw[1], 0.0f);
+        assertEquals(0.0f, back.tx[3], 0.0f);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new NativeAABBSoA(-3));
+        assertEquals("columnLength must not be negative: -3", e.getMessage());
+    }
+
+    @Test
+    void nativeAabbSoACullingMatchesHeapCulling() {
+        Matrix4f vp = new Matrix4f().perspective((float) java.lang.Math.toRadians(60.0), 1.0f, 0.1f, 100.0f);
+        FrustumPlanes fp = new FrustumPlanes().set(vp, false);
+        int count = 203;
+        AABBSoA heap = new AABBSoA(count);
+        for (int i = 0; i < count; i++) {
+            float x = (i % 17) * 2.0f - 16.0f;
+            float y = (i % 5) * 1.5f - 3.0f;
+            float z = -(i % 23) * 2.0f + 1.0f;
+            heap.set(i, x, y, z, x + 0.5f + (i % 3), y + 0.5f, z + 1.0f);
+        }
+        NativeAABBSoA nat = new NativeAABBSoA(count);
+        nat.copyFrom(heap, 0, count);
+        int[] expected = new int[count];
+        int[] actual = new int[count];
+        CullingKernels.frustumCullAabbBatchScalar(fp, heap, expected, count);
+        CullingKernels.frustumCullAabbBatch(fp, nat, actual, count);
+        assertArrayEquals(expected, actual);
+        CullingKernels.frustumCullAabbBatchScalar(fp, nat, actual, count);
+        assertArrayEquals(expected, actual);
+        CullingKernels.frustumCullAabbBatchSimd(fp, nat, actual, count);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void nativeTransformKernelsMatchHeapKernels() {
+        int count = 77;
+        TransformSoA parents = new TransformSoA(count);
+        TransformSoA locals = new TransformSoA(count);
+        Transformf t = new Transformf();
+        for (int i = 0; i < count; i++) {
+            t.translation.set(i * 0.5f, -i * 0.25f, 3.0f - i);
+            t.rotation.rotationXYZ(i * 0.03f, -i * 0.05f, i * 0.07f);
+            t.scale.set(1.0f + i * 0.01f, 0.5f + i * 0.02f, 2.0f);
+            parents.set(i, t);
+            t.translation.set(-i * 0.75f, i * 0.125f, 1.0f);
+            t.rotation.rotationXYZ(-i * 0.02f, i * 0.04f, 0.3f);
+            t.scale.set(1.5f, 1.0f - i * 0.005f, 0.75f);
+            locals.set(i, t);
+        }
+        NativeTransformSoA nativeParents = new NativeTransformSoA(count);
+        NativeTransformSoA nativeLocals = new NativeTransformSoA(count);
+        NativeTransformSoA nativeOut = new NativeTransformSoA(count);
+        nativeParents.copyFrom(parents, 0, count);
+        nativeLocals.copyFrom(locals, 0, count);
+        TransformSoA expected = new TransformSoA(count);
+        TransformSoA actual = new TransformSoA(count);
+
+        TransformKernels.composeBatchScalarFast(parents, locals, expected, count);
+        TransformKernels.composeBatchScalarFast(nativeParents, nativeLocals, nativeOut, count);
+        nativeOut.copyTo(actual, 0, count);
+        assertTransformsEqual(expected, actual, count);
+        TransformKernels.composeBatchVectorFast(nativeParents, nativeLocals, nativeOut, count);
+        nativeOut.copyTo(actual, 0, count);
+        assertTransformsEqual(expected, actual, count);
+        TransformKernels.composeBatch(parents, locals, expected, count);
+        TransformKernels.composeBatch(nativeParents, nativeLocals, nativeOut, count);
+        nativeOut.copyTo(actual, 0, count);
+        assertTransformsEqual(expected, actual, count);
+
+        TransformKernels.interpolateBatchScalarFast(parents, locals, 0.3f, expected, count);
+        TransformKernels.interpolateBatchScalarFast(nativeParents, nativeLocals, 0.3f, nativeOut, count);
+        nativeOut.copyTo(actual, 0, count);
+        assertTransformsEqual(expected, actual, count);
+        TransformKernels.interpolateBatchVectorFast(nativeParents, nativeLocals, 0.3f, nativeOut, count);
+        nativeOut.copyTo(actual, 0, count);
+        assertTransformsEqual(expected, actual, count);
+
+        MathMode prev = KernelConfig.mathMode();
+        try {
+            KernelConfig.setMathMode(MathMode.STRICT);
+            TransformKernels.composeBatch(parents, locals, expected, count);
+            TransformKernels.composeBatch(nativeParents, nativeLocals, nativeOut, count);
+            nativeOut.copyTo(actual, 0, count);
+            assertTransformsEqual(expected, actual, count);
+            TransformKernels.interpolateBatch(parents, locals, 0.6f, expected, count);
+            TransformKernels.interpolateBatch(nativeParents, nativeLocals, 0.6f, nativeOut, count);
+            nativeOut.copyTo(actual, 0, count);
+            assertTransformsEqual(expected, actual, count);
+        } finally {
+            KernelConfig.setMathMode(prev);
+        }
+    }
+
+    private static void assertTransformsEqual(TransformSoA expected, TransformSoA actual, int count) {
+        for (int i = 0; i < count; i++) {
+            assertEquals(expected.tx[i], actual.tx[i], 0.0f);
+            assertEquals(expected.ty[i], actual.ty[i], 0.0f);
+            assertEquals(expected.tz[i], actual.tz[i], 0.0f);
+            assertEquals(expected.qx[i], actual.qx[i], 0.0f);
+            assertEquals(expected.qy[i], actual.qy[i], 0.0f);
+            assertEquals(expected.qz[i], actual.qz[i], 0.0f);
+            assertEquals(expected.qw[i], actual.qw[i], 0.0f);
+            assertEquals(expected.sx[i], actual.sx[i], 0.0f);
+            assertEquals(expected.sy[i], actual.sy[i], 0.0f);
+            assertEquals(expected.sz[i], actual.sz[i], 0.0f);
+        }
+    }
+
+    @Test
+    void uploadIntoNativePackedAffineMatchesHeapUpload() {
+        int count = 7;
+        PackedAffineArray packed = new PackedAffineArray(count);
+        float[] raw = packed.raw();
+        for (int i = 0; i < raw.length; i++) {
+            raw[i] = i * 0.25f - 3.0f;
+        }
+        int[] order = {6, 0, 5, 1, 4, 2, 3};
+        float[] heapUpload = new float[count * PackedAffineArray.STRIDE_FLOATS];
+        NativePackedAffineArray nativeUpload = new NativePackedAffineArray(count);
+        PackedAffineKernels.uploadPackedAffine(packed, order, heapUpload, count);
+        PackedAffineKernels.uploadPackedAffine(packed, order, nativeUpload, count);
+        assertEquals(count, nativeUpload.size());
+        for (int i = 0; i < heapUpload.length; i++) {
+            assertEquals(heapUpload[i], nativeUpload.get(0, i), 0.0f);
+        }
+        PackedAffineArray back = new PackedAffineArray(count);
+        nativeUpload.copyTo(back, 0, count);
+        assertEquals(raw[order[2] * 12 + 7], back.raw()[2 * 12 + 7], 0.0f);
+    }
 }
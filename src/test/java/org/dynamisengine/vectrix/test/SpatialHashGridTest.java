@@ -0,0 +1,153 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.dynamisengine.vectrix.hash.SpatialHashGrid;
+
+class SpatialHashGridTest {
+    @Test
+    void queriesMatchBruteForceUnderInsertMoveAndRemove() {
+        SplittableRandom rnd = new SplittableRandom(83);
+        int capacity = 600;
+        SpatialHashGrid grid = new SpatialHashGrid(2.5f);
+        float[] x = new float[capacity], y = new float[capacity], z = new float[capacity];
+        boolean[] live = new boolean[capacity];
+        int[] out = new int[capacity];
+        for (int step = 0; step < 6000; step++) {
+            int id = rnd.nextInt(capacity);
+            float px = (float) rnd.nextDouble(-40.0, 40.0);
+            float py = (float) rnd.nextDouble(-40.0, 40.0);
+            float pz = (float) rnd.nextDouble(-5.0, 5.0);
+            if (!live[id]) {
+                grid.insert(id, px, py, pz);
+                live[id] = true;
+            } else if (rnd.nextInt(3) == 0) {
+                assertTrue(grid.remove(id));
+                assertFalse(grid.remove(id));
+                live[id] = false;
+            } else {
+                // Small moves mostly stay in their cell, large ones cross cells.
+                if (rnd.nextBoolean()) {
+                    px = x[id] + 0.1f;
+                    py = y[id];
+                    pz = z[id];
+                }
+                grid.move(id, px, py, pz);
+            }
+            x[id] = px;
+            y[id] = py;
+            z[id] = pz;
+            if (step % 50 != 0) {
+                continue;
+            }
+            float qx = (float) rnd.nextDouble(-40.0, 40.0), qy = (float) rnd.nextDouble(-40.0, 40.0), qz = 0.0f;
+            float radius = step % 500 == 0 ? 200.0f : (float) rnd.nextDouble(0.0, 9.0);
+            int found = grid.queryRadius(qx, qy, qz, radius, out);
+            int[] expected = new int[capacity];
+            int n = 0;
+            for (int i = 0; i < capacity; i++) {
+                float dx = x[i] - qx, dy = y[i] - qy, dz = z[i] - qz;
+                if (live[i] && dx * dx + dy * dy + dz * dz <= radius * radius) {
+                    expected[n++] = i;
+                }
+            }
+            assertArrayEquals(Arrays.copyOf(expected, n), sorted(out, found));
+
+            float minX = qx - radius, minY = qy - 3.0f, minZ = -1.0f, maxX = qx + radius, maxY = qy + 3.0f, maxZ = 1.0f;
+            found = grid.queryAabb(minX, minY, minZ, maxX, maxY, maxZ, out);
+            n = 0;
+            for (int i = 0; i < capacity; i++) {
+                if (live[i] && x[i] >= minX && x[i] <= maxX && y[i] >= minY && y[i] <= maxY && z[i] >= minZ && z[i] <= maxZ) {
+                    expected[n++] = i;
+                }
+            }
+            assertArrayEquals(Arrays.copyOf(expected, n), sorted(out, found));
+        }
+        int liveCount = 0;
+        for (boolean b : live) {
+            liveCount += b ? 1 : 0;
+        }
+        assertEquals(liveCount, grid.size());
+    }
+
+    @Test
+    void statisticsTrackOccupiedCells() {
+        SpatialHashGrid grid = new SpatialHashGrid(1.0f);
+        assertEquals(0.0f, grid.loadFactor());
+        assertEquals(0.0f, grid.averageProbeLength());
+        assertEquals(0, grid.maxProbeLength());
+        for (int i = 0; i < 1000; i++) {
+            grid.insert(i, i % 10 + 0.5f, i / 10 % 10 + 0.5f, i / 100 + 0.5f);
+        }
+        grid.insert(1000, 0.25f, 0.25f, 0.25f);
+        assertEquals(1001, grid.size());
+        assertEquals(1000, grid.cellCount());
+        assertEquals(1000.0f / grid.tableCapacity(), grid.loadFactor());
+        assertTrue(grid.loadFactor() <= 0.5f);
+        assertTrue(grid.averageProbeLength() >= 1.0f && grid.averageProbeLength() < 3.0f);
+        assertTrue(grid.maxProbeLength() >= 1);
+        for (int i = 0; i < 1000; i += 2) {
+            grid.remove(i);
+        }
+        assertEquals(501, grid.cellCount());
+        assertEquals(0.25f, grid.x(1000));
+        grid.clear();
+        assertEquals(0, grid.size());
+        assertEquals(0, grid.cellCount());
+        assertEquals(0, grid.queryRadius(0, 0, 0, 100.0f, new int[4]));
+    }
+
+    @Test
+    void truncatesOutputAndRejectsInvalidArguments() {
+        SpatialHashGrid grid = new SpatialHashGrid(4.0f, 8);
+        for (int i = 0; i < 5; i++) {
+            grid.insert(i * 3, i, 0.0f, 0.0f);
+        }
+        int[] small = new int[2];
+        assertEquals(5, grid.queryRadius(2.0f, 0.0f, 0.0f, 3.0f, small));
+        assertEquals(5, grid.queryAabb(Float.NEGATIVE_INFINITY, -1.0f, -1.0f, Float.POSITIVE_INFINITY, 1.0f, 1.0f, small));
+        assertThrows(IllegalArgumentException.class, () -> new SpatialHashGrid(0.0f));
+        assertThrows(IllegalArgumentException.class, () -> new SpatialHashGrid(Float.NaN));
+        assertThrows(IllegalArgumentException.class, () -> grid.insert(-1, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> grid.insert(3, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> grid.move(1, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> grid.x(1));
+    }
+
+    private static int[] sorted(int[] out, int found) {
+        int[] ids = Arrays.copyOf(out, found);
+        Arrays.sort(ids);
+        return ids;
+    }
+}
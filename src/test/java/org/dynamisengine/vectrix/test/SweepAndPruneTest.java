@@ -0,0 +1,187 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.dynamisengine.vectrix.geometry.Intersectionf;
+import org.dynamisengine.vectrix.geometry.SweepAndPrune;
+import org.dynamisengine.vectrix.soa.AABBSoA;
+
+class SweepAndPruneTest {
+    @Test
+    void incrementalPairsMatchBruteForceAcrossFrames() {
+        SplittableRandom rnd = new SplittableRandom(71);
+        int count = 400;
+        AABBSoA boxes = new AABBSoA(count);
+        float[] velocity = new float[count * 3];
+        for (int i = 0; i < count; i++) {
+            float x = (float) rnd.nextDouble(-30.0, 30.0);
+            float y = (float) rnd.nextDouble(-30.0, 30.0);
+            float z = (float) rnd.nextDouble(-30.0, 30.0);
+            // Integer coordinates make touching boxes and shared endpoint values common.
+            if (i % 4 == 0) {
+                x = (float) java.lang.Math.rint(x);
+                y = (float) java.lang.Math.rint(y);
+            }
+            boxes.set(i, x, y, z, x + 1.0f + rnd.nextInt(3), y + 1.0f + rnd.nextInt(3), z + 1.0f + rnd.nextInt(3));
+            for (int k = 0; k < 3; k++) {
+                velocity[i * 3 + k] = i % 4 == 0 ? rnd.nextInt(3) - 1 : (float) rnd.nextDouble(-0.6, 0.6);
+            }
+        }
+        SweepAndPrune sap = new SweepAndPrune();
+        Set<Long> tracked = new HashSet<>();
+        for (int frame = 0; frame < 40; frame++) {
+            if (frame > 0) {
+                for (int i = 0; i < count; i++) {
+                    float dx = velocity[i * 3], dy = velocity[i * 3 + 1], dz = velocity[i * 3 + 2];
+                    boxes.set(i, boxes.minX[i] + dx, boxes.minY[i] + dy, boxes.minZ[i] + dz,
+                            boxes.maxX[i] + dx, boxes.maxY[i] + dy, boxes.maxZ[i] + dz);
+                }
+            }
+            sap.update(boxes, count);
+            applyChanges(sap, tracked);
+            Set<Long> expected = bruteForce(boxes, count);
+            assertEquals(expected, tracked);
+            assertEquals(expected.size(), sap.pairCount());
+            int[] pairs = new int[sap.pairCount() * 2];
+            assertEquals(sap.pairCount(), sap.copyPairs(pairs));
+            Set<Long> copied = new HashSet<>();
+            for (int p = 0; p < pairs.length; p += 2) {
+                assertTrue(pairs[p] < pairs[p + 1]);
+                copied.add(key(pairs[p], pairs[p + 1]));
+            }
+            assertEquals(expected, copied);
+        }
+        long sample = tracked.iterator().next();
+        assertTrue(sap.containsPair((int) sample, (int) (sample >>> 32)));
+    }
+
+    @Test
+    void parallelAxisSortReportsSamePairsInSameOrder() {
+        SplittableRandom rnd = new SplittableRandom(73);
+        int count = 3000;
+        AABBSoA boxes = new AABBSoA(count);
+        for (int i = 0; i < count; i++) {
+            float x = (float) rnd.nextDouble(-50.0, 50.0);
+            float y = (float) rnd.nextDouble(-50.0, 50.0);
+            float z = (float) rnd.nextDouble(-50.0, 50.0);
+            boxes.set(i, x, y, z, x + 2.0f, y + 2.0f, z + 2.0f);
+        }
+        SweepAndPrune serial = new SweepAndPrune();
+        SweepAndPrune parallel = new SweepAndPrune();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int frame = 0; frame < 10; frame++) {
+                for (int i = 0; i < count; i++) {
+                    float dx = (float) rnd.nextDouble(-0.5, 0.5);
+                    boxes.set(i, boxes.minX[i] + dx, boxes.minY[i], boxes.minZ[i] - dx,
+                            boxes.maxX[i] + dx, boxes.maxY[i], boxes.maxZ[i] - dx);
+                }
+                serial.update(boxes, count);
+                parallel.update(boxes, count, pool);
+                assertEquals(serial.pairCount(), parallel.pairCount());
+                assertArrayEquals(java.util.Arrays.copyOf(serial.addedPairs(), serial.addedPairCount() * 2),
+                        java.util.Arrays.copyOf(parallel.addedPairs(), parallel.addedPairCount() * 2));
+                assertArrayEquals(java.util.Arrays.copyOf(serial.removedPairs(), serial.removedPairCount() * 2),
+                        java.util.Arrays.copyOf(parallel.removedPairs(), parallel.removedPairCount() * 2));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void rebuildReportsDifferenceWhenObjectsAreDroppedOrTeleported() {
+        AABBSoA boxes = new AABBSoA(4);
+        boxes.set(0, 0, 0, 0, 2, 2, 2);
+        boxes.set(1, 1, 1, 1, 3, 3, 3);
+        boxes.set(2, 2, 2, 2, 4, 4, 4);
+        boxes.set(3, 10, 10, 10, 11, 11, 11);
+        SweepAndPrune sap = new SweepAndPrune();
+        Set<Long> tracked = new HashSet<>();
+        sap.update(boxes, 4);
+        applyChanges(sap, tracked);
+        assertEquals(bruteForce(boxes, 4), tracked);
+        assertEquals(3, sap.addedPairCount());
+
+        sap.update(boxes, 4);
+        assertEquals(0, sap.addedPairCount());
+        assertEquals(0, sap.removedPairCount());
+
+        boxes.set(3, 1.5f, 1.5f, 1.5f, 2.5f, 2.5f, 2.5f);
+        boxes.set(0, 20, 20, 20, 21, 21, 21);
+        sap.rebuild(boxes, 4, null);
+        applyChanges(sap, tracked);
+        assertEquals(bruteForce(boxes, 4), tracked);
+        assertTrue(sap.containsPair(2, 1));
+        assertThrows(IllegalArgumentException.class, () -> sap.copyPairs(new int[0]));
+
+        sap.update(boxes, 2);
+        applyChanges(sap, tracked);
+        assertEquals(bruteForce(boxes, 2), tracked);
+        assertFalse(sap.containsPair(1, 2));
+
+        assertThrows(IllegalArgumentException.class, () -> sap.update(boxes, 5));
+    }
+
+    private static void applyChanges(SweepAndPrune sap, Set<Long> tracked) {
+        int[] removed = sap.removedPairs();
+        for (int p = 0; p < sap.removedPairCount() * 2; p += 2) {
+            assertTrue(tracked.remove(key(removed[p], removed[p + 1])));
+        }
+        int[] added = sap.addedPairs();
+        for (int p = 0; p < sap.addedPairCount() * 2; p += 2) {
+            assertTrue(added[p] < added[p + 1]);
+            assertTrue(tracked.add(key(added[p], added[p + 1])));
+        }
+    }
+
+    private static Set<Long> bruteForce(AABBSoA b, int count) {
+        Set<Long> pairs = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                if (Intersectionf.testAabAab(b.minX[i], b.minY[i], b.minZ[i], b.maxX[i], b.maxY[i], b.maxZ[i],
+                        b.minX[j], b.minY[j], b.minZ[j], b.maxX[j], b.maxY[j], b.maxZ[j])) {
+                    pairs.add(key(i, j));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private static long key(int a, int b) {
+        return (long) a << 32 | b;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.dynamisengine.vectrix.affine.TransformKernels;
+import org.dynamisengine.vectrix.affine.Transformf;
+import org.dynamisengine.vectrix.core.MathMode;
+import org.dynamisengine.vectrix.experimental.KernelConfig;
+import org.dynamisengine.vectrix.soa.TransformDirtyTracker;
+import org.dynamisengine.vectrix.soa.TransformHierarchy;
+import org.dynamisengine.vectrix.soa.TransformSoA;
+
+class TransformHierarchyTest {
+    @Test
+    void slotsAreBreadthFirstWithContiguousLevels() {
+        int[] parents = {3, -1, 3, 1, 0, -1, 5};
+        TransformHierarchy h = new TransformHierarchy(parents);
+        assertEquals(7, h.size());
+        assertEquals(4, h.levelCount());
+        assertEquals(0, h.levelStart(0));
+        assertEquals(2, h.levelEnd(0));
+        assertEquals(4, h.levelEnd(1));
+        assertEquals(6, h.levelEnd(2));
+        assertEquals(7, h.levelEnd(3));
+        for (int slot = 0; slot < h.size(); slot++) {
+            int node = h.order()[slot];
+            assertEquals(slot, h.slotOf()[node]);
+            int parentSlot = h.parents()[slot];
+            if (parents[node] < 0) {
+                assertEquals(-1, parentSlot);
+            } else {
+                assertEquals(parents[node], h.order()[parentSlot]);
+                assertTrue(parentSlot < slot);
+            }
+        }
+    }
+
+    @Test
+    void rejectsCyclesAndInvalidParents() {
+        assertThrows(IllegalArgumentException.class, () -> new TransformHierarchy(new int[] {-1, 2, 1}));
+        assertThrows(IllegalArgumentException.class, () -> new TransformHierarchy(new int[] {-1, 1}));
+        assertThrows(IllegalArgumentException.class, () -> new TransformHierarchy(new int[] {-1, 5}));
+    }
+
+    @Test
+    void composeHierarchyMatchesRecursiveObjectCompose() {
+        composeHierarchyMatchesRecursiveObjectCompose(MathMode.FAST);
+        composeHierarchyMatchesRecursiveObjectCompose(MathMode.STRICT);
+    }
+
+    private static void composeHierarchyMatchesRecursiveObjectCompose(MathMode mode) {
+        int count = 700;
+        SplittableRandom rnd = new SplittableRandom(31L);
+        int[] permutation = new int[count];
+        for (int i = 0; i < count; i++) {
+            permutation[i] = i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int t = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = t;
+        }
+        int[] parents = new int[count];
+        for (int i = 0; i < count; i++) {
+            parents[permutation[i]] = i < 4 ? -1 : permutation[rnd.nextInt(i)];
+        }
+        Transformf[] locals = new Transformf[count];
+        for (int i = 0; i < count; i++) {
+            locals[i] = randomTransform(rnd);
+        }
+
+        TransformHierarchy h = new TransformHierarchy(parents);
+        TransformSoA localSoA = new TransformSoA(count);
+        TransformSoA worldSoA = new TransformSoA(count);
+        for (int slot = 0; slot < count; slot++) {
+            localSoA.set(slot, locals[h.order()[slot]]);
+        }
+        MathMode prev = KernelConfig.mathMode();
+        try {
+            KernelConfig.setMathMode(mode);
+            TransformKernels.composeHierarchy(h, localSoA, worldSoA);
+        } finally {
+            KernelConfig.setMathMode(prev);
+        }
+
+        Transformf[] expected = new Transformf[count];
+        Transformf actual = new Transformf();
+        for (int node = 0; node < count; node++) {
+            Transformf e = worldOf(node, parents, locals, expected);
+            worldSoA.get(h.slotOf()[node], actual);
+            assertEquals(e.translation.x, actual.translation.x, 1E-3f);
+            assertEquals(e.translation.y, actual.translation.y, 1E-3f);
+            assertEquals(e.translation.z, actual.translation.z, 1E-3f);
+            assertEquals(e.rotation.x, actual.rotation.x, 1E-4f);
+            assertEquals(e.rotation.y, actual.rotation.y, 1E-4f);
+            assertEquals(e.rotation.z, actual.rotation.z, 1E-4f);
+            assertEquals(e.rotation.w, actual.rotation.w, 1E-4f);
+            assertEquals(e.scale.x, actual.scale.x, 1E-5f);
+            assertEquals(e.scale.y, actual.scale.y, 1E-5f);
+            assertEquals(e.scale.z, actual.scale.z, 1E-5f);
+        }
+    }
+
+    @Test
+    void dirtyTrackerRecomposesOnlyChangedSubtrees() {
+        int count = 500;
+        SplittableRandom rnd = new SplittableRandom(77L);
+        int[] parents = new int[count];
+        for (int i = 0; i < count; i++) {
+            parents[i] = i < 3 ? -1 : rnd.nextInt(i);
+        }
+        TransformHierarchy h = new TransformHierarchy(parents);
+        TransformSoA locals = new TransformSoA(count);
+        for (int slot = 0; slot < count; slot++) {
+            locals.set(slot, randomTransform(rnd));
+        }
+        TransformSoA reference = new TransformSoA(count);
+        TransformSoA incremental = new TransformSoA(count);
+        TransformDirtyTracker tracker = new TransformDirtyTracker(h);
+        tracker.markAllDirty();
+        assertEquals(count, tracker.update(locals, incremental));
+        assertEquals(1, tracker.changedRangeCount());
+
+        for (int frame = 0; frame < 4; frame++) {
+            boolean[] expectedChanged = new boolean[count];
+            for (int k = 0; k < 3; k++) {
+                int slot = rnd.nextInt(count);
+                locals.set(slot, randomTransform(rnd));
+                tracker.markDirty(slot);
+                markSubtree(h, slot, expectedChanged);
+            }
+            int recomposed = tracker.update(locals, incremental);
+            TransformKernels.composeHierarchy(h, locals, reference);
+
+            boolean[] reported = new boolean[count];
+            int reportedCount = 0;
+            int previousEnd = -1;
+            for (int r = 0; r < tracker.changedRangeCount(); r++) {
+                int start = tracker.changedRangeStart(r);
+                int end = tracker.changedRangeEnd(r);
+                assertTrue(start > previousEnd);
+                previousEnd = end;
+                for (int slot = start; slot < end; slot++) {
+                    reported[slot] = true;
+                    reportedCount++;
+                }
+            }
+            assertEquals(recomposed, reportedCount);
+            for (int slot = 0; slot < count; slot++) {
+                assertEquals(expectedChanged[slot], reported[slot]);
+                assertTrue(!tracker.isDirty(slot));
+                assertEquals(Float.floatToRawIntBits(reference.tx[slot]), Float.floatToRawIntBits(incremental.tx[slot]));
+                assertEquals(Float.floatToRawIntBits(reference.ty[slot]), Float.floatToRawIntBits(incremental.ty[slot]));
+                assertEquals(Float.floatToRawIntBits(reference.tz[slot]), Float.floatToRawIntBits(incremental.tz[slot]));
+                assertEquals(Float.floatToRawIntBits(reference.qx[slot]), Float.floatToRawIntBits(incremental.qx[slot]));
+                assertEquals(Float.floatToRawIntBits(reference.qw[slot]), Float.floatToRawIntBits(incremental.qw[slot]));
+                assertEquals(Float.floatToRawIntBits(reference.sz[slot]), Float.floatToRawIntBits(incremental.sz[slot]));
+            }
+        }
+    }
+
+    private static void markSubtree(TransformHierarchy h, int slot, boolean[] marked) {
+        marked[slot] = true;
+        for (int c = h.childStart(slot); c < h.childEnd(slot); c++) {
+            assertEquals(slot, h.parents()[c]);
+            markSubtree(h, c, marked);
+        }
+    }
+
+    private static Transformf worldOf(int node, int[] parents, Transformf[] locals, Transformf[] cache) {
+        if (cache[node] == null) {
+            int p = parents[node];
+            cache[node] = p < 0 ? new Transformf(locals[node])
+                    : Transformf.compose(worldOf(p, parents, locals, cache), locals[node], new Transformf());
+        }
+        return cache[node];
+    }
+
+    private static Transformf randomTransform(SplittableRandom rnd) {
+        Transformf t = new Transformf();
+        t.translation.set((float) rnd.nextDouble(-2.0, 2.0), (float) rnd.nextDouble(-2.0, 2.0), (float) rnd.nextDouble(-2.0, 2.0));
+        t.rotation.identity().rotateXYZ((float) rnd.nextDouble(-1.0, 1.0), (float) rnd.nextDouble(-1.0, 1.0), (float) rnd.nextDouble(-1.0, 1.0));
+        t.scale.set((float) rnd.nextDouble(0.9, 1.1), (float) rnd.nextDouble(0.9, 1.1), (float) rnd.nextDouble(0.9, 1.1));
+        return t;
+    }
+}
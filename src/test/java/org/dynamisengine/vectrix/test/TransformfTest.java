@@ -32,6 +32,8 @@ import java.util.SplittableRandom;
 import org.junit.jupiter.api.Test;
 import org.dynamisengine.vectrix.experimental.KernelConfig;
 import org.dynamisengine.vectrix.core.MathMode;
+import org.dynamisengine.vectrix.affine.PackedAffineArray;
+import org.dynamisengine.vectrix.affine.PackedAffineKernels;
 import org.dynamisengine.vectrix.affine.TransformKernels;
 import org.dynamisengine.vectrix.affine.Transformf;
 import org.dynamisengine.vectrix.core.Matrix4x3f;
@@ -111,7 +113,36 @@ class TransformfTest {
         }
     }
 
-    private static void randomTransform(SplittableRandom rnd, Transformf t) {
+    @Test
+    void composeBatchVectorPathIsBitIdenticalToScalarPath() {
+        int count = 133;
+        SplittableRandom rnd = new SplittableRandom(7L);
+        TransformSoA parents = new TransformSoA(count);
+        TransformSoA locals = new TransformSoA(count);
+        TransformSoA scalar = new TransformSoA(count);
+        TransformSoA vector = new TransformSoA(count);
+        Transformf t = new Transformf();
+        for (int i = 0; i < count; i++) {
+            parents.set(i, randomTransform(rnd, t));
+            locals.set(i, randomTransform(rnd, t));
+        }
+        TransformKernels.composeBatchScalarFast(parents, locals, scalar, count);
+        TransformKernels.composeBatchVectorFast(parents, locals, vector, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(Float.floatToRawIntBits(scalar.tx[i]), Float.floatToRawIntBits(vector.tx[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.ty[i]), Float.floatToRawIntBits(vector.ty[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.tz[i]), Float.floatToRawIntBits(vector.tz[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.qx[i]), Float.floatToRawIntBits(vector.qx[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.qy[i]), Float.floatToRawIntBits(vector.qy[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.qz[i]), Float.floatToRawIntBits(vector.qz[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.qw[i]), Float.floatToRawIntBits(vector.qw[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.sx[i]), Float.floatToRawIntBits(vector.sx[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.sy[i]), Float.floatToRawIntBits(vector.sy[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.sz[i]), Float.floatToRawIntBits(vector.sz[i]));
+        }
+    }
+
+    private static Transformf randomTransform(SplittableRandom rnd, Transformf t) {
         t.translation.set((float) (rnd.nextDouble() * 20.0 - 10.0), (float) (rnd.nextDouble() * 20.0 - 10.0),
                 (float) (rnd.nextDouble() * 20.0 - 10.0));
         t.rotation.identity().rotateAxis((float) (rnd.nextDouble() * java.lang.Math.PI * 2.0),
@@ -119,6 +150,7 @@ class TransformfTest {
                 (float) (rnd.nextDouble() * 2.0 - 1.0)).normalize();
         t.scale.set(0.5f + (float) rnd.nextDouble() * 2.0f, 0.5f + (float) rnd.nextDouble() * 2.0f,
                 0.5f + (float) rnd.nextDouble() * 2.0f);
+        return t;
     }
 
     @Test
@@ -187,4 +219,99 @@ class TransformfTest {
             KernelConfig.setSimdEnabled(prevSimd);
         }
     }
+
+    @Test
+    void interpolateBatchMatchesPerObjectInterpolation() {
+        int count = 71;
+        SplittableRandom rnd = new SplittableRandom(11L);
+        TransformSoA previous = new TransformSoA(count);
+        TransformSoA current = new TransformSoA(count);
+        TransformSoA out = new TransformSoA(count);
+        Transformf[] prevT = new Transformf[count];
+        Transformf[] curT = new Transformf[count];
+        for (int i = 0; i < count; i++) {
+            prevT[i] = randomTransform(rnd, new Transformf());
+            curT[i] = randomTransform(rnd, new Transformf());
+            if ((i & 1) == 0) {
+                curT[i].rotation.set(-curT[i].rotation.x, -curT[i].rotation.y, -curT[i].rotation.z, -curT[i].rotation.w);
+            }
+            previous.set(i, prevT[i]);
+            current.set(i, curT[i]);
+        }
+        float alpha = 0.375f;
+        TransformKernels.interpolateBatch(previous, current, alpha, out, count);
+
+        PackedAffineArray packed = new PackedAffineArray(count);
+        PackedAffineArray expectedPacked = new PackedAffineArray(count);
+        TransformKernels.interpolateToPackedAffine(previous, current, alpha, packed, count);
+        Transformf[] expected = new Transformf[count];
+        Transformf got = new Transformf();
+        for (int i = 0; i < count; i++) {
+            expected[i] = prevT[i].interpolateFast(curT[i], alpha, new Transformf());
+            out.get(i, got);
+            assertEquals(expected[i].translation.x, got.translation.x, 1E-5f);
+            assertEquals(expected[i].translation.z, got.translation.z, 1E-5f);
+            assertEquals(expected[i].scale.y, got.scale.y, 1E-5f);
+            float sign = expected[i].rotation.w * got.rotation.w >= 0.0f ? 1.0f : -1.0f;
+            assertEquals(expected[i].rotation.x, sign * got.rotation.x, 1E-5f);
+            assertEquals(expected[i].rotation.y, sign * got.rotation.y, 1E-5f);
+            assertEquals(expected[i].rotation.z, sign * got.rotation.z, 1E-5f);
+            assertEquals(expected[i].rotation.w, sign * got.rotation.w, 1E-5f);
+        }
+        PackedAffineKernels.trsToPackedAffineBatch(expected, expectedPacked, count);
+        for (int i = 0; i < packed.raw().length; i++) {
+            assertEquals(expectedPacked.raw()[i], packed.raw()[i], 1E-4f);
+        }
+    }
+
+    @Test
+    void interpolateBatchTakesShortestRotationPath() {
+        TransformSoA previous = new TransformSoA(1);
+        TransformSoA current = new TransformSoA(1);
+        TransformSoA out = new TransformSoA(1);
+        previous.qy[0] = (float) java.lang.Math.sin(0.1);
+        previous.qw[0] = (float) java.lang.Math.cos(0.1);
+        current.qy[0] = (float) -java.lang.Math.sin(0.3);
+        current.qw[0] = (float) -java.lang.Math.cos(0.3);
+        TransformKernels.interpolateBatch(previous, current, 0.5f, out, 1);
+        assertEquals(java.lang.Math.sin(0.2), out.qy[0], 1E-5);
+        assertEquals(java.lang.Math.cos(0.2), out.qw[0], 1E-5);
+    }
+
+    @Test
+    void interpolateBatchVectorPathIsBitIdenticalToScalarPath() {
+        int count = 133;
+        SplittableRandom rnd = new SplittableRandom(13L);
+        TransformSoA previous = new TransformSoA(count);
+        TransformSoA current = new TransformSoA(count);
+        TransformSoA scalar = new TransformSoA(count);
+        TransformSoA vector = new TransformSoA(count);
+        Transformf t = new Transformf();
+        for (int i = 0; i < count; i++) {
+            previous.set(i, randomTransform(rnd, t));
+            current.set(i, randomTransform(rnd, t));
+        }
+        TransformKernels.interpolateBatchScalarFast(previous, current, 0.6f, scalar, count);
+        TransformKernels.interpolateBatchVectorFast(previous, current, 0.6f, vector, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(Float.floatToRawIntBits(scalar.tx[i]), Float.floatToRawIntBits(vector.tx[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.ty[i]), Float.floatToRawIntBits(vector.ty[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.tz[i]), Float.floatToRawIntBits(vector.tz[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.qx[i]), Float.floatToRawIntBits(vector.qx[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.qy[i]), Float.floatToRawIntBits(vector.qy[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.qz[i]), Float.floatToRawIntBits(vector.qz[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.qw[i]), Float.floatToRawIntBits(vector.qw[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.sx[i]), Float.floatToRawIntBits(vector.sx[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.sy[i]), Float.floatToRawIntBits(vector.sy[i]));
+            assertEquals(Float.floatToRawIntBits(scalar.sz[i]), Float.floatToRawIntBits(vector.sz[i]));
+        }
+
+        PackedAffineArray packedScalar = new PackedAffineArray(count);
+        PackedAffineArray packedVector = new PackedAffineArray(count);
+        TransformKernels.interpolateToPackedAffineScalarFast(previous, current, 0.6f, packedScalar, count);
+        TransformKernels.interpolateToPackedAffineVectorFast(previous, current, 0.6f, packedVector, count);
+        for (int i = 0; i < packedScalar.raw().length; i++) {
+            assertEquals(Float.floatToRawIntBits(packedScalar.raw()[i]), Float.floatToRawIntBits(packedVector.raw()[i]));
+        }
+    }
 }
@@ -0,0 +1,337 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2024 Vectrix
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.dynamisengine.vectrix.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.dynamisengine.vectrix.affine.PackedAffineArray;
+import org.dynamisengine.vectrix.affine.PackedAffineKernels;
+import org.dynamisengine.vectrix.affine.Transformf;
+import org.dynamisengine.vectrix.geometry.InstanceBvh;
+import org.dynamisengine.vectrix.geometry.Intersectionf;
+import org.dynamisengine.vectrix.geometry.RayHit;
+import org.dynamisengine.vectrix.geometry.RayPacket;
+import org.dynamisengine.vectrix.geometry.TriangleBvh;
+
+class TriangleBvhTest {
+    @Test
+    void closestHitMatchesBruteForce() {
+        SplittableRandom rnd = new SplittableRandom(31);
+        int triangles = 800;
+        float[] positions = new float[triangles * 9];
+        int[] indices = new int[triangles * 3];
+        for (int t = 0; t < triangles; t++) {
+            float cx = (float) rnd.nextDouble(-20.0, 20.0);
+            float cy = (float) rnd.nextDouble(-20.0, 20.0);
+            float cz = (float) rnd.nextDouble(-20.0, 20.0);
+            for (int k = 0; k < 9; k++) {
+                positions[t * 9 + k] = (k % 3 == 0 ? cx : k % 3 == 1 ? cy : cz) + (float) rnd.nextDouble(-2.0, 2.0);
+            }
+            indices[t * 3] = t * 3;
+            indices[t * 3 + 1] = t * 3 + 1;
+            indices[t * 3 + 2] = t * 3 + 2;
+        }
+        TriangleBvh blas = new TriangleBvh(positions, indices, triangles);
+        RayHit hit = new RayHit();
+        int hits = 0;
+        for (int q = 0; q < 500; q++) {
+            float ox = (float) rnd.nextDouble(-30.0, 30.0);
+            float oy = (float) rnd.nextDouble(-30.0, 30.0);
+            float oz = (float) rnd.nextDouble(-30.0, 30.0);
+            float dx = -ox + (float) rnd.nextDouble(-10.0, 10.0);
+            float dy = -oy + (float) rnd.nextDouble(-10.0, 10.0);
+            float dz = -oz + (float) rnd.nextDouble(-10.0, 10.0);
+            float expectedT = Float.POSITIVE_INFINITY;
+            int expected = -1;
+            for (int t = 0; t < triangles; t++) {
+                float d = intersect(positions, t * 9, ox, oy, oz, dx, dy, dz);
+                if (d >= 0.0f && d < expectedT) {
+                    expectedT = d;
+                    expected = t;
+                }
+            }
+            boolean found = blas.intersectRay(ox, oy, oz, dx, dy, dz, hit.reset(Float.POSITIVE_INFINITY));
+            assertEquals(expected >= 0, found);
+            assertEquals(found, blas.testRay(ox, oy, oz, dx, dy, dz, Float.POSITIVE_INFINITY));
+            if (found) {
+                hits++;
+                assertEquals(expected, hit.primitive);
+                assertEquals(expectedT, hit.t, 1E-4f * (1.0f + expectedT));
+                int o = hit.primitive * 9;
+                float w = 1.0f - hit.u - hit.v;
+                for (int axis = 0; axis < 3; axis++) {
+                    float p = w * positions[o + axis] + hit.u * positions[o + 3 + axis] + hit.v * positions[o + 6 + axis];
+                    float r = axis == 0 ? ox + hit.t * dx : axis == 1 ? oy + hit.t * dy : oz + hit.t * dz;
+                    assertEquals(r, p, 1E-3f);
+                }
+                assertFalse(blas.testRay(ox, oy, oz, dx, dy, dz, hit.t * 0.999f));
+            }
+        }
+        assertTrue(hits > 100);
+    }
+
+    @Test
+    void raysThroughSharedEdgesAndVerticesNeverLeak() {
+        int n = 16;
+        float[] positions = new float[(n + 1) * (n + 1) * 3];
+        int[] indices = new int[n * n * 6];
+        SplittableRandom rnd = new SplittableRandom(5);
+        for (int y = 0; y <= n; y++) {
+            for (int x = 0; x <= n; x++) {
+                int v = (y * (n + 1) + x) * 3;
+                positions[v] = x * 0.1f;
+                positions[v + 1] = y * 0.1f;
+                positions[v + 2] = (float) rnd.nextDouble(-0.01, 0.01);
+            }
+        }
+        int k = 0;
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                int a = y * (n + 1) + x;
+                int b = a + 1;
+                int c = a + n + 1;
+                int d = c + 1;
+                indices[k++] = a;
+                indices[k++] = b;
+                indices[k++] = d;
+                indices[k++] = a;
+                indices[k++] = d;
+                indices[k++] = c;
+            }
+        }
+        TriangleBvh blas = new TriangleBvh(positions, indices, n * n * 2);
+        RayHit hit = new RayHit();
+        for (int y = 1; y < 2 * n; y++) {
+            for (int x = 1; x < 2 * n; x++) {
+                float px = x * 0.05f;
+                float py = y * 0.05f;
+                assertTrue(blas.intersectRay(px, py, 1.0f, 0.0f, 0.0f, -1.0f, hit.reset(Float.POSITIVE_INFINITY)), "miss at " + px + "," + py);
+                assertTrue(blas.intersectRay(px - 0.3f, py - 0.7f, 1.0f, 0.3f, 0.7f, -1.0f, hit.reset(Float.POSITIVE_INFINITY)));
+            }
+        }
+    }
+
+    @Test
+    void packetHitsMatchSingleRays() {
+        SplittableRandom rnd = new SplittableRandom(13);
+        int triangles = 600;
+        float[] positions = new float[triangles * 9];
+        int[] indices = new int[triangles * 3];
+        for (int t = 0; t < triangles; t++) {
+            float cx = (float) rnd.nextDouble(-20.0, 20.0);
+            float cy = (float) rnd.nextDouble(-20.0, 20.0);
+            float cz = (float) rnd.nextDouble(-20.0, 20.0);
+            for (int k = 0; k < 9; k++) {
+                positions[t * 9 + k] = (k % 3 == 0 ? cx : k % 3 == 1 ? cy : cz) + (float) rnd.nextDouble(-2.0, 2.0);
+            }
+            indices[t * 3] = t * 3;
+            indices[t * 3 + 1] = t * 3 + 1;
+            indices[t * 3 + 2] = t * 3 + 2;
+        }
+        TriangleBvh blas = new TriangleBvh(positions, indices, triangles);
+        RayHit single = new RayHit();
+        int hits = 0;
+        for (int width = 4; width <= 8; width += 4) {
+            RayPacket packet = new RayPacket(width);
+            RayHit[] packetHits = new RayHit[width];
+            for (int i = 0; i < width; i++) {
+                packetHits[i] = new RayHit();
+            }
+            for (int q = 0; q < 300; q++) {
+                boolean coherent = q % 3 != 0;
+                int size = 1 + rnd.nextInt(width);
+                float ox = (float) rnd.nextDouble(-30.0, 30.0);
+                float oy = (float) rnd.nextDouble(-30.0, 30.0);
+                float oz = (float) rnd.nextDouble(-30.0, 30.0);
+                float jitter = coherent ? 1.0f : 40.0f;
+                float[] dirs = new float[size * 3];
+                float[] limits = new float[size];
+                packet.clear();
+                for (int i = 0; i < size; i++) {
+                    dirs[i * 3] = -ox + (float) rnd.nextDouble(-jitter, jitter);
+                    dirs[i * 3 + 1] = -oy + (float) rnd.nextDouble(-jitter, jitter);
+                    dirs[i * 3 + 2] = -oz + (float) rnd.nextDouble(-jitter, jitter);
+                    limits[i] = q % 5 == 0 ? (float) rnd.nextDouble(0.5, 1.5) : Float.POSITIVE_INFINITY;
+                    packet.add(ox, oy, oz, dirs[i * 3], dirs[i * 3 + 1], dirs[i * 3 + 2], limits[i]);
+                    packetHits[i].reset(Float.POSITIVE_INFINITY);
+                }
+                int found = blas.intersectPacket(packet, packetHits);
+                assertEquals(0, found & ~packet.activeMask());
+                for (int i = 0; i < size; i++) {
+                    boolean expected = blas.intersectRay(ox, oy, oz, dirs[i * 3], dirs[i * 3 + 1], dirs[i * 3 + 2], single.reset(limits[i]));
+                    assertEquals(expected, (found & (1 << i)) != 0);
+                    if (expected) {
+                        hits++;
+                        assertEquals(single.t, packetHits[i].t);
+                        assertEquals(single.primitive, packetHits[i].primitive);
+                        assertEquals(single.u, packetHits[i].u);
+                        assertEquals(single.v, packetHits[i].v);
+                        assertEquals(single.t, packet.tMax(i));
+                    } else {
+                        assertFalse(packetHits[i].hasHit());
+                        assertEquals(limits[i], packet.tMax(i));
+                    }
+                }
+            }
+            packet.clear();
+            assertThrows(IllegalArgumentException.class, () -> packet.set(0, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 1.0f));
+        }
+        assertTrue(hits > 200);
+    }
+
+    @Test
+    void packetBoxTestMatchesAcrossBackendsAndMasks() {
+        SplittableRandom rnd = new SplittableRandom(21);
+        for (int width = 4; width <= 8; width += 4) {
+            RayPacket packet = new RayPacket(width);
+            for (int q = 0; q < 2000; q++) {
+                packet.clear();
+                for (int i = 0; i < width; i++) {
+                    packet.add((float) rnd.nextDouble(-5.0, 5.0), (float) rnd.nextDouble(-5.0, 5.0), (float) rnd.nextDouble(-5.0, 5.0),
+                            q % 7 == 0 ? 0.0f : (float) rnd.nextDouble(-1.0, 1.0), (float) rnd.nextDouble(-1.0, 1.0),
+                            (float) rnd.nextDouble(-1.0, 1.0), q % 4 == 0 ? (float) rnd.nextDouble(0.0, 8.0) : Float.POSITIVE_INFINITY);
+                }
+                float minX = (float) rnd.nextDouble(-3.0, 2.0), minY = (float) rnd.nextDouble(-3.0, 2.0), minZ = (float) rnd.nextDouble(-3.0, 2.0);
+                float maxX = minX + (float) rnd.nextDouble(0.0, 2.0), maxY = minY + (float) rnd.nextDouble(0.0, 2.0), maxZ = minZ + (float) rnd.nextDouble(0.0, 2.0);
+                int active = rnd.nextInt(1 << width);
+                int scalar = packet.testAabScalar(minX, minY, minZ, maxX, maxY, maxZ, active);
+                assertEquals(0, scalar & ~active);
+                assertEquals(scalar, packet.testAabSimd(minX, minY, minZ, maxX, maxY, maxZ, active));
+                assertEquals(scalar, packet.testAab(minX, minY, minZ, maxX, maxY, maxZ, active));
+            }
+        }
+        RayPacket packet = new RayPacket(4);
+        packet.add(0.0f, 0.0f, -5.0f, 0.0f, 0.0f, 1.0f, Float.POSITIVE_INFINITY);
+        packet.add(0.0f, 0.0f, -5.0f, 0.0f, 0.0f, -1.0f, Float.POSITIVE_INFINITY);
+        packet.add(0.0f, 0.0f, -5.0f, 0.0f, 0.0f, 1.0f, 3.0f);
+        packet.add(-1.0f, 0.0f, -5.0f, 0.0f, 0.0f, 1.0f, Float.POSITIVE_INFINITY);
+        assertEquals(0b1001, packet.testAab(-1.0f, -1.0f, -1.0f, 1.0f, 1.0f, 1.0f, packet.activeMask()));
+        assertEquals(0b1000, packet.testAab(-1.0f, -1.0f, -1.0f, 1.0f, 1.0f, 1.0f, 0b1110));
+        assertFalse(packet.isCoherent());
+    }
+
+    @Test
+    void instancedHitsMatchFlattenedWorldGeometry() {
+        SplittableRandom rnd = new SplittableRandom(77);
+        float[][] meshPositions = new float[3][];
+        int[][] meshIndices = new int[3][];
+        TriangleBvh[] meshes = new TriangleBvh[3];
+        for (int m = 0; m < meshes.length; m++) {
+            int triangles = 40 + 30 * m;
+            meshPositions[m] = new float[triangles * 9];
+            meshIndices[m] = new int[triangles * 3];
+            for (int i = 0; i < meshPositions[m].length; i++) {
+                meshPositions[m][i] = (float) rnd.nextDouble(-1.0, 1.0);
+            }
+            for (int i = 0; i < meshIndices[m].length; i++) {
+                meshIndices[m][i] = i;
+            }
+            meshes[m] = new TriangleBvh(meshPositions[m], meshIndices[m], triangles);
+        }
+        int instances = 200;
+        int[] instanceMesh = new int[instances];
+        Transformf[] trs = new Transformf[instances];
+        for (int i = 0; i < instances; i++) {
+            instanceMesh[i] = rnd.nextInt(meshes.length);
+            Transformf t = new Transformf();
+            t.translation.set((float) rnd.nextDouble(-30.0, 30.0), (float) rnd.nextDouble(-30.0, 30.0), (float) rnd.nextDouble(-30.0, 30.0));
+            t.rotation.identity().rotateXYZ((float) rnd.nextDouble(-3.0, 3.0), (float) rnd.nextDouble(-3.0, 3.0), (float) rnd.nextDouble(-3.0, 3.0));
+            t.scale.set((float) rnd.nextDouble(0.5, 3.0), (float) rnd.nextDouble(0.5, 3.0), (float) rnd.nextDouble(0.5, 3.0));
+            trs[i] = t;
+        }
+        PackedAffineArray transforms = new PackedAffineArray(instances);
+        PackedAffineKernels.trsToPackedAffineBatch(trs, transforms, instances);
+        InstanceBvh scene = new InstanceBvh().build(meshes, instanceMesh, transforms, instances);
+        assertInstancedMatchesFlattened(scene, meshPositions, instanceMesh, transforms, rnd);
+
+        for (int i = 0; i < instances; i++) {
+            trs[i].translation.add((float) rnd.nextDouble(-2.0, 2.0), (float) rnd.nextDouble(-2.0, 2.0), (float) rnd.nextDouble(-2.0, 2.0));
+        }
+        PackedAffineKernels.trsToPackedAffineBatch(trs, transforms, instances);
+        scene.refit();
+        assertInstancedMatchesFlattened(scene, meshPositions, instanceMesh, transforms, rnd);
+    }
+
+    private static void assertInstancedMatchesFlattened(InstanceBvh scene, float[][] meshPositions, int[] instanceMesh,
+            PackedAffineArray transforms, SplittableRandom rnd) {
+        int instances = instanceMesh.length;
+        float[][] world = new float[instances][];
+        float[] m = transforms.raw();
+        for (int i = 0; i < instances; i++) {
+            float[] local = meshPositions[instanceMesh[i]];
+            float[] w = world[i] = new float[local.length];
+            int o = transforms.offsetOf(i);
+            for (int v = 0; v < local.length; v += 3) {
+                float x = local[v], y = local[v + 1], z = local[v + 2];
+                w[v] = m[o] * x + m[o + 4] * y + m[o + 8] * z + m[o + 3];
+                w[v + 1] = m[o + 1] * x + m[o + 5] * y + m[o + 9] * z + m[o + 7];
+                w[v + 2] = m[o + 2] * x + m[o + 6] * y + m[o + 10] * z + m[o + 11];
+            }
+        }
+        RayHit hit = new RayHit();
+        int hits = 0;
+        for (int q = 0; q < 300; q++) {
+            float ox = (float) rnd.nextDouble(-50.0, 50.0);
+            float oy = (float) rnd.nextDouble(-50.0, 50.0);
+            float oz = (float) rnd.nextDouble(-50.0, 50.0);
+            float dx = (float) rnd.nextDouble(-30.0, 30.0) - ox;
+            float dy = (float) rnd.nextDouble(-30.0, 30.0) - oy;
+            float dz = (float) rnd.nextDouble(-30.0, 30.0) - oz;
+            float expectedT = Float.POSITIVE_INFINITY;
+            int expectedInstance = -1;
+            int expectedPrimitive = -1;
+            for (int i = 0; i < instances; i++) {
+                for (int t = 0; t < world[i].length / 9; t++) {
+                    float d = intersect(world[i], t * 9, ox, oy, oz, dx, dy, dz);
+                    if (d >= 0.0f && d < expectedT) {
+                        expectedT = d;
+                        expectedInstance = i;
+                        expectedPrimitive = t;
+                    }
+                }
+            }
+            boolean found = scene.intersectRay(ox, oy, oz, dx, dy, dz, hit.reset(Float.POSITIVE_INFINITY));
+            assertEquals(expectedInstance >= 0, found);
+            assertEquals(found, scene.testRay(ox, oy, oz, dx, dy, dz, Float.POSITIVE_INFINITY));
+            if (found) {
+                hits++;
+                assertEquals(expectedInstance, hit.instance);
+                assertEquals(expectedPrimitive, hit.primitive);
+                assertEquals(expectedT, hit.t, 1E-4f * (1.0f + expectedT));
+            }
+        }
+        assertTrue(hits > 30);
+    }
+
+    private static float intersect(float[] p, int o, float ox, float oy, float oz, float dx, float dy, float dz) {
+        return Intersectionf.intersectRayTriangle(ox, oy, oz, dx, dy, dz,
+                p[o], p[o + 1], p[o + 2], p[o + 3], p[o + 4], p[o + 5], p[o + 6], p[o + 7], p[o + 8], 1E-9f);
+    }
+}